@@ -0,0 +1,93 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at <http://www.apache.org/licenses/LICENSE-2.0>
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS"
+ * BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package org.metawatch.manager.locale.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import android.content.Intent;
+import android.os.Bundle;
+
+import org.metawatch.manager.locale.bundle.BundleScrubber;
+import org.metawatch.manager.locale.bundle.PluginBundleManager;
+import org.metawatch.manager.locale.bundle.Setting;
+import org.metawatch.manager.locale.bundle.SettingParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures scrubbing, validating and parsing the plug-in Bundle of a widget fire.
+ * <p>
+ * The Bundle here is a plain map rather than a parcelled platform Bundle, so these numbers cover the plug-in's own checks, not
+ * the platform's unparcelling.
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BundleValidationBenchmark
+{
+    /*
+     * Values of com.twofortyfouram.locale.Intent.ACTION_FIRE_SETTING and EXTRA_BUNDLE, from the Locale library project
+     */
+    private static final String ACTION_FIRE_SETTING = "com.twofortyfouram.locale.intent.action.FIRE_SETTING"; //$NON-NLS-1$
+    private static final String EXTRA_BUNDLE = "com.twofortyfouram.locale.intent.extra.BUNDLE"; //$NON-NLS-1$
+
+    private Bundle mBundle;
+
+    private Intent mIntent;
+
+    /**
+     * Builds a valid widget setting.
+     */
+    @Setup
+    public void setUp()
+    {
+        mBundle = new Bundle();
+        mBundle.putInt(PluginBundleManager.BUNDLE_EXTRA_INT_VERSION_CODE, 1);
+        mBundle.putString(PluginBundleManager.BUNDLE_EXTRA_STRING_TYPE, "widget"); //$NON-NLS-1$
+        mBundle.putString(PluginBundleManager.BUNDLE_EXTRA_STRING_MESSAGE, ""); //$NON-NLS-1$
+        mBundle.putString(PluginBundleManager.BUNDLE_EXTRA_STRING_TITLE, ""); //$NON-NLS-1$
+        mBundle.putString(PluginBundleManager.BUNDLE_EXTRA_STRING_WIDGET_ID, "bench"); //$NON-NLS-1$
+        mBundle.putString(PluginBundleManager.BUNDLE_EXTRA_STRING_WIDGET_LABEL, "HOME"); //$NON-NLS-1$
+        mBundle.putString(PluginBundleManager.BUNDLE_EXTRA_STRING_WIDGET_ICON, "home"); //$NON-NLS-1$
+
+        mIntent = new Intent(ACTION_FIRE_SETTING);
+        mIntent.putExtra(EXTRA_BUNDLE, mBundle);
+    }
+
+    /**
+     * Runs {@link PluginBundleManager#isBundleValid(Bundle)}.
+     */
+    @Benchmark
+    public boolean isBundleValid()
+    {
+        return PluginBundleManager.isBundleValid(mBundle);
+    }
+
+    /**
+     * Runs {@link SettingParser#parse(Bundle)}. Every call after the first is answered from the parser's memo, as repeated fires
+     * of one setting are.
+     */
+    @Benchmark
+    public Setting parse()
+    {
+        return SettingParser.parse(mBundle).getSetting();
+    }
+
+    /**
+     * Scrubs the Intent and its Bundle, as each fire does before validating.
+     */
+    @Benchmark
+    public boolean scrub()
+    {
+        return BundleScrubber.scrub(mIntent) | BundleScrubber.scrub(mIntent.getBundleExtra(EXTRA_BUNDLE));
+    }
+}
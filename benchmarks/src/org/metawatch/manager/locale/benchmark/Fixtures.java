@@ -0,0 +1,88 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at <http://www.apache.org/licenses/LICENSE-2.0>
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS"
+ * BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package org.metawatch.manager.locale.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+
+import org.metawatch.manager.locale.widget.BmpDecoder;
+import org.metawatch.manager.locale.widget.GlyphTable;
+import org.metawatch.manager.locale.widget.MonoBitmap;
+import org.metawatch.manager.locale.widget.MonoFont;
+
+/**
+ * Inputs shared by the benchmarks.
+ */
+final class Fixtures
+{
+    /**
+     * System property naming the app's assets directory. Defaults to {@code ../assets}, relative to the benchmark module.
+     */
+    static final String ASSETS_DIR_PROPERTY = "benchmark.assets.dir"; //$NON-NLS-1$
+
+    /**
+     * Private constructor prevents instantiation
+     *
+     * @throws UnsupportedOperationException because this class cannot be instantiated.
+     */
+    private Fixtures()
+    {
+        throw new UnsupportedOperationException("This class is non-instantiable"); //$NON-NLS-1$
+    }
+
+    /**
+     * @param name file name in the app's assets directory.
+     * @return the raw contents of the asset.
+     */
+    static byte[] readAsset(final String name) throws IOException
+    {
+        final File file = new File(System.getProperty(ASSETS_DIR_PROPERTY, "../assets"), name); //$NON-NLS-1$
+        final byte[] data = new byte[(int) file.length()];
+        final FileInputStream in = new FileInputStream(file);
+        try
+        {
+            int offset = 0;
+            while (offset < data.length)
+            {
+                final int count = in.read(data, offset, data.length - offset);
+                if (count < 0)
+                {
+                    throw new IOException("unexpected end of " + file); //$NON-NLS-1$
+                }
+                offset += count;
+            }
+        }
+        finally
+        {
+            in.close();
+        }
+        return data;
+    }
+
+    /**
+     * @param name file name of a BMP in the app's assets directory.
+     * @return the decoded icon.
+     */
+    static MonoBitmap readIcon(final String name) throws IOException
+    {
+        final byte[] data = readAsset(name);
+        return BmpDecoder.decode(data, 0, data.length);
+    }
+
+    /**
+     * @return the label font the app ships, read from its glyph table asset.
+     */
+    static MonoFont readFont() throws IOException
+    {
+        return GlyphTable.read(new ByteArrayInputStream(readAsset(GlyphTable.ASSET_PATH)));
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at <http://www.apache.org/licenses/LICENSE-2.0>
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS"
+ * BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package org.metawatch.manager.locale.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import android.content.Intent;
+
+import org.metawatch.manager.locale.widget.MonoBitmap;
+import org.metawatch.manager.locale.widget.WidgetPayload;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures encoding a rendered widget into its update Intent, in each pixel format.
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PayloadBenchmark
+{
+    /**
+     * Pixel format to encode.
+     */
+    @Param(
+        { WidgetPayload.FORMAT_ARGB, WidgetPayload.FORMAT_PACKED_1BPP })
+    public String mFormat;
+
+    private MonoBitmap mBitmap;
+
+    /**
+     * Renders a checkerboard to encode.
+     */
+    @Setup
+    public void setUp()
+    {
+        mBitmap = new MonoBitmap(24, 32);
+        for (int y = 0; y < mBitmap.getHeight(); y++)
+        {
+            for (int x = 0; x < mBitmap.getWidth(); x++)
+            {
+                mBitmap.set(x, y, 0 == ((x + y) & 1));
+            }
+        }
+        mBitmap.makeReadOnly();
+    }
+
+    /**
+     * Builds the WIDGET_UPDATE Intent for a 24x32 widget.
+     */
+    @Benchmark
+    public Intent createUpdateIntent()
+    {
+        return WidgetPayload.createUpdateIntent(mBitmap, mFormat, "localeMWM_bench_24_32", "Locale Plugin Widget (24x32)", 1); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+}
@@ -0,0 +1,251 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at <http://www.apache.org/licenses/LICENSE-2.0>
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS"
+ * BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package org.metawatch.manager.locale.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.metawatch.manager.locale.widget.MonoBitmap;
+import org.metawatch.manager.locale.widget.MonoFont;
+import org.metawatch.manager.locale.widget.ParallelRenderer;
+import org.metawatch.manager.locale.widget.WidgetFingerprints;
+import org.metawatch.manager.locale.widget.WidgetLayout;
+import org.metawatch.manager.locale.widget.WidgetPayload;
+import org.metawatch.manager.locale.widget.WidgetRenderCache;
+import org.metawatch.manager.locale.widget.WidgetRenderContext;
+import org.metawatch.manager.locale.widget.WidgetStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import android.content.Intent;
+
+/**
+ * Measures a refresh the way the receiver runs it: the widgets are read from the store, those with stored pixels are sent on
+ * the calling thread, and the rest are rendered at both sizes on the render pool, checked against what was last sent, and
+ * stored again. The sender does what the receiver's does, with the same widget classes.
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RefreshBenchmark
+{
+    /**
+     * Holds the store's writes, which the app runs on its writer thread after the flush delay, outside the refresh.
+     */
+    private static final Executor NEVER = new Executor()
+    {
+        public void execute(final Runnable command)
+        {
+            // the store is reopened before every refresh
+        }
+    };
+
+    private static final WidgetRenderContext[] RENDER_CONTEXTS = WidgetRenderContext.forLayouts(WidgetLayout.SMALL, WidgetLayout.LARGE);
+
+    /**
+     * Number of widgets refreshed.
+     */
+    @Param(
+        { "1", "4", "16", "64" })
+    public int mWidgetCount;
+
+    /**
+     * Percentage of the widgets the store has no pixels for, which have to be rendered.
+     */
+    @Param(
+        { "0", "25", "100" })
+    public int mUnstoredPercent;
+
+    /**
+     * Whether every refresh starts a new render pool, as the first refresh of a process does, or one after the pool's threads
+     * have timed out. Otherwise the pool's threads are already running.
+     */
+    @Param(
+        { "false", "true" })
+    public boolean mColdPool;
+
+    private MonoBitmap[] mIcons;
+
+    private MonoFont mFont;
+
+    private File mFile;
+
+    private WidgetStore mStore;
+
+    private final WidgetRenderCache mRenderCache = new WidgetRenderCache(128);
+
+    private final WidgetFingerprints mSentWidgets = new WidgetFingerprints();
+
+    private ThreadPoolExecutor mPool;
+
+    private final ParallelRenderer.WidgetSender<Intent> mSender = new ParallelRenderer.WidgetSender<Intent>()
+    {
+        public boolean sendStored(final WidgetStore.Entry entry, final List<Intent> outbox)
+        {
+            final MonoBitmap[] bitmaps = new MonoBitmap[RENDER_CONTEXTS.length];
+            for (int i = 0; i < RENDER_CONTEXTS.length; i++)
+            {
+                final WidgetLayout layout = RENDER_CONTEXTS[i].getLayout();
+                bitmaps[i] = entry.getBitmap(layout.getWidth(), layout.getHeight());
+                if (null == bitmaps[i])
+                {
+                    return false;
+                }
+            }
+
+            for (int i = 0; i < RENDER_CONTEXTS.length; i++)
+            {
+                send(RENDER_CONTEXTS[i], entry.getId(), bitmaps[i], outbox);
+            }
+            return true;
+        }
+
+        public void render(final WidgetStore.Entry entry, final List<Intent> outbox)
+        {
+            final MonoBitmap[] bitmaps = new MonoBitmap[RENDER_CONTEXTS.length];
+            for (int i = 0; i < RENDER_CONTEXTS.length; i++)
+            {
+                final WidgetRenderContext renderContext = RENDER_CONTEXTS[i];
+                final WidgetLayout layout = renderContext.getLayout();
+                MonoBitmap bitmap = mRenderCache.get(entry.getIcon(), entry.getLabel(), layout.getWidth(), layout.getHeight());
+                if (null == bitmap)
+                {
+                    bitmap = renderContext.createTarget();
+                    renderContext.render(bitmap, mIcons[i], mFont, entry.getLabel());
+                    mRenderCache.put(entry.getIcon(), entry.getLabel(), layout.getWidth(), layout.getHeight(), bitmap);
+                }
+                bitmaps[i] = bitmap;
+                send(renderContext, entry.getId(), bitmap, outbox);
+            }
+            mStore.put(new WidgetStore.Entry(entry.getIcon(), entry.getId(), entry.getLabel(), bitmaps));
+        }
+    };
+
+    /**
+     * Loads the icons and font, writes a store of {@link #mWidgetCount} widgets and, unless the pool is cold, starts the pool.
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException
+    {
+        mIcons = new MonoBitmap[RENDER_CONTEXTS.length];
+        for (int i = 0; i < RENDER_CONTEXTS.length; i++)
+        {
+            mIcons[i] = Fixtures.readIcon(RENDER_CONTEXTS[i].getIconPath("home")); //$NON-NLS-1$
+        }
+        mFont = Fixtures.readFont();
+
+        final int unstored = mWidgetCount * mUnstoredPercent / 100;
+        mFile = File.createTempFile("widgets", ".store"); //$NON-NLS-1$ //$NON-NLS-2$
+        final WidgetStore store = new WidgetStore(mFile, 1, NEVER, 0, null);
+        for (int i = 0; i < mWidgetCount; i++)
+        {
+            final String id = "widget" + i; //$NON-NLS-1$
+            final String label = "HOME " + i; //$NON-NLS-1$
+            if (i < unstored)
+            {
+                store.put(new WidgetStore.Entry("home", id, label)); //$NON-NLS-1$
+            }
+            else
+            {
+                final MonoBitmap[] bitmaps = new MonoBitmap[RENDER_CONTEXTS.length];
+                for (int j = 0; j < RENDER_CONTEXTS.length; j++)
+                {
+                    bitmaps[j] = RENDER_CONTEXTS[j].createTarget();
+                    RENDER_CONTEXTS[j].render(bitmaps[j], mIcons[j], mFont, label);
+                }
+                store.put(new WidgetStore.Entry("home", id, label, bitmaps)); //$NON-NLS-1$
+            }
+        }
+        store.flush();
+
+        if (!mColdPool)
+        {
+            mPool = newRenderPool();
+            mPool.prestartAllCoreThreads();
+        }
+    }
+
+    /**
+     * Reopens the store and empties the render cache, so the same widgets need rendering every time.
+     */
+    @Setup(Level.Invocation)
+    public void reset() throws IOException
+    {
+        mStore = new WidgetStore(mFile, 1, NEVER, 0, null);
+        mStore.getAll();
+        mRenderCache.evictAll();
+    }
+
+    /**
+     * Stops the pool and removes the store file.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown()
+    {
+        if (null != mPool)
+        {
+            mPool.shutdown();
+        }
+        mFile.delete();
+    }
+
+    /**
+     * Refreshes every widget and collects their update Intents in store order.
+     */
+    @Benchmark
+    public List<Intent> refresh() throws IOException, InterruptedException
+    {
+        final ThreadPoolExecutor pool = mColdPool ? newRenderPool() : mPool;
+        try
+        {
+            final List<Intent> outbox = new ArrayList<Intent>();
+            ParallelRenderer.refresh(pool, mStore.getAll(), mSender, outbox);
+            return outbox;
+        }
+        finally
+        {
+            if (mColdPool)
+            {
+                pool.shutdown();
+            }
+        }
+    }
+
+    /**
+     * @return a pool set up like the receiver's render pool.
+     */
+    private static ThreadPoolExecutor newRenderPool()
+    {
+        final int threads = ParallelRenderer.getThreadCount(ParallelRenderer.MAX_THREADS);
+        final ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>());
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    private void send(final WidgetRenderContext renderContext, final String id, final MonoBitmap bitmap, final List<Intent> outbox)
+    {
+        final String widgetId = renderContext.getWidgetId(id);
+        if (mSentWidgets.shouldSend(widgetId, bitmap, WidgetPayload.FORMAT_PACKED_1BPP, true))
+        {
+            outbox.add(WidgetPayload.createUpdateIntent(bitmap, WidgetPayload.FORMAT_PACKED_1BPP, widgetId, renderContext.getDescription(), 1));
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at <http://www.apache.org/licenses/LICENSE-2.0>
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS"
+ * BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package org.metawatch.manager.locale.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.metawatch.manager.locale.widget.BmpDecoder;
+import org.metawatch.manager.locale.widget.MonoBitmap;
+import org.metawatch.manager.locale.widget.MonoFont;
+import org.metawatch.manager.locale.widget.WidgetLayout;
+import org.metawatch.manager.locale.widget.WidgetRasterizer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures the rendering core: decoding an icon asset and rasterizing each widget size.
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RenderBenchmark
+{
+    private byte[] mIconData;
+
+    private MonoBitmap mSmallIcon;
+
+    private MonoBitmap mLargeIcon;
+
+    private MonoFont mFont;
+
+    private final MonoBitmap mSmall = new MonoBitmap(WidgetLayout.SMALL.getWidth(), WidgetLayout.SMALL.getHeight());
+
+    private final MonoBitmap mLarge = new MonoBitmap(WidgetLayout.LARGE.getWidth(), WidgetLayout.LARGE.getHeight());
+
+    /**
+     * Loads the icon and font assets.
+     */
+    @Setup
+    public void setUp() throws IOException
+    {
+        mIconData = Fixtures.readAsset(WidgetLayout.LARGE.getIconPath("home")); //$NON-NLS-1$
+        mSmallIcon = Fixtures.readIcon(WidgetLayout.SMALL.getIconPath("home")); //$NON-NLS-1$
+        mLargeIcon = Fixtures.readIcon(WidgetLayout.LARGE.getIconPath("home")); //$NON-NLS-1$
+        mFont = Fixtures.readFont();
+    }
+
+    /**
+     * Decodes a 24x18 icon BMP.
+     */
+    @Benchmark
+    public MonoBitmap decodeIcon() throws IOException
+    {
+        return BmpDecoder.decode(mIconData, 0, mIconData.length);
+    }
+
+    /**
+     * Renders the 16x16 widget.
+     */
+    @Benchmark
+    public MonoBitmap renderSmall()
+    {
+        WidgetRasterizer.render(mSmall, WidgetLayout.SMALL, mSmallIcon, mFont, "HOME"); //$NON-NLS-1$
+        return mSmall;
+    }
+
+    /**
+     * Renders the 24x32 widget.
+     */
+    @Benchmark
+    public MonoBitmap renderLarge()
+    {
+        WidgetRasterizer.render(mLarge, WidgetLayout.LARGE, mLargeIcon, mFont, "HOME"); //$NON-NLS-1$
+        return mLarge;
+    }
+}
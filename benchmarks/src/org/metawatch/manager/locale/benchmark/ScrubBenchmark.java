@@ -0,0 +1,147 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at <http://www.apache.org/licenses/LICENSE-2.0>
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS"
+ * BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package org.metawatch.manager.locale.benchmark;
+
+import java.io.Serializable;
+import java.util.concurrent.TimeUnit;
+
+import android.content.Intent;
+import android.os.Bundle;
+import android.os.Parcel;
+
+import org.metawatch.manager.locale.bundle.BundleScrubber;
+import org.metawatch.manager.locale.bundle.PluginBundleManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Compares scrubbing a fire Intent with {@link BundleScrubber#scrub(Intent)} and {@link BundleScrubber#scrub(Bundle)}, as fires
+ * were handled before, against {@link BundleScrubber#scrubBundleExtra(Intent, String)}.
+ * <p>
+ * Every operation scrubs a fresh Intent whose extras are still parcelled, so unparcelling is measured, not only the scrubber's
+ * own checks. The Intent's extras and its plug-in Bundle each hold {@link #mExtraCount} unrelated strings as well as the setting.
+ * A malicious Intent also holds a Serializable of a class the platform cannot load, either in its plug-in Bundle or directly in
+ * its extras.
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ScrubBenchmark
+{
+    /*
+     * Values of com.twofortyfouram.locale.Intent.ACTION_FIRE_SETTING and EXTRA_BUNDLE, from the Locale library project
+     */
+    private static final String ACTION_FIRE_SETTING = "com.twofortyfouram.locale.intent.action.FIRE_SETTING"; //$NON-NLS-1$
+    private static final String EXTRA_BUNDLE = "com.twofortyfouram.locale.intent.extra.BUNDLE"; //$NON-NLS-1$
+
+    /**
+     * Stands in for a class private to the app that sent the Intent.
+     */
+    static final class PrivateSerializable implements Serializable
+    {
+        private static final long serialVersionUID = 1L;
+    }
+
+    /**
+     * Where the Intent carries something that cannot be unparcelled: {@code BENIGN}, {@code MALICIOUS_BUNDLE} or
+     * {@code MALICIOUS_EXTRAS}.
+     */
+    @Param(
+        { "BENIGN", "MALICIOUS_BUNDLE", "MALICIOUS_EXTRAS" })
+    public String mKind;
+
+    /**
+     * Number of unrelated extras in both the Intent's extras and its plug-in Bundle.
+     */
+    @Param(
+        { "16", "512" })
+    public int mExtraCount;
+
+    private byte[] mParcelledExtras;
+
+    /**
+     * Parcels the Intent's extras once; each operation unparcels its own copy.
+     */
+    @Setup
+    public void setUp()
+    {
+        final Bundle bundle = new Bundle();
+        bundle.putInt(PluginBundleManager.BUNDLE_EXTRA_INT_VERSION_CODE, 1);
+        bundle.putString(PluginBundleManager.BUNDLE_EXTRA_STRING_TYPE, "widget"); //$NON-NLS-1$
+        bundle.putString(PluginBundleManager.BUNDLE_EXTRA_STRING_WIDGET_ID, "bench"); //$NON-NLS-1$
+        bundle.putString(PluginBundleManager.BUNDLE_EXTRA_STRING_WIDGET_LABEL, "HOME"); //$NON-NLS-1$
+        bundle.putString(PluginBundleManager.BUNDLE_EXTRA_STRING_WIDGET_ICON, "home"); //$NON-NLS-1$
+
+        final Bundle extras = new Bundle();
+        for (int i = 0; i < mExtraCount; i++)
+        {
+            bundle.putString("bundle.padding." + i, "0123456789abcdef0123456789abcdef"); //$NON-NLS-1$ //$NON-NLS-2$
+            extras.putString("extras.padding." + i, "0123456789abcdef0123456789abcdef"); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+
+        if ("MALICIOUS_BUNDLE".equals(mKind)) //$NON-NLS-1$
+        {
+            bundle.putSerializable("attack", new PrivateSerializable()); //$NON-NLS-1$
+        }
+        else if ("MALICIOUS_EXTRAS".equals(mKind)) //$NON-NLS-1$
+        {
+            extras.putSerializable("attack", new PrivateSerializable()); //$NON-NLS-1$
+        }
+        extras.putBundle(EXTRA_BUNDLE, bundle);
+
+        final Parcel parcel = Parcel.obtain();
+        parcel.writeBundle(extras);
+        mParcelledExtras = parcel.marshall();
+        parcel.recycle();
+    }
+
+    private Intent newFireIntent()
+    {
+        final Parcel parcel = Parcel.obtain();
+        parcel.unmarshall(mParcelledExtras, 0, mParcelledExtras.length);
+        parcel.setDataPosition(0);
+        final Intent intent = new Intent(ACTION_FIRE_SETTING);
+        intent.replaceExtras(parcel.readBundle());
+        parcel.recycle();
+        return intent;
+    }
+
+    /**
+     * Scrubs the Intent, then its plug-in Bundle, then fetches the Bundle again. Malicious extras make the second fetch throw,
+     * which is caught here so the benchmark can still time the work done before it.
+     */
+    @Benchmark
+    public Bundle scrubTwice()
+    {
+        final Intent intent = newFireIntent();
+        try
+        {
+            BundleScrubber.scrub(intent);
+            BundleScrubber.scrub(intent.getBundleExtra(EXTRA_BUNDLE));
+            return intent.getBundleExtra(EXTRA_BUNDLE);
+        }
+        catch (final RuntimeException e)
+        {
+            return null;
+        }
+    }
+
+    /**
+     * Runs {@link BundleScrubber#scrubBundleExtra(Intent, String)}.
+     */
+    @Benchmark
+    public Bundle scrubOnce()
+    {
+        return BundleScrubber.scrubBundleExtra(newFireIntent(), EXTRA_BUNDLE).getBundle();
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at <http://www.apache.org/licenses/LICENSE-2.0>
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS"
+ * BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package org.metawatch.manager.locale.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import org.metawatch.manager.locale.widget.MonoBitmap;
+import org.metawatch.manager.locale.widget.WidgetStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measures the widget cache: loading the store file for a refresh, and writing it after a widget changes.
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class WidgetStoreBenchmark
+{
+    /**
+     * Runs writes on the calling thread, so they are part of the measurement.
+     */
+    private static final Executor DIRECT = new Executor()
+    {
+        public void execute(final Runnable command)
+        {
+            command.run();
+        }
+    };
+
+    /**
+     * Number of widgets in the store.
+     */
+    @Param(
+        { "1", "16", "64" })
+    public int mWidgetCount;
+
+    private File mFile;
+
+    private WidgetStore mStore;
+
+    private MonoBitmap[] mBitmaps;
+
+    private int mGeneration;
+
+    /**
+     * Writes a store holding {@link #mWidgetCount} widgets, each with both sizes rendered.
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException
+    {
+        mFile = File.createTempFile("widgets", ".store"); //$NON-NLS-1$ //$NON-NLS-2$
+        mBitmaps = new MonoBitmap[]
+            { new MonoBitmap(16, 16), new MonoBitmap(24, 32) };
+
+        mStore = new WidgetStore(mFile, 1, DIRECT, 0, null);
+        for (int i = 0; i < mWidgetCount; i++)
+        {
+            mStore.put(new WidgetStore.Entry("home", "widget" + i, "HOME", mBitmaps)); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        }
+    }
+
+    /**
+     * Removes the store file.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown()
+    {
+        mFile.delete();
+    }
+
+    /**
+     * Opens the store and reads every widget, as the first refresh of a process does.
+     */
+    @Benchmark
+    public List<WidgetStore.Entry> read() throws IOException
+    {
+        return new WidgetStore(mFile, 1, DIRECT, 0, null).getAll();
+    }
+
+    /**
+     * Changes one widget and writes the store.
+     */
+    @Benchmark
+    public WidgetStore write()
+    {
+        mStore.put(new WidgetStore.Entry("home", "widget0", "HOME" + (mGeneration++ & 1), mBitmaps)); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        return mStore;
+    }
+}
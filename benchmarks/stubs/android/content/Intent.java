@@ -0,0 +1,100 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at <http://www.apache.org/licenses/LICENSE-2.0>
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS"
+ * BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package android.content;
+
+import android.os.Bundle;
+
+/**
+ * Stand-in for the platform Intent, holding an action and a Bundle of extras.
+ */
+public class Intent
+{
+    private String mAction;
+
+    private Bundle mExtras;
+
+    public Intent()
+    {
+    }
+
+    public Intent(final String action)
+    {
+        mAction = action;
+    }
+
+    public Intent(final Intent original)
+    {
+        mAction = original.mAction;
+        mExtras = null == original.mExtras ? null : new Bundle(original.mExtras);
+    }
+
+    public String getAction()
+    {
+        return mAction;
+    }
+
+    public Intent setAction(final String action)
+    {
+        mAction = action;
+        return this;
+    }
+
+    public Bundle getExtras()
+    {
+        return null == mExtras ? null : new Bundle(mExtras);
+    }
+
+    public Intent putExtras(final Bundle extras)
+    {
+        if (null == mExtras)
+        {
+            mExtras = new Bundle();
+        }
+        mExtras.putAll(extras);
+        return this;
+    }
+
+    public Intent replaceExtras(final Bundle extras)
+    {
+        mExtras = null == extras ? null : new Bundle(extras);
+        return this;
+    }
+
+    public Intent putExtra(final String name, final Bundle value)
+    {
+        extras().putBundle(name, value);
+        return this;
+    }
+
+    public Intent putExtra(final String name, final String[] value)
+    {
+        extras().putStringArray(name, value);
+        return this;
+    }
+
+    public Bundle getBundleExtra(final String name)
+    {
+        return null == mExtras ? null : mExtras.getBundle(name);
+    }
+
+    public String[] getStringArrayExtra(final String name)
+    {
+        return null == mExtras ? null : mExtras.getStringArray(name);
+    }
+
+    private Bundle extras()
+    {
+        if (null == mExtras)
+        {
+            mExtras = new Bundle();
+        }
+        return mExtras;
+    }
+}
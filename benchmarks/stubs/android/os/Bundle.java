@@ -0,0 +1,303 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at <http://www.apache.org/licenses/LICENSE-2.0>
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS"
+ * BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package android.os;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Set;
+
+/**
+ * Map-backed stand-in for the platform Bundle, with only the methods the benchmarked code calls.
+ * <p>
+ * Like the platform Bundle, one read from a {@link Parcel} keeps its contents parcelled, here as serialized bytes, until the
+ * first call that needs them. Unparcelling resolves only platform classes, so a Serializable of a class private to another app
+ * fails to unparcel with a RuntimeException, as it does on a device. Nested Bundles are unparcelled separately, when first used.
+ */
+public final class Bundle implements Serializable
+{
+    private static final long serialVersionUID = 1L;
+
+    private transient HashMap<String, Object> mMap;
+
+    private transient byte[] mParcelledData;
+
+    public Bundle()
+    {
+        mMap = new HashMap<String, Object>();
+    }
+
+    public Bundle(final Bundle bundle)
+    {
+        if (null != bundle.mParcelledData)
+        {
+            mParcelledData = bundle.mParcelledData;
+        }
+        else
+        {
+            mMap = new HashMap<String, Object>(bundle.mMap);
+        }
+    }
+
+    /**
+     * @return a Bundle whose contents are unparcelled from {@code data} when first needed.
+     */
+    static Bundle fromParcelledData(final byte[] data)
+    {
+        final Bundle bundle = new Bundle();
+        bundle.mMap = null;
+        bundle.mParcelledData = data;
+        return bundle;
+    }
+
+    /**
+     * @return the contents, serialized.
+     */
+    byte[] marshall()
+    {
+        if (null != mParcelledData)
+        {
+            return mParcelledData;
+        }
+
+        try
+        {
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            final ObjectOutputStream out = new ObjectOutputStream(bytes);
+            out.writeObject(mMap);
+            out.close();
+            return bytes.toByteArray();
+        }
+        catch (final IOException e)
+        {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void unparcel()
+    {
+        if (null == mParcelledData)
+        {
+            return;
+        }
+
+        try
+        {
+            final ObjectInputStream in = new PlatformObjectInputStream(new ByteArrayInputStream(mParcelledData));
+            mMap = (HashMap<String, Object>) in.readObject();
+            mParcelledData = null;
+        }
+        catch (final ClassNotFoundException e)
+        {
+            throw new RuntimeException("Parcelable encountered ClassNotFoundException reading a Serializable object", e); //$NON-NLS-1$
+        }
+        catch (final IOException e)
+        {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private void writeObject(final ObjectOutputStream out) throws IOException
+    {
+        out.writeObject(marshall());
+    }
+
+    private void readObject(final ObjectInputStream in) throws IOException, ClassNotFoundException
+    {
+        mParcelledData = (byte[]) in.readObject();
+    }
+
+    /**
+     * Resolves only the classes a Bundle can hold without the sending app's class loader.
+     */
+    private static final class PlatformObjectInputStream extends ObjectInputStream
+    {
+        PlatformObjectInputStream(final InputStream in) throws IOException
+        {
+            super(in);
+        }
+
+        @Override
+        protected Class<?> resolveClass(final ObjectStreamClass desc) throws IOException, ClassNotFoundException
+        {
+            final String name = desc.getName();
+            if (name.startsWith("java.") || name.startsWith("[") || name.equals(Bundle.class.getName())) //$NON-NLS-1$ //$NON-NLS-2$
+            {
+                return super.resolveClass(desc);
+            }
+            throw new ClassNotFoundException(name);
+        }
+    }
+
+    public boolean containsKey(final String key)
+    {
+        unparcel();
+        return mMap.containsKey(key);
+    }
+
+    public Object get(final String key)
+    {
+        unparcel();
+        return mMap.get(key);
+    }
+
+    public Set<String> keySet()
+    {
+        unparcel();
+        return mMap.keySet();
+    }
+
+    public int size()
+    {
+        unparcel();
+        return mMap.size();
+    }
+
+    public boolean isEmpty()
+    {
+        unparcel();
+        return mMap.isEmpty();
+    }
+
+    public void clear()
+    {
+        mParcelledData = null;
+        mMap = new HashMap<String, Object>();
+    }
+
+    public void remove(final String key)
+    {
+        unparcel();
+        mMap.remove(key);
+    }
+
+    public void putAll(final Bundle bundle)
+    {
+        unparcel();
+        bundle.unparcel();
+        mMap.putAll(bundle.mMap);
+    }
+
+    public void putBoolean(final String key, final boolean value)
+    {
+        unparcel();
+        mMap.put(key, Boolean.valueOf(value));
+    }
+
+    public void putInt(final String key, final int value)
+    {
+        unparcel();
+        mMap.put(key, Integer.valueOf(value));
+    }
+
+    public void putString(final String key, final String value)
+    {
+        unparcel();
+        mMap.put(key, value);
+    }
+
+    public void putIntArray(final String key, final int[] value)
+    {
+        unparcel();
+        mMap.put(key, value);
+    }
+
+    public void putByteArray(final String key, final byte[] value)
+    {
+        unparcel();
+        mMap.put(key, value);
+    }
+
+    public void putStringArray(final String key, final String[] value)
+    {
+        unparcel();
+        mMap.put(key, value);
+    }
+
+    public void putSerializable(final String key, final Serializable value)
+    {
+        unparcel();
+        mMap.put(key, value);
+    }
+
+    public void putBundle(final String key, final Bundle value)
+    {
+        unparcel();
+        mMap.put(key, value);
+    }
+
+    public boolean getBoolean(final String key)
+    {
+        unparcel();
+        return getBoolean(key, false);
+    }
+
+    public boolean getBoolean(final String key, final boolean defaultValue)
+    {
+        unparcel();
+        final Object value = mMap.get(key);
+        return value instanceof Boolean ? ((Boolean) value).booleanValue() : defaultValue;
+    }
+
+    public int getInt(final String key)
+    {
+        unparcel();
+        return getInt(key, 0);
+    }
+
+    public int getInt(final String key, final int defaultValue)
+    {
+        unparcel();
+        final Object value = mMap.get(key);
+        return value instanceof Integer ? ((Integer) value).intValue() : defaultValue;
+    }
+
+    public String getString(final String key)
+    {
+        unparcel();
+        final Object value = mMap.get(key);
+        return value instanceof String ? (String) value : null;
+    }
+
+    public int[] getIntArray(final String key)
+    {
+        unparcel();
+        final Object value = mMap.get(key);
+        return value instanceof int[] ? (int[]) value : null;
+    }
+
+    public byte[] getByteArray(final String key)
+    {
+        unparcel();
+        final Object value = mMap.get(key);
+        return value instanceof byte[] ? (byte[]) value : null;
+    }
+
+    public String[] getStringArray(final String key)
+    {
+        unparcel();
+        final Object value = mMap.get(key);
+        return value instanceof String[] ? (String[]) value : null;
+    }
+
+    public Bundle getBundle(final String key)
+    {
+        unparcel();
+        final Object value = mMap.get(key);
+        return value instanceof Bundle ? (Bundle) value : null;
+    }
+}
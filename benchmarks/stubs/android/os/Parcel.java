@@ -0,0 +1,57 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at <http://www.apache.org/licenses/LICENSE-2.0>
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS"
+ * BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package android.os;
+
+/**
+ * Stand-in for the platform Parcel that holds a single Bundle, enough to hand the benchmarks Bundles that are still parcelled.
+ */
+public final class Parcel
+{
+    private byte[] mData;
+
+    private Parcel()
+    {
+    }
+
+    public static Parcel obtain()
+    {
+        return new Parcel();
+    }
+
+    public void writeBundle(final Bundle bundle)
+    {
+        mData = bundle.marshall();
+    }
+
+    public Bundle readBundle()
+    {
+        return Bundle.fromParcelledData(mData);
+    }
+
+    public byte[] marshall()
+    {
+        return mData.clone();
+    }
+
+    public void unmarshall(final byte[] data, final int offset, final int length)
+    {
+        mData = new byte[length];
+        System.arraycopy(data, offset, mData, 0, length);
+    }
+
+    public void setDataPosition(final int position)
+    {
+    }
+
+    public void recycle()
+    {
+        mData = null;
+    }
+}
@@ -0,0 +1,214 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at <http://www.apache.org/licenses/LICENSE-2.0>
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS"
+ * BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package org.metawatch.manager.locale;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import android.content.ComponentCallbacks2;
+import android.util.Log;
+
+/**
+ * Process-wide registry of the plug-in's in-memory caches, so they can be given back when the platform is short of memory.
+ * <p>
+ * Each cache registers itself under a {@link Tier} when it is created. {@link PluginApplication} forwards
+ * {@code onTrimMemory()} and {@code onLowMemory()} here, and the tiers are trimmed in order, cheapest to rebuild first, as far
+ * as the trim level asks for. Every cache rebuilds what it dropped lazily, the next time it is used.
+ * <p>
+ * This class is thread-safe. Caches are trimmed on the thread that delivers the callback, normally the main thread, so
+ * {@link Cache#trim()} must be safe to call while the cache is in use on another thread.
+ */
+public final class CacheManager
+{
+    /**
+     * How expensive a cache is to rebuild, which decides how much memory pressure it takes to drop it.
+     */
+    public enum Tier
+    {
+        /**
+         * Rendered widget images, which can be drawn again from the decoded icons and font. Dropped once the process is in the
+         * background LRU list.
+         */
+        RENDERED(ComponentCallbacks2.TRIM_MEMORY_BACKGROUND),
+
+        /**
+         * In-memory copies of data kept on disk, which can be read again. Dropped once the process is in the middle of the LRU
+         * list.
+         */
+        STORED(ComponentCallbacks2.TRIM_MEMORY_MODERATE),
+
+        /**
+         * Decoded icons and the rasterized label font. Only dropped when the process is about to be killed, or on
+         * {@code onLowMemory()}.
+         */
+        DECODED(ComponentCallbacks2.TRIM_MEMORY_COMPLETE);
+
+        private final int mTrimLevel;
+
+        private Tier(final int trimLevel)
+        {
+            mTrimLevel = trimLevel;
+        }
+
+        /**
+         * @return lowest {@code onTrimMemory()} level at which this tier is dropped.
+         */
+        public int getTrimLevel()
+        {
+            return mTrimLevel;
+        }
+    }
+
+    /**
+     * A cache that can give back its memory.
+     */
+    public interface Cache
+    {
+        /**
+         * @return approximate number of bytes the cache holds.
+         */
+        long getByteCount();
+
+        /**
+         * Drops everything the cache can rebuild. Must be thread-safe.
+         */
+        void trim();
+    }
+
+    private static final CopyOnWriteArrayList<Registration> sRegistrations = new CopyOnWriteArrayList<Registration>();
+
+    /**
+     * Private constructor prevents instantiation
+     *
+     * @throws UnsupportedOperationException because this class cannot be instantiated.
+     */
+    private CacheManager()
+    {
+        throw new UnsupportedOperationException("This class is non-instantiable"); //$NON-NLS-1$
+    }
+
+    /**
+     * @param tier how expensive the cache is to rebuild.
+     * @param name name of the cache in {@link #report()}.
+     * @param cache the cache.
+     */
+    public static void register(final Tier tier, final String name, final Cache cache)
+    {
+        sRegistrations.add(new Registration(tier, name, cache));
+    }
+
+    /**
+     * Removes a cache registered with {@link #register(Tier, String, Cache)}.
+     */
+    static void unregister(final Cache cache)
+    {
+        for (final Registration registration : sRegistrations)
+        {
+            if (registration.mCache == cache)
+            {
+                sRegistrations.remove(registration);
+            }
+        }
+    }
+
+    /**
+     * Trims every tier the level calls for, in tier order.
+     *
+     * @param level level passed to {@code onTrimMemory()}.
+     */
+    public static void onTrimMemory(final int level)
+    {
+        if (Constants.IS_LOGGABLE)
+        {
+            Log.v(Constants.LOG_TAG, String.format("trim memory level %d: %s", Integer.valueOf(level), report())); //$NON-NLS-1$
+        }
+
+        for (final Tier tier : Tier.values())
+        {
+            if (level < tier.mTrimLevel)
+            {
+                break;
+            }
+
+            for (final Registration registration : sRegistrations)
+            {
+                if (tier == registration.mTier)
+                {
+                    registration.mCache.trim();
+                }
+            }
+        }
+
+        if (Constants.IS_LOGGABLE)
+        {
+            Log.v(Constants.LOG_TAG, String.format("trimmed: %s", report())); //$NON-NLS-1$
+        }
+    }
+
+    /**
+     * Trims every tier.
+     */
+    public static void onLowMemory()
+    {
+        onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_COMPLETE);
+    }
+
+    /**
+     * @return approximate number of bytes held by the caches in {@code tier}.
+     */
+    public static long getByteCount(final Tier tier)
+    {
+        long bytes = 0;
+        for (final Registration registration : sRegistrations)
+        {
+            if (tier == registration.mTier)
+            {
+                bytes += registration.mCache.getByteCount();
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * @return the size of every registered cache, by tier, for example {@code "RENDERED renders=1152 STORED widgets=0"}.
+     */
+    public static String report()
+    {
+        final StringBuilder builder = new StringBuilder();
+        for (final Tier tier : Tier.values())
+        {
+            for (final Registration registration : sRegistrations)
+            {
+                if (tier == registration.mTier)
+                {
+                    if (0 != builder.length())
+                    {
+                        builder.append(' ');
+                    }
+                    builder.append(tier).append(' ').append(registration.mName).append('=').append(registration.mCache.getByteCount());
+                }
+            }
+        }
+        return builder.toString();
+    }
+
+    private static final class Registration
+    {
+        final Tier mTier;
+        final String mName;
+        final Cache mCache;
+
+        Registration(final Tier tier, final String name, final Cache cache)
+        {
+            mTier = tier;
+            mName = name;
+            mCache = cache;
+        }
+    }
+}
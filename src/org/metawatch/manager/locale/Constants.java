@@ -47,6 +47,36 @@ public final class Constants
      */
     public static final boolean IS_CORRECT_THREAD_CHECKING_ENABLED = false;
 
+    /**
+     * Flag to save settings as one compact extra rather than an extra per value. Bundles saved this way cannot be read by
+     * versions of the plug-in before {@code PluginBundleManager.COMPACT_FORMAT_VERSION_CODE}.
+     */
+    public static final boolean IS_COMPACT_BUNDLE_ENABLED = false;
+
+    /**
+     * How long a BroadcastReceiver may keep its broadcast pending while work finishes in the background. Kept below the 10
+     * second limit Android gives foreground broadcasts.
+     */
+    public static final long RECEIVER_TIME_BUDGET_MILLIS = 8000;
+
+    /**
+     * How long fires of Locale settings are gathered before being applied together. Locale fires every changed setting when a
+     * situation changes, so a burst often updates the same widget several times; only the last update of each is rendered. Zero
+     * or less applies every fire on its own.
+     */
+    public static final long FIRE_COALESCING_WINDOW_MILLIS = 50;
+
+    /**
+     * Maximum number of bytes of rendered widget pixels kept in memory by the {@code :background} process. Widgets are cached
+     * at 1 bit per pixel, so the default holds both sizes of 64 widgets.
+     */
+    public static final int WIDGET_RENDER_CACHE_SIZE = 8 * 1024;
+
+    /**
+     * How long after a widget changes its record is written to disk. Widgets changed in the meantime are written with it.
+     */
+    public static final long WIDGET_STORE_FLUSH_DELAY_MILLIS = 500;
+
     /**
      * Determines the "versionCode" in the {@code AndroidManifest}.
      *
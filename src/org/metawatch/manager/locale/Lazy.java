@@ -0,0 +1,94 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at <http://www.apache.org/licenses/LICENSE-2.0>
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS"
+ * BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package org.metawatch.manager.locale;
+
+import android.content.Context;
+
+/**
+ * A component of the plug-in that is created the first time it is used rather than when the process starts.
+ * <p>
+ * Fires that do not need a component never pay for creating it: a notification fire, for example, never loads the label font.
+ * Each creation is timed and reported to the {@link StartupProfiler} under the component's name. A component dropped with
+ * {@link #clear()}, for example by the {@link CacheManager}, is created again on its next use.
+ * <p>
+ * This class is thread-safe. If two threads ask for the component at once, it is created only once.
+ *
+ * @param <T> type of the component.
+ */
+public abstract class Lazy<T>
+{
+    private final String mName;
+
+    private volatile T mValue;
+
+    /**
+     * @param name name of the component in the {@link StartupProfiler} report.
+     */
+    protected Lazy(final String name)
+    {
+        mName = name;
+    }
+
+    /**
+     * Creates the component. Called at most once between calls to {@link #clear()}.
+     *
+     * @param context application context.
+     * @return the component. Cannot be null.
+     */
+    protected abstract T create(Context context);
+
+    /**
+     * @param context application context, used if the component has to be created.
+     * @return the component, created if necessary.
+     */
+    public final T get(final Context context)
+    {
+        T value = mValue;
+        if (null == value)
+        {
+            synchronized (this)
+            {
+                value = mValue;
+                if (null == value)
+                {
+                    final long start = System.nanoTime();
+                    value = create(context);
+                    mValue = value;
+                    StartupProfiler.recordLazyInit(mName, System.nanoTime() - start);
+                }
+            }
+        }
+        return value;
+    }
+
+    /**
+     * @return the component, or null if it has not been created.
+     */
+    public final T peek()
+    {
+        return mValue;
+    }
+
+    /**
+     * Drops the component, so it is created again on its next use. Callers already holding it may keep using it.
+     */
+    public final void clear()
+    {
+        mValue = null;
+    }
+
+    /**
+     * @return name of the component.
+     */
+    public final String getName()
+    {
+        return mName;
+    }
+}
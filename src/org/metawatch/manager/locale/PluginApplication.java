@@ -18,13 +18,16 @@ import android.util.Log;
 /**
  * Implements an application object for the plug-in.
  * <p>
- * This application is non-essential for the plug-in's operation; it simply enables debugging options globally for the app.
+ * This application is non-essential for the plug-in's operation; it enables debugging options globally for the app, and passes
+ * memory pressure callbacks on to the {@link CacheManager}.
  */
 public final class PluginApplication extends Application
 {
     @Override
     public void onCreate()
     {
+        StartupProfiler.onApplicationCreate();
+
         super.onCreate();
 
         if ((getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0)
@@ -50,6 +53,25 @@ public final class PluginApplication extends Application
             // android.support.v4.app.FragmentManager.enableDebugLogging(true);
             // android.support.v4.app.LoaderManager.enableDebugLogging(true);
         }
+
+        StartupProfiler.onApplicationCreated();
+    }
+
+    @TargetApi(14)
+    @Override
+    public void onTrimMemory(final int level)
+    {
+        super.onTrimMemory(level);
+
+        CacheManager.onTrimMemory(level);
+    }
+
+    @Override
+    public void onLowMemory()
+    {
+        super.onLowMemory();
+
+        CacheManager.onLowMemory();
     }
 
     @TargetApi(9)
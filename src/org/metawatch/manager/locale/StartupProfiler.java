@@ -0,0 +1,143 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at <http://www.apache.org/licenses/LICENSE-2.0>
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS"
+ * BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package org.metawatch.manager.locale;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Records what a process spends on starting up, so the first fire after the {@code :background} process has been killed can
+ * be told apart from later ones.
+ * <p>
+ * The earliest point the plug-in can see is the start of {@code PluginApplication.onCreate()}; the time the platform spends
+ * forking the process before that is not included. After that, every {@link Lazy} component records how long it took to
+ * create. The receiver calls {@link #claimColdStart()} for every Intent it receives, so only the first Intent of the process,
+ * whatever its action, is measured from process start; the cold and warm latencies go in its {@code FireMetrics}.
+ * <p>
+ * This class has no Android dependencies and is thread-safe.
+ */
+public final class StartupProfiler
+{
+    /**
+     * {@link System#nanoTime()} at the start of {@code PluginApplication.onCreate()}, or 0 if it has not run.
+     */
+    private static volatile long sProcessStartNanos;
+
+    private static volatile long sApplicationCreateNanos;
+
+    private static final AtomicBoolean sColdStartClaimed = new AtomicBoolean();
+
+    private static final AtomicInteger sLazyInitCount = new AtomicInteger();
+
+    /**
+     * How long each component took to create the first time, by name, in the order they were first created. Components created
+     * again after a trim are only counted, so this holds one entry per component. Guarded by itself.
+     */
+    private static final LinkedHashMap<String, Long> sFirstLazyInits = new LinkedHashMap<String, Long>();
+
+    /**
+     * Private constructor prevents instantiation
+     *
+     * @throws UnsupportedOperationException because this class cannot be instantiated.
+     */
+    private StartupProfiler()
+    {
+        throw new UnsupportedOperationException("This class is non-instantiable"); //$NON-NLS-1$
+    }
+
+    /**
+     * Marks the start of {@code Application.onCreate()}.
+     */
+    public static void onApplicationCreate()
+    {
+        sProcessStartNanos = System.nanoTime();
+    }
+
+    /**
+     * Marks the end of {@code Application.onCreate()}.
+     */
+    public static void onApplicationCreated()
+    {
+        sApplicationCreateNanos = System.nanoTime() - sProcessStartNanos;
+    }
+
+    /**
+     * @return {@link System#nanoTime()} at the start of {@code Application.onCreate()}, or 0 if it has not run in this process.
+     */
+    public static long getProcessStartNanos()
+    {
+        return sProcessStartNanos;
+    }
+
+    /**
+     * @return true the first time it is called in the process, and false after that.
+     */
+    public static boolean claimColdStart()
+    {
+        return sColdStartClaimed.compareAndSet(false, true);
+    }
+
+    /**
+     * Records that a {@link Lazy} component was created. Only the first creation of each component is timed.
+     *
+     * @param name name of the component.
+     * @param nanos how long it took to create.
+     */
+    static void recordLazyInit(final String name, final long nanos)
+    {
+        sLazyInitCount.incrementAndGet();
+        synchronized (sFirstLazyInits)
+        {
+            if (!sFirstLazyInits.containsKey(name))
+            {
+                sFirstLazyInits.put(name, Long.valueOf(nanos));
+            }
+        }
+    }
+
+    /**
+     * @return number of {@link Lazy} components created so far in the process, counting components created again after being
+     *         cleared.
+     */
+    public static int getLazyInitCount()
+    {
+        return sLazyInitCount.get();
+    }
+
+    /**
+     * @return a summary such as {@code "onCreate=1.2ms lazy=[font=31.0ms, icons=0.4ms]"}, with the first creation of each
+     *         component.
+     */
+    public static String report()
+    {
+        final StringBuilder report = new StringBuilder("onCreate=").append(formatMillis(sApplicationCreateNanos)).append(" lazy=["); //$NON-NLS-1$ //$NON-NLS-2$
+        synchronized (sFirstLazyInits)
+        {
+            boolean first = true;
+            for (final Map.Entry<String, Long> init : sFirstLazyInits.entrySet())
+            {
+                if (!first)
+                {
+                    report.append(", "); //$NON-NLS-1$
+                }
+                first = false;
+                report.append(init.getKey()).append('=').append(formatMillis(init.getValue().longValue()));
+            }
+        }
+        return report.append(']').toString();
+    }
+
+    private static String formatMillis(final long nanos)
+    {
+        return (nanos / 100000) / 10.0 + "ms"; //$NON-NLS-1$
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at <http://www.apache.org/licenses/LICENSE-2.0>
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS"
+ * BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package org.metawatch.manager.locale.bundle;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import android.content.Context;
+import android.content.Intent;
+import android.os.Bundle;
+
+/**
+ * Everything the plug-in does that depends on the kind of a {@link Setting}: reading it from a Bundle, encoding it compactly,
+ * turning it into broadcasts for the manager, and describing it.
+ * <p>
+ * There is one instance per kind of setting, listed in {@link ActionRegistry}. Adding a kind of setting means adding a
+ * {@link Setting} subclass with a handler and listing the handler there; nothing that dispatches on the kind needs to change.
+ * Handlers are stateless apart from their broadcast templates, and are thread-safe.
+ */
+public abstract class ActionHandler
+{
+    /**
+     * What the receiver provides to handlers while applying a setting.
+     */
+    public interface FireContext
+    {
+        /**
+         * @return application context.
+         */
+        Context getContext();
+
+        /**
+         * Renders a widget at every size and adds its update broadcasts to {@code outbox}.
+         */
+        void sendWidget(WidgetSetting setting, List<Intent> outbox);
+    }
+
+    private final String mTypeId;
+
+    private final int mCode;
+
+    private final SettingType mSettingType;
+
+    private final String[] mExtraKeys;
+
+    /**
+     * @param typeId value of {@link PluginBundleManager#BUNDLE_EXTRA_STRING_TYPE} for the kind of setting.
+     * @param code kind of setting in {@link SettingCodec} encodings, from 1 to 255. Never reused.
+     * @param settingType type the receiver records this kind of setting's fires under.
+     * @param extraKeys the extras, other than the type and version code, that {@link #parse(SettingParser.Values, int)} reads.
+     */
+    ActionHandler(final String typeId, final int code, final SettingType settingType, final String... extraKeys)
+    {
+        mTypeId = typeId.intern();
+        mCode = code;
+        mSettingType = settingType;
+        mExtraKeys = extraKeys;
+    }
+
+    /**
+     * @return value of {@link PluginBundleManager#BUNDLE_EXTRA_STRING_TYPE} for this kind of setting, interned.
+     */
+    public final String getTypeId()
+    {
+        return mTypeId;
+    }
+
+    /**
+     * @return type the receiver records this kind of setting's fires and broadcasts under.
+     */
+    public final SettingType getSettingType()
+    {
+        return mSettingType;
+    }
+
+    /**
+     * @return kind of setting in {@link SettingCodec} encodings.
+     */
+    final int getCode()
+    {
+        return mCode;
+    }
+
+    /**
+     * @return the extras read by {@link #parse(SettingParser.Values, int)}. Must not be modified.
+     */
+    final String[] getExtraKeys()
+    {
+        return mExtraKeys;
+    }
+
+    /**
+     * Reads a setting saved with an extra per value.
+     *
+     * @param values values of the plug-in's extras.
+     * @param versionCode versionCode of the plug-in that saved the setting.
+     * @return the setting.
+     * @throws SettingParser.InvalidExtraException if a required extra is missing or of the wrong type.
+     */
+    abstract Setting parse(SettingParser.Values values, int versionCode) throws SettingParser.InvalidExtraException;
+
+    /**
+     * Writes the values of a setting for {@link SettingCodec}, which has already written the format version and
+     * {@link #getCode()}.
+     */
+    abstract void encode(Setting setting, DataOutputStream out) throws IOException;
+
+    /**
+     * Reads the values written by {@link #encode(Setting, DataOutputStream)}.
+     */
+    abstract Setting decode(DataInputStream in, int versionCode) throws IOException;
+
+    /**
+     * Applies a setting.
+     *
+     * @param fire services of the receiver.
+     * @param setting a setting of this handler's kind.
+     * @param outbox broadcasts for the manager are added here rather than sent, so a batch of settings goes out together.
+     */
+    public abstract void apply(FireContext fire, Setting setting, List<Intent> outbox);
+
+    /**
+     * Settings with the same key replace each other when they are fired close together: only the last one needs applying.
+     *
+     * @param setting a setting of this handler's kind.
+     * @return key identifying what the setting changes, or null if every fire of it must be applied. The default is null.
+     */
+    public String getCoalescingKey(final Setting setting)
+    {
+        return null;
+    }
+
+    /**
+     * @param setting a setting of this handler's kind.
+     * @return short description of the setting for Locale's UI, without the type.
+     */
+    public abstract String getBlurb(Setting setting);
+
+    /**
+     * @param setting a setting of this handler's kind.
+     * @return false if the setting is missing something the user must enter before it can be saved. The default is true.
+     */
+    public boolean isComplete(final Setting setting)
+    {
+        return true;
+    }
+
+    /**
+     * Adds a vibration pattern to the extras of a broadcast to the manager.
+     *
+     * @param vibration the pattern, or null to add nothing.
+     */
+    static void putVibration(final Bundle extras, final Setting.Vibration vibration)
+    {
+        if (null != vibration)
+        {
+            extras.putInt("vibrate_on", vibration.getOnMillis()); //$NON-NLS-1$
+            extras.putInt("vibrate_off", vibration.getOffMillis()); //$NON-NLS-1$
+            extras.putInt("vibrate_cycles", vibration.getCycles()); //$NON-NLS-1$
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at <http://www.apache.org/licenses/LICENSE-2.0>
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS"
+ * BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package org.metawatch.manager.locale.bundle;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+
+/**
+ * The {@link ActionHandler} for every kind of setting.
+ * <p>
+ * Handlers are found by type id with one hash lookup, or by {@link SettingCodec} code with one array index, however many kinds
+ * of setting there are. The set of handlers is fixed when this class is loaded, so lookups take no locks.
+ */
+public final class ActionRegistry
+{
+    private static final ActionHandler[] HANDLERS =
+        { NotificationSetting.HANDLER, WidgetSetting.HANDLER, SilentModeSetting.HANDLER };
+
+    private static final HashMap<String, ActionHandler> BY_TYPE_ID = new HashMap<String, ActionHandler>();
+
+    private static final ActionHandler[] BY_CODE = new ActionHandler[256];
+
+    private static final String[] EXTRA_KEYS;
+
+    static
+    {
+        final LinkedHashSet<String> extraKeys = new LinkedHashSet<String>();
+        for (final ActionHandler handler : HANDLERS)
+        {
+            if (null != BY_TYPE_ID.put(handler.getTypeId(), handler) || null != BY_CODE[handler.getCode()])
+            {
+                throw new AssertionError("duplicate handler " + handler.getTypeId()); //$NON-NLS-1$
+            }
+            BY_CODE[handler.getCode()] = handler;
+
+            for (final String key : handler.getExtraKeys())
+            {
+                extraKeys.add(key);
+            }
+        }
+        EXTRA_KEYS = extraKeys.toArray(new String[extraKeys.size()]);
+    }
+
+    /**
+     * Private constructor prevents instantiation
+     *
+     * @throws UnsupportedOperationException because this class cannot be instantiated.
+     */
+    private ActionRegistry()
+    {
+        throw new UnsupportedOperationException("This class is non-instantiable"); //$NON-NLS-1$
+    }
+
+    /**
+     * @param typeId value of {@link PluginBundleManager#BUNDLE_EXTRA_STRING_TYPE}. May be null.
+     * @return the handler, or null if there is none for {@code typeId}.
+     */
+    public static ActionHandler get(final String typeId)
+    {
+        return null == typeId ? null : BY_TYPE_ID.get(typeId);
+    }
+
+    /**
+     * @param code kind of setting in a {@link SettingCodec} encoding, from 0 to 255.
+     * @return the handler, or null if there is none for {@code code}.
+     */
+    static ActionHandler getByCode(final int code)
+    {
+        return BY_CODE[code];
+    }
+
+    /**
+     * @return every extra read by some handler's {@link ActionHandler#parse(SettingParser.Values, int)}, each once. Must not be
+     *         modified.
+     */
+    static String[] getExtraKeys()
+    {
+        return EXTRA_KEYS;
+    }
+}
@@ -18,6 +18,79 @@ import android.os.Bundle;
  */
 public final class BundleScrubber
 {
+    /**
+     * A Bundle extra after scrubbing, with the verdict.
+     */
+    public static final class ScrubbedBundle
+    {
+        private final Bundle mBundle;
+        private final boolean mScrubbed;
+
+        ScrubbedBundle(final Bundle bundle, final boolean scrubbed)
+        {
+            mBundle = bundle;
+            mScrubbed = scrubbed;
+        }
+
+        /**
+         * @return the nested Bundle, which is empty if it was scrubbed, or null if the Intent had none or its extras were
+         *         scrubbed.
+         */
+        public Bundle getBundle()
+        {
+            return mBundle;
+        }
+
+        /**
+         * @return true if the Intent's extras or the nested Bundle were scrubbed.
+         */
+        public boolean wasScrubbed()
+        {
+            return mScrubbed;
+        }
+    }
+
+    private static final ScrubbedBundle NOTHING = new ScrubbedBundle(null, false);
+
+    private static final ScrubbedBundle SCRUBBED_EXTRAS = new ScrubbedBundle(null, true);
+
+    /**
+     * Scrubs an Intent's extras and the Bundle extra nested in them, unparcelling each only once.
+     * <p>
+     * Use this instead of {@link #scrub(Intent)} followed by {@link #scrub(Bundle)} on {@link Intent#getBundleExtra(String)}:
+     * {@link Intent#getExtras()} unparcels a copy of the extras, which are then unparcelled again to fetch the nested Bundle.
+     * Here the nested Bundle is fetched directly, which unparcels the extras in place. If that fails, the Intent's extras are
+     * removed. If unparcelling the nested Bundle fails, it is cleared, as {@link #scrub(Bundle)} does.
+     *
+     * @param intent {@code Intent} to scrub. This parameter may be mutated if scrubbing is necessary. This parameter may be null.
+     * @param name name of the nested Bundle extra, such as {@link com.twofortyfouram.locale.Intent#EXTRA_BUNDLE}.
+     * @return the nested Bundle and whether anything was scrubbed. Never null.
+     */
+    public static ScrubbedBundle scrubBundleExtra(final Intent intent, final String name)
+    {
+        if (null == intent)
+        {
+            return NOTHING;
+        }
+
+        final Bundle bundle;
+        try
+        {
+            bundle = intent.getBundleExtra(name);
+        }
+        catch (final Exception e)
+        {
+            intent.replaceExtras((Bundle) null);
+            return SCRUBBED_EXTRAS;
+        }
+
+        if (null == bundle)
+        {
+            return NOTHING;
+        }
+
+        return new ScrubbedBundle(bundle, scrub(bundle));
+    }
 
     /**
      * Scrubs Intents for private serializable subclasses in the Intent extras. If the Intent's extras contain a private
@@ -0,0 +1,186 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at <http://www.apache.org/licenses/LICENSE-2.0>
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS"
+ * BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package org.metawatch.manager.locale.bundle;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import android.content.Intent;
+import android.os.Bundle;
+
+/**
+ * A setting that shows a notification on the watch.
+ */
+public final class NotificationSetting extends Setting
+{
+    /**
+     * Handler for notification settings.
+     */
+    static final ActionHandler HANDLER = new Handler();
+
+    private final String mTitle;
+    private final String mMessage;
+    private final boolean mSticky;
+    private final Vibration mVibration;
+
+    /**
+     * @param versionCode versionCode of the plug-in that saved the setting.
+     * @param title notification title. Cannot be null.
+     * @param message notification text. Cannot be null.
+     * @param sticky whether the notification stays up until dismissed.
+     * @param vibration how the watch vibrates, or null if it does not.
+     */
+    public NotificationSetting(final int versionCode, final String title, final String message, final boolean sticky, final Vibration vibration)
+    {
+        super(versionCode);
+
+        if (null == title || null == message)
+        {
+            throw new IllegalArgumentException("title and message cannot be null"); //$NON-NLS-1$
+        }
+
+        mTitle = title;
+        mMessage = message;
+        mSticky = sticky;
+        mVibration = vibration;
+    }
+
+    @Override
+    public ActionHandler getHandler()
+    {
+        return HANDLER;
+    }
+
+    /**
+     * @return notification title.
+     */
+    public String getTitle()
+    {
+        return mTitle;
+    }
+
+    /**
+     * @return notification text.
+     */
+    public String getMessage()
+    {
+        return mMessage;
+    }
+
+    /**
+     * @return whether the notification stays up until dismissed.
+     */
+    public boolean isSticky()
+    {
+        return mSticky;
+    }
+
+    /**
+     * @return how the watch vibrates, or null if it does not.
+     */
+    public Vibration getVibration()
+    {
+        return mVibration;
+    }
+
+    @Override
+    public boolean equals(final Object o)
+    {
+        if (!(o instanceof NotificationSetting))
+        {
+            return false;
+        }
+        final NotificationSetting other = (NotificationSetting) o;
+        return getVersionCode() == other.getVersionCode() && mTitle.equals(other.mTitle) && mMessage.equals(other.mMessage)
+                && mSticky == other.mSticky && equal(mVibration, other.mVibration);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return mTitle.hashCode() * 31 + mMessage.hashCode();
+    }
+
+    private static final class Handler extends ActionHandler
+    {
+        /**
+         * Copied for each notification.
+         */
+        private final Intent mTemplate = new Intent("org.metawatch.manager.NOTIFICATION"); //$NON-NLS-1$
+
+        Handler()
+        {
+            super("notification", 1, SettingType.NOTIFICATION, PluginBundleManager.BUNDLE_EXTRA_STRING_TITLE, PluginBundleManager.BUNDLE_EXTRA_STRING_MESSAGE, //$NON-NLS-1$
+                  PluginBundleManager.BUNDLE_EXTRA_BOOLEAN_STICKY, PluginBundleManager.BUNDLE_EXTRA_BOOLEAN_VIBRATE,
+                  PluginBundleManager.BUNDLE_EXTRA_INT_VIBRATE_ON, PluginBundleManager.BUNDLE_EXTRA_INT_VIBRATE_OFF,
+                  PluginBundleManager.BUNDLE_EXTRA_INT_VIBRATE_CYCLES);
+        }
+
+        @Override
+        Setting parse(final SettingParser.Values values, final int versionCode) throws SettingParser.InvalidExtraException
+        {
+            return new NotificationSetting(versionCode, values.getString(PluginBundleManager.BUNDLE_EXTRA_STRING_TITLE),
+                                           values.getString(PluginBundleManager.BUNDLE_EXTRA_STRING_MESSAGE),
+                                           values.getBoolean(PluginBundleManager.BUNDLE_EXTRA_BOOLEAN_STICKY, true), values.getVibration());
+        }
+
+        @Override
+        void encode(final Setting setting, final DataOutputStream out) throws IOException
+        {
+            final NotificationSetting notification = (NotificationSetting) setting;
+            out.writeByte(SettingCodec.flags(notification.mVibration, notification.mSticky));
+            out.writeUTF(notification.mTitle);
+            out.writeUTF(notification.mMessage);
+            SettingCodec.writeVibration(out, notification.mVibration);
+        }
+
+        @Override
+        Setting decode(final DataInputStream in, final int versionCode) throws IOException
+        {
+            final int flags = in.readUnsignedByte();
+            final String title = in.readUTF();
+            final String message = in.readUTF();
+            return new NotificationSetting(versionCode, title, message, SettingCodec.isOn(flags), SettingCodec.readVibration(in, flags));
+        }
+
+        @Override
+        public void apply(final FireContext fire, final Setting setting, final List<Intent> outbox)
+        {
+            final NotificationSetting notification = (NotificationSetting) setting;
+
+            final Bundle extras = new Bundle();
+            extras.putString("title", notification.mTitle); //$NON-NLS-1$
+            extras.putString("text", notification.mMessage); //$NON-NLS-1$
+            extras.putBoolean("sticky", notification.mSticky); //$NON-NLS-1$
+            putVibration(extras, notification.mVibration);
+
+            outbox.add(new Intent(mTemplate).putExtras(extras));
+        }
+
+        @Override
+        public String getBlurb(final Setting setting)
+        {
+            final NotificationSetting notification = (NotificationSetting) setting;
+            if (0 == notification.mTitle.length())
+            {
+                return notification.mMessage;
+            }
+            return notification.mTitle + " : " + notification.mMessage; //$NON-NLS-1$
+        }
+
+        @Override
+        public boolean isComplete(final Setting setting)
+        {
+            return 0 != ((NotificationSetting) setting).mMessage.length();
+        }
+    }
+}
@@ -127,6 +127,38 @@ public final class PluginBundleManager
      */
     public static final String BUNDLE_EXTRA_INT_VERSION_CODE = "com.yourcompany.yourcondition.extra.INT_VERSION_CODE"; //$NON-NLS-1$
 
+    /**
+     * Type: {@code byte[]}
+     * <p>
+     * The whole setting, encoded by {@link SettingCodec}. Bundles holding this extra need no other extra but
+     * {@link #BUNDLE_EXTRA_INT_VERSION_CODE}, and it is only read from Bundles saved by version
+     * {@link #COMPACT_FORMAT_VERSION_CODE} or later.
+     */
+    public static final String BUNDLE_EXTRA_BYTE_ARRAY_SETTING = "org.metawatch.manager.locale.extra.BYTE_ARRAY_SETTING"; //$NON-NLS-1$
+
+    /**
+     * First versionCode of the plug-in that reads {@link #BUNDLE_EXTRA_BYTE_ARRAY_SETTING}. Bundles saved by earlier versions are
+     * read from the separate extras, whatever else they hold.
+     */
+    public static final int COMPACT_FORMAT_VERSION_CODE = 2;
+
+    /**
+     * Creates a Bundle holding a setting as {@link #BUNDLE_EXTRA_BYTE_ARRAY_SETTING}.
+     * <p>
+     * Versions of the plug-in before {@link #COMPACT_FORMAT_VERSION_CODE} cannot read these Bundles, so they are only saved when
+     * {@link Constants#IS_COMPACT_BUNDLE_ENABLED} is set.
+     *
+     * @param setting setting to save. Cannot be null.
+     * @return a new Bundle.
+     */
+    public static Bundle createCompactBundle(final Setting setting)
+    {
+        final Bundle bundle = new Bundle();
+        bundle.putInt(BUNDLE_EXTRA_INT_VERSION_CODE, setting.getVersionCode());
+        bundle.putByteArray(BUNDLE_EXTRA_BYTE_ARRAY_SETTING, SettingCodec.encode(setting));
+        return bundle;
+    }
+
     /**
      * Method to verify the content of the bundle are correct.
      * <p>
@@ -134,87 +166,17 @@ public final class PluginBundleManager
      * 
      * @param bundle bundle to verify. May be null, which will always return false.
      * @return true if the Bundle is valid, false if the bundle is invalid.
+     * @see SettingParser#parse(Bundle)
      */
     public static boolean isBundleValid(final Bundle bundle)
     {
-        if (null == bundle)
-        {
-            return false;
-        }
+        final SettingParser.Result result = SettingParser.parse(bundle);
 
-        /*
-         * Make sure the expected extras exist
-         */
-        if (!bundle.containsKey(BUNDLE_EXTRA_STRING_MESSAGE))
+        if (!result.isValid() && Constants.IS_LOGGABLE)
         {
-            if (Constants.IS_LOGGABLE)
-            {
-                Log.e(Constants.LOG_TAG, String.format("bundle must contain extra %s", BUNDLE_EXTRA_STRING_MESSAGE)); //$NON-NLS-1$
-            }
-            return false;
-        }
-        if (!bundle.containsKey(BUNDLE_EXTRA_STRING_TYPE))
-        {
-            if (Constants.IS_LOGGABLE)
-            {
-                Log.e(Constants.LOG_TAG, String.format("bundle must contain extra %s", BUNDLE_EXTRA_STRING_TYPE)); //$NON-NLS-1$
-            }
-            return false;
-        }
-        if (!bundle.containsKey(BUNDLE_EXTRA_STRING_TITLE))
-        {
-            if (Constants.IS_LOGGABLE)
-            {
-                Log.e(Constants.LOG_TAG, String.format("bundle must contain extra %s", BUNDLE_EXTRA_STRING_TITLE)); //$NON-NLS-1$
-            }
-            return false;
-        }
-        if (!bundle.containsKey(BUNDLE_EXTRA_STRING_WIDGET_ID))
-        {
-            if (Constants.IS_LOGGABLE)
-            {
-                Log.e(Constants.LOG_TAG, String.format("bundle must contain extra %s", BUNDLE_EXTRA_STRING_WIDGET_ID)); //$NON-NLS-1$
-            }
-            return false;
-        }
-        if (!bundle.containsKey(BUNDLE_EXTRA_STRING_WIDGET_LABEL))
-        {
-            if (Constants.IS_LOGGABLE)
-            {
-                Log.e(Constants.LOG_TAG, String.format("bundle must contain extra %s", BUNDLE_EXTRA_STRING_WIDGET_LABEL)); //$NON-NLS-1$
-            }
-            return false;
-        }
-        if (!bundle.containsKey(BUNDLE_EXTRA_STRING_WIDGET_ICON))
-        {
-            if (Constants.IS_LOGGABLE)
-            {
-                Log.e(Constants.LOG_TAG, String.format("bundle must contain extra %s", BUNDLE_EXTRA_STRING_WIDGET_ICON)); //$NON-NLS-1$
-            }
-            return false;
-        }
-        if (!bundle.containsKey(BUNDLE_EXTRA_INT_VERSION_CODE))
-        {
-            if (Constants.IS_LOGGABLE)
-            {
-                Log.e(Constants.LOG_TAG, String.format("bundle must contain extra %s", BUNDLE_EXTRA_INT_VERSION_CODE)); //$NON-NLS-1$
-            }
-            return false;
-        }
-        
-        /*
-         * Make sure the extra is the correct type
-         */
-        if (bundle.getInt(BUNDLE_EXTRA_INT_VERSION_CODE, 0) != bundle.getInt(BUNDLE_EXTRA_INT_VERSION_CODE, 1))
-        {
-            if (Constants.IS_LOGGABLE)
-            {
-                Log.e(Constants.LOG_TAG, String.format("bundle extra %s appears to be the wrong type.  It must be an int", BUNDLE_EXTRA_INT_VERSION_CODE)); //$NON-NLS-1$
-            }
-
-            return false;
+            Log.e(Constants.LOG_TAG, "bundle invalid: " + result); //$NON-NLS-1$
         }
 
-        return true;
+        return result.isValid();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,121 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at <http://www.apache.org/licenses/LICENSE-2.0>
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS"
+ * BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package org.metawatch.manager.locale.bundle;
+
+/**
+ * A validated plug-in setting, parsed from its {@link com.twofortyfouram.locale.Intent#EXTRA_BUNDLE} by {@link SettingParser}.
+ * <p>
+ * Each kind of setting is a subclass holding only the values that kind uses, with an {@link ActionHandler} that knows how to
+ * read, write and apply it. Instances are immutable, so a parsed setting can be shared between fires and threads.
+ */
+public abstract class Setting
+{
+    private final int mVersionCode;
+
+    /**
+     * @param versionCode versionCode of the plug-in that saved the setting.
+     */
+    Setting(final int versionCode)
+    {
+        mVersionCode = versionCode;
+    }
+
+    /**
+     * @return the handler for this kind of setting.
+     */
+    public abstract ActionHandler getHandler();
+
+    /**
+     * @return value of {@link PluginBundleManager#BUNDLE_EXTRA_STRING_TYPE} for this kind of setting, interned.
+     */
+    public final String getTypeId()
+    {
+        return getHandler().getTypeId();
+    }
+
+    /**
+     * @return versionCode of the plug-in that saved the setting.
+     */
+    public final int getVersionCode()
+    {
+        return mVersionCode;
+    }
+
+    /**
+     * How the watch vibrates when a setting is applied.
+     */
+    public static final class Vibration
+    {
+        private final int mOnMillis;
+        private final int mOffMillis;
+        private final int mCycles;
+
+        /**
+         * @param onMillis how long the watch vibrates in each cycle, in milliseconds.
+         * @param offMillis how long the watch pauses in each cycle, in milliseconds.
+         * @param cycles number of cycles.
+         */
+        public Vibration(final int onMillis, final int offMillis, final int cycles)
+        {
+            mOnMillis = onMillis;
+            mOffMillis = offMillis;
+            mCycles = cycles;
+        }
+
+        /**
+         * @return how long the watch vibrates in each cycle, in milliseconds.
+         */
+        public int getOnMillis()
+        {
+            return mOnMillis;
+        }
+
+        /**
+         * @return how long the watch pauses in each cycle, in milliseconds.
+         */
+        public int getOffMillis()
+        {
+            return mOffMillis;
+        }
+
+        /**
+         * @return number of cycles.
+         */
+        public int getCycles()
+        {
+            return mCycles;
+        }
+
+        @Override
+        public boolean equals(final Object o)
+        {
+            if (!(o instanceof Vibration))
+            {
+                return false;
+            }
+            final Vibration other = (Vibration) o;
+            return mOnMillis == other.mOnMillis && mOffMillis == other.mOffMillis && mCycles == other.mCycles;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return (mOnMillis * 31 + mOffMillis) * 31 + mCycles;
+        }
+    }
+
+    /**
+     * @return true if both are null or equal.
+     */
+    static boolean equal(final Object a, final Object b)
+    {
+        return null == a ? null == b : a.equals(b);
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at <http://www.apache.org/licenses/LICENSE-2.0>
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS"
+ * BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package org.metawatch.manager.locale.bundle;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import org.metawatch.manager.locale.bundle.Setting.Vibration;
+
+/**
+ * Encodes a {@link Setting} as the compact {@link PluginBundleManager#BUNDLE_EXTRA_BYTE_ARRAY_SETTING} extra.
+ * <p>
+ * Only the values the kind of setting uses are stored:
+ *
+ * <pre>
+ * byte     format version
+ * byte     kind, the handler's code: 1 notification, 2 widget, 3 silent mode
+ * byte     flags: 1 vibrates; 2 sticky, for notifications, or enabled, for silent mode
+ * UTF      title and message, for notifications; widget id, label and icon, for widgets
+ * int[3]   vibration on and off milliseconds and cycles, if the setting vibrates
+ * </pre>
+ *
+ * Everything after the kind is written and read by the setting's {@link ActionHandler}. The versionCode is not part of the
+ * encoding: it stays in {@link PluginBundleManager#BUNDLE_EXTRA_INT_VERSION_CODE}, which is what tells a reader whether to look
+ * for this extra at all.
+ * <p>
+ * This class is thread-safe.
+ */
+public final class SettingCodec
+{
+    /**
+     * Version of the encoding. Extras with a different version cannot be decoded.
+     */
+    static final int FORMAT_VERSION = 1;
+
+    private static final int FLAG_VIBRATE = 1;
+    private static final int FLAG_ON = 2;
+
+    /**
+     * Private constructor prevents instantiation
+     *
+     * @throws UnsupportedOperationException because this class cannot be instantiated.
+     */
+    private SettingCodec()
+    {
+        throw new UnsupportedOperationException("This class is non-instantiable"); //$NON-NLS-1$
+    }
+
+    /**
+     * @param setting setting to encode. Cannot be null.
+     * @return the encoded setting.
+     */
+    public static byte[] encode(final Setting setting)
+    {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        final DataOutputStream out = new DataOutputStream(bytes);
+        try
+        {
+            out.writeByte(FORMAT_VERSION);
+            out.writeByte(setting.getHandler().getCode());
+            setting.getHandler().encode(setting, out);
+            out.flush();
+        }
+        catch (final IOException e)
+        {
+            /*
+             * ByteArrayOutputStream does not throw
+             */
+            throw new RuntimeException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @param data an encoded setting. Cannot be null.
+     * @param versionCode versionCode of the plug-in that saved the setting.
+     * @return the setting.
+     * @throws IOException if {@code data} is truncated, has trailing bytes, or has an unknown version or kind.
+     */
+    public static Setting decode(final byte[] data, final int versionCode) throws IOException
+    {
+        final DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+
+        final int version = in.readUnsignedByte();
+        if (FORMAT_VERSION != version)
+        {
+            throw new IOException("unsupported format version " + version); //$NON-NLS-1$
+        }
+
+        final int code = in.readUnsignedByte();
+        final ActionHandler handler = ActionRegistry.getByCode(code);
+        if (null == handler)
+        {
+            throw new IOException("unknown kind " + code); //$NON-NLS-1$
+        }
+
+        final Setting setting = handler.decode(in, versionCode);
+        if (-1 != in.read())
+        {
+            throw new IOException("trailing bytes"); //$NON-NLS-1$
+        }
+        return setting;
+    }
+
+    /**
+     * @return flags byte for a setting.
+     */
+    static int flags(final Vibration vibration, final boolean on)
+    {
+        return (null != vibration ? FLAG_VIBRATE : 0) | (on ? FLAG_ON : 0);
+    }
+
+    /**
+     * @return whether {@link #FLAG_ON} is set.
+     */
+    static boolean isOn(final int flags)
+    {
+        return 0 != (flags & FLAG_ON);
+    }
+
+    /**
+     * Writes a vibration pattern, if there is one.
+     */
+    static void writeVibration(final DataOutputStream out, final Vibration vibration) throws IOException
+    {
+        if (null != vibration)
+        {
+            out.writeInt(vibration.getOnMillis());
+            out.writeInt(vibration.getOffMillis());
+            out.writeInt(vibration.getCycles());
+        }
+    }
+
+    /**
+     * @return the vibration pattern written by {@link #writeVibration(DataOutputStream, Vibration)}, or null if {@code flags}
+     *         say there is none.
+     */
+    static Vibration readVibration(final DataInputStream in, final int flags) throws IOException
+    {
+        if (0 == (flags & FLAG_VIBRATE))
+        {
+            return null;
+        }
+        final int onMillis = in.readInt();
+        final int offMillis = in.readInt();
+        final int cycles = in.readInt();
+        return new Vibration(onMillis, offMillis, cycles);
+    }
+}
@@ -0,0 +1,542 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at <http://www.apache.org/licenses/LICENSE-2.0>
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS"
+ * BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package org.metawatch.manager.locale.bundle;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import android.os.Bundle;
+
+import org.metawatch.manager.locale.bundle.Setting.Vibration;
+
+/**
+ * Parses a plug-in Bundle into a {@link Setting}.
+ * <p>
+ * Bundles saved by version {@link PluginBundleManager#COMPACT_FORMAT_VERSION_CODE} or later may hold the whole setting in
+ * {@link PluginBundleManager#BUNDLE_EXTRA_BYTE_ARRAY_SETTING}. Otherwise the {@link ActionHandler} named by
+ * {@link PluginBundleManager#BUNDLE_EXTRA_STRING_TYPE} reads the setting from an extra per value, and only the extras its kind
+ * uses are required.
+ * <p>
+ * Each extra the plug-in knows is read from the Bundle exactly once, and a fingerprint of those values is folded in as they are
+ * read. The last {@link #MEMO_SIZE} valid settings are kept by fingerprint, so a setting that Locale fires again is not validated
+ * or built again. Only values of known extras feed the fingerprint, so unrelated extras do not defeat the memo. A setting is only
+ * taken from the memo if the values it was built from match too, so two Bundles whose fingerprints collide each get their own.
+ * <p>
+ * This class is thread-safe.
+ */
+public final class SettingParser
+{
+    /**
+     * Why a Bundle could not be parsed.
+     */
+    public enum InvalidReason
+    {
+        /**
+         * There was no Bundle.
+         */
+        NULL_BUNDLE,
+
+        /**
+         * A required extra is missing.
+         */
+        MISSING_EXTRA,
+
+        /**
+         * A required extra has a value of the wrong type.
+         */
+        WRONG_TYPE,
+
+        /**
+         * {@link PluginBundleManager#BUNDLE_EXTRA_STRING_TYPE} names no known kind of setting.
+         */
+        UNKNOWN_TYPE,
+
+        /**
+         * {@link PluginBundleManager#BUNDLE_EXTRA_BYTE_ARRAY_SETTING} could not be decoded.
+         */
+        BAD_ENCODING
+    }
+
+    /**
+     * Either a setting, or the reason there is none. Instances are immutable.
+     */
+    public static final class Result
+    {
+        private final Setting mSetting;
+        private final InvalidReason mReason;
+        private final String mKey;
+
+        Result(final Setting setting, final InvalidReason reason, final String key)
+        {
+            mSetting = setting;
+            mReason = reason;
+            mKey = key;
+        }
+
+        /**
+         * @return true if the Bundle held a valid setting.
+         */
+        public boolean isValid()
+        {
+            return null != mSetting;
+        }
+
+        /**
+         * @return the setting, or null if the Bundle was invalid.
+         */
+        public Setting getSetting()
+        {
+            return mSetting;
+        }
+
+        /**
+         * @return why the Bundle was invalid, or null if it was valid.
+         */
+        public InvalidReason getReason()
+        {
+            return mReason;
+        }
+
+        /**
+         * @return the extra at fault, or null if the Bundle was valid or no single extra was at fault.
+         */
+        public String getKey()
+        {
+            return mKey;
+        }
+
+        @Override
+        public String toString()
+        {
+            if (isValid())
+            {
+                return mSetting.getTypeId();
+            }
+            return null == mKey ? mReason.toString() : mReason + " " + mKey; //$NON-NLS-1$
+        }
+    }
+
+    /**
+     * Number of parsed settings kept.
+     */
+    static final int MEMO_SIZE = 32;
+
+    private static final int VERSION_CODE = 0;
+    private static final int TYPE = 1;
+    private static final int COMPACT = 2;
+
+    /*
+     * The extras read, in the order their values are fingerprinted: the ones every setting has, then those of each handler
+     */
+    private static final String[] KEYS;
+
+    private static final HashMap<String, Integer> KEY_INDEX = new HashMap<String, Integer>();
+
+    static
+    {
+        final String[] extraKeys = ActionRegistry.getExtraKeys();
+        KEYS = new String[COMPACT + 1 + extraKeys.length];
+        KEYS[VERSION_CODE] = PluginBundleManager.BUNDLE_EXTRA_INT_VERSION_CODE;
+        KEYS[TYPE] = PluginBundleManager.BUNDLE_EXTRA_STRING_TYPE;
+        KEYS[COMPACT] = PluginBundleManager.BUNDLE_EXTRA_BYTE_ARRAY_SETTING;
+        System.arraycopy(extraKeys, 0, KEYS, COMPACT + 1, extraKeys.length);
+
+        for (int i = 0; i < KEYS.length; i++)
+        {
+            KEY_INDEX.put(KEYS[i], Integer.valueOf(i));
+        }
+    }
+
+    /*
+     * 64-bit FNV-1a
+     */
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private static final Result NULL_BUNDLE = new Result(null, InvalidReason.NULL_BUNDLE, null);
+
+    /**
+     * Valid results by fingerprint, least recently used first. Guarded by itself.
+     */
+    private static final Map<Long, Memo> MEMO = new LinkedHashMap<Long, Memo>(MEMO_SIZE, 0.75f, true)
+    {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<Long, Memo> eldest)
+        {
+            return size() > MEMO_SIZE;
+        }
+    };
+
+    private static final AtomicLong sHitCount = new AtomicLong();
+
+    /**
+     * Private constructor prevents instantiation
+     *
+     * @throws UnsupportedOperationException because this class cannot be instantiated.
+     */
+    private SettingParser()
+    {
+        throw new UnsupportedOperationException("This class is non-instantiable"); //$NON-NLS-1$
+    }
+
+    /**
+     * Parses a plug-in Bundle.
+     * <p>
+     * This method will not mutate {@code bundle}.
+     *
+     * @param bundle Bundle to parse. May be null, which is invalid.
+     * @return the setting, or why there is none. Never null.
+     */
+    public static Result parse(final Bundle bundle)
+    {
+        if (null == bundle)
+        {
+            return NULL_BUNDLE;
+        }
+
+        final Object[] values = readValues(bundle);
+        long fingerprint = FNV_OFFSET;
+        for (final Object value : values)
+        {
+            fingerprint = fingerprint(fingerprint, value);
+        }
+
+        return parse(values, fingerprint);
+    }
+
+    /**
+     * @return the value of each known extra in {@code bundle}, read once.
+     */
+    static Object[] readValues(final Bundle bundle)
+    {
+        final Object[] values = new Object[KEYS.length];
+        for (int i = 0; i < KEYS.length; i++)
+        {
+            values[i] = bundle.get(KEYS[i]);
+        }
+        return values;
+    }
+
+    /**
+     * Parses the values of the known extras, from the memo if they were parsed before.
+     *
+     * @param values value of each of {@link #KEYS}.
+     * @param fingerprint fingerprint of {@code values}.
+     * @return the setting, or why there is none. Never null.
+     */
+    static Result parse(final Object[] values, final long fingerprint)
+    {
+        final Long key = Long.valueOf(fingerprint);
+        final Memo memo;
+        synchronized (MEMO)
+        {
+            memo = MEMO.get(key);
+        }
+        if (null != memo && memo.matches(values))
+        {
+            sHitCount.incrementAndGet();
+            return memo.mResult;
+        }
+
+        final Result result = build(values);
+        if (result.isValid())
+        {
+            final Memo added = new Memo(values, result);
+            synchronized (MEMO)
+            {
+                MEMO.put(key, added);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Validates the values of the known extras and builds the setting they describe.
+     */
+    private static Result build(final Object[] values)
+    {
+        Result invalid = require(values, VERSION_CODE, Integer.class);
+        if (null != invalid)
+        {
+            return invalid;
+        }
+
+        final int versionCode = ((Integer) values[VERSION_CODE]).intValue();
+        if (versionCode >= PluginBundleManager.COMPACT_FORMAT_VERSION_CODE && null != values[COMPACT])
+        {
+            return buildCompact(values, versionCode);
+        }
+
+        invalid = require(values, TYPE, String.class);
+        if (null != invalid)
+        {
+            return invalid;
+        }
+
+        final ActionHandler handler = ActionRegistry.get((String) values[TYPE]);
+        if (null == handler)
+        {
+            return new Result(null, InvalidReason.UNKNOWN_TYPE, KEYS[TYPE]);
+        }
+
+        try
+        {
+            return new Result(handler.parse(new Values(values), versionCode), null, null);
+        }
+        catch (final InvalidExtraException e)
+        {
+            return new Result(null, e.mReason, e.mKey);
+        }
+    }
+
+    /**
+     * Decodes a setting saved as {@link PluginBundleManager#BUNDLE_EXTRA_BYTE_ARRAY_SETTING}.
+     */
+    private static Result buildCompact(final Object[] values, final int versionCode)
+    {
+        final Result invalid = require(values, COMPACT, byte[].class);
+        if (null != invalid)
+        {
+            return invalid;
+        }
+
+        try
+        {
+            return new Result(SettingCodec.decode((byte[]) values[COMPACT], versionCode), null, null);
+        }
+        catch (final IOException e)
+        {
+            return new Result(null, InvalidReason.BAD_ENCODING, KEYS[COMPACT]);
+        }
+    }
+
+    /**
+     * @return null if the value at {@code index} is of type {@code clazz}, otherwise why it is invalid.
+     */
+    private static Result require(final Object[] values, final int index, final Class<?> clazz)
+    {
+        if (null == values[index])
+        {
+            return new Result(null, InvalidReason.MISSING_EXTRA, KEYS[index]);
+        }
+        if (!clazz.isInstance(values[index]))
+        {
+            return new Result(null, InvalidReason.WRONG_TYPE, KEYS[index]);
+        }
+        return null;
+    }
+
+    /**
+     * Folds one extra's value into a fingerprint. Values of types the plug-in never stores only contribute their type, since
+     * {@link #build(Object[])} treats them all alike.
+     */
+    static long fingerprint(final long hash, final Object value)
+    {
+        if (value instanceof String)
+        {
+            final String string = (String) value;
+            long result = (hash ^ 'S') * FNV_PRIME;
+            for (int i = 0; i < string.length(); i++)
+            {
+                result = (result ^ string.charAt(i)) * FNV_PRIME;
+            }
+            return (result ^ string.length()) * FNV_PRIME;
+        }
+        if (value instanceof byte[])
+        {
+            final byte[] bytes = (byte[]) value;
+            long result = (hash ^ 'B') * FNV_PRIME;
+            for (final byte b : bytes)
+            {
+                result = (result ^ (b & 0xff)) * FNV_PRIME;
+            }
+            return (result ^ bytes.length) * FNV_PRIME;
+        }
+        if (value instanceof Integer)
+        {
+            return (((hash ^ 'I') * FNV_PRIME) ^ ((Integer) value).intValue()) * FNV_PRIME;
+        }
+        if (value instanceof Boolean)
+        {
+            return (hash ^ (((Boolean) value).booleanValue() ? 'T' : 'F')) * FNV_PRIME;
+        }
+        if (null == value)
+        {
+            return (hash ^ 'N') * FNV_PRIME;
+        }
+        return (hash ^ value.getClass().getName().hashCode()) * FNV_PRIME;
+    }
+
+    /**
+     * @return number of parses answered from the memo.
+     */
+    static long getMemoHitCount()
+    {
+        return sHitCount.get();
+    }
+
+    /**
+     * A valid result, with the values it was built from.
+     */
+    private static final class Memo
+    {
+        /**
+         * Copy of the values, so a Bundle changed after it was parsed cannot change them.
+         */
+        private final Object[] mValues;
+
+        final Result mResult;
+
+        Memo(final Object[] values, final Result result)
+        {
+            mValues = values.clone();
+            for (int i = 0; i < mValues.length; i++)
+            {
+                if (mValues[i] instanceof byte[])
+                {
+                    mValues[i] = ((byte[]) mValues[i]).clone();
+                }
+            }
+            mResult = result;
+        }
+
+        /**
+         * @return true if {@code values} would build the same result. Values of types the plug-in never stores only need to
+         *         match in type, as for {@link SettingParser#fingerprint(long, Object)}.
+         */
+        boolean matches(final Object[] values)
+        {
+            for (int i = 0; i < mValues.length; i++)
+            {
+                final Object memo = mValues[i];
+                final Object value = values[i];
+                if (null == memo || null == value)
+                {
+                    if (memo != value)
+                    {
+                        return false;
+                    }
+                }
+                else if (memo instanceof byte[])
+                {
+                    if (!(value instanceof byte[]) || !Arrays.equals((byte[]) memo, (byte[]) value))
+                    {
+                        return false;
+                    }
+                }
+                else if (memo instanceof String || memo instanceof Integer || memo instanceof Boolean)
+                {
+                    if (!memo.equals(value))
+                    {
+                        return false;
+                    }
+                }
+                else if (memo.getClass() != value.getClass())
+                {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Values of the plug-in's extras, read once from a Bundle, for {@link ActionHandler#parse(Values, int)}.
+     */
+    static final class Values
+    {
+        private final Object[] mValues;
+
+        Values(final Object[] values)
+        {
+            mValues = values;
+        }
+
+        private Object get(final String key)
+        {
+            final Integer index = KEY_INDEX.get(key);
+            if (null == index)
+            {
+                throw new IllegalArgumentException(key + " is not declared by any handler"); //$NON-NLS-1$
+            }
+            return mValues[index.intValue()];
+        }
+
+        /**
+         * @return the value of a required String extra.
+         * @throws InvalidExtraException if the extra is missing or not a String.
+         */
+        String getString(final String key) throws InvalidExtraException
+        {
+            final Object value = get(key);
+            if (null == value)
+            {
+                throw new InvalidExtraException(InvalidReason.MISSING_EXTRA, key);
+            }
+            if (!(value instanceof String))
+            {
+                throw new InvalidExtraException(InvalidReason.WRONG_TYPE, key);
+            }
+            return (String) value;
+        }
+
+        /**
+         * Optional values of the wrong type fall back to their default, as {@link Bundle#getBoolean(String, boolean)} does.
+         */
+        boolean getBoolean(final String key, final boolean defaultValue)
+        {
+            final Object value = get(key);
+            return value instanceof Boolean ? ((Boolean) value).booleanValue() : defaultValue;
+        }
+
+        int getInt(final String key)
+        {
+            final Object value = get(key);
+            return value instanceof Integer ? ((Integer) value).intValue() : 0;
+        }
+
+        /**
+         * @return the vibration pattern, or null if {@link PluginBundleManager#BUNDLE_EXTRA_BOOLEAN_VIBRATE} is not set.
+         */
+        Vibration getVibration()
+        {
+            if (!getBoolean(PluginBundleManager.BUNDLE_EXTRA_BOOLEAN_VIBRATE, false))
+            {
+                return null;
+            }
+            return new Vibration(getInt(PluginBundleManager.BUNDLE_EXTRA_INT_VIBRATE_ON), getInt(PluginBundleManager.BUNDLE_EXTRA_INT_VIBRATE_OFF),
+                                 getInt(PluginBundleManager.BUNDLE_EXTRA_INT_VIBRATE_CYCLES));
+        }
+    }
+
+    /**
+     * Thrown by {@link ActionHandler#parse(Values, int)} when a required extra is missing or of the wrong type.
+     */
+    static final class InvalidExtraException extends Exception
+    {
+        private static final long serialVersionUID = 1L;
+
+        final InvalidReason mReason;
+        final String mKey;
+
+        InvalidExtraException(final InvalidReason reason, final String key)
+        {
+            super(reason + " " + key); //$NON-NLS-1$
+            mReason = reason;
+            mKey = key;
+        }
+    }
+}
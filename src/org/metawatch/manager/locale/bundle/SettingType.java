@@ -0,0 +1,42 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at <http://www.apache.org/licenses/LICENSE-2.0>
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS"
+ * BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package org.metawatch.manager.locale.bundle;
+
+/**
+ * What a fire was for, as the receiver's metrics break it down. Each {@link ActionHandler} names the type its settings are
+ * recorded under, so adding a kind of setting means adding a constant here and passing it to the new handler.
+ */
+public enum SettingType
+{
+    /**
+     * A notification setting.
+     */
+    NOTIFICATION,
+
+    /**
+     * A widget setting.
+     */
+    WIDGET,
+
+    /**
+     * A silent mode setting.
+     */
+    SILENTMODE,
+
+    /**
+     * A refresh requested by the manager, rather than a Locale setting.
+     */
+    REFRESH,
+
+    /**
+     * A fire whose Bundle was missing or invalid.
+     */
+    UNKNOWN
+}
@@ -0,0 +1,127 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at <http://www.apache.org/licenses/LICENSE-2.0>
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS"
+ * BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package org.metawatch.manager.locale.bundle;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import android.content.Intent;
+import android.os.Bundle;
+
+/**
+ * A setting that turns the manager's silent mode on or off.
+ */
+public final class SilentModeSetting extends Setting
+{
+    /**
+     * Handler for silent mode settings.
+     */
+    static final ActionHandler HANDLER = new Handler();
+
+    private final boolean mEnabled;
+
+    /**
+     * @param versionCode versionCode of the plug-in that saved the setting.
+     * @param enabled whether silent mode is turned on.
+     */
+    public SilentModeSetting(final int versionCode, final boolean enabled)
+    {
+        super(versionCode);
+        mEnabled = enabled;
+    }
+
+    @Override
+    public ActionHandler getHandler()
+    {
+        return HANDLER;
+    }
+
+    /**
+     * @return whether silent mode is turned on.
+     */
+    public boolean isEnabled()
+    {
+        return mEnabled;
+    }
+
+    @Override
+    public boolean equals(final Object o)
+    {
+        if (!(o instanceof SilentModeSetting))
+        {
+            return false;
+        }
+        final SilentModeSetting other = (SilentModeSetting) o;
+        return getVersionCode() == other.getVersionCode() && mEnabled == other.mEnabled;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return mEnabled ? 1 : 0;
+    }
+
+    private static final class Handler extends ActionHandler
+    {
+        /**
+         * Copied for each fire.
+         */
+        private final Intent mTemplate = new Intent("org.metawatch.manager.SILENTMODE"); //$NON-NLS-1$
+
+        Handler()
+        {
+            super("silentmode", 3, SettingType.SILENTMODE, PluginBundleManager.BUNDLE_EXTRA_BOOLEAN_SILENTMODE); //$NON-NLS-1$
+        }
+
+        @Override
+        Setting parse(final SettingParser.Values values, final int versionCode)
+        {
+            return new SilentModeSetting(versionCode, values.getBoolean(PluginBundleManager.BUNDLE_EXTRA_BOOLEAN_SILENTMODE, false));
+        }
+
+        @Override
+        void encode(final Setting setting, final DataOutputStream out) throws IOException
+        {
+            out.writeByte(SettingCodec.flags(null, ((SilentModeSetting) setting).mEnabled));
+        }
+
+        @Override
+        Setting decode(final DataInputStream in, final int versionCode) throws IOException
+        {
+            return new SilentModeSetting(versionCode, SettingCodec.isOn(in.readUnsignedByte()));
+        }
+
+        @Override
+        public void apply(final FireContext fire, final Setting setting, final List<Intent> outbox)
+        {
+            final Bundle extras = new Bundle();
+            extras.putBoolean("enabled", ((SilentModeSetting) setting).mEnabled); //$NON-NLS-1$
+
+            outbox.add(new Intent(mTemplate).putExtras(extras));
+        }
+
+        /**
+         * Silent mode is a single switch, so only the last fire in a burst matters.
+         */
+        @Override
+        public String getCoalescingKey(final Setting setting)
+        {
+            return getTypeId();
+        }
+
+        @Override
+        public String getBlurb(final Setting setting)
+        {
+            return ((SilentModeSetting) setting).mEnabled ? "Silent Mode : Enabled" : "Silent Mode : Disabled"; //$NON-NLS-1$ //$NON-NLS-2$
+        }
+    }
+}
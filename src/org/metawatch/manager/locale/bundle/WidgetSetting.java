@@ -0,0 +1,203 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at <http://www.apache.org/licenses/LICENSE-2.0>
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS"
+ * BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package org.metawatch.manager.locale.bundle;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import android.content.Intent;
+import android.os.Bundle;
+
+/**
+ * A setting that updates a widget on the watch.
+ */
+public final class WidgetSetting extends Setting
+{
+    /**
+     * Handler for widget settings.
+     */
+    static final ActionHandler HANDLER = new Handler();
+
+    private final String mWidgetId;
+    private final String mLabel;
+    private final String mIcon;
+    private final Vibration mVibration;
+
+    /**
+     * Key for {@link ActionHandler#getCoalescingKey(Setting)}, built once since parsed settings are reused across fires. Null
+     * if the setting vibrates.
+     */
+    private final String mCoalescingKey;
+
+    /**
+     * @param versionCode versionCode of the plug-in that saved the setting.
+     * @param widgetId id of the widget. Cannot be null.
+     * @param label text drawn under the icon. Cannot be null.
+     * @param icon name of the icon asset. Cannot be null.
+     * @param vibration how the watch vibrates, or null if it does not.
+     */
+    public WidgetSetting(final int versionCode, final String widgetId, final String label, final String icon, final Vibration vibration)
+    {
+        super(versionCode);
+
+        if (null == widgetId || null == label || null == icon)
+        {
+            throw new IllegalArgumentException("widgetId, label and icon cannot be null"); //$NON-NLS-1$
+        }
+
+        mWidgetId = widgetId;
+        mLabel = label;
+        mIcon = icon;
+        mVibration = vibration;
+        mCoalescingKey = null != vibration ? null : "widget|" + widgetId; //$NON-NLS-1$
+    }
+
+    @Override
+    public ActionHandler getHandler()
+    {
+        return HANDLER;
+    }
+
+    /**
+     * @return id of the widget.
+     */
+    public String getWidgetId()
+    {
+        return mWidgetId;
+    }
+
+    /**
+     * @return text drawn under the icon, as entered.
+     */
+    public String getLabel()
+    {
+        return mLabel;
+    }
+
+    /**
+     * @return name of the icon asset.
+     */
+    public String getIcon()
+    {
+        return mIcon;
+    }
+
+    /**
+     * @return how the watch vibrates, or null if it does not.
+     */
+    public Vibration getVibration()
+    {
+        return mVibration;
+    }
+
+    @Override
+    public boolean equals(final Object o)
+    {
+        if (!(o instanceof WidgetSetting))
+        {
+            return false;
+        }
+        final WidgetSetting other = (WidgetSetting) o;
+        return getVersionCode() == other.getVersionCode() && mWidgetId.equals(other.mWidgetId) && mLabel.equals(other.mLabel)
+                && mIcon.equals(other.mIcon) && equal(mVibration, other.mVibration);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return mWidgetId.hashCode() * 31 + mLabel.hashCode();
+    }
+
+    private static final class Handler extends ActionHandler
+    {
+        /**
+         * Copied for each widget that vibrates.
+         */
+        private final Intent mVibrateTemplate = new Intent("org.metawatch.manager.VIBRATE"); //$NON-NLS-1$
+
+        Handler()
+        {
+            super("widget", 2, SettingType.WIDGET, PluginBundleManager.BUNDLE_EXTRA_STRING_WIDGET_ID, PluginBundleManager.BUNDLE_EXTRA_STRING_WIDGET_LABEL, //$NON-NLS-1$
+                  PluginBundleManager.BUNDLE_EXTRA_STRING_WIDGET_ICON, PluginBundleManager.BUNDLE_EXTRA_BOOLEAN_VIBRATE,
+                  PluginBundleManager.BUNDLE_EXTRA_INT_VIBRATE_ON, PluginBundleManager.BUNDLE_EXTRA_INT_VIBRATE_OFF,
+                  PluginBundleManager.BUNDLE_EXTRA_INT_VIBRATE_CYCLES);
+        }
+
+        @Override
+        Setting parse(final SettingParser.Values values, final int versionCode) throws SettingParser.InvalidExtraException
+        {
+            return new WidgetSetting(versionCode, values.getString(PluginBundleManager.BUNDLE_EXTRA_STRING_WIDGET_ID),
+                                     values.getString(PluginBundleManager.BUNDLE_EXTRA_STRING_WIDGET_LABEL),
+                                     values.getString(PluginBundleManager.BUNDLE_EXTRA_STRING_WIDGET_ICON), values.getVibration());
+        }
+
+        @Override
+        void encode(final Setting setting, final DataOutputStream out) throws IOException
+        {
+            final WidgetSetting widget = (WidgetSetting) setting;
+            out.writeByte(SettingCodec.flags(widget.mVibration, false));
+            out.writeUTF(widget.mWidgetId);
+            out.writeUTF(widget.mLabel);
+            out.writeUTF(widget.mIcon);
+            SettingCodec.writeVibration(out, widget.mVibration);
+        }
+
+        @Override
+        Setting decode(final DataInputStream in, final int versionCode) throws IOException
+        {
+            final int flags = in.readUnsignedByte();
+            final String widgetId = in.readUTF();
+            final String label = in.readUTF();
+            final String icon = in.readUTF();
+            return new WidgetSetting(versionCode, widgetId, label, icon, SettingCodec.readVibration(in, flags));
+        }
+
+        @Override
+        public void apply(final FireContext fire, final Setting setting, final List<Intent> outbox)
+        {
+            final WidgetSetting widget = (WidgetSetting) setting;
+
+            fire.sendWidget(widget, outbox);
+
+            if (null != widget.mVibration)
+            {
+                final Bundle extras = new Bundle();
+                putVibration(extras, widget.mVibration);
+                outbox.add(new Intent(mVibrateTemplate).putExtras(extras));
+            }
+        }
+
+        /**
+         * A vibration is an alert rather than widget state, so a widget update that vibrates is never replaced: a later update
+         * of the same widget would otherwise swallow it.
+         */
+        @Override
+        public String getCoalescingKey(final Setting setting)
+        {
+            return ((WidgetSetting) setting).mCoalescingKey;
+        }
+
+        @Override
+        public String getBlurb(final Setting setting)
+        {
+            final WidgetSetting widget = (WidgetSetting) setting;
+            return widget.mIcon + " : " + widget.mLabel; //$NON-NLS-1$
+        }
+
+        @Override
+        public boolean isComplete(final Setting setting)
+        {
+            final WidgetSetting widget = (WidgetSetting) setting;
+            return 0 != widget.mIcon.length() && 0 != widget.mLabel.length();
+        }
+    }
+}
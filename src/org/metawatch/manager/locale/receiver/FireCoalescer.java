@@ -0,0 +1,310 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at <http://www.apache.org/licenses/LICENSE-2.0>
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS"
+ * BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package org.metawatch.manager.locale.receiver;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import android.annotation.TargetApi;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.os.Build;
+import android.util.Log;
+
+import org.metawatch.manager.locale.Constants;
+import org.metawatch.manager.locale.bundle.Setting;
+import org.metawatch.manager.locale.bundle.SettingType;
+import org.metawatch.manager.locale.receiver.FireMetrics.Stage;
+
+/**
+ * Gathers bursts of {@link com.twofortyfouram.locale.Intent#ACTION_FIRE_SETTING} Intents and applies them together.
+ * <p>
+ * The first fire of a burst opens a window of {@link #getWindowMillis()}; every fire received before the window closes is
+ * applied in one batch on the {@link ReceiverExecutor} worker thread. Within a batch, a later fire replaces an earlier one with
+ * the same {@link FireReceiver#getCoalescingKey(Setting) key}, so only the last update of each widget is rendered. Notifications,
+ * and widget updates that vibrate, are never collapsed. The broadcasts for the whole batch are sent back to back once every setting has been applied.
+ * <p>
+ * The broadcasts of fires in the window are kept pending with {@code goAsync()}, so coalescing needs API 11. On older platforms,
+ * or when the window is zero, every fire is applied on its own.
+ */
+final class FireCoalescer
+{
+    private static final Object LOCK = new Object();
+
+    /**
+     * Fires waiting for the window to close. Guarded by {@link #LOCK}.
+     */
+    private static List<Fire> sPending = new ArrayList<Fire>();
+
+    private static volatile long sWindowMillis = Constants.FIRE_COALESCING_WINDOW_MILLIS;
+
+    private static final AtomicLong sFireCount = new AtomicLong();
+    private static final AtomicLong sBatchCount = new AtomicLong();
+    private static final AtomicLong sCollapsedCount = new AtomicLong();
+
+    /**
+     * Private constructor prevents instantiation
+     *
+     * @throws UnsupportedOperationException because this class cannot be instantiated.
+     */
+    private FireCoalescer()
+    {
+        throw new UnsupportedOperationException("This class is non-instantiable"); //$NON-NLS-1$
+    }
+
+    /**
+     * Queues a fire. Must be called from {@code onReceive()}.
+     *
+     * @param receiver receiver whose broadcast is being handled.
+     * @param context application context.
+     * @param intent the {@link com.twofortyfouram.locale.Intent#ACTION_FIRE_SETTING} Intent.
+     * @param coldStart whether the Intent is the first the process received.
+     */
+    static void submit(final BroadcastReceiver receiver, final Context context, final Intent intent, final boolean coldStart)
+    {
+        final long received = System.nanoTime();
+        sFireCount.incrementAndGet();
+
+        final long windowMillis = sWindowMillis;
+        if (windowMillis <= 0 || Build.VERSION.SDK_INT < 11)
+        {
+            ReceiverExecutor.execute(receiver, new Runnable()
+            {
+                public void run()
+                {
+                    apply(context, Collections.singletonList(intent), received, coldStart);
+                }
+            });
+            return;
+        }
+
+        submitAsync(receiver, context, intent, received, coldStart, windowMillis);
+        ReceiverExecutor.recordDispatch(System.nanoTime() - received);
+    }
+
+    @TargetApi(11)
+    private static void submitAsync(final BroadcastReceiver receiver, final Context context, final Intent intent, final long received,
+                                    final boolean coldStart, final long windowMillis)
+    {
+        final Fire fire = new Fire(intent, received, coldStart, ReceiverExecutor.hold(receiver));
+
+        final boolean opensWindow;
+        synchronized (LOCK)
+        {
+            opensWindow = sPending.isEmpty();
+            sPending.add(fire);
+        }
+
+        if (opensWindow)
+        {
+            ReceiverExecutor.executeLater(new Runnable()
+            {
+                public void run()
+                {
+                    flush(context);
+                }
+            }, windowMillis);
+        }
+    }
+
+    /**
+     * Applies every pending fire, then finishes their broadcasts.
+     */
+    private static void flush(final Context context)
+    {
+        final List<Fire> batch;
+        synchronized (LOCK)
+        {
+            batch = sPending;
+            sPending = new ArrayList<Fire>();
+        }
+
+        try
+        {
+            final List<Intent> intents = new ArrayList<Intent>(batch.size());
+            boolean coldStart = false;
+            for (final Fire fire : batch)
+            {
+                intents.add(fire.mIntent);
+                coldStart |= fire.mColdStart;
+            }
+            apply(context, intents, batch.get(0).mReceivedNanos, coldStart);
+        }
+        finally
+        {
+            for (final Fire fire : batch)
+            {
+                fire.mFinish.run();
+            }
+        }
+    }
+
+    /**
+     * Validates, collapses and applies a batch of fires, then sends their broadcasts.
+     *
+     * @param received {@link System#nanoTime()} when the first fire of the batch was received.
+     * @param coldStart whether the batch holds the first Intent the process received.
+     */
+    private static void apply(final Context context, final List<Intent> intents, final long received, final boolean coldStart)
+    {
+        final List<Setting> parsed = new ArrayList<Setting>(intents.size());
+        for (final Intent intent : intents)
+        {
+            final Setting setting = FireReceiver.getValidSetting(intent);
+            if (null != setting)
+            {
+                parsed.add(setting);
+            }
+        }
+
+        final List<Setting> settings = coalesce(parsed);
+        sBatchCount.incrementAndGet();
+
+        if (Constants.IS_LOGGABLE && Log.isLoggable(Constants.LOG_TAG, Log.VERBOSE))
+        {
+            Log.v(Constants.LOG_TAG, String.format("applying %d of %d fires", Integer.valueOf(settings.size()), Integer.valueOf(intents.size()))); //$NON-NLS-1$
+        }
+
+        final List<Intent> outbox = new ArrayList<Intent>();
+        final List<SettingType> types = new ArrayList<SettingType>();
+        for (final Setting setting : settings)
+        {
+            FireReceiver.applySetting(context, setting, outbox);
+            while (types.size() < outbox.size())
+            {
+                types.add(setting.getHandler().getSettingType());
+            }
+        }
+        FireReceiver.sendAll(context, outbox, types);
+
+        final SettingType type = settings.isEmpty() ? SettingType.UNKNOWN : settings.get(0).getHandler().getSettingType();
+        if (coldStart)
+        {
+            FireReceiver.recordColdStart(type);
+        }
+        else
+        {
+            FireReceiver.metrics.record(Stage.WARM_START, type, System.nanoTime() - received);
+        }
+
+        /*
+         * Formatting every histogram is far dearer than recording into them, so the report is only built when verbose logging
+         * has been turned on for the tag, with "adb shell setprop log.tag.Locale-MWM VERBOSE"
+         */
+        if (Constants.IS_LOGGABLE && Log.isLoggable(Constants.LOG_TAG, Log.VERBOSE))
+        {
+            Log.v(Constants.LOG_TAG, FireReceiver.metrics.report());
+        }
+    }
+
+    /**
+     * Drops settings that a later setting in the same batch replaces.
+     *
+     * @param fired settings, in the order they were fired.
+     * @return the settings to apply, in order. A setting that replaced earlier ones takes the place of the last of them.
+     */
+    static List<Setting> coalesce(final List<Setting> fired)
+    {
+        final LinkedHashMap<Object, Setting> settings = new LinkedHashMap<Object, Setting>();
+        for (final Setting setting : fired)
+        {
+            final String key = FireReceiver.getCoalescingKey(setting);
+            if (null == key)
+            {
+                settings.put(new Object(), setting);
+            }
+            else
+            {
+                if (null != settings.remove(key))
+                {
+                    sCollapsedCount.incrementAndGet();
+                }
+                settings.put(key, setting);
+            }
+        }
+        return new ArrayList<Setting>(settings.values());
+    }
+
+    /**
+     * @return how long fires are gathered before being applied, in milliseconds.
+     */
+    static long getWindowMillis()
+    {
+        return sWindowMillis;
+    }
+
+    /**
+     * @param windowMillis how long to gather fires before applying them, in milliseconds. Zero or less applies every fire on
+     *            its own.
+     */
+    static void setWindowMillis(final long windowMillis)
+    {
+        sWindowMillis = windowMillis;
+    }
+
+    /**
+     * @return number of fires received.
+     */
+    static long getFireCount()
+    {
+        return sFireCount.get();
+    }
+
+    /**
+     * @return number of batches applied.
+     */
+    static long getBatchCount()
+    {
+        return sBatchCount.get();
+    }
+
+    /**
+     * @return number of fires dropped because a later fire in the same batch replaced them.
+     */
+    static long getCollapsedCount()
+    {
+        return sCollapsedCount.get();
+    }
+
+    /**
+     * A fire waiting for its window to close.
+     */
+    private static final class Fire
+    {
+        final Intent mIntent;
+
+        /**
+         * {@link System#nanoTime()} when the fire was received.
+         */
+        final long mReceivedNanos;
+
+        /**
+         * Whether the fire was the first Intent the process received.
+         */
+        final boolean mColdStart;
+
+        /**
+         * Finishes the fire's pending broadcast.
+         */
+        final Runnable mFinish;
+
+        Fire(final Intent intent, final long receivedNanos, final boolean coldStart, final Runnable finish)
+        {
+            mIntent = intent;
+            mReceivedNanos = receivedNanos;
+            mColdStart = coldStart;
+            mFinish = finish;
+        }
+    }
+}
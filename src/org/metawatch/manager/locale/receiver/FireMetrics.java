@@ -0,0 +1,254 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at <http://www.apache.org/licenses/LICENSE-2.0>
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS"
+ * BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package org.metawatch.manager.locale.receiver;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.metawatch.manager.locale.bundle.SettingType;
+
+/**
+ * Latency histograms for each stage of handling a fire, broken down by setting type.
+ * <p>
+ * Each stage and setting type pair has a count, a total, a maximum and a histogram of power-of-two buckets: bucket {@code i}
+ * counts durations from 2<sup>i-1</sup> up to 2<sup>i</sup> nanoseconds. Everything lives in one {@link AtomicLongArray}, so
+ * {@link #record(Stage, SettingType, long)} takes no locks and allocates nothing, and can stay enabled in production. Readers
+ * see each value atomically, but not a consistent snapshot of all of them.
+ * <p>
+ * This class has no Android dependencies and is thread-safe.
+ */
+public final class FireMetrics
+{
+    /**
+     * A stage of handling a fire.
+     */
+    public enum Stage
+    {
+        /**
+         * {@code BundleScrubber.scrub()} of the Intent and its plug-in Bundle.
+         */
+        SCRUB,
+
+        /**
+         * {@code SettingParser.parse()}.
+         */
+        VALIDATE,
+
+        /**
+         * Loading the label typeface and rasterizing its glyphs.
+         */
+        TYPEFACE_LOAD,
+
+        /**
+         * Looking up, and on first use decoding, an icon asset.
+         */
+        ASSET_DECODE,
+
+        /**
+         * Rendering one size of a widget.
+         */
+        RENDER,
+
+        /**
+         * Encoding a widget's pixels into its update Intent. This stage replaced {@code Bitmap.getPixels()}.
+         */
+        ENCODE_PIXELS,
+
+        /**
+         * Storing a widget for later refreshes.
+         */
+        CACHE_WIDGET,
+
+        /**
+         * {@code Context.sendBroadcast()} of one Intent to the manager.
+         */
+        SEND_BROADCAST,
+
+        /**
+         * The first Intent the process received, from the start of {@code PluginApplication.onCreate()} to its last broadcast
+         * being sent. Recorded once per process, by the type of the first setting applied, or as {@link SettingType#REFRESH}
+         * or {@link SettingType#UNKNOWN} if the first Intent was not a fire.
+         */
+        COLD_START,
+
+        /**
+         * Every later fire, from {@code onReceive()} to its last broadcast being sent, including any time spent waiting for the
+         * coalescing window to close. Recorded once per batch, by the type of the first setting applied.
+         */
+        WARM_START
+    }
+
+    /**
+     * Number of histogram buckets. The last bucket also counts everything longer, from about 4.6 minutes.
+     */
+    public static final int BUCKET_COUNT = 40;
+
+    /*
+     * Enum.values() copies its array, so the sizes are fixed here rather than looked up while recording
+     */
+    private static final int STAGE_COUNT = Stage.values().length;
+    private static final int TYPE_COUNT = SettingType.values().length;
+
+    private static final int COUNT = 0;
+    private static final int TOTAL = 1;
+    private static final int MAX = 2;
+    private static final int FIRST_BUCKET = 3;
+    private static final int SLOT_SIZE = FIRST_BUCKET + BUCKET_COUNT;
+
+    private final AtomicLongArray mSlots = new AtomicLongArray(STAGE_COUNT * TYPE_COUNT * SLOT_SIZE);
+
+    /**
+     * Records one run of a stage.
+     *
+     * @param stage the stage.
+     * @param type what the fire was for.
+     * @param nanos how long the stage took. Negative values are recorded as zero.
+     */
+    public void record(final Stage stage, final SettingType type, final long nanos)
+    {
+        final long duration = Math.max(0, nanos);
+        final int slot = slot(stage, type);
+
+        mSlots.incrementAndGet(slot + COUNT);
+        mSlots.addAndGet(slot + TOTAL, duration);
+        mSlots.incrementAndGet(slot + FIRST_BUCKET + bucket(duration));
+
+        long max = mSlots.get(slot + MAX);
+        while (duration > max && !mSlots.compareAndSet(slot + MAX, max, duration))
+        {
+            max = mSlots.get(slot + MAX);
+        }
+    }
+
+    /**
+     * @return number of times the stage was recorded for the setting type.
+     */
+    public long getCount(final Stage stage, final SettingType type)
+    {
+        return mSlots.get(slot(stage, type) + COUNT);
+    }
+
+    /**
+     * @return total time recorded for the stage and setting type, in nanoseconds.
+     */
+    public long getTotalNanos(final Stage stage, final SettingType type)
+    {
+        return mSlots.get(slot(stage, type) + TOTAL);
+    }
+
+    /**
+     * @return longest time recorded for the stage and setting type, in nanoseconds.
+     */
+    public long getMaxNanos(final Stage stage, final SettingType type)
+    {
+        return mSlots.get(slot(stage, type) + MAX);
+    }
+
+    /**
+     * @param bucket histogram bucket, from 0 to {@link #BUCKET_COUNT} - 1.
+     * @return number of recorded times that fell in the bucket.
+     */
+    public long getBucketCount(final Stage stage, final SettingType type, final int bucket)
+    {
+        return mSlots.get(slot(stage, type) + FIRST_BUCKET + bucket);
+    }
+
+    /**
+     * Estimates a percentile from the histogram.
+     *
+     * @param percentile percentile to estimate, from 0 to 100.
+     * @return upper bound, in nanoseconds, of the bucket holding the percentile, capped at the longest recorded time. Zero if
+     *         nothing has been recorded.
+     */
+    public long getPercentileNanos(final Stage stage, final SettingType type, final double percentile)
+    {
+        final int slot = slot(stage, type);
+
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++)
+        {
+            total += mSlots.get(slot + FIRST_BUCKET + i);
+        }
+        if (0 == total)
+        {
+            return 0;
+        }
+
+        final long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++)
+        {
+            seen += mSlots.get(slot + FIRST_BUCKET + i);
+            if (seen >= rank)
+            {
+                return Math.min(upperBound(i), mSlots.get(slot + MAX));
+            }
+        }
+        return mSlots.get(slot + MAX);
+    }
+
+    /**
+     * Clears every count and histogram.
+     */
+    public void reset()
+    {
+        for (int i = 0; i < mSlots.length(); i++)
+        {
+            mSlots.set(i, 0);
+        }
+    }
+
+    /**
+     * @return one line for every stage and setting type that has been recorded, with its count, mean, median, 99th percentile
+     *         and maximum in microseconds.
+     */
+    public String report()
+    {
+        final StringBuilder report = new StringBuilder();
+        for (final Stage stage : Stage.values())
+        {
+            for (final SettingType type : SettingType.values())
+            {
+                final long count = getCount(stage, type);
+                if (0 == count)
+                {
+                    continue;
+                }
+
+                report.append(String.format("%s/%s count=%d mean=%dus p50=%dus p99=%dus max=%dus\n", //$NON-NLS-1$
+                                            stage, type, Long.valueOf(count), Long.valueOf(getTotalNanos(stage, type) / count / 1000),
+                                            Long.valueOf(getPercentileNanos(stage, type, 50) / 1000),
+                                            Long.valueOf(getPercentileNanos(stage, type, 99) / 1000),
+                                            Long.valueOf(getMaxNanos(stage, type) / 1000)));
+            }
+        }
+        return report.toString();
+    }
+
+    private static int slot(final Stage stage, final SettingType type)
+    {
+        return (stage.ordinal() * TYPE_COUNT + type.ordinal()) * SLOT_SIZE;
+    }
+
+    /**
+     * @return bucket for a non-negative duration: 0 for zero, otherwise one more than the index of its highest set bit.
+     */
+    static int bucket(final long nanos)
+    {
+        return Math.min(BUCKET_COUNT - 1, 64 - Long.numberOfLeadingZeros(nanos));
+    }
+
+    /**
+     * @return largest duration, in nanoseconds, counted by a bucket.
+     */
+    static long upperBound(final int bucket)
+    {
+        return bucket >= BUCKET_COUNT - 1 ? Long.MAX_VALUE : (1L << bucket) - 1;
+    }
+}
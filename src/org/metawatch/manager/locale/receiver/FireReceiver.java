@@ -9,37 +9,240 @@
 
 package org.metawatch.manager.locale.receiver;
 
+import java.io.DataInputStream;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.zip.CRC32;
 
 import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
-import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
-import android.graphics.Canvas;
-import android.graphics.Color;
+import android.content.res.AssetManager;
 import android.graphics.Typeface;
-import android.graphics.Paint.Align;
 import android.os.Bundle;
-import android.text.TextPaint;
 import android.util.Log;
 
+import org.metawatch.manager.locale.CacheManager;
 import org.metawatch.manager.locale.Constants;
+import org.metawatch.manager.locale.Lazy;
+import org.metawatch.manager.locale.StartupProfiler;
+import org.metawatch.manager.locale.bundle.ActionHandler;
 import org.metawatch.manager.locale.bundle.BundleScrubber;
-import org.metawatch.manager.locale.bundle.PluginBundleManager;
+import org.metawatch.manager.locale.bundle.Setting;
+import org.metawatch.manager.locale.bundle.SettingParser;
+import org.metawatch.manager.locale.bundle.SettingType;
+import org.metawatch.manager.locale.bundle.WidgetSetting;
+import org.metawatch.manager.locale.receiver.FireMetrics.Stage;
 import org.metawatch.manager.locale.ui.EditActivity;
+import org.metawatch.manager.locale.widget.GlyphTable;
+import org.metawatch.manager.locale.widget.IconStore;
+import org.metawatch.manager.locale.widget.MonoBitmap;
+import org.metawatch.manager.locale.widget.MonoFont;
+import org.metawatch.manager.locale.widget.ParallelRenderer;
+import org.metawatch.manager.locale.widget.TypefaceGlyphs;
+import org.metawatch.manager.locale.widget.WidgetFingerprints;
+import org.metawatch.manager.locale.widget.WidgetLayout;
+import org.metawatch.manager.locale.widget.WidgetPayload;
+import org.metawatch.manager.locale.widget.WidgetProfiles;
+import org.metawatch.manager.locale.widget.WidgetRasterizer;
+import org.metawatch.manager.locale.widget.WidgetRenderContext;
+import org.metawatch.manager.locale.widget.WidgetRenderCache;
+import org.metawatch.manager.locale.widget.WidgetStore;
+import org.metawatch.manager.locale.widget.WidgetSubscriptions;
 
 /**
  * This is the "fire" BroadcastReceiver for a Locale Plug-in setting.
  */
 public final class FireReceiver extends BroadcastReceiver {
 
-	static Typeface typeface = null; 
+	/**
+	 * Label font, read on the first render from the glyph table the build rasterized from metawatch_8pt_5pxl_CAPS.ttf.
+	 * The font itself is only loaded if the table cannot be read.
+	 */
+	static final Lazy<MonoFont> FONT = new Lazy<MonoFont>("font") {
+		@Override
+		protected MonoFont create(Context context) {
+			try {
+				InputStream in = context.getAssets().open(GlyphTable.ASSET_PATH, AssetManager.ACCESS_BUFFER);
+				try {
+					return GlyphTable.read(in);
+				}
+				finally {
+					in.close();
+				}
+			}
+			catch (IOException e) {
+				Log.w(Constants.LOG_TAG, "could not read glyph table, rasterizing the font instead", e);
+			}
+			
+			Typeface typeface = Typeface.createFromAsset(context.getAssets(), FONT_ASSET);
+			return TypefaceGlyphs.rasterize(typeface, 8);
+		}
+	};
+	
+	/**
+	 * Glyphs the platform draws the label font with, including the characters it takes from other fonts, for labels with
+	 * characters the glyph table does not cover. Only rasterized when such a label is first drawn.
+	 */
+	static final Lazy<MonoFont> FALLBACK_FONT = new Lazy<MonoFont>("fallback font") {
+		@Override
+		protected MonoFont create(Context context) {
+			Typeface typeface = Typeface.createFromAsset(context.getAssets(), FONT_ASSET);
+			return TypefaceGlyphs.rasterize(typeface, 8);
+		}
+	};
+	
+	/**
+	 * Every size a widget is sent at, read once from the widget_profiles.xml asset, with the strings for each size kept between
+	 * fires.
+	 */
+	private static final Lazy<WidgetRenderContext[]> RENDER_CONTEXTS = new Lazy<WidgetRenderContext[]>("profiles") {
+		@Override
+		protected WidgetRenderContext[] create(Context context) {
+			try {
+				InputStream in = context.getAssets().open(WidgetProfiles.ASSET_PATH, AssetManager.ACCESS_BUFFER);
+				try {
+					return WidgetRenderContext.forLayouts(WidgetProfiles.read(in));
+				}
+				finally {
+					in.close();
+				}
+			}
+			catch (IOException e) {
+				Log.w(Constants.LOG_TAG, "could not read widget profiles, using the built-in sizes", e);
+			}
+			
+			return WidgetRenderContext.forLayouts(WidgetProfiles.getDefaults());
+		}
+	};
+	
+	/**
+	 * Each thread's array for the sizes {@link #createAndSendWidget} renders, so a widget update does not allocate one.
+	 */
+	private static final ThreadLocal<MonoBitmap[]> RENDERED_SIZES = new ThreadLocal<MonoBitmap[]>();
+	
+	/**
+	 * Action of the manager's requests for every widget to be sent again.
+	 */
+	private static final String REFRESH_WIDGET_REQUEST = "org.metawatch.manager.REFRESH_WIDGET_REQUEST";
+	
+	/**
+	 * Font the widget labels are drawn in.
+	 */
+	private static final String FONT_ASSET = "metawatch_8pt_5pxl_CAPS.ttf";
+	
+	/**
+	 * Rendered widget pixels, so that repeated fires and refreshes of an unchanged widget skip rendering.
+	 */
+	static final WidgetRenderCache renderCache = new WidgetRenderCache(Constants.WIDGET_RENDER_CACHE_SIZE);
+	
+	/**
+	 * Pixel format for widget updates. Stays at the legacy format until the manager says, in a refresh request, that it reads
+	 * something more compact.
+	 */
+	static volatile String payloadFormat = WidgetPayload.FORMAT_ARGB;
+	
+	/**
+	 * The widget sizes the manager shows, from its refresh requests. Fires only render and send those; other sizes are rendered
+	 * when the manager first asks for them.
+	 */
+	static final WidgetSubscriptions subscriptions = new WidgetSubscriptions();
+	
+	/**
+	 * What the manager was last sent for each widget, so re-fires that change nothing are not broadcast again.
+	 */
+	static final WidgetFingerprints sentWidgets = new WidgetFingerprints();
+	
+	/**
+	 * Time spent in each stage of handling fires and refreshes.
+	 */
+	static final FireMetrics metrics = new FireMetrics();
+	
+	/**
+	 * What handlers are given while a setting is applied, for the last context fires came with.
+	 */
+	private static volatile ReceiverFireContext sFireContext;
+	
+	/**
+	 * Name of the widget store's file in the cache directory.
+	 */
+	static final String WIDGET_STORE_FILE = "widgets.store";
+	
+	/**
+	 * The last icon and label of every widget, for refreshes. Opened the first time it is needed; widgets stored one per file by
+	 * earlier versions are moved into it.
+	 */
+	private static final Lazy<WidgetStore> WIDGET_STORE = new Lazy<WidgetStore>("widget store") {
+		@Override
+		protected WidgetStore create(Context context) {
+			File file = new File(context.getCacheDir(), WIDGET_STORE_FILE);
+			final WidgetStore store = new WidgetStore(file, getRenderStamp(context), WIDGET_STORE_WRITER, Constants.WIDGET_STORE_FLUSH_DELAY_MILLIS, new WidgetStore.FlushListener() {
+				public void onFlushFailed(WidgetStore failed, IOException e) {
+					Log.e(Constants.LOG_TAG, "could not write " + failed.getFile(), e);
+				}
+			});
+			if (!file.exists()) {
+				importLegacyCache(context.getCacheDir(), store);
+			}
+			
+			CacheManager.register(CacheManager.Tier.STORED, "widgets", new CacheManager.Cache() {
+				public long getByteCount() {
+					return store.getLoadedByteCount();
+				}
+				
+				public void trim() {
+					store.releaseMemory();
+				}
+			});
+			return store;
+		}
+	};
+	
+	/**
+	 * Writes the widget store, so the fire path never waits for the disk.
+	 */
+	private static final Executor WIDGET_STORE_WRITER = ReceiverExecutor.newBackgroundExecutor("WidgetStore", new LinkedBlockingQueue<Runnable>(), new ThreadPoolExecutor.AbortPolicy());
+	
+	static {
+		CacheManager.register(CacheManager.Tier.RENDERED, "renders", new CacheManager.Cache() {
+			public long getByteCount() {
+				return renderCache.size();
+			}
+			
+			public void trim() {
+				renderCache.evictAll();
+			}
+		});
+		
+		CacheManager.register(CacheManager.Tier.DECODED, "font", new CacheManager.Cache() {
+			public long getByteCount() {
+				MonoFont current = FONT.peek();
+				return current == null ? 0 : current.getByteCount();
+			}
+			
+			public void trim() {
+				FONT.clear();
+			}
+		});
+		
+		CacheManager.register(CacheManager.Tier.DECODED, "fallback font", new CacheManager.Cache() {
+			public long getByteCount() {
+				MonoFont current = FALLBACK_FONT.peek();
+				return current == null ? 0 : current.getByteCount();
+			}
+			
+			public void trim() {
+				FALLBACK_FONT.clear();
+			}
+		});
+	}
 	
 	/**
 	 * @param context
@@ -60,251 +263,525 @@ public final class FireReceiver extends BroadcastReceiver {
 		 * background.
 		 */
 		
-		Log.d(Constants.LOG_TAG, "FireReceiver.onReceive(): received intent, action='"+intent.getAction()+"'");
-
+		/*
+		 * Scrubbing, rendering, file I/O and broadcasting all happen on a worker thread, so the main thread is only held for the
+		 * hand-off.
+		 */
+		final Context appContext = context.getApplicationContext();
+		
+		/*
+		 * Whatever the first Intent of the process is, it pays for the process start, so it alone is measured from there
+		 */
+		final boolean coldStart = StartupProfiler.claimColdStart();
+		
 		/*
 		 * Locale guarantees that the Intent action will be ACTION_FIRE_SETTING
 		 */
 		if (com.twofortyfouram.locale.Intent.ACTION_FIRE_SETTING.equals(intent.getAction()))
 		{
-			/*
-			 * A hack to prevent a private serializable classloader attack
-			 */
-			BundleScrubber.scrub(intent);
-			BundleScrubber.scrub(intent.getBundleExtra(com.twofortyfouram.locale.Intent.EXTRA_BUNDLE));
-	
-			final Bundle bundle = intent.getBundleExtra(com.twofortyfouram.locale.Intent.EXTRA_BUNDLE);
-	
-			/*
-			 * Final verification of the plug-in Bundle before firing the setting.
-			 */
-			if (PluginBundleManager.isBundleValid(bundle))
+			FireCoalescer.submit(this, appContext, intent, coldStart);
+		}
+		else
+		{
+			ReceiverExecutor.execute(this, new Runnable()
 			{
-				if (Constants.IS_LOGGABLE)
+				public void run()
 				{
-					Log.d(Constants.LOG_TAG, "sending notification"); //$NON-NLS-1$
+					handleIntent(appContext, intent);
+					if (coldStart) {
+						recordColdStart(REFRESH_WIDGET_REQUEST.equals(intent.getAction()) ? SettingType.REFRESH : SettingType.UNKNOWN);
+					}
 				}
+			});
+		}
+	}
 	
-				final String type = bundle.getString(PluginBundleManager.BUNDLE_EXTRA_STRING_TYPE);
+	/**
+	 * Scrubs and parses the plug-in Bundle of an {@link com.twofortyfouram.locale.Intent#ACTION_FIRE_SETTING} Intent.
+	 * 
+	 * @return the setting, or null if the Bundle is missing or invalid
+	 */
+	static Setting getValidSetting(final Intent intent)
+	{
+		final long start = System.nanoTime();
+		
+		/*
+		 * A hack to prevent a private serializable classloader attack. The extras and the plug-in Bundle are each unparcelled
+		 * once, here.
+		 */
+		final BundleScrubber.ScrubbedBundle scrubbedBundle = BundleScrubber.scrubBundleExtra(intent, com.twofortyfouram.locale.Intent.EXTRA_BUNDLE);
+		final Bundle bundle = scrubbedBundle.getBundle();
+		final long scrubbed = System.nanoTime();
+		
+		if (scrubbedBundle.wasScrubbed() && Constants.IS_LOGGABLE)
+		{
+			Log.w(Constants.LOG_TAG, "scrubbed fire Intent"); //$NON-NLS-1$
+		}
+
+		/*
+		 * Final verification of the plug-in Bundle before firing the setting.
+		 */
+		final SettingParser.Result result = SettingParser.parse(bundle);
+		
+		/*
+		 * Both stages are recorded once the setting type is known
+		 */
+		final SettingType type = result.isValid() ? result.getSetting().getHandler().getSettingType() : SettingType.UNKNOWN;
+		metrics.record(Stage.SCRUB, type, scrubbed - start);
+		metrics.record(Stage.VALIDATE, type, System.nanoTime() - scrubbed);
+		
+		if (result.isValid())
+		{
+			return result.getSetting();
+		}
+		
+		if (Constants.IS_LOGGABLE)
+		{
+			Log.d(Constants.LOG_TAG, "bundle invalid: " + result); //$NON-NLS-1$
+		}
+		return null;
+	}
 	
-				if (type.equals("notification")) 
-				{
-					Intent broadcast = new Intent("org.metawatch.manager.NOTIFICATION");
-					Bundle b = new Bundle();
-					b.putString("title", bundle.getString(PluginBundleManager.BUNDLE_EXTRA_STRING_TITLE));
-					b.putString("text", bundle.getString(PluginBundleManager.BUNDLE_EXTRA_STRING_MESSAGE));
-					b.putBoolean("sticky", bundle.getBoolean(PluginBundleManager.BUNDLE_EXTRA_BOOLEAN_STICKY, true));
-					
-	                if( bundle.getBoolean(PluginBundleManager.BUNDLE_EXTRA_BOOLEAN_VIBRATE, false) )
-	                {
-	                	b.putInt("vibrate_on", bundle.getInt(PluginBundleManager.BUNDLE_EXTRA_INT_VIBRATE_ON));
-	                	b.putInt("vibrate_off",bundle.getInt(PluginBundleManager.BUNDLE_EXTRA_INT_VIBRATE_OFF));
-	                	b.putInt("vibrate_cycles", bundle.getInt(PluginBundleManager.BUNDLE_EXTRA_INT_VIBRATE_CYCLES));
-	                }
-					
-					broadcast.putExtras(b);
-	
-					context.sendBroadcast(broadcast);
-				}
-				else if (type.equals("widget")) {
-					final String icon = bundle.getString(PluginBundleManager.BUNDLE_EXTRA_STRING_WIDGET_ICON);
-					final String widgetId = bundle.getString(PluginBundleManager.BUNDLE_EXTRA_STRING_WIDGET_ID);
-					final String widgetLabel = bundle.getString(PluginBundleManager.BUNDLE_EXTRA_STRING_WIDGET_LABEL);
-					
-					createAndSendWidget(context, icon, widgetId, widgetLabel);
-					cacheWidget(context, icon, widgetId, widgetLabel);
-					
-					if( bundle.getBoolean(PluginBundleManager.BUNDLE_EXTRA_BOOLEAN_VIBRATE, false) )
-	                {
-						Intent broadcast = new Intent("org.metawatch.manager.VIBRATE");
-						Bundle b = new Bundle();
-						
-	                	b.putInt("vibrate_on", bundle.getInt(PluginBundleManager.BUNDLE_EXTRA_INT_VIBRATE_ON));
-	                	b.putInt("vibrate_off",bundle.getInt(PluginBundleManager.BUNDLE_EXTRA_INT_VIBRATE_OFF));
-	                	b.putInt("vibrate_cycles", bundle.getInt(PluginBundleManager.BUNDLE_EXTRA_INT_VIBRATE_CYCLES));
-	                	
-						broadcast.putExtras(b);						
-						context.sendBroadcast(broadcast);
-	                }
-				}
-				else if (type.equals("silentmode")) {
-					final boolean enabled = bundle.getBoolean(PluginBundleManager.BUNDLE_EXTRA_BOOLEAN_SILENTMODE);
-					
-					Intent broadcast = new Intent("org.metawatch.manager.SILENTMODE");
-					Bundle b = new Bundle();
-					
-					b.putBoolean("enabled", enabled);
-					
-					broadcast.putExtras(b);						
-					context.sendBroadcast(broadcast);
-				}
-				
-			}
-			else
-			{
-				if (Constants.IS_LOGGABLE)
-				{
-					Log.d(Constants.LOG_TAG, "bundle invalid"); //$NON-NLS-1$
-				}
+	/**
+	 * Settings with the same key replace each other when they are fired close together: only the last one needs applying.
+	 * 
+	 * @return key identifying what the setting changes, or null if every fire of it must be applied, as for notifications
+	 */
+	static String getCoalescingKey(final Setting setting)
+	{
+		return setting.getHandler().getCoalescingKey(setting);
+	}
+	
+	/**
+	 * Applies a setting.
+	 * 
+	 * @param outbox broadcasts for the manager are added here rather than sent, so a batch of settings goes out together
+	 */
+	static void applySetting(final Context context, final Setting setting, final List<Intent> outbox)
+	{
+		if (Constants.IS_LOGGABLE && Log.isLoggable(Constants.LOG_TAG, Log.DEBUG))
+		{
+			Log.d(Constants.LOG_TAG, "applying " + setting.getTypeId()); //$NON-NLS-1$
+		}
+
+		/*
+		 * Fires always come with the application context, so its FireContext is made once
+		 */
+		ReceiverFireContext fireContext = sFireContext;
+		if (fireContext == null || fireContext.mContext != context) {
+			fireContext = new ReceiverFireContext(context);
+			sFireContext = fireContext;
+		}
+		setting.getHandler().apply(fireContext, setting, outbox);
+	}
+	
+	/**
+	 * Sends every broadcast in {@code outbox}, in order, and empties it.
+	 * 
+	 * @param type what the broadcasts are for
+	 */
+	static void sendAll(final Context context, final List<Intent> outbox, final SettingType type)
+	{
+		sendAll(context, outbox, type, null);
+	}
+	
+	/**
+	 * Sends every broadcast in {@code outbox}, in order, and empties it.
+	 * 
+	 * @param types what each broadcast is for, in the same order as {@code outbox}
+	 */
+	static void sendAll(final Context context, final List<Intent> outbox, final List<SettingType> types)
+	{
+		sendAll(context, outbox, null, types);
+	}
+	
+	private static void sendAll(final Context context, final List<Intent> outbox, final SettingType type, final List<SettingType> types)
+	{
+		for (int i = 0; i < outbox.size(); i++) {
+			final long start = System.nanoTime();
+			context.sendBroadcast(outbox.get(i));
+			metrics.record(Stage.SEND_BROADCAST, null != types ? types.get(i) : type, System.nanoTime() - start);
+		}
+		outbox.clear();
+	}
+	
+	/**
+	 * Records the time from process start to now as the process's {@link Stage#COLD_START}. Called once, after the first
+	 * Intent the process received has been handled.
+	 * 
+	 * @param type the type of the first setting applied, or what the Intent asked for if it was not a fire.
+	 */
+	static void recordColdStart(final SettingType type)
+	{
+		final long processStart = StartupProfiler.getProcessStartNanos();
+		if (0 != processStart) {
+			metrics.record(Stage.COLD_START, type, System.nanoTime() - processStart);
+			if (Constants.IS_LOGGABLE) {
+				Log.v(Constants.LOG_TAG, "cold start: " + StartupProfiler.report()); //$NON-NLS-1$
 			}
-		
 		}
-		else if(intent.getAction().equals("org.metawatch.manager.REFRESH_WIDGET_REQUEST"))
+	}
+	
+	/**
+	 * Handles Intents other than {@link com.twofortyfouram.locale.Intent#ACTION_FIRE_SETTING}, off the main thread where
+	 * possible.
+	 */
+	static void handleIntent(final Context context, final Intent intent)
+	{
+		Log.d(Constants.LOG_TAG, "FireReceiver.onReceive(): received intent, action='"+intent.getAction()+"'");
+
+		if(REFRESH_WIDGET_REQUEST.equals(intent.getAction()))
 		{
+			payloadFormat = WidgetPayload.negotiateFormat(intent);
+			boolean listed = subscriptions.update(intent);
+			
+			/*
+			 * The widget picker previews every size; otherwise only the sizes the manager listed are sent, rendering any that
+			 * fires skipped
+			 */
 			Bundle bundle = intent.getExtras();
-			boolean getPreviews = bundle.containsKey("org.metawatch.manager.get_previews");
-			if (getPreviews)
+			boolean getPreviews = bundle != null && bundle.containsKey("org.metawatch.manager.get_previews");
+			if (getPreviews || listed)
 			{
-				Log.d(Constants.LOG_TAG, "get widget previews");
+				Log.d(Constants.LOG_TAG, getPreviews ? "get widget previews" : "refresh " + subscriptions);
 				
-				File cacheDir = context.getCacheDir();
+				List<Intent> outbox = new ArrayList<Intent>();
 				
-				File[] files = cacheDir.listFiles();
-
-				for (File file : files) {
-					FileInputStream fis;
-					try {
-						fis = new FileInputStream(file);
-						StringBuffer fileContent = new StringBuffer("");
-
-						byte[] buffer = new byte[1024];
-						while ((fis.read(buffer)) != -1) {
-						    fileContent.append(new String(buffer));
-						}
-						
-						String data = fileContent.toString();
-						Log.d(Constants.LOG_TAG, "data: "+data);
-						
-						String[] sections = data.split("\\|");
-						if(sections.length == 3)
-						{
-							createAndSendWidget(context, sections[0], sections[1], sections[2]);
-						}
-					} 
-					catch (FileNotFoundException e)
-					{
-					} 
-					catch (IOException e) 
-					{
-					}
-
+				try {
+					refreshWidgets(context, getWidgetStore(context).getAll(), getPreviews, outbox);
+				}
+				catch (IOException e)
+				{
+					Log.w(Constants.LOG_TAG, "could not read widget store", e);
+				}
+				catch (InterruptedException e)
+				{
+					Log.w(Constants.LOG_TAG, "widget refresh interrupted", e);
+					Thread.currentThread().interrupt();
 				}
+				
+				sendAll(context, outbox, SettingType.REFRESH);
 			}
 		}
 	}
 	
-	private static Bitmap loadBitmapFromAssets(Context context, String path) {
-		try {
-			InputStream inputStream = context.getAssets().open(path);
-	        Bitmap bitmap = BitmapFactory.decodeStream(inputStream);
-	        inputStream.close();
-	        //if (Preferences.logging) Log.d(MetaWatch.TAG, "ok");
-	        return bitmap;
-		} catch (IOException e) {
-			//if (Preferences.logging) Log.d(MetaWatch.TAG, e.toString());
-			return null;
+	/**
+	 * Sends every stored widget, rendering those the store has no pixels for. The widgets are read from the store once; those
+	 * with stored pixels are sent on the calling thread, and the rest are rendered on {@link ReceiverExecutor#getRenderPool()}
+	 * if there are at least two of them. Their broadcasts are added to {@code outbox} in store order, each widget's sizes in
+	 * profile order, however the renders are scheduled.
+	 * 
+	 * @param allSizes send every size, rather than only those in {@link #subscriptions}
+	 */
+	static void refreshWidgets(final Context context, List<WidgetStore.Entry> entries, final boolean allSizes, List<Intent> outbox) throws InterruptedException {
+		final long start = System.nanoTime();
+		
+		int rendered = ParallelRenderer.refresh(ReceiverExecutor.getRenderPool(), entries, new ParallelRenderer.WidgetSender<Intent>() {
+			public boolean sendStored(WidgetStore.Entry entry, List<Intent> widgetOutbox) {
+				return sendStoredWidget(context, entry, allSizes, widgetOutbox);
+			}
+			
+			public void render(WidgetStore.Entry entry, List<Intent> widgetOutbox) {
+				MonoBitmap[] sizes = getRenderedSizes(context);
+				int count = createAndSendWidget(context, SettingType.REFRESH, entry.getIcon(), entry.getId(), entry.getLabel(), true, allSizes, widgetOutbox, sizes);
+				cacheWidget(context, SettingType.REFRESH, entry.getIcon(), entry.getId(), entry.getLabel(), sizes, count);
+			}
+		}, outbox);
+		
+		if (Constants.IS_LOGGABLE && Log.isLoggable(Constants.LOG_TAG, Log.VERBOSE))
+		{
+			Log.v(Constants.LOG_TAG, String.format("refreshed %d widgets, rendering %d, in %dms", entries.size(), rendered, (System.nanoTime() - start) / 1000000));
 		}
 	}
 	
 	/**
-	 * @param bitmap Widget image to send
-	 * @param id ID of this widget - should be unique, and sensibly identify
-	 *        the widget
-	 * @param description User friendly widget name (will be displayed in the
-	 * 		  widget picker)
-	 * @param priority A value that indicates how important this widget is, for
-	 * 		  use when deciding which widgets to discard.  Lower values are
-	 *        more likely to be discarded.
-	 * @return Filled-in intent, ready for broadcast.
+	 * @return the font to draw {@code label} with: the glyph table, falling back to the platform's glyphs if the table does not
+	 *         cover every character of the label
 	 */
-	private static Intent createUpdateIntent(Bitmap bitmap, String id, String description, int priority) {
-		int pixelArray[] = new int[bitmap.getWidth() * bitmap.getHeight()];
-		bitmap.getPixels(pixelArray, 0, bitmap.getWidth(), 0, 0, bitmap.getWidth(), bitmap.getHeight());
-
-		Intent intent = new Intent("org.metawatch.manager.WIDGET_UPDATE");
-		Bundle b = new Bundle();
-		b.putString("id", id);
-		b.putString("desc", description);
-		b.putInt("width", bitmap.getWidth());
-		b.putInt("height", bitmap.getHeight());
-		b.putInt("priority", priority);
-		b.putIntArray("array", pixelArray);
-		intent.putExtras(b);
-
-		return intent;
+	private static MonoFont getFont(Context context, SettingType type, String label) {
+		MonoFont font = getFont(context, type, FONT);
+		if (font.covers(label)) {
+			return font;
+		}
+		return font.withFallback(getFont(context, type, FALLBACK_FONT));
 	}
 	
-	private static void createAndSendWidget(Context context, String icon, String id, String label) {
-		
-		Log.d(Constants.LOG_TAG, "widget: icon:"+icon+" id:"+id+" label:"+label);
-		
-		if (typeface==null) {
-			typeface = Typeface.createFromAsset(context.getAssets(), "metawatch_8pt_5pxl_CAPS.ttf");
+	private static MonoFont getFont(Context context, SettingType type, Lazy<MonoFont> lazy) {
+		// read once: the cache manager may drop the font at any time
+		MonoFont current = lazy.peek();
+		if (current==null) {
+			final long start = System.nanoTime();
+			current = lazy.get(context);
+			metrics.record(Stage.TYPEFACE_LOAD, type, System.nanoTime() - start);
 		}
+		return current;
+	}
+	
+	/**
+	 * @return this thread's array for {@link #createAndSendWidget}, with an element for every profile. Kept per thread, as a
+	 *         refresh renders widgets on several threads at once.
+	 */
+	static MonoBitmap[] getRenderedSizes(Context context) {
+		final int count = RENDER_CONTEXTS.get(context).length;
+		MonoBitmap[] sizes = RENDERED_SIZES.get();
+		if (sizes == null || sizes.length != count) {
+			sizes = new MonoBitmap[count];
+			RENDERED_SIZES.set(sizes);
+		}
+		return sizes;
+	}
+	
+	/**
+	 * Renders the sizes of a widget the manager shows, or every size, and sends them to the manager.
+	 * 
+	 * Sizes found in {@link #renderCache} are not rendered again. The others are rendered in one pass that loads the font and
+	 * the icon store at most once, and the broadcasts are built after all sizes are rendered. The only allocations for a size
+	 * that misses the cache are the bitmap that is kept and its broadcast, so an update the manager already has allocates
+	 * nothing.
+	 * 
+	 * @param type what the widget is being sent for, for {@link #metrics}
+	 * @param force send even if the manager was already sent the same pixels, as when it asks for a refresh
+	 * @param allSizes render every size, rather than only those in {@link #subscriptions}
+	 * @param outbox the widget update broadcasts are added here
+	 * @param sizes from {@link #getRenderedSizes(Context)}; the rendered sizes are written to its first elements, in profile
+	 *            order, and the rest are cleared
+	 * @return number of sizes rendered
+	 */
+	static int createAndSendWidget(Context context, SettingType type, String icon, String id, String label, boolean force, boolean allSizes, List<Intent> outbox, MonoBitmap[] sizes) {
 		
-		TextPaint paintSmall = new TextPaint();
-		paintSmall.setColor(Color.BLACK);
-		paintSmall.setTextSize(8);
-		paintSmall.setTypeface(typeface);
-		paintSmall.setTextAlign(Align.CENTER);
+		if (Constants.IS_LOGGABLE && Log.isLoggable(Constants.LOG_TAG, Log.DEBUG))
+		{
+			Log.d(Constants.LOG_TAG, "widget: icon:"+icon+" id:"+id+" label:"+label);
+		}
 		
 		label = label.trim();
 		
-		// Create 16x16 widget
-		{
-			Bitmap iconBmp = loadBitmapFromAssets(context, icon+"_10.bmp");
-			
-			Bitmap bitmap = Bitmap.createBitmap(16, 16, Bitmap.Config.RGB_565);
-			Canvas canvas = new Canvas(bitmap);
-			canvas.drawColor(Color.WHITE);
-			
-			int y = label.length()==0 ? 3 : 0;
+		final WidgetRenderContext[] renderContexts = RENDER_CONTEXTS.get(context);
+		final MonoBitmap[] bitmaps = sizes;
+		IconStore icons = null;
+		MonoFont labelFont = null;
+		for (int i = 0; i < renderContexts.length; i++) {
+			final WidgetRenderContext renderContext = renderContexts[i];
+			bitmaps[i] = null;
+			if (!allSizes && !subscriptions.isWanted(renderContext.getWidgetId(id))) {
+				continue;
+			}
 			
-			canvas.drawBitmap(iconBmp, 2, y, null);					
-			canvas.drawText(label, 8, 16, paintSmall);
+			final WidgetLayout layout = renderContext.getLayout();
+			final int width = layout.getWidth();
+			final int height = layout.getHeight();
 			
-			Intent i = createUpdateIntent(bitmap, "localeMWM_"+id+"_16_16", "Locale Plugin Widget (16x16)", 1);
-			context.sendBroadcast(i);
+			MonoBitmap bitmap = renderCache.get(icon, label, width, height);
+			if (bitmap == null) {
+				bitmap = renderContext.createTarget();
+				
+				if (labelFont == null) {
+					icons = IconStore.getInstance(context);
+					labelFont = getFont(context, type, label);
+				}
+				
+				long start = System.nanoTime();
+				MonoBitmap iconBmp = icons.get(renderContext.getIconPath(icon));
+				metrics.record(Stage.ASSET_DECODE, type, System.nanoTime() - start);
+				
+				start = System.nanoTime();
+				renderContext.render(bitmap, iconBmp, labelFont, label);
+				metrics.record(Stage.RENDER, type, System.nanoTime() - start);
+				
+				renderCache.put(icon, label, width, height, bitmap);
+			}
+			bitmaps[i] = bitmap;
 		}
 		
-		// Create 24x32 widget
+		int rendered = 0;
+		for (int i = 0; i < renderContexts.length; i++) {
+			final MonoBitmap bitmap = bitmaps[i];
+			if (bitmap != null) {
+				bitmaps[i] = null;
+				sendBitmap(type, renderContexts[i], id, bitmap, force, outbox);
+				bitmaps[rendered++] = bitmap;
+			}
+		}
+		
+		if (Constants.IS_LOGGABLE && Log.isLoggable(Constants.LOG_TAG, Log.VERBOSE))
 		{
-			Bitmap iconBmp = loadBitmapFromAssets(context, icon+".bmp");
-			
-			Bitmap bitmap = Bitmap.createBitmap(24, 32, Bitmap.Config.RGB_565);
-			Canvas canvas = new Canvas(bitmap);
-			canvas.drawColor(Color.WHITE);
-			
-			int y = label.length()==0 ? 7 : 3;
-			
-			canvas.drawBitmap(iconBmp, 0, y, null);
-			canvas.drawText(label, 12, 30, paintSmall);
+			Log.v(Constants.LOG_TAG, renderCache.toString()+" suppressed:"+sentWidgets.suppressedCount());
+		}
+		
+		return rendered;
+	}
+	
+	/**
+	 * Sends the sizes of a stored widget the manager shows, or every size, without rendering it.
+	 * 
+	 * @param allSizes send every size, rather than only those in {@link #subscriptions}
+	 * @return false, having sent nothing, if a size is missing from the store
+	 */
+	private static boolean sendStoredWidget(Context context, WidgetStore.Entry entry, boolean allSizes, List<Intent> outbox) {
+		final WidgetRenderContext[] renderContexts = RENDER_CONTEXTS.get(context);
+		MonoBitmap[] bitmaps = new MonoBitmap[renderContexts.length];
+		for (int i = 0; i < renderContexts.length; i++) {
+			if (!allSizes && !subscriptions.isWanted(renderContexts[i].getWidgetId(entry.getId()))) {
+				continue;
+			}
 			
-			Intent i = createUpdateIntent(bitmap, "localeMWM_"+id+"_24_32", "Locale Plugin Widget (24x32)", 1);
-			context.sendBroadcast(i);
+			final WidgetLayout layout = renderContexts[i].getLayout();
+			bitmaps[i] = entry.getBitmap(layout.getWidth(), layout.getHeight());
+			if (bitmaps[i] == null) {
+				return false;
+			}
 		}
+		
+		for (int i = 0; i < renderContexts.length; i++) {
+			if (bitmaps[i] != null) {
+				sendBitmap(SettingType.REFRESH, renderContexts[i], entry.getId(), bitmaps[i], true, outbox);
+			}
+		}
+		return true;
 	}
 	
-	private static synchronized void cacheWidget(Context context, String icon, String id, String label) {
-		File file = new File(context.getCacheDir(), id);
-		FileOutputStream fos;
+	private static void sendBitmap(SettingType type, WidgetRenderContext renderContext, String id, MonoBitmap bitmap, boolean force, List<Intent> outbox) {
+		final String format = payloadFormat;
+		final String widgetId = renderContext.getWidgetId(id);
+		if (!sentWidgets.shouldSend(widgetId, bitmap, format, force)) {
+			return;
+		}
+		
+		final long start = System.nanoTime();
+		Intent i = WidgetPayload.createUpdateIntent(bitmap, format, widgetId, renderContext.getDescription(), 1);
+		metrics.record(Stage.ENCODE_PIXELS, type, System.nanoTime() - start);
+		outbox.add(i);
+	}
+	
+	/**
+	 * Stores a widget for refreshes, unless the store already holds it as it is.
+	 */
+	private static void cacheWidget(Context context, SettingType type, String icon, String id, String label, MonoBitmap[] bitmaps, int count) {
+		final long start = System.nanoTime();
+		WidgetStore store = getWidgetStore(context);
+		if (!store.contains(icon, id, label, bitmaps, count)) {
+			store.put(new WidgetStore.Entry(icon, id, label, bitmaps, count));
+		}
+		metrics.record(Stage.CACHE_WIDGET, type, System.nanoTime() - start);
+	}
+	
+	/**
+	 * Identifies what stored widget bitmaps were drawn with: the renderer version, the app version, which covers the icon assets,
+	 * and a checksum of the label font's glyph table and of the widget profiles, which set each size's layout.
+	 */
+	private static long getRenderStamp(Context context) {
+		CRC32 crc = new CRC32();
+		updateChecksum(context, GlyphTable.ASSET_PATH, crc);
+		updateChecksum(context, WidgetProfiles.ASSET_PATH, crc);
+		
+		long stamp = ((long) WidgetRasterizer.VERSION << 48) ^ ((long) Constants.getVersionCode(context) << 32);
+		return stamp ^ crc.getValue();
+	}
+	
+	/**
+	 * Adds the contents of an asset to a checksum. An asset that cannot be read is logged and left out.
+	 */
+	private static void updateChecksum(Context context, String asset, CRC32 crc) {
 		try {
-			fos = new FileOutputStream(file);
-			StringBuilder cachetext = new StringBuilder();
-			cachetext.append(icon);
-			cachetext.append("|");
-			cachetext.append(id);
-			cachetext.append("|");
-			cachetext.append(label);
-			fos.write(cachetext.toString().getBytes());
-			fos.close();
-		} 
-		catch (FileNotFoundException e) 
+			InputStream in = context.getAssets().open(asset);
+			try {
+				byte[] buffer = new byte[4096];
+				int count;
+				while ((count = in.read(buffer)) != -1) {
+					crc.update(buffer, 0, count);
+				}
+			}
+			finally {
+				in.close();
+			}
+		}
+		catch (IOException e)
 		{
-		} 
-		catch (IOException e) 
+			Log.w(Constants.LOG_TAG, "could not read " + asset, e);
+		}
+	}
+	
+	/**
+	 * @return the widget store, opened on first use
+	 */
+	static WidgetStore getWidgetStore(Context context) {
+		return WIDGET_STORE.get(context);
+	}
+	
+	/**
+	 * Moves widgets cached as {@code icon|id|label} text files, one per widget id, into the store.
+	 */
+	private static void importLegacyCache(File cacheDir, WidgetStore store) {
+		File[] files = cacheDir.listFiles();
+		if (files == null) {
+			return;
+		}
+		
+		List<File> legacyFiles = new ArrayList<File>();
+		for (File file : files) {
+			if (!file.isFile() || file.length() > 1024) {
+				continue;
+			}
+			
+			try {
+				byte[] data = new byte[(int) file.length()];
+				FileInputStream fis = new FileInputStream(file);
+				try {
+					new DataInputStream(fis).readFully(data);
+				}
+				finally {
+					fis.close();
+				}
+				
+				String[] sections = new String(data).split("\\|", -1);
+				if (sections.length == 3 && sections[1].equals(file.getName())) {
+					store.put(new WidgetStore.Entry(sections[0], sections[1], sections[2]));
+					legacyFiles.add(file);
+				}
+			}
+			catch (IOException e)
+			{
+				Log.w(Constants.LOG_TAG, "could not import cached widget " + file.getName(), e);
+			}
+		}
+		
+		if (legacyFiles.isEmpty()) {
+			return;
+		}
+		
+		/*
+		 * The old files are only deleted once the store holding their widgets is safely written
+		 */
+		try {
+			store.flush();
+			for (File file : legacyFiles) {
+				file.delete();
+			}
+		}
+		catch (IOException e)
 		{
+			Log.e(Constants.LOG_TAG, "could not write " + store.getFile(), e);
+		}
+	}
+	
+	/**
+	 * Lets handlers render widgets through the receiver.
+	 */
+	private static final class ReceiverFireContext implements ActionHandler.FireContext {
+		final Context mContext;
+		
+		ReceiverFireContext(Context context) {
+			mContext = context;
+		}
+		
+		public Context getContext() {
+			return mContext;
+		}
+		
+		public void sendWidget(WidgetSetting widget, List<Intent> outbox) {
+			MonoBitmap[] sizes = getRenderedSizes(mContext);
+			int count = createAndSendWidget(mContext, SettingType.WIDGET, widget.getIcon(), widget.getWidgetId(), widget.getLabel(), false, false, outbox, sizes);
+			cacheWidget(mContext, SettingType.WIDGET, widget.getIcon(), widget.getWidgetId(), widget.getLabel(), sizes, count);
 		}
-
 	}
-}
\ No newline at end of file
+}
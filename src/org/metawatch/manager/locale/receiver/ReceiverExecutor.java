@@ -0,0 +1,333 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at <http://www.apache.org/licenses/LICENSE-2.0>
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS"
+ * BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package org.metawatch.manager.locale.receiver;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import android.annotation.TargetApi;
+import android.content.BroadcastReceiver;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.util.Log;
+
+import org.metawatch.manager.locale.Constants;
+import org.metawatch.manager.locale.widget.ParallelRenderer;
+
+/**
+ * Moves a BroadcastReceiver's work off the main thread.
+ * <p>
+ * On API 11 and later the receiver's broadcast is kept alive with {@link BroadcastReceiver#goAsync()} and the work runs on a
+ * single background thread, so {@code onReceive()} returns almost immediately. The pending broadcast is finished when the work
+ * completes, or when {@link Constants#RECEIVER_TIME_BUDGET_MILLIS} elapses, whichever comes first, so the system never sees the
+ * receiver overrun its time limit. On older platforms there is no way to keep the broadcast alive, so the work runs directly on
+ * the calling thread.
+ * <p>
+ * A single worker thread is used deliberately: Locale fires settings in order, and a later fire of a widget must not overtake an
+ * earlier one. The queue is unbounded, so work is never dropped or run on the main thread; bursts of fires for one widget are
+ * already coalesced by {@link FireCoalescer} before they reach it.
+ */
+public final class ReceiverExecutor
+{
+    private static final ThreadPoolExecutor EXECUTOR = newBackgroundExecutor("FireReceiver", new LinkedBlockingQueue<Runnable>(), new ThreadPoolExecutor.AbortPolicy()); //$NON-NLS-1$
+
+    /**
+     * Threads a refresh renders widgets on, one per core up to {@link ParallelRenderer#MAX_THREADS}. Kept for the life of the
+     * process so a refresh does not pay for creating a pool; its threads are only started when a refresh has widgets to render,
+     * and from API 9 exit when idle.
+     */
+    private static final ThreadPoolExecutor RENDER_POOL = newBackgroundExecutor("WidgetRender", ParallelRenderer.getThreadCount(ParallelRenderer.MAX_THREADS), new LinkedBlockingQueue<Runnable>(), new ThreadPoolExecutor.AbortPolicy()); //$NON-NLS-1$
+
+    private static final Handler MAIN_HANDLER = new Handler(Looper.getMainLooper());
+
+    private static final AtomicLong sDispatchCount = new AtomicLong();
+    private static final AtomicLong sDispatchNanos = new AtomicLong();
+    private static final AtomicLong sMaxDispatchNanos = new AtomicLong();
+    private static final AtomicLong sTimeoutCount = new AtomicLong();
+
+    /**
+     * Private constructor prevents instantiation
+     *
+     * @throws UnsupportedOperationException because this class cannot be instantiated.
+     */
+    private ReceiverExecutor()
+    {
+        throw new UnsupportedOperationException("This class is non-instantiable"); //$NON-NLS-1$
+    }
+
+    /**
+     * Runs work for a receiver in the background. Must be called from {@code onReceive()}.
+     *
+     * @param receiver receiver whose broadcast is being handled.
+     * @param work work to run. Runtime exceptions thrown by work run in the background are logged rather than crashing the
+     *            process.
+     */
+    public static void execute(final BroadcastReceiver receiver, final Runnable work)
+    {
+        final long start = System.nanoTime();
+
+        if (Build.VERSION.SDK_INT >= 11)
+        {
+            executeAsync(receiver, work);
+        }
+        else
+        {
+            work.run();
+        }
+
+        recordDispatch(System.nanoTime() - start);
+    }
+
+    /**
+     * Creates a single background-priority thread that exits when idle, so a quiet {@code :background} process holds no extra
+     * thread.
+     *
+     * @param name name of the thread.
+     * @param queue queue for work waiting for the thread.
+     * @param rejectedHandler handles work that does not fit in the queue.
+     * @return the executor.
+     */
+    static ThreadPoolExecutor newBackgroundExecutor(final String name, final BlockingQueue<Runnable> queue, final RejectedExecutionHandler rejectedHandler)
+    {
+        return newBackgroundExecutor(name, 1, queue, rejectedHandler);
+    }
+
+    /**
+     * @return the pool widgets are rendered on during a refresh. It is shared and must not be shut down.
+     */
+    static ExecutorService getRenderPool()
+    {
+        return RENDER_POOL;
+    }
+
+    private static ThreadPoolExecutor newBackgroundExecutor(final String name, final int threads, final BlockingQueue<Runnable> queue, final RejectedExecutionHandler rejectedHandler)
+    {
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS, queue, new ThreadFactory()
+        {
+            public Thread newThread(final Runnable runnable)
+            {
+                return new Thread(new Runnable()
+                {
+                    public void run()
+                    {
+                        Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                        runnable.run();
+                    }
+                }, name);
+            }
+        }, rejectedHandler);
+
+        if (Build.VERSION.SDK_INT >= 9)
+        {
+            allowCoreThreadTimeOut(executor);
+        }
+
+        return executor;
+    }
+
+    @TargetApi(9)
+    private static void allowCoreThreadTimeOut(final ThreadPoolExecutor executor)
+    {
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    @TargetApi(11)
+    private static void executeAsync(final BroadcastReceiver receiver, final Runnable work)
+    {
+        final Runnable finish = hold(receiver);
+
+        EXECUTOR.execute(new Runnable()
+        {
+            public void run()
+            {
+                try
+                {
+                    runGuarded(work);
+                }
+                finally
+                {
+                    finish.run();
+                }
+            }
+        });
+    }
+
+    /**
+     * Keeps a receiver's broadcast pending after {@code onReceive()} returns. Must be called from {@code onReceive()}.
+     *
+     * @param receiver receiver whose broadcast is being handled.
+     * @return finishes the broadcast when run. Running it more than once has no further effect. If it has not been run within
+     *         {@link Constants#RECEIVER_TIME_BUDGET_MILLIS}, the broadcast is finished anyway.
+     */
+    @TargetApi(11)
+    static Runnable hold(final BroadcastReceiver receiver)
+    {
+        final Hold hold = new Hold(receiver.goAsync());
+        MAIN_HANDLER.postDelayed(hold.mWatchdog, Constants.RECEIVER_TIME_BUDGET_MILLIS);
+        return hold;
+    }
+
+    /**
+     * Runs work on the worker thread once {@code delayMillis} has elapsed. Runtime exceptions thrown by the work are logged.
+     *
+     * @param work work to run.
+     * @param delayMillis delay before the work is queued.
+     */
+    static void executeLater(final Runnable work, final long delayMillis)
+    {
+        MAIN_HANDLER.postDelayed(new Runnable()
+        {
+            public void run()
+            {
+                EXECUTOR.execute(new Runnable()
+                {
+                    public void run()
+                    {
+                        runGuarded(work);
+                    }
+                });
+            }
+        }, delayMillis);
+    }
+
+    private static void runGuarded(final Runnable work)
+    {
+        try
+        {
+            work.run();
+        }
+        catch (final RuntimeException e)
+        {
+            if (Constants.IS_LOGGABLE)
+            {
+                Log.e(Constants.LOG_TAG, "receiver work failed", e); //$NON-NLS-1$
+            }
+        }
+    }
+
+    /**
+     * Records how long {@code onReceive()} held the main thread for.
+     *
+     * @param nanos time spent handing the broadcast off.
+     */
+    static void recordDispatch(final long nanos)
+    {
+        sDispatchCount.incrementAndGet();
+        sDispatchNanos.addAndGet(nanos);
+
+        long max = sMaxDispatchNanos.get();
+        while (nanos > max && !sMaxDispatchNanos.compareAndSet(max, nanos))
+        {
+            max = sMaxDispatchNanos.get();
+        }
+
+        if (Constants.IS_LOGGABLE && Log.isLoggable(Constants.LOG_TAG, Log.VERBOSE))
+        {
+            Log.v(Constants.LOG_TAG, String.format("onReceive() returned after %d us", Long.valueOf(nanos / 1000))); //$NON-NLS-1$
+        }
+    }
+
+    /**
+     * @return number of broadcasts dispatched.
+     */
+    public static long getDispatchCount()
+    {
+        return sDispatchCount.get();
+    }
+
+    /**
+     * @return mean time spent in {@link #execute(BroadcastReceiver, Runnable)}, in nanoseconds. This is the time
+     *         {@code onReceive()} holds the main thread for.
+     */
+    public static long getMeanDispatchNanos()
+    {
+        final long count = sDispatchCount.get();
+        return 0 == count ? 0 : sDispatchNanos.get() / count;
+    }
+
+    /**
+     * @return longest time spent in {@link #execute(BroadcastReceiver, Runnable)}, in nanoseconds.
+     */
+    public static long getMaxDispatchNanos()
+    {
+        return sMaxDispatchNanos.get();
+    }
+
+    /**
+     * @return number of broadcasts finished by the watchdog because their work overran the time budget.
+     */
+    public static long getTimeoutCount()
+    {
+        return sTimeoutCount.get();
+    }
+
+    /**
+     * A pending broadcast, finished exactly once by whichever of the work and the watchdog gets there first.
+     */
+    @TargetApi(11)
+    private static final class Hold implements Runnable
+    {
+        private final BroadcastReceiver.PendingResult mPendingResult;
+
+        private final AtomicBoolean mFinished = new AtomicBoolean();
+
+        final Runnable mWatchdog = new Runnable()
+        {
+            public void run()
+            {
+                if (finish())
+                {
+                    sTimeoutCount.incrementAndGet();
+                    if (Constants.IS_LOGGABLE)
+                    {
+                        Log.w(Constants.LOG_TAG, "receiver work overran its time budget; finishing broadcast early"); //$NON-NLS-1$
+                    }
+                }
+            }
+        };
+
+        Hold(final BroadcastReceiver.PendingResult pendingResult)
+        {
+            mPendingResult = pendingResult;
+        }
+
+        public void run()
+        {
+            MAIN_HANDLER.removeCallbacks(mWatchdog);
+            finish();
+        }
+
+        /**
+         * @return true if this call finished the broadcast, false if it was already finished.
+         */
+        boolean finish()
+        {
+            if (!mFinished.compareAndSet(false, true))
+            {
+                return false;
+            }
+
+            if (null != mPendingResult)
+            {
+                mPendingResult.finish();
+            }
+            return true;
+        }
+    }
+}
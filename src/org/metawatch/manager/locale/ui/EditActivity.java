@@ -33,7 +33,12 @@ import com.twofortyfouram.locale.BreadCrumber;
 import org.metawatch.manager.locale.Constants;
 import org.metawatch.manager.locale.R;
 import org.metawatch.manager.locale.bundle.BundleScrubber;
+import org.metawatch.manager.locale.bundle.NotificationSetting;
 import org.metawatch.manager.locale.bundle.PluginBundleManager;
+import org.metawatch.manager.locale.bundle.Setting;
+import org.metawatch.manager.locale.bundle.SettingParser;
+import org.metawatch.manager.locale.bundle.SilentModeSetting;
+import org.metawatch.manager.locale.bundle.WidgetSetting;
 
 /**
  * This is the "Edit" activity for a Locale Plug-in.
@@ -72,8 +77,7 @@ public final class EditActivity extends Activity
         /*
          * A hack to prevent a private serializable classloader attack
          */
-        BundleScrubber.scrub(getIntent());
-        BundleScrubber.scrub(getIntent().getBundleExtra(com.twofortyfouram.locale.Intent.EXTRA_BUNDLE));
+        final Bundle forwardedBundle = BundleScrubber.scrubBundleExtra(getIntent(), com.twofortyfouram.locale.Intent.EXTRA_BUNDLE).getBundle();
 
         setContentView(R.layout.main);
 
@@ -127,52 +131,37 @@ public final class EditActivity extends Activity
          */
         if (null == savedInstanceState)
         {
-            final Bundle forwardedBundle = getIntent().getBundleExtra(com.twofortyfouram.locale.Intent.EXTRA_BUNDLE);
+            final Setting setting = SettingParser.parse(forwardedBundle).getSetting();
 
-            if (PluginBundleManager.isBundleValid(forwardedBundle))
+            if (setting instanceof NotificationSetting)
             {
-                ((EditText) findViewById(R.id.text1)).setText(forwardedBundle.getString(PluginBundleManager.BUNDLE_EXTRA_STRING_MESSAGE));
-                ((EditText) findViewById(R.id.text2)).setText(forwardedBundle.getString(PluginBundleManager.BUNDLE_EXTRA_STRING_TITLE));
-            	((CheckBox) findViewById(R.id.checkBox3)).setChecked(forwardedBundle.getBoolean(PluginBundleManager.BUNDLE_EXTRA_BOOLEAN_STICKY, true));
-                ((EditText) findViewById(R.id.text3)).setText(forwardedBundle.getString(PluginBundleManager.BUNDLE_EXTRA_STRING_WIDGET_ID));
-                ((EditText) findViewById(R.id.text4)).setText(forwardedBundle.getString(PluginBundleManager.BUNDLE_EXTRA_STRING_WIDGET_LABEL));
-          
-            	((CheckBox) findViewById(R.id.checkBox1)).setChecked(forwardedBundle.getBoolean(PluginBundleManager.BUNDLE_EXTRA_BOOLEAN_VIBRATE));
-            	((EditText) findViewById(R.id.edit_vib_on)).setText(String.valueOf(forwardedBundle.getInt(PluginBundleManager.BUNDLE_EXTRA_INT_VIBRATE_ON)));
-                ((EditText) findViewById(R.id.edit_vib_off)).setText(String.valueOf(forwardedBundle.getInt(PluginBundleManager.BUNDLE_EXTRA_INT_VIBRATE_OFF)));
-                ((EditText) findViewById(R.id.edit_vib_cycles)).setText(String.valueOf(forwardedBundle.getInt(PluginBundleManager.BUNDLE_EXTRA_INT_VIBRATE_CYCLES)));
-         
-            	((CheckBox) findViewById(R.id.checkBox2)).setChecked(forwardedBundle.getBoolean(PluginBundleManager.BUNDLE_EXTRA_BOOLEAN_SILENTMODE));
-
-                
-                String type = forwardedBundle.getString(PluginBundleManager.BUNDLE_EXTRA_STRING_TYPE);
-                
-                if(type.equals("notification")) {
-                	((RadioButton) findViewById(R.id.radioButton1)).setChecked(true);
-                	((RadioButton) findViewById(R.id.radioButton2)).setChecked(false);
-                	((RadioButton) findViewById(R.id.radioButton3)).setChecked(false);
-                }
-                else if(type.equals("widget")){
-                	((RadioButton) findViewById(R.id.radioButton1)).setChecked(false);
-                	((RadioButton) findViewById(R.id.radioButton2)).setChecked(true);
-                	((RadioButton) findViewById(R.id.radioButton3)).setChecked(false);
-                }
-                else if(type.equals("silentmode")){
-                	((RadioButton) findViewById(R.id.radioButton1)).setChecked(false);
-                	((RadioButton) findViewById(R.id.radioButton2)).setChecked(false);
-                	((RadioButton) findViewById(R.id.radioButton3)).setChecked(true);
-                }
-                
+                final NotificationSetting notification = (NotificationSetting) setting;
+                ((EditText) findViewById(R.id.text1)).setText(notification.getMessage());
+                ((EditText) findViewById(R.id.text2)).setText(notification.getTitle());
+                ((CheckBox) findViewById(R.id.checkBox3)).setChecked(notification.isSticky());
+                showVibration(notification.getVibration());
+                ((RadioButton) findViewById(R.id.radioButton1)).setChecked(true);
+            }
+            else if (setting instanceof WidgetSetting)
+            {
+                final WidgetSetting widget = (WidgetSetting) setting;
+                ((EditText) findViewById(R.id.text3)).setText(widget.getWidgetId());
+                ((EditText) findViewById(R.id.text4)).setText(widget.getLabel());
+                showVibration(widget.getVibration());
+                ((RadioButton) findViewById(R.id.radioButton2)).setChecked(true);
+
                 String[] iconNames = getResources().getStringArray(R.array.icons);
-                String icon = forwardedBundle.getString(PluginBundleManager.BUNDLE_EXTRA_STRING_WIDGET_ICON);
-                
                 for(int i=0; i<iconNames.length; ++i) {
-                	if(icon.equals(iconNames[i])) {
+                	if(widget.getIcon().equals(iconNames[i])) {
                 		s1.setSelection(i);
                 		break;
                 	}
                 }
-                
+            }
+            else if (setting instanceof SilentModeSetting)
+            {
+                ((CheckBox) findViewById(R.id.checkBox2)).setChecked(((SilentModeSetting) setting).isEnabled());
+                ((RadioButton) findViewById(R.id.radioButton3)).setChecked(true);
             }
         }
         /*
@@ -202,22 +191,6 @@ public final class EditActivity extends Activity
 
             final String widgetIcon = ((Spinner) findViewById(R.id.spinner1)).getSelectedItem().toString();
                         
-            String type = "";
-            RadioGroup group = (RadioGroup) findViewById(R.id.group1);
-            switch( group.getCheckedRadioButtonId() ) {
-            case R.id.radioButton1:
-            	type = "notification";
-            	break;
-            	
-            case R.id.radioButton2:
-            	type = "widget";
-            	break;
-            	
-            case R.id.radioButton3:
-            	type = "silentmode";
-            	break;
-            }
-            
             final Boolean vibrate = ((CheckBox) findViewById(R.id.checkBox1)).isChecked();
             final Integer vibrateOn = tryGetValue(R.id.edit_vib_on);
             final Integer vibrateOff = tryGetValue(R.id.edit_vib_off);
@@ -237,25 +210,53 @@ public final class EditActivity extends Activity
              * must be standard Java objects (e.g. a private subclass to this plug-in cannot be stored in the Bundle, as
              * Locale's classloader will not recognize it).
              */
-            final Bundle resultBundle = new Bundle();
-            resultBundle.putInt(PluginBundleManager.BUNDLE_EXTRA_INT_VERSION_CODE, Constants.getVersionCode(this));
+            final int versionCode = Constants.getVersionCode(this);
+            final Setting.Vibration vibration = vibrate ? new Setting.Vibration(vibrateOn, vibrateOff, vibrateRepeat) : null;
+            final Setting setting;
+            switch (((RadioGroup) findViewById(R.id.group1)).getCheckedRadioButtonId())
+            {
+                case R.id.radioButton1:
+                    setting = new NotificationSetting(versionCode, title, message, sticky, vibration);
+                    break;
+                case R.id.radioButton2:
+                    setting = new WidgetSetting(versionCode, widgetId, widgetLabel, widgetIcon, vibration);
+                    break;
+                case R.id.radioButton3:
+                    setting = new SilentModeSetting(versionCode, silentEnabled);
+                    break;
+                default:
+                    setting = null;
+                    break;
+            }
+            final String type = null != setting ? setting.getTypeId() : ""; //$NON-NLS-1$
+
+            final Bundle resultBundle;
+            if (Constants.IS_COMPACT_BUNDLE_ENABLED && versionCode >= PluginBundleManager.COMPACT_FORMAT_VERSION_CODE && null != setting)
+            {
+                resultBundle = PluginBundleManager.createCompactBundle(setting);
+            }
+            else
+            {
+                resultBundle = new Bundle();
+                resultBundle.putInt(PluginBundleManager.BUNDLE_EXTRA_INT_VERSION_CODE, versionCode);
             
-            resultBundle.putString(PluginBundleManager.BUNDLE_EXTRA_STRING_TYPE, type);
+                resultBundle.putString(PluginBundleManager.BUNDLE_EXTRA_STRING_TYPE, type);
             
-            resultBundle.putString(PluginBundleManager.BUNDLE_EXTRA_STRING_MESSAGE, message);
-            resultBundle.putString(PluginBundleManager.BUNDLE_EXTRA_STRING_TITLE, title);
-            resultBundle.putBoolean(PluginBundleManager.BUNDLE_EXTRA_BOOLEAN_STICKY, sticky);
+                resultBundle.putString(PluginBundleManager.BUNDLE_EXTRA_STRING_MESSAGE, message);
+                resultBundle.putString(PluginBundleManager.BUNDLE_EXTRA_STRING_TITLE, title);
+                resultBundle.putBoolean(PluginBundleManager.BUNDLE_EXTRA_BOOLEAN_STICKY, sticky);
             
-            resultBundle.putString(PluginBundleManager.BUNDLE_EXTRA_STRING_WIDGET_ID, widgetId);
-            resultBundle.putString(PluginBundleManager.BUNDLE_EXTRA_STRING_WIDGET_LABEL, widgetLabel);
-            resultBundle.putString(PluginBundleManager.BUNDLE_EXTRA_STRING_WIDGET_ICON, widgetIcon);
+                resultBundle.putString(PluginBundleManager.BUNDLE_EXTRA_STRING_WIDGET_ID, widgetId);
+                resultBundle.putString(PluginBundleManager.BUNDLE_EXTRA_STRING_WIDGET_LABEL, widgetLabel);
+                resultBundle.putString(PluginBundleManager.BUNDLE_EXTRA_STRING_WIDGET_ICON, widgetIcon);
             
-            resultBundle.putBoolean(PluginBundleManager.BUNDLE_EXTRA_BOOLEAN_SILENTMODE, silentEnabled);
+                resultBundle.putBoolean(PluginBundleManager.BUNDLE_EXTRA_BOOLEAN_SILENTMODE, silentEnabled);
             
-            resultBundle.putBoolean(PluginBundleManager.BUNDLE_EXTRA_BOOLEAN_VIBRATE, vibrate);
-            resultBundle.putInt(PluginBundleManager.BUNDLE_EXTRA_INT_VIBRATE_ON, vibrateOn);
-            resultBundle.putInt(PluginBundleManager.BUNDLE_EXTRA_INT_VIBRATE_OFF, vibrateOff);
-            resultBundle.putInt(PluginBundleManager.BUNDLE_EXTRA_INT_VIBRATE_CYCLES, vibrateRepeat);
+                resultBundle.putBoolean(PluginBundleManager.BUNDLE_EXTRA_BOOLEAN_VIBRATE, vibrate);
+                resultBundle.putInt(PluginBundleManager.BUNDLE_EXTRA_INT_VIBRATE_ON, vibrateOn);
+                resultBundle.putInt(PluginBundleManager.BUNDLE_EXTRA_INT_VIBRATE_OFF, vibrateOff);
+                resultBundle.putInt(PluginBundleManager.BUNDLE_EXTRA_INT_VIBRATE_CYCLES, vibrateRepeat);
+            }
 
             resultIntent.putExtra(com.twofortyfouram.locale.Intent.EXTRA_BUNDLE, resultBundle);
 
@@ -268,34 +269,15 @@ public final class EditActivity extends Activity
             builder.append(type);
             builder.append(" : ");
             
-            if(type.equals("notification")) {
-            
-                if (title.length() > 0 ) {
-                	builder.append(title);
-                	builder.append(" : ");
-                }
-                builder.append(message);
-                
-                if (0 == message.length())
-                {
-                    setResult(RESULT_CANCELED);
-                }
-        
-            }
-            else if(type.equals("widget")) {
-            	builder.append(widgetIcon);
-            	builder.append(" : ");
-            	builder.append(widgetLabel);
-            	
-                if (0 == widgetIcon.length() || 0 == widgetLabel.length())
+            if (null != setting)
+            {
+                builder.append(setting.getHandler().getBlurb(setting));
+
+                if (!setting.getHandler().isComplete(setting))
                 {
                     setResult(RESULT_CANCELED);
                 }
             }
-            else if(type.equals("silentmode")) {
-            	builder.append("Silent Mode : ");
-            	builder.append(silentEnabled ? "Enabled" : "Disabled");
-            }
             
             if (builder.length() > getResources().getInteger(org.metawatch.manager.locale.R.integer.twofortyfouram_locale_maximum_blurb_length))
             {
@@ -313,6 +295,22 @@ public final class EditActivity extends Activity
         super.finish();
     }
     
+    /**
+     * Shows a setting's vibration pattern.
+     *
+     * @param vibration the pattern, or null if the setting does not vibrate.
+     */
+    private void showVibration(final Setting.Vibration vibration)
+    {
+        ((CheckBox) findViewById(R.id.checkBox1)).setChecked(null != vibration);
+        if (null != vibration)
+        {
+            ((EditText) findViewById(R.id.edit_vib_on)).setText(String.valueOf(vibration.getOnMillis()));
+            ((EditText) findViewById(R.id.edit_vib_off)).setText(String.valueOf(vibration.getOffMillis()));
+            ((EditText) findViewById(R.id.edit_vib_cycles)).setText(String.valueOf(vibration.getCycles()));
+        }
+    }
+
     private int tryGetValue(int resId)
     {
     	try 
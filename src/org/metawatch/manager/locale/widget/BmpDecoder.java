@@ -0,0 +1,175 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at <http://www.apache.org/licenses/LICENSE-2.0>
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS"
+ * BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package org.metawatch.manager.locale.widget;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Decodes uncompressed Windows BMP files into {@link MonoBitmap}s.
+ * <p>
+ * The widget icons are 1-bit black and white palette BMPs, which decode to exactly the pixels that drawing them into an
+ * RGB_565 bitmap gives. 4, 8, 24 and 32-bit uncompressed files are also accepted, but their grey pixels are forced to black or
+ * white, where drawing them would keep the grey.
+ * <p>
+ * This class has no Android dependencies.
+ */
+public final class BmpDecoder
+{
+    /**
+     * Private constructor prevents instantiation
+     *
+     * @throws UnsupportedOperationException because this class cannot be instantiated.
+     */
+    private BmpDecoder()
+    {
+        throw new UnsupportedOperationException("This class is non-instantiable"); //$NON-NLS-1$
+    }
+
+    /**
+     * Reads and decodes a BMP file. The stream is read to the end but not closed.
+     *
+     * @param in stream positioned at the start of the file.
+     * @return the decoded image.
+     * @throws IOException if the stream cannot be read or does not hold a supported BMP file.
+     */
+    public static MonoBitmap decode(final InputStream in) throws IOException
+    {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+        final byte[] buffer = new byte[256];
+        int count;
+        while (-1 != (count = in.read(buffer)))
+        {
+            out.write(buffer, 0, count);
+        }
+
+        return decode(out.toByteArray(), 0, out.size());
+    }
+
+    /**
+     * Decodes a BMP file held in memory.
+     *
+     * @param data array holding the file.
+     * @param offset index of the first byte of the file in {@code data}.
+     * @param length length of the file in bytes.
+     * @return the decoded image.
+     * @throws IOException if the data is not a supported BMP file.
+     */
+    public static MonoBitmap decode(final byte[] data, final int offset, final int length) throws IOException
+    {
+        if (length < 54 || 'B' != data[offset] || 'M' != data[offset + 1])
+        {
+            throw new IOException("not a BMP file"); //$NON-NLS-1$
+        }
+
+        final int pixelOffset = readInt(data, offset + 10);
+        final int headerSize = readInt(data, offset + 14);
+        final int width = readInt(data, offset + 18);
+        final int rawHeight = readInt(data, offset + 22);
+        final int bitsPerPixel = readShort(data, offset + 28);
+        final int compression = readInt(data, offset + 30);
+        int paletteSize = readInt(data, offset + 46);
+
+        if (0 != compression)
+        {
+            throw new IOException(String.format("unsupported BMP compression %d", Integer.valueOf(compression))); //$NON-NLS-1$
+        }
+        if (1 != bitsPerPixel && 4 != bitsPerPixel && 8 != bitsPerPixel && 24 != bitsPerPixel && 32 != bitsPerPixel)
+        {
+            throw new IOException(String.format("unsupported BMP depth %d", Integer.valueOf(bitsPerPixel))); //$NON-NLS-1$
+        }
+
+        final boolean bottomUp = rawHeight > 0;
+        final int height = Math.abs(rawHeight);
+        final int rowSize = ((width * bitsPerPixel + 31) >> 5) << 2;
+
+        if (width <= 0 || pixelOffset < 0 || pixelOffset + (long) rowSize * height > length)
+        {
+            throw new IOException("truncated BMP file"); //$NON-NLS-1$
+        }
+
+        /*
+         * For palette images, precompute whether each palette entry is black
+         */
+        boolean[] paletteBlack = null;
+        if (bitsPerPixel <= 8)
+        {
+            if (0 == paletteSize)
+            {
+                paletteSize = 1 << bitsPerPixel;
+            }
+
+            paletteBlack = new boolean[1 << bitsPerPixel];
+            final int paletteOffset = offset + 14 + headerSize;
+            for (int i = 0; i < paletteSize && i < paletteBlack.length; i++)
+            {
+                final int entry = paletteOffset + 4 * i;
+                if (entry + 3 > offset + length)
+                {
+                    throw new IOException("truncated BMP palette"); //$NON-NLS-1$
+                }
+                paletteBlack[i] = isBlack(data[entry + 2] & 0xFF, data[entry + 1] & 0xFF, data[entry] & 0xFF);
+            }
+        }
+
+        final MonoBitmap bitmap = new MonoBitmap(width, height);
+        for (int row = 0; row < height; row++)
+        {
+            final int rowOffset = offset + pixelOffset + rowSize * (bottomUp ? height - 1 - row : row);
+
+            for (int column = 0; column < width; column++)
+            {
+                final boolean black;
+                switch (bitsPerPixel)
+                {
+                    case 1:
+                        black = paletteBlack[(data[rowOffset + (column >> 3)] >> (7 - (column & 7))) & 0x01];
+                        break;
+                    case 4:
+                        black = paletteBlack[(data[rowOffset + (column >> 1)] >> (0 == (column & 1) ? 4 : 0)) & 0x0F];
+                        break;
+                    case 8:
+                        black = paletteBlack[data[rowOffset + column] & 0xFF];
+                        break;
+                    default:
+                        final int pixel = rowOffset + column * (bitsPerPixel >> 3);
+                        black = isBlack(data[pixel + 2] & 0xFF, data[pixel + 1] & 0xFF, data[pixel] & 0xFF);
+                        break;
+                }
+
+                if (black)
+                {
+                    bitmap.set(column, row, true);
+                }
+            }
+        }
+
+        return bitmap;
+    }
+
+    /**
+     * @return whether a color is drawn black: its luminance is below half intensity.
+     */
+    private static boolean isBlack(final int red, final int green, final int blue)
+    {
+        return (red * 299 + green * 587 + blue * 114) < 128 * 1000;
+    }
+
+    private static int readShort(final byte[] data, final int offset)
+    {
+        return (data[offset] & 0xFF) | ((data[offset + 1] & 0xFF) << 8);
+    }
+
+    private static int readInt(final byte[] data, final int offset)
+    {
+        return (data[offset] & 0xFF) | ((data[offset + 1] & 0xFF) << 8) | ((data[offset + 2] & 0xFF) << 16) | ((data[offset + 3] & 0xFF) << 24);
+    }
+}
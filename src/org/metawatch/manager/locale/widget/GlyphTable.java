@@ -0,0 +1,157 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at <http://www.apache.org/licenses/LICENSE-2.0>
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS"
+ * BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package org.metawatch.manager.locale.widget;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * The label font, rasterized into a {@link MonoFont} at build time so the app can load it without going through
+ * {@code Typeface}.
+ * <p>
+ * The file is written by the {@code glyph-table} build target from {@code metawatch_8pt_5pxl_CAPS.ttf}, and is big-endian:
+ *
+ * <pre>
+ * int   magic, "LMGT"
+ * short version, 1
+ * char  character of the first glyph slot
+ * short number of glyph slots
+ * for each slot:
+ *     short advance in 26.6 fixed point, or -1 if the font does not cover the character
+ *     byte  left, as {@link MonoFont.Glyph#getLeft()}
+ *     byte  top, as {@link MonoFont.Glyph#getTop()}
+ *     byte  width of the ink, 0 if the glyph has none
+ *     byte  height of the ink
+ *     the ink, packed as {@link MonoBitmap#toPacked()} returns it
+ * </pre>
+ * <p>
+ * This class has no Android dependencies.
+ */
+public final class GlyphTable
+{
+    /**
+     * Asset path of the label font's glyph table.
+     */
+    public static final String ASSET_PATH = "metawatch_8pt_5pxl_CAPS.glyphs"; //$NON-NLS-1$
+
+    private static final int MAGIC = 0x4C4D4754;
+
+    private static final int VERSION = 1;
+
+    /**
+     * Private constructor prevents instantiation
+     *
+     * @throws UnsupportedOperationException because this class cannot be instantiated.
+     */
+    private GlyphTable()
+    {
+        throw new UnsupportedOperationException("This class is non-instantiable"); //$NON-NLS-1$
+    }
+
+    /**
+     * Writes a glyph table.
+     *
+     * @param font font to write.
+     * @param out stream to write to. It is not closed.
+     * @throws IOException if the stream cannot be written, or a glyph does not fit the format.
+     */
+    public static void write(final MonoFont font, final OutputStream out) throws IOException
+    {
+        if (font.getGlyphCount() > 0xFFFF)
+        {
+            throw new IOException("too many glyphs"); //$NON-NLS-1$
+        }
+
+        final DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeShort(VERSION);
+        data.writeChar(font.getFirstChar());
+        data.writeShort(font.getGlyphCount());
+        for (int i = 0; i < font.getGlyphCount(); i++)
+        {
+            final MonoFont.Glyph glyph = font.getGlyph((char) (font.getFirstChar() + i));
+            if (null == glyph)
+            {
+                data.writeShort(-1);
+                data.writeInt(0);
+                continue;
+            }
+
+            final MonoBitmap ink = glyph.getBitmap();
+            final int width = null == ink ? 0 : ink.getWidth();
+            final int height = null == ink ? 0 : ink.getHeight();
+            if (glyph.getAdvance() < 0 || glyph.getAdvance() > Short.MAX_VALUE || glyph.getLeft() != (byte) glyph.getLeft()
+                    || glyph.getTop() != (byte) glyph.getTop() || width > 0xFF || height > 0xFF)
+            {
+                throw new IOException(String.format("glyph %d does not fit the table", Integer.valueOf(i))); //$NON-NLS-1$
+            }
+
+            data.writeShort(glyph.getAdvance());
+            data.writeByte(glyph.getLeft());
+            data.writeByte(glyph.getTop());
+            data.writeByte(width);
+            data.writeByte(height);
+            if (null != ink)
+            {
+                data.write(ink.toPacked());
+            }
+        }
+        data.flush();
+    }
+
+    /**
+     * Reads a glyph table.
+     *
+     * @param in stream positioned at the start of the table. It is not closed.
+     * @return the font.
+     * @throws IOException if the stream cannot be read or does not hold a table this version can read.
+     */
+    public static MonoFont read(final InputStream in) throws IOException
+    {
+        final DataInputStream data = new DataInputStream(in);
+        if (MAGIC != data.readInt() || VERSION != data.readUnsignedShort())
+        {
+            throw new IOException("not a glyph table"); //$NON-NLS-1$
+        }
+
+        final char firstChar = data.readChar();
+        final MonoFont.Glyph[] glyphs = new MonoFont.Glyph[data.readUnsignedShort()];
+        byte[] packed = new byte[0];
+        for (int i = 0; i < glyphs.length; i++)
+        {
+            final int advance = data.readShort();
+            final int left = data.readByte();
+            final int top = data.readByte();
+            final int width = data.readUnsignedByte();
+            final int height = data.readUnsignedByte();
+            if (advance < 0)
+            {
+                continue;
+            }
+
+            MonoBitmap ink = null;
+            if (0 != width && 0 != height)
+            {
+                final int length = ((width + 7) >> 3) * height;
+                if (packed.length < length)
+                {
+                    packed = new byte[length];
+                }
+                data.readFully(packed, 0, length);
+                ink = MonoBitmap.fromPacked(width, height, packed, 0);
+            }
+            glyphs[i] = new MonoFont.Glyph(advance, left, top, ink);
+        }
+        return new MonoFont(firstChar, glyphs);
+    }
+}
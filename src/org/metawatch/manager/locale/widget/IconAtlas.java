@@ -0,0 +1,147 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at <http://www.apache.org/licenses/LICENSE-2.0>
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS"
+ * BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package org.metawatch.manager.locale.widget;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Every widget icon, packed into one file at build time so the app can load them all with a single asset read instead of
+ * opening and decoding one BMP per icon.
+ * <p>
+ * The file is written by the {@code icon-atlas} build target from the BMPs named in {@code res/values/arrays.xml}, and is
+ * big-endian:
+ *
+ * <pre>
+ * int   magic, "LMIA"
+ * short version, 1
+ * short number of icons
+ * for each icon:
+ *     UTF   asset path of the BMP it was built from, for example "home_10.bmp"
+ *     short width
+ *     short height
+ *     int   offset of its pixels from the start of the pixel data
+ * pixel data: each icon's pixels, packed as {@link MonoBitmap#toPacked()} returns them
+ * </pre>
+ * <p>
+ * This class has no Android dependencies.
+ */
+public final class IconAtlas
+{
+    /**
+     * Asset path of the atlas.
+     */
+    public static final String ASSET_PATH = "icons.atlas"; //$NON-NLS-1$
+
+    private static final int MAGIC = 0x4C4D4941;
+
+    private static final int VERSION = 1;
+
+    /**
+     * Private constructor prevents instantiation
+     *
+     * @throws UnsupportedOperationException because this class cannot be instantiated.
+     */
+    private IconAtlas()
+    {
+        throw new UnsupportedOperationException("This class is non-instantiable"); //$NON-NLS-1$
+    }
+
+    /**
+     * Writes an atlas.
+     *
+     * @param icons icons by asset path, in the order they are to be stored.
+     * @param out stream to write to. It is not closed.
+     * @throws IOException if the stream cannot be written, or there are too many icons or too large ones for the format.
+     */
+    public static void write(final Map<String, MonoBitmap> icons, final OutputStream out) throws IOException
+    {
+        if (icons.size() > 0xFFFF)
+        {
+            throw new IOException("too many icons"); //$NON-NLS-1$
+        }
+
+        final ByteArrayOutputStream pixels = new ByteArrayOutputStream();
+        final DataOutputStream header = new DataOutputStream(out);
+        header.writeInt(MAGIC);
+        header.writeShort(VERSION);
+        header.writeShort(icons.size());
+        for (final Map.Entry<String, MonoBitmap> entry : icons.entrySet())
+        {
+            final MonoBitmap icon = entry.getValue();
+            if (icon.getWidth() > 0xFFFF || icon.getHeight() > 0xFFFF)
+            {
+                throw new IOException(String.format("icon %s is too large", entry.getKey())); //$NON-NLS-1$
+            }
+
+            header.writeUTF(entry.getKey());
+            header.writeShort(icon.getWidth());
+            header.writeShort(icon.getHeight());
+            header.writeInt(pixels.size());
+            pixels.write(icon.toPacked());
+        }
+        pixels.writeTo(header);
+        header.flush();
+    }
+
+    /**
+     * Reads an atlas.
+     *
+     * @param data array holding the atlas.
+     * @param offset index of the first byte of the atlas in {@code data}.
+     * @param length length of the atlas in bytes.
+     * @return read-only icons by asset path, in the order they were stored.
+     * @throws IOException if the data is not an atlas this version can read.
+     */
+    public static Map<String, MonoBitmap> read(final byte[] data, final int offset, final int length) throws IOException
+    {
+        final DataInputStream in = new DataInputStream(new ByteArrayInputStream(data, offset, length));
+        if (MAGIC != in.readInt() || VERSION != in.readUnsignedShort())
+        {
+            throw new IOException("not an icon atlas"); //$NON-NLS-1$
+        }
+
+        final int count = in.readUnsignedShort();
+        final String[] paths = new String[count];
+        final int[] sizes = new int[count * 3];
+        for (int i = 0; i < count; i++)
+        {
+            paths[i] = in.readUTF();
+            sizes[i * 3] = in.readUnsignedShort();
+            sizes[i * 3 + 1] = in.readUnsignedShort();
+            sizes[i * 3 + 2] = in.readInt();
+        }
+
+        /*
+         * What is left in the stream is the pixel data
+         */
+        final int pixels = offset + length - in.available();
+        final Map<String, MonoBitmap> icons = new LinkedHashMap<String, MonoBitmap>();
+        for (int i = 0; i < count; i++)
+        {
+            final int width = sizes[i * 3];
+            final int height = sizes[i * 3 + 1];
+            final int start = pixels + sizes[i * 3 + 2];
+            if (start < pixels || offset + length - start < ((width + 7) >> 3) * height)
+            {
+                throw new IOException(String.format("icon %s is truncated", paths[i])); //$NON-NLS-1$
+            }
+            icons.put(paths[i], MonoBitmap.fromPacked(width, height, data, start).makeReadOnly());
+        }
+        return Collections.unmodifiableMap(icons);
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at <http://www.apache.org/licenses/LICENSE-2.0>
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS"
+ * BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package org.metawatch.manager.locale.widget;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ConcurrentHashMap;
+
+import android.content.Context;
+import android.content.res.AssetManager;
+import android.util.Log;
+
+import org.metawatch.manager.locale.CacheManager;
+import org.metawatch.manager.locale.Constants;
+import org.metawatch.manager.locale.Lazy;
+
+/**
+ * Process-wide store of the widget icons in the app's assets.
+ * <p>
+ * The first request loads every icon at once from the {@link IconAtlas} built into the app's assets. An icon that is not in
+ * the atlas, for example because it was added without running the {@code icon-atlas} build target, is decoded from its BMP
+ * instead. Either way each icon is loaded at most once per process and is then shared by every caller. The icons are
+ * read-only {@link MonoBitmap}s, so they can be used from any thread without further synchronization.
+ * <p>
+ * The store is registered with the {@link CacheManager} as a {@link CacheManager.Tier#DECODED} cache, and loads icons again
+ * after a trim.
+ */
+public final class IconStore
+{
+    private static final Lazy<IconStore> INSTANCE = new Lazy<IconStore>("icons") //$NON-NLS-1$
+    {
+        @Override
+        protected IconStore create(final Context context)
+        {
+            final IconStore icons = new IconStore(context.getApplicationContext().getAssets());
+            CacheManager.register(CacheManager.Tier.DECODED, "icons", new CacheManager.Cache() //$NON-NLS-1$
+            {
+                public long getByteCount()
+                {
+                    return icons.getByteCount();
+                }
+
+                public void trim()
+                {
+                    icons.clear();
+                }
+            });
+            return icons;
+        }
+    };
+
+    /**
+     * Placeholder recorded for assets that could not be decoded, so a missing icon is only looked for once.
+     */
+    private static final MonoBitmap MISSING = new MonoBitmap(0, 0).makeReadOnly();
+
+    private final AssetManager mAssets;
+
+    private final ConcurrentHashMap<String, MonoBitmap> mIcons = new ConcurrentHashMap<String, MonoBitmap>();
+
+    /**
+     * Guards decoding, so that two threads asking for the same icon do not both decode it.
+     */
+    private final Object mDecodeLock = new Object();
+
+    /**
+     * Whether the atlas has been loaded into {@link #mIcons} since the store was created or last cleared. Guarded by
+     * {@link #mDecodeLock}.
+     */
+    private boolean mAtlasLoaded;
+
+    private IconStore(final AssetManager assets)
+    {
+        mAssets = assets;
+    }
+
+    /**
+     * @param context used to reach the app's assets. Cannot be null.
+     * @return the icon store for this process.
+     */
+    public static IconStore getInstance(final Context context)
+    {
+        return INSTANCE.get(context);
+    }
+
+    /**
+     * Gets a decoded icon, decoding it on first use.
+     *
+     * @param path asset path of the icon, for example {@code "home_10.bmp"}.
+     * @return the read-only icon, or null if the asset does not exist or cannot be decoded.
+     */
+    public MonoBitmap get(final String path)
+    {
+        MonoBitmap icon = mIcons.get(path);
+        if (null == icon)
+        {
+            synchronized (mDecodeLock)
+            {
+                if (!mAtlasLoaded)
+                {
+                    mAtlasLoaded = true;
+                    loadAtlas();
+                }
+
+                icon = mIcons.get(path);
+                if (null == icon)
+                {
+                    icon = decode(path);
+                    mIcons.put(path, icon);
+                }
+            }
+        }
+
+        return MISSING == icon ? null : icon;
+    }
+
+    /**
+     * @return number of icons loaded so far, including ones that were missing.
+     */
+    public int size()
+    {
+        return mIcons.size();
+    }
+
+    /**
+     * @return number of bytes of pixel data held by the decoded icons.
+     */
+    public long getByteCount()
+    {
+        long bytes = 0;
+        for (final MonoBitmap icon : mIcons.values())
+        {
+            bytes += icon.getByteCount();
+        }
+        return bytes;
+    }
+
+    /**
+     * Forgets every loaded icon. Icons are loaded again when next requested; bitmaps already handed out stay valid.
+     */
+    public void clear()
+    {
+        synchronized (mDecodeLock)
+        {
+            mIcons.clear();
+            mAtlasLoaded = false;
+        }
+    }
+
+    /**
+     * Adds every icon in the atlas to {@link #mIcons}. Must be called holding {@link #mDecodeLock}.
+     */
+    private void loadAtlas()
+    {
+        try
+        {
+            final InputStream inputStream = mAssets.open(IconAtlas.ASSET_PATH, AssetManager.ACCESS_BUFFER);
+            try
+            {
+                final ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(inputStream.available(), 256));
+                final byte[] buffer = new byte[1024];
+                int count;
+                while (-1 != (count = inputStream.read(buffer)))
+                {
+                    out.write(buffer, 0, count);
+                }
+
+                mIcons.putAll(IconAtlas.read(out.toByteArray(), 0, out.size()));
+            }
+            finally
+            {
+                inputStream.close();
+            }
+        }
+        catch (final FileNotFoundException e)
+        {
+            if (Constants.IS_LOGGABLE)
+            {
+                Log.v(Constants.LOG_TAG, "no icon atlas; decoding icons one at a time"); //$NON-NLS-1$
+            }
+        }
+        catch (final IOException e)
+        {
+            if (Constants.IS_LOGGABLE)
+            {
+                Log.w(Constants.LOG_TAG, "couldn't load icon atlas", e); //$NON-NLS-1$
+            }
+        }
+    }
+
+    private MonoBitmap decode(final String path)
+    {
+        try
+        {
+            final InputStream inputStream = mAssets.open(path);
+            try
+            {
+                return BmpDecoder.decode(inputStream).makeReadOnly();
+            }
+            finally
+            {
+                inputStream.close();
+            }
+        }
+        catch (final IOException e)
+        {
+            if (Constants.IS_LOGGABLE)
+            {
+                Log.w(Constants.LOG_TAG, String.format("couldn't load icon %s", path), e); //$NON-NLS-1$
+            }
+            return MISSING;
+        }
+    }
+}
@@ -0,0 +1,353 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at <http://www.apache.org/licenses/LICENSE-2.0>
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS"
+ * BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package org.metawatch.manager.locale.widget;
+
+/**
+ * A 1-bit per pixel image, matching the MetaWatch display.
+ * <p>
+ * Pixels are packed eight to a byte, most significant bit first, with each row starting on a byte boundary. A set bit is a
+ * black (ink) pixel and a clear bit is white. Bits past the right edge of a row are always clear.
+ * <p>
+ * This class has no Android dependencies. It is not thread-safe, but a bitmap that has been made read-only with
+ * {@link #makeReadOnly()} may be shared between threads.
+ */
+public final class MonoBitmap
+{
+    /**
+     * ARGB value of an ink pixel, as produced by {@code Bitmap.getPixels()} for black in an RGB_565 bitmap.
+     */
+    public static final int ARGB_BLACK = 0xFF000000;
+
+    /**
+     * ARGB value of a blank pixel, as produced by {@code Bitmap.getPixels()} for white in an RGB_565 bitmap.
+     */
+    public static final int ARGB_WHITE = 0xFFFFFFFF;
+
+    /**
+     * Bits that differ between {@link #ARGB_WHITE} and {@link #ARGB_BLACK}.
+     */
+    private static final int INK = ARGB_WHITE ^ ARGB_BLACK;
+
+    private final int mWidth;
+    private final int mHeight;
+
+    /**
+     * Number of bytes per row.
+     */
+    private final int mStride;
+
+    private final byte[] mBits;
+
+    private volatile boolean mReadOnly;
+
+    /**
+     * Creates a blank (all white) bitmap.
+     *
+     * @param width width in pixels. Must be greater than or equal to zero.
+     * @param height height in pixels. Must be greater than or equal to zero.
+     * @throws IllegalArgumentException if {@code width} or {@code height} is negative.
+     */
+    public MonoBitmap(final int width, final int height)
+    {
+        if (width < 0 || height < 0)
+        {
+            throw new IllegalArgumentException("width and height cannot be negative"); //$NON-NLS-1$
+        }
+
+        mWidth = width;
+        mHeight = height;
+        mStride = (width + 7) >> 3;
+        mBits = new byte[mStride * height];
+    }
+
+    /**
+     * Creates a bitmap from packed pixels in the layout {@link #toPacked()} returns.
+     *
+     * @param width width in pixels. Must be greater than or equal to zero.
+     * @param height height in pixels. Must be greater than or equal to zero.
+     * @param packed array holding the packed pixels.
+     * @param offset index of the first byte of the pixels in {@code packed}.
+     * @return a new bitmap holding a copy of the pixels.
+     * @throws IllegalArgumentException if {@code width} or {@code height} is negative, or {@code packed} is too short.
+     */
+    public static MonoBitmap fromPacked(final int width, final int height, final byte[] packed, final int offset)
+    {
+        final MonoBitmap bitmap = new MonoBitmap(width, height);
+        if (offset < 0 || packed.length - offset < bitmap.mBits.length)
+        {
+            throw new IllegalArgumentException("packed pixels are too short"); //$NON-NLS-1$
+        }
+        System.arraycopy(packed, offset, bitmap.mBits, 0, bitmap.mBits.length);
+        return bitmap;
+    }
+
+    /**
+     * @return width in pixels.
+     */
+    public int getWidth()
+    {
+        return mWidth;
+    }
+
+    /**
+     * @return height in pixels.
+     */
+    public int getHeight()
+    {
+        return mHeight;
+    }
+
+    /**
+     * @return number of bytes used by each row.
+     */
+    public int getStride()
+    {
+        return mStride;
+    }
+
+    /**
+     * @return number of bytes of pixel data.
+     */
+    public int getByteCount()
+    {
+        return mBits.length;
+    }
+
+    /**
+     * @param x column. Pixels outside the bitmap are white.
+     * @param y row. Pixels outside the bitmap are white.
+     * @return true if the pixel is black.
+     */
+    public boolean get(final int x, final int y)
+    {
+        if (x < 0 || y < 0 || x >= mWidth || y >= mHeight)
+        {
+            return false;
+        }
+
+        return 0 != (mBits[y * mStride + (x >> 3)] & (0x80 >>> (x & 7)));
+    }
+
+    /**
+     * @param x column. Pixels outside the bitmap are ignored.
+     * @param y row. Pixels outside the bitmap are ignored.
+     * @param black true to set the pixel to black, false to set it to white.
+     * @throws IllegalStateException if the bitmap is read-only.
+     */
+    public void set(final int x, final int y, final boolean black)
+    {
+        checkWritable();
+
+        if (x < 0 || y < 0 || x >= mWidth || y >= mHeight)
+        {
+            return;
+        }
+
+        final int index = y * mStride + (x >> 3);
+        final int mask = 0x80 >>> (x & 7);
+        if (black)
+        {
+            mBits[index] |= mask;
+        }
+        else
+        {
+            mBits[index] &= ~mask;
+        }
+    }
+
+    /**
+     * Sets every pixel to white.
+     *
+     * @throws IllegalStateException if the bitmap is read-only.
+     */
+    public void clear()
+    {
+        checkWritable();
+
+        for (int i = 0; i < mBits.length; i++)
+        {
+            mBits[i] = 0;
+        }
+    }
+
+    /**
+     * Draws the black pixels of {@code src} onto this bitmap with its top left corner at ({@code x}, {@code y}). White pixels in
+     * {@code src} are transparent. Parts of {@code src} that fall outside this bitmap are clipped.
+     *
+     * @param src bitmap to draw.
+     * @param x column of the left edge of {@code src}. May be negative.
+     * @param y row of the top edge of {@code src}. May be negative.
+     * @throws IllegalStateException if this bitmap is read-only.
+     */
+    public void blit(final MonoBitmap src, final int x, final int y)
+    {
+        checkWritable();
+
+        final int firstRow = Math.max(0, -y);
+        final int lastRow = Math.min(src.mHeight, mHeight - y);
+
+        for (int row = firstRow; row < lastRow; row++)
+        {
+            final int srcOffset = row * src.mStride;
+            final int dstOffset = (y + row) * mStride;
+
+            for (int i = 0; i < src.mStride; i++)
+            {
+                final int column = i << 3;
+
+                /*
+                 * Only bits lo (inclusive) to hi (exclusive) of this source byte land inside both bitmaps
+                 */
+                final int lo = Math.max(0, -x - column);
+                final int hi = Math.min(8, Math.min(src.mWidth, mWidth - x) - column);
+                if (hi <= lo)
+                {
+                    continue;
+                }
+
+                final int bits = src.mBits[srcOffset + i] & (0xFF >>> lo) & (0xFF << (8 - hi));
+                if (0 == bits)
+                {
+                    continue;
+                }
+
+                final int position = x + column;
+                if (position < 0)
+                {
+                    mBits[dstOffset] |= bits << -position;
+                }
+                else
+                {
+                    final int index = dstOffset + (position >> 3);
+                    final int shift = position & 7;
+                    mBits[index] |= bits >>> shift;
+                    if (0 != shift && (position >> 3) + 1 < mStride)
+                    {
+                        mBits[index + 1] |= bits << (8 - shift);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Expands the bitmap to ARGB pixels, row by row.
+     * <p>
+     * Each packed byte is expanded to eight pixels at once, without branching: the byte is shifted to the top of an int so that
+     * each pixel's bit in turn is the sign bit, and an arithmetic shift turns that into a mask selecting black or white.
+     *
+     * @param dst array to fill. Must hold at least {@code width * height} entries.
+     */
+    public void toArgb(final int[] dst)
+    {
+        final int wholeBytes = mWidth >> 3;
+        final int remainder = mWidth & 7;
+
+        int out = 0;
+        for (int row = 0; row < mHeight; row++)
+        {
+            int offset = row * mStride;
+            for (int i = 0; i < wholeBytes; i++)
+            {
+                final int bits = mBits[offset++] << 24;
+                dst[out] = ARGB_WHITE ^ (bits >> 31 & INK);
+                dst[out + 1] = ARGB_WHITE ^ (bits << 1 >> 31 & INK);
+                dst[out + 2] = ARGB_WHITE ^ (bits << 2 >> 31 & INK);
+                dst[out + 3] = ARGB_WHITE ^ (bits << 3 >> 31 & INK);
+                dst[out + 4] = ARGB_WHITE ^ (bits << 4 >> 31 & INK);
+                dst[out + 5] = ARGB_WHITE ^ (bits << 5 >> 31 & INK);
+                dst[out + 6] = ARGB_WHITE ^ (bits << 6 >> 31 & INK);
+                dst[out + 7] = ARGB_WHITE ^ (bits << 7 >> 31 & INK);
+                out += 8;
+            }
+
+            if (0 != remainder)
+            {
+                int bits = mBits[offset] << 24;
+                for (int i = 0; i < remainder; i++)
+                {
+                    dst[out++] = ARGB_WHITE ^ (bits >> 31 & INK);
+                    bits <<= 1;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return a new array holding the bitmap as ARGB pixels, row by row.
+     * @see #toArgb(int[])
+     */
+    public int[] toArgb()
+    {
+        final int[] pixels = new int[mWidth * mHeight];
+        toArgb(pixels);
+        return pixels;
+    }
+
+    /**
+     * @return a copy of the packed pixels: {@link #getStride()} bytes per row, most significant bit first, set bits black.
+     */
+    public byte[] toPacked()
+    {
+        final byte[] packed = new byte[mBits.length];
+        System.arraycopy(mBits, 0, packed, 0, mBits.length);
+        return packed;
+    }
+
+    /**
+     * @return a 64-bit FNV-1a hash of the size and pixels. Bitmaps with equal pixels have equal fingerprints.
+     */
+    public long fingerprint()
+    {
+        long hash = 0xcbf29ce484222325L;
+        hash = (hash ^ mWidth) * 0x100000001b3L;
+        hash = (hash ^ mHeight) * 0x100000001b3L;
+        for (int i = 0; i < mBits.length; i++)
+        {
+            hash = (hash ^ (mBits[i] & 0xFF)) * 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * Prevents any further changes to the bitmap, so it can be shared safely.
+     *
+     * @return this bitmap.
+     */
+    public MonoBitmap makeReadOnly()
+    {
+        mReadOnly = true;
+        return this;
+    }
+
+    /**
+     * @return true if the bitmap can no longer be changed.
+     */
+    public boolean isReadOnly()
+    {
+        return mReadOnly;
+    }
+
+    /**
+     * @return the packed pixel bits. Callers in this package must not modify a read-only bitmap through this array.
+     */
+    byte[] bits()
+    {
+        return mBits;
+    }
+
+    private void checkWritable()
+    {
+        if (mReadOnly)
+        {
+            throw new IllegalStateException("bitmap is read-only"); //$NON-NLS-1$
+        }
+    }
+}
@@ -0,0 +1,286 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at <http://www.apache.org/licenses/LICENSE-2.0>
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS"
+ * BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package org.metawatch.manager.locale.widget;
+
+/**
+ * A bitmap font of 1-bit glyphs, used to draw widget labels into a {@link MonoBitmap}.
+ * <p>
+ * Advances are kept in 26.6 fixed point (1/64ths of a pixel) and glyph origins are rounded to the nearest pixel, which is how
+ * Android's non-antialiased text drawing places glyphs. A character the font does not cover is drawn from the font's
+ * {@link #withFallback(MonoFont) fallback}, if it has one and that covers it; otherwise a hollow box the size of an 'X' is drawn
+ * in its place, as the platform does for characters no font has.
+ * <p>
+ * This class has no Android dependencies. Instances are immutable and may be shared between threads.
+ */
+public final class MonoFont
+{
+    private final char mFirstChar;
+
+    /**
+     * Glyphs indexed by character minus {@link #mFirstChar}. Entries may be null.
+     */
+    private final Glyph[] mGlyphs;
+
+    /**
+     * Font for the characters this one does not cover, or null.
+     */
+    private final MonoFont mFallback;
+
+    /**
+     * Drawn for characters neither this font nor its fallback covers, or null if the font has no 'X' to size it from.
+     */
+    private final Glyph mMissingGlyph;
+
+    /**
+     * @param firstChar character of the first glyph in {@code glyphs}.
+     * @param glyphs glyphs for consecutive characters starting at {@code firstChar}. Entries may be null for characters the font
+     *            does not cover. The array is not copied and must not be modified afterwards.
+     */
+    public MonoFont(final char firstChar, final Glyph[] glyphs)
+    {
+        this(firstChar, glyphs, null, createMissingGlyph(firstChar, glyphs));
+    }
+
+    private MonoFont(final char firstChar, final Glyph[] glyphs, final MonoFont fallback, final Glyph missingGlyph)
+    {
+        mFirstChar = firstChar;
+        mGlyphs = glyphs;
+        mFallback = fallback;
+        mMissingGlyph = missingGlyph;
+    }
+
+    /**
+     * @return a hollow box with the ink bounds and advance of 'X', or null if there is no 'X' with ink.
+     */
+    private static Glyph createMissingGlyph(final char firstChar, final Glyph[] glyphs)
+    {
+        final int index = 'X' - firstChar;
+        if (index < 0 || index >= glyphs.length || null == glyphs[index] || null == glyphs[index].mBitmap)
+        {
+            return null;
+        }
+
+        final Glyph x = glyphs[index];
+        final int width = x.mBitmap.getWidth();
+        final int height = x.mBitmap.getHeight();
+        final MonoBitmap box = new MonoBitmap(width, height);
+        for (int i = 0; i < width; i++)
+        {
+            box.set(i, 0, true);
+            box.set(i, height - 1, true);
+        }
+        for (int i = 0; i < height; i++)
+        {
+            box.set(0, i, true);
+            box.set(width - 1, i, true);
+        }
+        return new Glyph(x.mAdvance, x.mLeft, x.mTop, box);
+    }
+
+    /**
+     * @param fallback font to draw the characters this one does not cover from.
+     * @return a font with this font's glyphs, and {@code fallback}'s for the characters it lacks. This font is not changed.
+     */
+    public MonoFont withFallback(final MonoFont fallback)
+    {
+        return new MonoFont(mFirstChar, mGlyphs, fallback, mMissingGlyph);
+    }
+
+    /**
+     * @param text text to check.
+     * @return true if this font, without any fallback, has a glyph for every character of {@code text}.
+     */
+    public boolean covers(final String text)
+    {
+        for (int i = 0; i < text.length(); i++)
+        {
+            if (null == getGlyph(text.charAt(i)))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param c a character.
+     * @return the glyph for {@code c}, or null if the font does not cover it. The fallback is not consulted.
+     */
+    public Glyph getGlyph(final char c)
+    {
+        final int index = c - mFirstChar;
+        if (index < 0 || index >= mGlyphs.length)
+        {
+            return null;
+        }
+        return mGlyphs[index];
+    }
+
+    /**
+     * @return the glyph {@code c} is drawn with: this font's, the fallback's, or the missing glyph, which may be null.
+     */
+    private Glyph findGlyph(final char c)
+    {
+        Glyph glyph = getGlyph(c);
+        if (null == glyph && null != mFallback)
+        {
+            glyph = mFallback.getGlyph(c);
+        }
+        return null == glyph ? mMissingGlyph : glyph;
+    }
+
+    /**
+     * @return character of the first glyph slot.
+     */
+    public char getFirstChar()
+    {
+        return mFirstChar;
+    }
+
+    /**
+     * @return number of glyph slots, including empty ones.
+     */
+    public int getGlyphCount()
+    {
+        return mGlyphs.length;
+    }
+
+    /**
+     * @return number of bytes of glyph pixel data, not counting the fallback.
+     */
+    public int getByteCount()
+    {
+        int bytes = 0;
+        for (final Glyph glyph : mGlyphs)
+        {
+            if (null != glyph && null != glyph.mBitmap)
+            {
+                bytes += glyph.mBitmap.getByteCount();
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * @param text text to measure.
+     * @return advance width of {@code text} in 26.6 fixed point.
+     */
+    public int measure(final String text)
+    {
+        int advance = 0;
+        for (int i = 0; i < text.length(); i++)
+        {
+            final Glyph glyph = findGlyph(text.charAt(i));
+            if (null != glyph)
+            {
+                advance += glyph.mAdvance;
+            }
+        }
+        return advance;
+    }
+
+    /**
+     * Draws text horizontally centred on {@code centerX}, as {@code Paint.Align.CENTER} does.
+     *
+     * @param target bitmap to draw on.
+     * @param text text to draw.
+     * @param centerX column to centre the text on.
+     * @param baseline row of the text baseline.
+     */
+    public void drawCentered(final MonoBitmap target, final String text, final int centerX, final int baseline)
+    {
+        draw(target, text, (centerX << 6) - (measure(text) >> 1), baseline);
+    }
+
+    /**
+     * Draws text starting at a sub-pixel pen position.
+     *
+     * @param target bitmap to draw on.
+     * @param text text to draw.
+     * @param x pen position of the start of the text, in 26.6 fixed point.
+     * @param baseline row of the text baseline.
+     */
+    public void draw(final MonoBitmap target, final String text, final int x, final int baseline)
+    {
+        int pen = x;
+        for (int i = 0; i < text.length(); i++)
+        {
+            final Glyph glyph = findGlyph(text.charAt(i));
+            if (null == glyph)
+            {
+                continue;
+            }
+
+            if (null != glyph.mBitmap)
+            {
+                final int origin = (pen + 32) >> 6;
+                target.blit(glyph.mBitmap, origin + glyph.mLeft, baseline + glyph.mTop);
+            }
+            pen += glyph.mAdvance;
+        }
+    }
+
+    /**
+     * A single glyph: its advance and the ink it draws relative to the pen position.
+     */
+    public static final class Glyph
+    {
+        final int mAdvance;
+        final int mLeft;
+        final int mTop;
+        final MonoBitmap mBitmap;
+
+        /**
+         * @param advance horizontal advance in 26.6 fixed point.
+         * @param left offset from the pen position to the left edge of {@code bitmap}.
+         * @param top offset from the baseline to the top edge of {@code bitmap}; negative above the baseline.
+         * @param bitmap ink of the glyph, or null for glyphs with no ink such as space. Made read-only by this constructor.
+         */
+        public Glyph(final int advance, final int left, final int top, final MonoBitmap bitmap)
+        {
+            mAdvance = advance;
+            mLeft = left;
+            mTop = top;
+            mBitmap = null == bitmap ? null : bitmap.makeReadOnly();
+        }
+
+        /**
+         * @return horizontal advance in 26.6 fixed point.
+         */
+        public int getAdvance()
+        {
+            return mAdvance;
+        }
+
+        /**
+         * @return offset from the pen position to the left edge of the ink.
+         */
+        public int getLeft()
+        {
+            return mLeft;
+        }
+
+        /**
+         * @return offset from the baseline to the top edge of the ink.
+         */
+        public int getTop()
+        {
+            return mTop;
+        }
+
+        /**
+         * @return the glyph's ink, or null if it has none.
+         */
+        public MonoBitmap getBitmap()
+        {
+            return mBitmap;
+        }
+    }
+}
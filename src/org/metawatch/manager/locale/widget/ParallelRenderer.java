@@ -0,0 +1,214 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at <http://www.apache.org/licenses/LICENSE-2.0>
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS"
+ * BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package org.metawatch.manager.locale.widget;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Renders a batch of widgets across cores and hands the results back in the order the widgets were given, whichever finishes
+ * first, so the broadcasts built from them go out in a stable order.
+ * <p>
+ * {@link #refresh(ExecutorService, List, WidgetSender, List)} sends the widgets a store already has pixels for on the calling
+ * thread, and only hands the executor the ones that need rendering, when there are at least two of them.
+ * <p>
+ * Each task must render into its own target bitmaps. Everything else a render touches, the {@link WidgetRenderCache},
+ * {@link WidgetRenderContext}, {@link WidgetFingerprints}, {@link IconStore} and {@link MonoFont}, is safe to share between
+ * tasks.
+ * <p>
+ * This class has no Android dependencies.
+ */
+public final class ParallelRenderer
+{
+    /**
+     * Most threads a batch is rendered on. A refresh is short and the watch can only show a few widgets, so more threads would
+     * cost more to start than they save.
+     */
+    public static final int MAX_THREADS = 4;
+
+    /**
+     * Private constructor prevents instantiation
+     *
+     * @throws UnsupportedOperationException because this class cannot be instantiated.
+     */
+    private ParallelRenderer()
+    {
+        throw new UnsupportedOperationException("This class is non-instantiable"); //$NON-NLS-1$
+    }
+
+    /**
+     * @param taskCount number of tasks in the batch.
+     * @return number of threads worth rendering the batch on: one per core, at most {@link #MAX_THREADS} and at most one per
+     *         task. 1 means the batch is best rendered on the calling thread.
+     */
+    public static int getThreadCount(final int taskCount)
+    {
+        return Math.max(1, Math.min(Math.min(MAX_THREADS, Runtime.getRuntime().availableProcessors()), taskCount));
+    }
+
+    /**
+     * Sends every widget of a refresh, in the order given. Widgets whose pixels are stored are sent on the calling thread; the
+     * rest are rendered on {@code executor} if there are at least two of them, and on the calling thread otherwise.
+     *
+     * @param executor executor to render on, or null to render everything on the calling thread.
+     * @param entries the widgets to send.
+     * @param sender sends and renders the widgets.
+     * @param outbox the updates of every widget are added here, in the order of {@code entries}.
+     * @return number of widgets rendered.
+     * @throws InterruptedException if the calling thread is interrupted while waiting for the renders.
+     * @throws RuntimeException if a render throws, as for {@link #invokeAll(ExecutorService, List)}.
+     */
+    public static <T> int refresh(final ExecutorService executor, final List<WidgetStore.Entry> entries, final WidgetSender<T> sender,
+                                  final List<T> outbox) throws InterruptedException
+    {
+        /*
+         * Until a widget needs rendering, stored widgets go straight to the outbox. After that, each widget gets its own list,
+         * so the rendered ones can be put back in order
+         */
+        List<List<T>> widgetOutboxes = null;
+        List<Callable<List<T>>> renders = null;
+        for (final WidgetStore.Entry entry : entries)
+        {
+            if (null == widgetOutboxes)
+            {
+                if (sender.sendStored(entry, outbox))
+                {
+                    continue;
+                }
+                widgetOutboxes = new ArrayList<List<T>>();
+                renders = new ArrayList<Callable<List<T>>>();
+            }
+            else
+            {
+                final List<T> widgetOutbox = new ArrayList<T>(2);
+                if (sender.sendStored(entry, widgetOutbox))
+                {
+                    widgetOutboxes.add(widgetOutbox);
+                    continue;
+                }
+            }
+
+            widgetOutboxes.add(null);
+            renders.add(new Callable<List<T>>()
+            {
+                public List<T> call()
+                {
+                    final List<T> widgetOutbox = new ArrayList<T>(2);
+                    sender.render(entry, widgetOutbox);
+                    return widgetOutbox;
+                }
+            });
+        }
+
+        if (null == renders)
+        {
+            return 0;
+        }
+
+        final List<List<T>> rendered = invokeAll(executor, renders);
+        int next = 0;
+        for (final List<T> widgetOutbox : widgetOutboxes)
+        {
+            outbox.addAll(null != widgetOutbox ? widgetOutbox : rendered.get(next++));
+        }
+        return rendered.size();
+    }
+
+    /**
+     * Runs every task and waits for them all.
+     *
+     * @param executor executor to run the tasks on, or null to run them one after another on the calling thread.
+     * @param tasks tasks to run.
+     * @return the result of each task, in the same order as {@code tasks}.
+     * @throws InterruptedException if the calling thread is interrupted while waiting. Tasks not yet started are cancelled.
+     * @throws RuntimeException if a task throws; the first such exception, in task order, is rethrown, wrapped if it is
+     *             checked.
+     */
+    public static <T> List<T> invokeAll(final ExecutorService executor, final List<? extends Callable<T>> tasks)
+            throws InterruptedException
+    {
+        final List<T> results = new ArrayList<T>(tasks.size());
+        if (null == executor || tasks.size() < 2)
+        {
+            for (final Callable<T> task : tasks)
+            {
+                results.add(call(task));
+            }
+            return results;
+        }
+
+        for (final Future<T> future : executor.invokeAll(tasks))
+        {
+            try
+            {
+                results.add(future.get());
+            }
+            catch (final ExecutionException e)
+            {
+                throw propagate(e.getCause());
+            }
+        }
+        return results;
+    }
+
+    private static <T> T call(final Callable<T> task)
+    {
+        try
+        {
+            return task.call();
+        }
+        catch (final Exception e)
+        {
+            throw propagate(e);
+        }
+    }
+
+    private static RuntimeException propagate(final Throwable cause)
+    {
+        if (cause instanceof RuntimeException)
+        {
+            return (RuntimeException) cause;
+        }
+        if (cause instanceof Error)
+        {
+            throw (Error) cause;
+        }
+        return new RuntimeException(cause);
+    }
+
+    /**
+     * Sends and renders the widgets of a refresh.
+     *
+     * @param <T> type of the updates sent.
+     */
+    public interface WidgetSender<T>
+    {
+        /**
+         * Sends a widget from its stored pixels. Called on the refreshing thread.
+         *
+         * @param entry the widget.
+         * @param outbox its updates are added here.
+         * @return false, having added nothing, if the widget has to be rendered.
+         */
+        boolean sendStored(WidgetStore.Entry entry, List<T> outbox);
+
+        /**
+         * Renders a widget, sends it and stores its pixels. May be called on any thread, for several widgets at once.
+         *
+         * @param entry the widget.
+         * @param outbox its updates are added here.
+         */
+        void render(WidgetStore.Entry entry, List<T> outbox);
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at <http://www.apache.org/licenses/LICENSE-2.0>
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS"
+ * BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package org.metawatch.manager.locale.widget;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Typeface;
+import android.text.TextPaint;
+
+/**
+ * Builds a {@link MonoFont} by drawing each character of an Android {@link Typeface} once.
+ * <p>
+ * Glyphs are drawn with the same non-antialiased {@link TextPaint} settings the widgets always used, so text drawn from the
+ * resulting font matches text drawn through {@link Canvas#drawText(String, float, float, Paint)} pixel for pixel.
+ */
+public final class TypefaceGlyphs
+{
+    /**
+     * First character rasterized: space.
+     */
+    private static final char FIRST_CHAR = ' ';
+
+    /**
+     * Last character rasterized: the end of Latin-1.
+     */
+    private static final char LAST_CHAR = '\u00FF';
+
+    /**
+     * Private constructor prevents instantiation
+     *
+     * @throws UnsupportedOperationException because this class cannot be instantiated.
+     */
+    private TypefaceGlyphs()
+    {
+        throw new UnsupportedOperationException("This class is non-instantiable"); //$NON-NLS-1$
+    }
+
+    /**
+     * @param typeface typeface to rasterize.
+     * @param textSize text size in pixels.
+     * @return a font holding every printable Latin-1 character of {@code typeface}.
+     */
+    public static MonoFont rasterize(final Typeface typeface, final float textSize)
+    {
+        final TextPaint paint = new TextPaint();
+        paint.setColor(Color.BLACK);
+        paint.setTextSize(textSize);
+        paint.setTypeface(typeface);
+        paint.setTextAlign(Paint.Align.LEFT);
+
+        final Paint.FontMetricsInt metrics = paint.getFontMetricsInt();
+        final int margin = (int) Math.ceil(textSize);
+        final int baseline = 1 - metrics.top;
+        final int height = baseline + metrics.bottom + 1;
+
+        final float[] advance = new float[1];
+        final MonoFont.Glyph[] glyphs = new MonoFont.Glyph[LAST_CHAR - FIRST_CHAR + 1];
+
+        for (char c = FIRST_CHAR; c <= LAST_CHAR; c++)
+        {
+            if (Character.isISOControl(c))
+            {
+                continue;
+            }
+
+            final String text = String.valueOf(c);
+            paint.getTextWidths(text, advance);
+
+            final int width = (int) Math.ceil(advance[0]) + 2 * margin;
+            final Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.RGB_565);
+            final Canvas canvas = new Canvas(bitmap);
+            canvas.drawColor(Color.WHITE);
+            canvas.drawText(text, margin, baseline, paint);
+
+            final int[] pixels = new int[width * height];
+            bitmap.getPixels(pixels, 0, width, 0, 0, width, height);
+            bitmap.recycle();
+
+            /*
+             * Crop to the ink, so drawing the glyph only touches the pixels it sets
+             */
+            int left = width;
+            int right = -1;
+            int top = height;
+            int bottom = -1;
+            for (int y = 0; y < height; y++)
+            {
+                for (int x = 0; x < width; x++)
+                {
+                    if (MonoBitmap.ARGB_WHITE != pixels[y * width + x])
+                    {
+                        left = Math.min(left, x);
+                        right = Math.max(right, x);
+                        top = Math.min(top, y);
+                        bottom = Math.max(bottom, y);
+                    }
+                }
+            }
+
+            MonoBitmap ink = null;
+            if (right >= left)
+            {
+                ink = new MonoBitmap(right - left + 1, bottom - top + 1);
+                for (int y = top; y <= bottom; y++)
+                {
+                    for (int x = left; x <= right; x++)
+                    {
+                        if (MonoBitmap.ARGB_WHITE != pixels[y * width + x])
+                        {
+                            ink.set(x - left, y - top, true);
+                        }
+                    }
+                }
+            }
+
+            if (null == ink)
+            {
+                glyphs[c - FIRST_CHAR] = new MonoFont.Glyph(Math.round(advance[0] * 64), 0, 0, null);
+            }
+            else
+            {
+                glyphs[c - FIRST_CHAR] = new MonoFont.Glyph(Math.round(advance[0] * 64), left - margin, top - baseline, ink);
+            }
+        }
+
+        return new MonoFont(FIRST_CHAR, glyphs);
+    }
+}
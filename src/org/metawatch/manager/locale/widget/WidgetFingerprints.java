@@ -0,0 +1,74 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at <http://www.apache.org/licenses/LICENSE-2.0>
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS"
+ * BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package org.metawatch.manager.locale.widget;
+
+import java.util.HashMap;
+
+/**
+ * Remembers a fingerprint of the last image broadcast for each widget, so that re-firing an unchanged setting does not send
+ * the manager identical pixels again.
+ * <p>
+ * This class has no Android dependencies and is thread-safe.
+ */
+public final class WidgetFingerprints
+{
+    /**
+     * Fingerprint of the last payload sent, keyed by the per-size widget id sent to the manager. Each value is a one-element
+     * array updated in place, so that sending a widget seen before does not box a new Long.
+     */
+    private final HashMap<String, long[]> mLastSent = new HashMap<String, long[]>();
+
+    private long mSuppressedCount;
+
+    /**
+     * Decides whether a widget image needs sending, and if so records it as the last one sent.
+     *
+     * @param widgetId per-size widget id, as sent to the manager.
+     * @param bitmap image to send.
+     * @param format pixel format the image will be sent in.
+     * @param force true to send even if the manager already has this image, as when it has asked for a refresh.
+     * @return true if the image should be sent, false if it would duplicate the last one sent for {@code widgetId}.
+     */
+    public synchronized boolean shouldSend(final String widgetId, final MonoBitmap bitmap, final String format, final boolean force)
+    {
+        final long fingerprint = bitmap.fingerprint() * 31 + format.hashCode();
+
+        long[] lastSent = mLastSent.get(widgetId);
+        if (null == lastSent)
+        {
+            lastSent = new long[1];
+            mLastSent.put(widgetId, lastSent);
+        }
+        else if (!force && fingerprint == lastSent[0])
+        {
+            mSuppressedCount++;
+            return false;
+        }
+
+        lastSent[0] = fingerprint;
+        return true;
+    }
+
+    /**
+     * Forgets every fingerprint, so the next update of each widget is sent regardless.
+     */
+    public synchronized void clear()
+    {
+        mLastSent.clear();
+    }
+
+    /**
+     * @return number of updates that were not sent because they were duplicates.
+     */
+    public synchronized long suppressedCount()
+    {
+        return mSuppressedCount;
+    }
+}
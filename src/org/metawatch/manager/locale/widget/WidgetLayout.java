@@ -0,0 +1,135 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at <http://www.apache.org/licenses/LICENSE-2.0>
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS"
+ * BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package org.metawatch.manager.locale.widget;
+
+/**
+ * Where the icon and label go in one size of widget. The sizes sent are declared in an asset read by {@link WidgetProfiles}.
+ * <p>
+ * This class has no Android dependencies. Instances are immutable.
+ */
+public final class WidgetLayout
+{
+    /**
+     * The 16x16 widget: the small {@code _10.bmp} icon above a label. One of {@link WidgetProfiles#getDefaults()}.
+     */
+    public static final WidgetLayout SMALL = new WidgetLayout(16, 16, "_10.bmp", 2, 0, 3, 8, 16); //$NON-NLS-1$
+
+    /**
+     * The 24x32 widget: the full size icon above a label. One of {@link WidgetProfiles#getDefaults()}.
+     */
+    public static final WidgetLayout LARGE = new WidgetLayout(24, 32, ".bmp", 0, 3, 7, 12, 30); //$NON-NLS-1$
+
+    private final int mWidth;
+    private final int mHeight;
+    private final String mIconSuffix;
+    private final int mIconX;
+    private final int mIconY;
+    private final int mIconYWithoutLabel;
+    private final int mTextCenterX;
+    private final int mTextBaseline;
+
+    /**
+     * @param width widget width in pixels.
+     * @param height widget height in pixels.
+     * @param iconSuffix appended to the icon name to give its asset path.
+     * @param iconX left edge of the icon.
+     * @param iconY top edge of the icon when there is a label.
+     * @param iconYWithoutLabel top edge of the icon when the label is empty.
+     * @param textCenterX column the label is centred on.
+     * @param textBaseline row of the label's baseline.
+     */
+    public WidgetLayout(final int width, final int height, final String iconSuffix, final int iconX, final int iconY,
+                        final int iconYWithoutLabel, final int textCenterX, final int textBaseline)
+    {
+        mWidth = width;
+        mHeight = height;
+        mIconSuffix = iconSuffix;
+        mIconX = iconX;
+        mIconY = iconY;
+        mIconYWithoutLabel = iconYWithoutLabel;
+        mTextCenterX = textCenterX;
+        mTextBaseline = textBaseline;
+    }
+
+    /**
+     * @return widget width in pixels.
+     */
+    public int getWidth()
+    {
+        return mWidth;
+    }
+
+    /**
+     * @return widget height in pixels.
+     */
+    public int getHeight()
+    {
+        return mHeight;
+    }
+
+    /**
+     * @param icon icon name, for example {@code "home"}.
+     * @return asset path of the icon for this layout, for example {@code "home_10.bmp"}.
+     */
+    public String getIconPath(final String icon)
+    {
+        return icon + mIconSuffix;
+    }
+
+    /**
+     * @return left edge of the icon.
+     */
+    public int getIconX()
+    {
+        return mIconX;
+    }
+
+    /**
+     * @param hasLabel whether the widget has a non-empty label.
+     * @return top edge of the icon.
+     */
+    public int getIconY(final boolean hasLabel)
+    {
+        return hasLabel ? mIconY : mIconYWithoutLabel;
+    }
+
+    /**
+     * @return column the label is centred on.
+     */
+    public int getTextCenterX()
+    {
+        return mTextCenterX;
+    }
+
+    /**
+     * @return row of the label's baseline.
+     */
+    public int getTextBaseline()
+    {
+        return mTextBaseline;
+    }
+
+    /**
+     * @param widgetId id the user gave the widget.
+     * @return id of this size of the widget, as sent to the MetaWatch manager.
+     */
+    public String getWidgetId(final String widgetId)
+    {
+        return "localeMWM_" + widgetId + "_" + mWidth + "_" + mHeight; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+    }
+
+    /**
+     * @return user friendly name of this size of widget, shown in the manager's widget picker.
+     */
+    public String getDescription()
+    {
+        return "Locale Plugin Widget (" + mWidth + "x" + mHeight + ")"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+    }
+}
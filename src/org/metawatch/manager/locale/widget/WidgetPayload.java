@@ -0,0 +1,139 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at <http://www.apache.org/licenses/LICENSE-2.0>
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS"
+ * BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package org.metawatch.manager.locale.widget;
+
+import android.content.Intent;
+import android.os.Bundle;
+
+/**
+ * Builds the {@code org.metawatch.manager.WIDGET_UPDATE} broadcasts that deliver widget images to the MetaWatch manager.
+ * <p>
+ * Two pixel encodings are supported:
+ * <ul>
+ * <li>{@link #FORMAT_ARGB}: the legacy {@code int[] array} extra of ARGB pixels, 4 bytes per pixel. This is what every manager
+ * understands, and the intent carries no format extra.</li>
+ * <li>{@link #FORMAT_PACKED_1BPP}: a {@code byte[] bits} extra holding the bitplane at 1 bit per pixel, plus a {@code format}
+ * extra naming the encoding. A 24x32 widget is 96 bytes instead of 3 KB.</li>
+ * </ul>
+ * A manager opts into the packed format by listing it in the {@link #EXTRA_SUPPORTED_FORMATS} extra of its
+ * {@code REFRESH_WIDGET_REQUEST}.
+ */
+public final class WidgetPayload
+{
+    /**
+     * Action of the broadcast carrying a widget image.
+     */
+    public static final String ACTION_WIDGET_UPDATE = "org.metawatch.manager.WIDGET_UPDATE"; //$NON-NLS-1$
+
+    /**
+     * Type: {@code String[]}
+     * <p>
+     * Optional extra of {@code REFRESH_WIDGET_REQUEST} listing the pixel formats the manager can read, in addition to the
+     * legacy {@link #FORMAT_ARGB}.
+     */
+    public static final String EXTRA_SUPPORTED_FORMATS = "org.metawatch.manager.widget_formats"; //$NON-NLS-1$
+
+    /**
+     * Type: {@code String}
+     * <p>
+     * Pixel format of a packed widget update. Absent from legacy updates.
+     */
+    public static final String EXTRA_FORMAT = "format"; //$NON-NLS-1$
+
+    /**
+     * Type: {@code int[]}
+     * <p>
+     * ARGB pixels, row by row, of a legacy widget update.
+     */
+    public static final String EXTRA_ARRAY = "array"; //$NON-NLS-1$
+
+    /**
+     * Type: {@code byte[]}
+     * <p>
+     * Packed pixels of a {@link #FORMAT_PACKED_1BPP} widget update.
+     */
+    public static final String EXTRA_BITS = "bits"; //$NON-NLS-1$
+
+    /**
+     * Legacy format: ARGB {@code int[]} in {@link #EXTRA_ARRAY}.
+     */
+    public static final String FORMAT_ARGB = "argb"; //$NON-NLS-1$
+
+    /**
+     * Packed format: {@code byte[]} in {@link #EXTRA_BITS}, {@code (width + 7) / 8} bytes per row, rows top to bottom, most
+     * significant bit leftmost, set bits black.
+     */
+    public static final String FORMAT_PACKED_1BPP = "1bpp"; //$NON-NLS-1$
+
+    /**
+     * Private constructor prevents instantiation
+     *
+     * @throws UnsupportedOperationException because this class cannot be instantiated.
+     */
+    private WidgetPayload()
+    {
+        throw new UnsupportedOperationException("This class is non-instantiable"); //$NON-NLS-1$
+    }
+
+    /**
+     * @param refreshRequest a {@code REFRESH_WIDGET_REQUEST} Intent from the manager.
+     * @return the most compact format the manager says it supports; {@link #FORMAT_ARGB} if it lists none.
+     */
+    public static String negotiateFormat(final Intent refreshRequest)
+    {
+        final String[] formats = refreshRequest.getStringArrayExtra(EXTRA_SUPPORTED_FORMATS);
+        if (null != formats)
+        {
+            for (final String format : formats)
+            {
+                if (FORMAT_PACKED_1BPP.equals(format))
+                {
+                    return FORMAT_PACKED_1BPP;
+                }
+            }
+        }
+        return FORMAT_ARGB;
+    }
+
+    /**
+     * @param bitmap Widget image to send
+     * @param format {@link #FORMAT_ARGB} or {@link #FORMAT_PACKED_1BPP}
+     * @param id ID of this widget - should be unique, and sensibly identify the widget
+     * @param description User friendly widget name (will be displayed in the widget picker)
+     * @param priority A value that indicates how important this widget is, for use when deciding which widgets to discard.
+     *            Lower values are more likely to be discarded.
+     * @return Filled-in intent, ready for broadcast.
+     */
+    public static Intent createUpdateIntent(final MonoBitmap bitmap, final String format, final String id, final String description,
+                                            final int priority)
+    {
+        final Intent intent = new Intent(ACTION_WIDGET_UPDATE);
+        final Bundle b = new Bundle();
+        b.putString("id", id); //$NON-NLS-1$
+        b.putString("desc", description); //$NON-NLS-1$
+        b.putInt("width", bitmap.getWidth()); //$NON-NLS-1$
+        b.putInt("height", bitmap.getHeight()); //$NON-NLS-1$
+        b.putInt("priority", priority); //$NON-NLS-1$
+
+        if (FORMAT_PACKED_1BPP.equals(format))
+        {
+            b.putString(EXTRA_FORMAT, FORMAT_PACKED_1BPP);
+            b.putByteArray(EXTRA_BITS, bitmap.toPacked());
+        }
+        else
+        {
+            b.putIntArray(EXTRA_ARRAY, bitmap.toArgb());
+        }
+
+        intent.putExtras(b);
+
+        return intent;
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at <http://www.apache.org/licenses/LICENSE-2.0>
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS"
+ * BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package org.metawatch.manager.locale.widget;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Reads the sizes of widget the plug-in sends, declared in the {@code widget_profiles.xml} asset, so a size can be added or
+ * changed without touching code.
+ * <p>
+ * Each {@code <profile>} element of the root element declares one {@link WidgetLayout}, with an attribute for each of its
+ * constructor's parameters:
+ *
+ * <pre>
+ * &lt;profile width="24" height="32" iconSuffix=".bmp" iconX="0" iconY="3" iconYWithoutLabel="7" textCenterX="12"
+ *     textBaseline="30" /&gt;
+ * </pre>
+ * <p>
+ * A widget's sizes are told apart by their dimensions, both by the manager and by the plug-in's caches, so no two profiles
+ * may have the same width and height. A profile whose {@code iconSuffix} names BMPs that do not exist is drawn without its
+ * icon.
+ * <p>
+ * This class has no Android dependencies.
+ */
+public final class WidgetProfiles
+{
+    /**
+     * Asset path of the profiles.
+     */
+    public static final String ASSET_PATH = "widget_profiles.xml"; //$NON-NLS-1$
+
+    private static final String PROFILE = "profile"; //$NON-NLS-1$
+
+    /**
+     * Private constructor prevents instantiation
+     *
+     * @throws UnsupportedOperationException because this class cannot be instantiated.
+     */
+    private WidgetProfiles()
+    {
+        throw new UnsupportedOperationException("This class is non-instantiable"); //$NON-NLS-1$
+    }
+
+    /**
+     * @return the built-in profiles, {@link WidgetLayout#SMALL} and {@link WidgetLayout#LARGE}, which the asset also declares.
+     *         For use when the asset cannot be read.
+     */
+    public static WidgetLayout[] getDefaults()
+    {
+        return new WidgetLayout[]
+            { WidgetLayout.SMALL, WidgetLayout.LARGE };
+    }
+
+    /**
+     * Reads the profiles.
+     *
+     * @param in stream positioned at the start of the XML. It is not closed.
+     * @return the profiles, in the order they are declared. Never empty.
+     * @throws IOException if the stream cannot be read, or does not hold at least one valid profile.
+     */
+    public static WidgetLayout[] read(final InputStream in) throws IOException
+    {
+        final List<WidgetLayout> layouts = new ArrayList<WidgetLayout>();
+        try
+        {
+            SAXParserFactory.newInstance().newSAXParser().parse(in, new DefaultHandler()
+            {
+                @Override
+                public void startElement(final String uri, final String localName, final String qName, final Attributes attributes)
+                        throws SAXException
+                {
+                    if (PROFILE.equals(qName) || PROFILE.equals(localName))
+                    {
+                        layouts.add(new WidgetLayout(getInt(attributes, "width"), //$NON-NLS-1$
+                                                     getInt(attributes, "height"), //$NON-NLS-1$
+                                                     getString(attributes, "iconSuffix"), //$NON-NLS-1$
+                                                     getInt(attributes, "iconX"), //$NON-NLS-1$
+                                                     getInt(attributes, "iconY"), //$NON-NLS-1$
+                                                     getInt(attributes, "iconYWithoutLabel"), //$NON-NLS-1$
+                                                     getInt(attributes, "textCenterX"), //$NON-NLS-1$
+                                                     getInt(attributes, "textBaseline"))); //$NON-NLS-1$
+                    }
+                }
+            });
+        }
+        catch (final SAXException e)
+        {
+            final IOException exception = new IOException(String.format("invalid widget profiles: %s", e.getMessage())); //$NON-NLS-1$
+            exception.initCause(e);
+            throw exception;
+        }
+        catch (final ParserConfigurationException e)
+        {
+            final IOException exception = new IOException("no XML parser"); //$NON-NLS-1$
+            exception.initCause(e);
+            throw exception;
+        }
+
+        if (layouts.isEmpty())
+        {
+            throw new IOException("no widget profiles"); //$NON-NLS-1$
+        }
+
+        for (int i = 0; i < layouts.size(); i++)
+        {
+            final WidgetLayout layout = layouts.get(i);
+            if (layout.getWidth() <= 0 || layout.getHeight() <= 0)
+            {
+                throw new IOException(String.format("widget profile %d has no area", Integer.valueOf(i))); //$NON-NLS-1$
+            }
+
+            for (int j = 0; j < i; j++)
+            {
+                if (layout.getWidth() == layouts.get(j).getWidth() && layout.getHeight() == layouts.get(j).getHeight())
+                {
+                    throw new IOException(String.format("more than one widget profile is %dx%d", //$NON-NLS-1$
+                                                        Integer.valueOf(layout.getWidth()), Integer.valueOf(layout.getHeight())));
+                }
+            }
+        }
+
+        return layouts.toArray(new WidgetLayout[layouts.size()]);
+    }
+
+    private static String getString(final Attributes attributes, final String name) throws SAXException
+    {
+        final String value = attributes.getValue(name);
+        if (null == value)
+        {
+            throw new SAXException(String.format("profile is missing %s", name)); //$NON-NLS-1$
+        }
+        return value;
+    }
+
+    private static int getInt(final Attributes attributes, final String name) throws SAXException
+    {
+        final String value = getString(attributes, name);
+        try
+        {
+            return Integer.parseInt(value.trim());
+        }
+        catch (final NumberFormatException e)
+        {
+            throw new SAXException(String.format("profile %s is not a number: %s", name, value)); //$NON-NLS-1$
+        }
+    }
+}
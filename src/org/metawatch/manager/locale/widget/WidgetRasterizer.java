@@ -0,0 +1,62 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at <http://www.apache.org/licenses/LICENSE-2.0>
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS"
+ * BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package org.metawatch.manager.locale.widget;
+
+/**
+ * Renders widgets straight into 1-bit bitmaps.
+ * <p>
+ * This class has no Android dependencies and is safe to call from any thread, as long as each thread renders into its own
+ * target bitmap.
+ */
+public final class WidgetRasterizer
+{
+    /**
+     * Version of the rendering rules. Must be increased whenever a change here, in {@link MonoFont} or in {@link WidgetLayout}
+     * changes the pixels produced, so that stored renderings are thrown away.
+     */
+    public static final int VERSION = 2;
+
+    /**
+     * Private constructor prevents instantiation
+     *
+     * @throws UnsupportedOperationException because this class cannot be instantiated.
+     */
+    private WidgetRasterizer()
+    {
+        throw new UnsupportedOperationException("This class is non-instantiable"); //$NON-NLS-1$
+    }
+
+    /**
+     * Renders one size of a widget.
+     *
+     * @param target bitmap to render into. Must be the size given by {@code layout}. Its previous contents are erased.
+     * @param layout where the icon and label go.
+     * @param icon icon for this layout, or null to leave the icon out.
+     * @param font font for the label.
+     * @param label label text, already trimmed. May be empty.
+     */
+    public static void render(final MonoBitmap target, final WidgetLayout layout, final MonoBitmap icon, final MonoFont font,
+                              final String label)
+    {
+        final boolean hasLabel = 0 != label.length();
+
+        target.clear();
+
+        if (null != icon)
+        {
+            target.blit(icon, layout.getIconX(), layout.getIconY(hasLabel));
+        }
+
+        if (hasLabel)
+        {
+            font.drawCentered(target, label, layout.getTextCenterX(), layout.getTextBaseline());
+        }
+    }
+}
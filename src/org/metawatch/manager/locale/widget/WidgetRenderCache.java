@@ -0,0 +1,272 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at <http://www.apache.org/licenses/LICENSE-2.0>
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS"
+ * BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package org.metawatch.manager.locale.widget;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded least-recently-used cache of finished widget bitmaps, keyed by icon, label and size.
+ * <p>
+ * The cache is bounded by the number of bytes held in pixel data rather than by entry count, so a handful of large widgets
+ * cannot crowd out memory that many small ones would fit in. Bitmaps are stored read-only, so the ones handed out by
+ * {@link #get(String, String, int, int)} can be shared freely.
+ * <p>
+ * This class is thread-safe.
+ */
+public final class WidgetRenderCache
+{
+    /**
+     * Entries in least-recently-used order; the eldest entry is evicted first.
+     */
+    private final LinkedHashMap<Key, MonoBitmap> mEntries = new LinkedHashMap<Key, MonoBitmap>(16, 0.75f, true);
+
+    /**
+     * Reused by {@link #get(String, String, int, int)} so that lookups do not allocate. Guarded by this object.
+     */
+    private final Key mProbe = new Key(null, null, 0, 0);
+
+    /**
+     * Maximum number of bytes of pixel data held by the cache.
+     */
+    private int mMaxSize;
+
+    /**
+     * Number of bytes of pixel data currently held by the cache.
+     */
+    private int mSize;
+
+    private long mHitCount;
+
+    private long mMissCount;
+
+    private long mEvictionCount;
+
+    /**
+     * @param maxSize maximum number of bytes of pixel data to hold. Must be greater than or equal to zero; zero disables
+     *            caching.
+     * @throws IllegalArgumentException if {@code maxSize} is negative.
+     */
+    public WidgetRenderCache(final int maxSize)
+    {
+        if (maxSize < 0)
+        {
+            throw new IllegalArgumentException("maxSize cannot be negative"); //$NON-NLS-1$
+        }
+
+        mMaxSize = maxSize;
+    }
+
+    /**
+     * Looks up a previously rendered widget.
+     *
+     * @param icon icon name the widget was rendered with.
+     * @param label trimmed label the widget was rendered with.
+     * @param width width of the widget in pixels.
+     * @param height height of the widget in pixels.
+     * @return the cached read-only bitmap, or null if there is no entry.
+     */
+    public synchronized MonoBitmap get(final String icon, final String label, final int width, final int height)
+    {
+        final MonoBitmap bitmap = mEntries.get(mProbe.set(icon, label, width, height));
+        mProbe.set(null, null, 0, 0);
+
+        if (null == bitmap)
+        {
+            mMissCount++;
+        }
+        else
+        {
+            mHitCount++;
+        }
+
+        return bitmap;
+    }
+
+    /**
+     * Stores a rendered widget, evicting the least recently used entries if the cache would exceed its maximum size. Bitmaps
+     * larger than the whole cache are not stored.
+     *
+     * @param icon icon name the widget was rendered with.
+     * @param label trimmed label the widget was rendered with.
+     * @param width width of the widget in pixels.
+     * @param height height of the widget in pixels.
+     * @param bitmap rendered widget. The cache makes it read-only.
+     */
+    public synchronized void put(final String icon, final String label, final int width, final int height, final MonoBitmap bitmap)
+    {
+        final int size = sizeOf(bitmap);
+
+        if (size > mMaxSize)
+        {
+            return;
+        }
+
+        final MonoBitmap previous = mEntries.put(new Key(icon, label, width, height), bitmap.makeReadOnly());
+        mSize += size;
+
+        if (null != previous)
+        {
+            mSize -= sizeOf(previous);
+        }
+
+        trimToSize(mMaxSize);
+    }
+
+    /**
+     * Changes the maximum size of the cache, evicting entries if necessary.
+     *
+     * @param maxSize maximum number of bytes of pixel data to hold. Must be greater than or equal to zero.
+     * @throws IllegalArgumentException if {@code maxSize} is negative.
+     */
+    public synchronized void resize(final int maxSize)
+    {
+        if (maxSize < 0)
+        {
+            throw new IllegalArgumentException("maxSize cannot be negative"); //$NON-NLS-1$
+        }
+
+        mMaxSize = maxSize;
+        trimToSize(maxSize);
+    }
+
+    /**
+     * Removes every entry from the cache. The hit, miss and eviction counts are not reset.
+     */
+    public synchronized void evictAll()
+    {
+        trimToSize(0);
+    }
+
+    /**
+     * @return number of bytes of pixel data currently held.
+     */
+    public synchronized int size()
+    {
+        return mSize;
+    }
+
+    /**
+     * @return maximum number of bytes of pixel data the cache will hold.
+     */
+    public synchronized int maxSize()
+    {
+        return mMaxSize;
+    }
+
+    /**
+     * @return number of lookups that returned a cached entry.
+     */
+    public synchronized long hitCount()
+    {
+        return mHitCount;
+    }
+
+    /**
+     * @return number of lookups that found no entry.
+     */
+    public synchronized long missCount()
+    {
+        return mMissCount;
+    }
+
+    /**
+     * @return number of entries dropped to keep the cache within its maximum size.
+     */
+    public synchronized long evictionCount()
+    {
+        return mEvictionCount;
+    }
+
+    @Override
+    public synchronized String toString()
+    {
+        final long accesses = mHitCount + mMissCount;
+        final long hitPercent = 0 == accesses ? 0 : (100 * mHitCount / accesses);
+
+        return String.format("WidgetRenderCache[size=%d,maxSize=%d,hits=%d,misses=%d,evictions=%d,hitRate=%d%%]", //$NON-NLS-1$
+                             Integer.valueOf(mSize), Integer.valueOf(mMaxSize), Long.valueOf(mHitCount), Long.valueOf(mMissCount),
+                             Long.valueOf(mEvictionCount), Long.valueOf(hitPercent));
+    }
+
+    /**
+     * Evicts least recently used entries until the cache holds no more than {@code maxSize} bytes.
+     * <p>
+     * Must be called while holding the lock on this object.
+     */
+    private void trimToSize(final int maxSize)
+    {
+        final Iterator<Map.Entry<Key, MonoBitmap>> iterator = mEntries.entrySet().iterator();
+        while (mSize > maxSize && iterator.hasNext())
+        {
+            final Map.Entry<Key, MonoBitmap> eldest = iterator.next();
+            mSize -= sizeOf(eldest.getValue());
+            iterator.remove();
+            mEvictionCount++;
+        }
+    }
+
+    private static int sizeOf(final MonoBitmap bitmap)
+    {
+        return bitmap.getStride() * bitmap.getHeight();
+    }
+
+    /**
+     * Cache key identifying one rendered variant of a widget. Keys in the map are never changed; only {@link #mProbe} is.
+     */
+    private static final class Key
+    {
+        private String mIcon;
+        private String mLabel;
+        private int mWidth;
+        private int mHeight;
+
+        Key(final String icon, final String label, final int width, final int height)
+        {
+            set(icon, label, width, height);
+        }
+
+        Key set(final String icon, final String label, final int width, final int height)
+        {
+            mIcon = icon;
+            mLabel = label;
+            mWidth = width;
+            mHeight = height;
+            return this;
+        }
+
+        @Override
+        public boolean equals(final Object o)
+        {
+            if (this == o)
+            {
+                return true;
+            }
+            if (!(o instanceof Key))
+            {
+                return false;
+            }
+
+            final Key other = (Key) o;
+            return mWidth == other.mWidth && mHeight == other.mHeight && mIcon.equals(other.mIcon) && mLabel.equals(other.mLabel);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            int result = mIcon.hashCode();
+            result = 31 * result + mLabel.hashCode();
+            result = 31 * result + mWidth;
+            result = 31 * result + mHeight;
+            return result;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at <http://www.apache.org/licenses/LICENSE-2.0>
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS"
+ * BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package org.metawatch.manager.locale.widget;
+
+import java.util.HashMap;
+
+/**
+ * Long-lived state for rendering and sending one size of widget, kept for the life of the process.
+ * <p>
+ * The strings derived from an icon name or widget id are built once per name and then reused, so updating a widget that has
+ * been seen before allocates nothing here. Together with {@link WidgetRenderCache} and {@link WidgetFingerprints}, which also
+ * look up without allocating, a repeated update that is already rendered produces no garbage until its broadcast is built.
+ * <p>
+ * This class has no Android dependencies and is thread-safe.
+ */
+public final class WidgetRenderContext
+{
+    /**
+     * Maximum number of icon paths, and of widget ids, remembered. The memos are emptied when they fill up, which only happens
+     * if the user has configured more widgets than this.
+     */
+    static final int MAX_MEMO_SIZE = 32;
+
+    private final WidgetLayout mLayout;
+
+    private final String mDescription;
+
+    /**
+     * Asset path for each icon name. Guarded by this object.
+     */
+    private final HashMap<String, String> mIconPaths = new HashMap<String, String>();
+
+    /**
+     * Per-size id for each widget id the user gave. Guarded by this object.
+     */
+    private final HashMap<String, String> mWidgetIds = new HashMap<String, String>();
+
+    /**
+     * @param layout the size of widget to render. Cannot be null.
+     */
+    public WidgetRenderContext(final WidgetLayout layout)
+    {
+        mLayout = layout;
+        mDescription = layout.getDescription();
+    }
+
+    /**
+     * @param layouts sizes of widget to render.
+     * @return a context for each layout, in the same order.
+     */
+    public static WidgetRenderContext[] forLayouts(final WidgetLayout... layouts)
+    {
+        final WidgetRenderContext[] contexts = new WidgetRenderContext[layouts.length];
+        for (int i = 0; i < layouts.length; i++)
+        {
+            contexts[i] = new WidgetRenderContext(layouts[i]);
+        }
+        return contexts;
+    }
+
+    /**
+     * @return the size of widget this context renders.
+     */
+    public WidgetLayout getLayout()
+    {
+        return mLayout;
+    }
+
+    /**
+     * @return {@link WidgetLayout#getIconPath(String)}, built once per icon name.
+     */
+    public synchronized String getIconPath(final String icon)
+    {
+        String path = mIconPaths.get(icon);
+        if (null == path)
+        {
+            if (mIconPaths.size() >= MAX_MEMO_SIZE)
+            {
+                mIconPaths.clear();
+            }
+            path = mLayout.getIconPath(icon);
+            mIconPaths.put(icon, path);
+        }
+        return path;
+    }
+
+    /**
+     * @return {@link WidgetLayout#getWidgetId(String)}, built once per widget id.
+     */
+    public synchronized String getWidgetId(final String widgetId)
+    {
+        String sizedId = mWidgetIds.get(widgetId);
+        if (null == sizedId)
+        {
+            if (mWidgetIds.size() >= MAX_MEMO_SIZE)
+            {
+                mWidgetIds.clear();
+            }
+            sizedId = mLayout.getWidgetId(widgetId);
+            mWidgetIds.put(widgetId, sizedId);
+        }
+        return sizedId;
+    }
+
+    /**
+     * @return {@link WidgetLayout#getDescription()}.
+     */
+    public String getDescription()
+    {
+        return mDescription;
+    }
+
+    /**
+     * @return a new blank bitmap of this context's size, to render into and keep.
+     */
+    public MonoBitmap createTarget()
+    {
+        return new MonoBitmap(mLayout.getWidth(), mLayout.getHeight());
+    }
+
+    /**
+     * Renders a widget at this context's size. Allocates nothing, so a target may be reused for repeated renders.
+     *
+     * @param target bitmap from {@link #createTarget()}. Its previous contents are erased.
+     * @param icon icon for this size, or null to leave the icon out.
+     * @param font font for the label.
+     * @param label label text, already trimmed. May be empty.
+     * @see WidgetRasterizer#render(MonoBitmap, WidgetLayout, MonoBitmap, MonoFont, String)
+     */
+    public void render(final MonoBitmap target, final MonoBitmap icon, final MonoFont font, final String label)
+    {
+        WidgetRasterizer.render(target, mLayout, icon, font, label);
+    }
+}
@@ -0,0 +1,707 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at <http://www.apache.org/licenses/LICENSE-2.0>
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS"
+ * BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package org.metawatch.manager.locale.widget;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+/**
+ * Remembers the last icon and label set for each widget, and the bitmaps rendered from them, so the widgets can be sent again
+ * without rendering when the manager asks for them.
+ * <p>
+ * Every widget is kept in one file, which is read with a single read the first time the store is used. The file is laid out as:
+ *
+ * <pre>
+ * int      magic ("LMWS")
+ * int      format version
+ * long     render stamp
+ * int      number of records, n
+ * int[n]   offset of each record from the start of the file
+ * records  each one the widget id, icon and label as modified UTF-8, a byte holding the number of bitmaps, and each bitmap as
+ *          a short width, a short height and its packed pixels
+ * int      CRC-32 of everything before it
+ * </pre>
+ *
+ * The render stamp identifies the renderer and font the bitmaps were drawn with. When a file is read with a different stamp its
+ * bitmaps are dropped, but its icons and labels are kept. A file with the wrong magic, version or checksum is ignored, as though
+ * the store were empty.
+ * <p>
+ * Writes are behind: {@link #put(Entry)} only records the widget in memory, and a background writer writes the file a short
+ * delay later, once for the whole burst, keeping only the last put for each widget id. The file is replaced by writing a
+ * temporary file and renaming it over the old one, so a crash part way through a write never leaves a torn record. A failed
+ * write or a file that cannot be read is reported to the {@link FlushListener}, and the widgets are written by the flush that
+ * the next put schedules.
+ * <p>
+ * This class has no Android dependencies and is thread-safe.
+ */
+public final class WidgetStore
+{
+    private static final int MAGIC = 0x4C4D5753;
+
+    /**
+     * Version of the file layout. Files written with a different version are ignored.
+     */
+    static final int FORMAT_VERSION = 2;
+
+    /**
+     * Size of the magic, version, render stamp and record count.
+     */
+    private static final int HEADER_SIZE = 20;
+
+    private final File mFile;
+
+    private final long mRenderStamp;
+
+    private final Executor mWriter;
+
+    private final long mFlushDelayMillis;
+
+    private final FlushListener mListener;
+
+    /**
+     * Guards {@link #mPending} and {@link #mFlushScheduled}. Never held while the file is read or written, so {@link #put(Entry)}
+     * does not wait for the disk.
+     */
+    private final Object mPendingLock = new Object();
+
+    /**
+     * Widgets stored since the last flush, by widget id. A later put for the same id replaces the earlier one.
+     */
+    private LinkedHashMap<String, Entry> mPending = new LinkedHashMap<String, Entry>();
+
+    private boolean mFlushScheduled;
+
+    /**
+     * Records by widget id, in the order the widgets were first stored. Null until the file has been loaded. Guarded by this
+     * object, which is held while the file is read or written.
+     */
+    private LinkedHashMap<String, Entry> mEntries;
+
+    /**
+     * True if {@link #mEntries} has changes that have not been written. Guarded by this object.
+     */
+    private boolean mDirty;
+
+    private final AtomicLong mFlushCount = new AtomicLong();
+    private final AtomicLong mFlushFailureCount = new AtomicLong();
+
+    private final Runnable mFlushTask = new Runnable()
+    {
+        public void run()
+        {
+            if (mFlushDelayMillis > 0)
+            {
+                try
+                {
+                    Thread.sleep(mFlushDelayMillis);
+                }
+                catch (final InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            try
+            {
+                flush();
+            }
+            catch (final IOException e)
+            {
+                mFlushFailureCount.incrementAndGet();
+                if (null != mListener)
+                {
+                    mListener.onFlushFailed(WidgetStore.this, e);
+                }
+            }
+            finally
+            {
+                /*
+                 * merge() clears the flag, but never runs if the file cannot be read. The pending widgets are kept, and the next
+                 * put schedules another flush for them. They are not retried straight away, as a file that cannot be read
+                 * usually still cannot be read a moment later.
+                 */
+                synchronized (mPendingLock)
+                {
+                    mFlushScheduled = false;
+                }
+            }
+        }
+    };
+
+    /**
+     * @param file file holding the store. It need not exist yet.
+     * @param renderStamp identifies the renderer and font in use. Stored bitmaps drawn with a different stamp are discarded.
+     * @param writer runs the writes behind {@link #put(Entry)}. Should be a single background thread.
+     * @param flushDelayMillis how long the writer waits after the first put before writing, so that the puts of a burst are
+     *            written together.
+     * @param listener told when a write behind {@link #put(Entry)} fails. May be null.
+     */
+    public WidgetStore(final File file, final long renderStamp, final Executor writer, final long flushDelayMillis, final FlushListener listener)
+    {
+        mFile = file;
+        mRenderStamp = renderStamp;
+        mWriter = writer;
+        mFlushDelayMillis = flushDelayMillis;
+        mListener = listener;
+    }
+
+    /**
+     * @return the file holding the store.
+     */
+    public File getFile()
+    {
+        return mFile;
+    }
+
+    /**
+     * @return every stored widget, in the order the widgets were first stored, including ones not written yet.
+     * @throws IOException if the file exists but cannot be read.
+     */
+    public synchronized List<Entry> getAll() throws IOException
+    {
+        load();
+        merge();
+        return new ArrayList<Entry>(mEntries.values());
+    }
+
+    /**
+     * @return number of stored widgets, including ones not written yet.
+     * @throws IOException if the file exists but cannot be read.
+     */
+    public synchronized int size() throws IOException
+    {
+        load();
+        merge();
+        return mEntries.size();
+    }
+
+    /**
+     * Stores a widget, replacing any earlier record with the same id. This never touches the disk: the file is written on the
+     * writer thread, after the flush delay, together with every other widget stored in the meantime.
+     *
+     * @param entry widget to store.
+     */
+    public void put(final Entry entry)
+    {
+        final boolean schedule;
+        synchronized (mPendingLock)
+        {
+            mPending.put(entry.getId(), entry);
+            schedule = !mFlushScheduled;
+            mFlushScheduled = true;
+        }
+
+        if (schedule)
+        {
+            mWriter.execute(mFlushTask);
+        }
+    }
+
+    /**
+     * Checks, without reading the file, whether the store already holds a widget exactly as given, so storing it again would
+     * change nothing. Allocates nothing.
+     *
+     * @param bitmaps the widget rendered at each size, in its first {@code count} elements.
+     * @param count number of bitmaps.
+     * @return true if the latest record for {@code id}, stored or loaded, has the same icon, label and pixels. False if there is
+     *         no such record in memory, including when the file has not been read yet.
+     */
+    public boolean contains(final String icon, final String id, final String label, final MonoBitmap[] bitmaps, final int count)
+    {
+        synchronized (mPendingLock)
+        {
+            final Entry pending = mPending.get(id);
+            if (null != pending)
+            {
+                return pending.matches(icon, label, bitmaps, count);
+            }
+        }
+
+        synchronized (this)
+        {
+            final Entry loaded = null == mEntries ? null : mEntries.get(id);
+            return null != loaded && loaded.matches(icon, label, bitmaps, count);
+        }
+    }
+
+    /**
+     * Writes every widget stored so far, if any have changed since the file was last written. The file is replaced by renaming
+     * a complete temporary file over it.
+     *
+     * @throws IOException if the file cannot be read or written. The widgets are kept and written by the next flush.
+     */
+    public synchronized void flush() throws IOException
+    {
+        load();
+        merge();
+
+        if (mDirty)
+        {
+            write();
+            mDirty = false;
+            mFlushCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * Forgets the records read from the file, if they have all been written, so their bitmaps can be collected. The file is
+     * read again the next time the store is used. Widgets not written yet are kept.
+     */
+    public synchronized void releaseMemory()
+    {
+        if (!mDirty)
+        {
+            mEntries = null;
+        }
+    }
+
+    /**
+     * @return number of bytes of pixel data held by the records in memory, not counting widgets not merged yet.
+     */
+    public synchronized long getLoadedByteCount()
+    {
+        long bytes = 0;
+        if (null != mEntries)
+        {
+            for (final Entry entry : mEntries.values())
+            {
+                for (final MonoBitmap bitmap : entry.mBitmaps)
+                {
+                    bytes += bitmap.getByteCount();
+                }
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * @return number of times the file has been written.
+     */
+    public long getFlushCount()
+    {
+        return mFlushCount.get();
+    }
+
+    /**
+     * @return number of background writes that failed.
+     */
+    public long getFlushFailureCount()
+    {
+        return mFlushFailureCount.get();
+    }
+
+    /**
+     * Moves pending widgets into {@link #mEntries}.
+     * <p>
+     * Must be called while holding the lock on this object, after {@link #load()}.
+     */
+    private void merge()
+    {
+        final LinkedHashMap<String, Entry> pending;
+        synchronized (mPendingLock)
+        {
+            pending = mPending;
+            mPending = new LinkedHashMap<String, Entry>();
+            mFlushScheduled = false;
+        }
+
+        for (final Entry entry : pending.values())
+        {
+            if (!entry.equals(mEntries.get(entry.getId())))
+            {
+                mEntries.put(entry.getId(), entry);
+                mDirty = true;
+            }
+        }
+    }
+
+    /**
+     * Reads the file the first time the store is used.
+     * <p>
+     * Must be called while holding the lock on this object.
+     */
+    private void load() throws IOException
+    {
+        if (null != mEntries)
+        {
+            return;
+        }
+
+        final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>();
+        if (mFile.exists())
+        {
+            final byte[] data = readFully(mFile);
+            for (final Entry entry : decode(data, mRenderStamp))
+            {
+                entries.put(entry.getId(), entry);
+            }
+        }
+        mEntries = entries;
+    }
+
+    /**
+     * Replaces the file with the current records.
+     * <p>
+     * Must be called while holding the lock on this object.
+     */
+    private void write() throws IOException
+    {
+        final byte[] data = encode(mEntries.values(), mRenderStamp);
+
+        final File temp = new File(mFile.getPath() + ".tmp"); //$NON-NLS-1$
+        final FileOutputStream out = new FileOutputStream(temp);
+        try
+        {
+            out.write(data);
+            out.getFD().sync();
+        }
+        finally
+        {
+            out.close();
+        }
+
+        if (!temp.renameTo(mFile))
+        {
+            temp.delete();
+            throw new IOException("could not replace " + mFile); //$NON-NLS-1$
+        }
+    }
+
+    private static byte[] readFully(final File file) throws IOException
+    {
+        final RandomAccessFile in = new RandomAccessFile(file, "r"); //$NON-NLS-1$
+        try
+        {
+            final long length = in.length();
+            if (length > Integer.MAX_VALUE)
+            {
+                throw new IOException(file + " is too large"); //$NON-NLS-1$
+            }
+
+            final byte[] data = new byte[(int) length];
+            in.readFully(data);
+            return data;
+        }
+        finally
+        {
+            in.close();
+        }
+    }
+
+    /**
+     * @param entries records to write.
+     * @param renderStamp identifies the renderer and font the bitmaps were drawn with.
+     * @return the file contents.
+     */
+    static byte[] encode(final Collection<Entry> entries, final long renderStamp) throws IOException
+    {
+        final ByteArrayOutputStream records = new ByteArrayOutputStream();
+        final DataOutputStream recordsOut = new DataOutputStream(records);
+        final int[] offsets = new int[entries.size()];
+        final int recordsStart = HEADER_SIZE + 4 * offsets.length;
+
+        int i = 0;
+        for (final Entry entry : entries)
+        {
+            offsets[i++] = recordsStart + recordsOut.size();
+            recordsOut.writeUTF(entry.getId());
+            recordsOut.writeUTF(entry.getIcon());
+            recordsOut.writeUTF(entry.getLabel());
+            recordsOut.writeByte(entry.mBitmaps.length);
+            for (final MonoBitmap bitmap : entry.mBitmaps)
+            {
+                recordsOut.writeShort(bitmap.getWidth());
+                recordsOut.writeShort(bitmap.getHeight());
+                recordsOut.write(bitmap.bits());
+            }
+        }
+
+        final ByteArrayOutputStream file = new ByteArrayOutputStream(recordsStart + recordsOut.size() + 4);
+        final DataOutputStream out = new DataOutputStream(file);
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeLong(renderStamp);
+        out.writeInt(offsets.length);
+        for (final int offset : offsets)
+        {
+            out.writeInt(offset);
+        }
+        records.writeTo(out);
+
+        final CRC32 crc = new CRC32();
+        crc.update(file.toByteArray());
+        out.writeInt((int) crc.getValue());
+
+        return file.toByteArray();
+    }
+
+    /**
+     * @param data file contents.
+     * @param renderStamp identifies the renderer and font in use. Bitmaps drawn with a different stamp are dropped.
+     * @return the records, or an empty list if the file is not a valid store of this version.
+     */
+    static List<Entry> decode(final byte[] data, final long renderStamp) throws IOException
+    {
+        final List<Entry> entries = new ArrayList<Entry>();
+
+        if (data.length < HEADER_SIZE + 4)
+        {
+            return entries;
+        }
+
+        final CRC32 crc = new CRC32();
+        crc.update(data, 0, data.length - 4);
+        final DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        if (MAGIC != in.readInt() || FORMAT_VERSION != in.readInt() || (int) crc.getValue() != readInt(data, data.length - 4))
+        {
+            return entries;
+        }
+
+        final boolean bitmapsValid = renderStamp == in.readLong();
+        final int count = in.readInt();
+        if (count < 0 || HEADER_SIZE + 4 * count > data.length - 4)
+        {
+            return entries;
+        }
+
+        for (int i = 0; i < count; i++)
+        {
+            final int offset = readInt(data, HEADER_SIZE + 4 * i);
+            if (offset < HEADER_SIZE || offset >= data.length - 4)
+            {
+                throw new IOException("record offset out of range"); //$NON-NLS-1$
+            }
+
+            final DataInputStream record = new DataInputStream(new ByteArrayInputStream(data, offset, data.length - 4 - offset));
+            final String id = record.readUTF();
+            final String icon = record.readUTF();
+            final String label = record.readUTF();
+
+            final MonoBitmap[] bitmaps = new MonoBitmap[bitmapsValid ? record.readUnsignedByte() : 0];
+            for (int j = 0; j < bitmaps.length; j++)
+            {
+                final int width = record.readUnsignedShort();
+                final int height = record.readUnsignedShort();
+                final MonoBitmap bitmap = new MonoBitmap(width, height);
+                record.readFully(bitmap.bits());
+                bitmaps[j] = bitmap;
+            }
+
+            entries.add(new Entry(icon, id, label, bitmaps));
+        }
+
+        return entries;
+    }
+
+    private static int readInt(final byte[] data, final int offset)
+    {
+        return ((data[offset] & 0xFF) << 24) | ((data[offset + 1] & 0xFF) << 16) | ((data[offset + 2] & 0xFF) << 8) | (data[offset + 3] & 0xFF);
+    }
+
+    /**
+     * Told about failures of the writes behind {@link WidgetStore#put(Entry)}.
+     */
+    public interface FlushListener
+    {
+        /**
+         * Called on the writer thread when a background write fails.
+         *
+         * @param store the store that could not be written.
+         * @param e the failure.
+         */
+        void onFlushFailed(WidgetStore store, IOException e);
+    }
+
+    /**
+     * The icon and label last set for a widget, and the bitmaps rendered from them.
+     */
+    public static final class Entry
+    {
+        private static final MonoBitmap[] NO_BITMAPS = new MonoBitmap[0];
+
+        private final String mIcon;
+        private final String mId;
+        private final String mLabel;
+
+        /**
+         * Read-only rendered bitmaps, at most one for each size.
+         */
+        final MonoBitmap[] mBitmaps;
+
+        /**
+         * @param icon icon name.
+         * @param id widget id.
+         * @param label widget label.
+         */
+        public Entry(final String icon, final String id, final String label)
+        {
+            this(icon, id, label, NO_BITMAPS);
+        }
+
+        /**
+         * @param icon icon name.
+         * @param id widget id.
+         * @param label widget label.
+         * @param bitmaps the widget rendered at each size. The store makes them read-only. At most 255 may be given.
+         */
+        public Entry(final String icon, final String id, final String label, final MonoBitmap[] bitmaps)
+        {
+            this(icon, id, label, bitmaps, null == bitmaps ? 0 : bitmaps.length);
+        }
+
+        /**
+         * @param icon icon name.
+         * @param id widget id.
+         * @param label widget label.
+         * @param bitmaps the widget rendered at each size, in its first {@code count} elements. The array is not kept, so it may
+         *            be reused. The store makes the bitmaps read-only.
+         * @param count number of bitmaps, at most 255.
+         */
+        public Entry(final String icon, final String id, final String label, final MonoBitmap[] bitmaps, final int count)
+        {
+            if (null == icon || null == id || null == label || null == bitmaps)
+            {
+                throw new IllegalArgumentException("icon, id, label and bitmaps cannot be null"); //$NON-NLS-1$
+            }
+            if (count < 0 || count > bitmaps.length)
+            {
+                throw new IllegalArgumentException("count out of range"); //$NON-NLS-1$
+            }
+            if (count > 255)
+            {
+                throw new IllegalArgumentException("too many bitmaps"); //$NON-NLS-1$
+            }
+
+            mIcon = icon;
+            mId = id;
+            mLabel = label;
+            mBitmaps = new MonoBitmap[count];
+            for (int i = 0; i < count; i++)
+            {
+                mBitmaps[i] = bitmaps[i].makeReadOnly();
+            }
+        }
+
+        /**
+         * @return icon name.
+         */
+        public String getIcon()
+        {
+            return mIcon;
+        }
+
+        /**
+         * @return widget id.
+         */
+        public String getId()
+        {
+            return mId;
+        }
+
+        /**
+         * @return widget label.
+         */
+        public String getLabel()
+        {
+            return mLabel;
+        }
+
+        /**
+         * @param width width in pixels.
+         * @param height height in pixels.
+         * @return the read-only bitmap rendered at that size, or null if none is stored.
+         */
+        public MonoBitmap getBitmap(final int width, final int height)
+        {
+            for (final MonoBitmap bitmap : mBitmaps)
+            {
+                if (bitmap.getWidth() == width && bitmap.getHeight() == height)
+                {
+                    return bitmap;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * @return true if this record has the given icon, label and bitmaps, compared by pixels.
+         */
+        boolean matches(final String icon, final String label, final MonoBitmap[] bitmaps, final int count)
+        {
+            if (!mIcon.equals(icon) || !mLabel.equals(label) || mBitmaps.length != count)
+            {
+                return false;
+            }
+
+            for (int i = 0; i < count; i++)
+            {
+                final MonoBitmap bitmap = bitmaps[i];
+                if (mBitmaps[i] != bitmap
+                        && (mBitmaps[i].getWidth() != bitmap.getWidth() || mBitmaps[i].getHeight() != bitmap.getHeight() || !Arrays.equals(mBitmaps[i].bits(), bitmap.bits())))
+                {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public boolean equals(final Object o)
+        {
+            if (this == o)
+            {
+                return true;
+            }
+            if (!(o instanceof Entry))
+            {
+                return false;
+            }
+
+            final Entry other = (Entry) o;
+            if (!mIcon.equals(other.mIcon) || !mId.equals(other.mId) || !mLabel.equals(other.mLabel) || mBitmaps.length != other.mBitmaps.length)
+            {
+                return false;
+            }
+
+            for (int i = 0; i < mBitmaps.length; i++)
+            {
+                if (mBitmaps[i].getWidth() != other.mBitmaps[i].getWidth() || mBitmaps[i].getHeight() != other.mBitmaps[i].getHeight()
+                        || !Arrays.equals(mBitmaps[i].bits(), other.mBitmaps[i].bits()))
+                {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            int result = mIcon.hashCode();
+            result = 31 * result + mId.hashCode();
+            result = 31 * result + mLabel.hashCode();
+            return result;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at <http://www.apache.org/licenses/LICENSE-2.0>
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS"
+ * BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package org.metawatch.manager.locale.widget;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import android.content.Intent;
+
+/**
+ * Which widgets, at which sizes, the MetaWatch manager has placed on the watch, so the plug-in only renders and sends those.
+ * <p>
+ * The manager lists the ids of the widgets it shows in the {@link #EXTRA_WIDGETS_DESIRED} extra of its
+ * {@code REFRESH_WIDGET_REQUEST}. Each id names one size of one widget, as {@link WidgetLayout#getWidgetId(String)} builds
+ * them. Until a manager has sent that list, which older managers never do, and again after the process restarts, every size
+ * is wanted.
+ * <p>
+ * This class is thread-safe.
+ */
+public final class WidgetSubscriptions
+{
+    /**
+     * Extra of {@code REFRESH_WIDGET_REQUEST}: {@code String[]} of the ids of the widgets the manager shows.
+     */
+    public static final String EXTRA_WIDGETS_DESIRED = "org.metawatch.manager.widgets_desired"; //$NON-NLS-1$
+
+    /**
+     * Ids of the wanted widgets, or null if the manager has not said.
+     */
+    private volatile Set<String> mDesired;
+
+    /**
+     * Records the widgets a refresh request asks for. A request without the list leaves the previous one in place.
+     *
+     * @param refreshRequest a {@code REFRESH_WIDGET_REQUEST} Intent from the manager.
+     * @return true if the request listed the widgets it wants.
+     */
+    public boolean update(final Intent refreshRequest)
+    {
+        final String[] desired = refreshRequest.getStringArrayExtra(EXTRA_WIDGETS_DESIRED);
+        if (null == desired)
+        {
+            return false;
+        }
+
+        mDesired = Collections.unmodifiableSet(new HashSet<String>(Arrays.asList(desired)));
+        return true;
+    }
+
+    /**
+     * @return true if the manager has listed the widgets it wants.
+     */
+    public boolean isKnown()
+    {
+        return null != mDesired;
+    }
+
+    /**
+     * @param sizedWidgetId id of one size of a widget, from {@link WidgetLayout#getWidgetId(String)}.
+     * @return true if the manager shows that widget at that size, or has not said which widgets it shows.
+     */
+    public boolean isWanted(final String sizedWidgetId)
+    {
+        final Set<String> desired = mDesired;
+        return null == desired || desired.contains(sizedWidgetId);
+    }
+
+    /**
+     * Forgets the list, so every size is wanted again.
+     */
+    public void clear()
+    {
+        mDesired = null;
+    }
+
+    @Override
+    public String toString()
+    {
+        final Set<String> desired = mDesired;
+        return null == desired ? "WidgetSubscriptions[all]" : "WidgetSubscriptions" + desired; //$NON-NLS-1$ //$NON-NLS-2$
+    }
+}
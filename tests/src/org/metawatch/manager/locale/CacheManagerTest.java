@@ -0,0 +1,89 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at <http://www.apache.org/licenses/LICENSE-2.0>
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS"
+ * BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package org.metawatch.manager.locale;
+
+import android.content.ComponentCallbacks2;
+import android.test.suitebuilder.annotation.SmallTest;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests {@link CacheManager}.
+ */
+public final class CacheManagerTest extends TestCase
+{
+    /**
+     * A cache of a fixed size that counts its trims.
+     */
+    private static final class FakeCache implements CacheManager.Cache
+    {
+        private final long mSize;
+
+        int mTrimCount;
+
+        FakeCache(final long size)
+        {
+            mSize = size;
+        }
+
+        public long getByteCount()
+        {
+            return 0 == mTrimCount ? mSize : 0;
+        }
+
+        public void trim()
+        {
+            mTrimCount++;
+        }
+    }
+
+    /**
+     * Verifies that each trim level drops the tiers it calls for, cheapest to rebuild first, and that sizes are reported.
+     */
+    @SmallTest
+    public static void testTrimInTierOrder()
+    {
+        final FakeCache rendered = new FakeCache(100);
+        final FakeCache stored = new FakeCache(20);
+        final FakeCache decoded = new FakeCache(3);
+        CacheManager.register(CacheManager.Tier.DECODED, "decoded", decoded); //$NON-NLS-1$
+        CacheManager.register(CacheManager.Tier.RENDERED, "rendered", rendered); //$NON-NLS-1$
+        CacheManager.register(CacheManager.Tier.STORED, "stored", stored); //$NON-NLS-1$
+        try
+        {
+            assertEquals(100, CacheManager.getByteCount(CacheManager.Tier.RENDERED));
+            assertTrue(CacheManager.report().contains("RENDERED rendered=100 STORED stored=20 DECODED decoded=3")); //$NON-NLS-1$
+
+            CacheManager.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN);
+            assertEquals(0, rendered.mTrimCount);
+
+            CacheManager.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_BACKGROUND);
+            assertEquals(1, rendered.mTrimCount);
+            assertEquals(0, stored.mTrimCount);
+            assertEquals(0, CacheManager.getByteCount(CacheManager.Tier.RENDERED));
+
+            CacheManager.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_MODERATE);
+            assertEquals(2, rendered.mTrimCount);
+            assertEquals(1, stored.mTrimCount);
+            assertEquals(0, decoded.mTrimCount);
+
+            CacheManager.onLowMemory();
+            assertEquals(3, rendered.mTrimCount);
+            assertEquals(2, stored.mTrimCount);
+            assertEquals(1, decoded.mTrimCount);
+        }
+        finally
+        {
+            CacheManager.unregister(rendered);
+            CacheManager.unregister(stored);
+            CacheManager.unregister(decoded);
+        }
+    }
+}
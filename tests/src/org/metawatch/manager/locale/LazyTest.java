@@ -0,0 +1,86 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at <http://www.apache.org/licenses/LICENSE-2.0>
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS"
+ * BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package org.metawatch.manager.locale;
+
+import android.content.Context;
+import android.test.suitebuilder.annotation.SmallTest;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests {@link Lazy} and its reports to {@link StartupProfiler}.
+ */
+public final class LazyTest extends TestCase
+{
+    /**
+     * Verifies that a component is created on first use only, reported to the profiler, and created again after a clear.
+     */
+    @SmallTest
+    public static void testCreatedOnceUntilCleared()
+    {
+        final int[] created = new int[1];
+        final Lazy<Object> lazy = new Lazy<Object>("test") //$NON-NLS-1$
+        {
+            @Override
+            protected Object create(final Context context)
+            {
+                created[0]++;
+                return new Object();
+            }
+        };
+
+        final int before = StartupProfiler.getLazyInitCount();
+        assertNull(lazy.peek());
+        assertEquals(before, StartupProfiler.getLazyInitCount());
+
+        final Object first = lazy.get(null);
+        assertSame(first, lazy.get(null));
+        assertSame(first, lazy.peek());
+        assertEquals(1, created[0]);
+        assertEquals(before + 1, StartupProfiler.getLazyInitCount());
+        assertTrue(StartupProfiler.report().contains("test=")); //$NON-NLS-1$
+
+        lazy.clear();
+        assertNull(lazy.peek());
+        assertNotSame(first, lazy.get(null));
+        assertEquals(2, created[0]);
+        assertEquals(before + 2, StartupProfiler.getLazyInitCount());
+    }
+
+    /**
+     * Verifies that a component created again after every trim is counted each time but reported once, so the report does
+     * not grow for the life of the process.
+     */
+    @SmallTest
+    public static void testReportHoldsFirstCreation()
+    {
+        final Lazy<Object> lazy = new Lazy<Object>("recreated") //$NON-NLS-1$
+        {
+            @Override
+            protected Object create(final Context context)
+            {
+                return new Object();
+            }
+        };
+
+        lazy.get(null);
+        final String report = StartupProfiler.report();
+        final int before = StartupProfiler.getLazyInitCount();
+        for (int i = 0; i < 100; i++)
+        {
+            lazy.clear();
+            lazy.get(null);
+        }
+
+        assertEquals(before + 100, StartupProfiler.getLazyInitCount());
+        assertEquals(report, StartupProfiler.report());
+        assertEquals(report.indexOf("recreated="), report.lastIndexOf("recreated=")); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+}
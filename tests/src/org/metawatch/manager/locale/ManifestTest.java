@@ -9,7 +9,7 @@
  * governing permissions and limitations under the License.
  */
 
-package com.yourcompany.yoursetting.test;
+package org.metawatch.manager.locale;
 
 import android.content.Context;
 import android.content.Intent;
@@ -0,0 +1,113 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at <http://www.apache.org/licenses/LICENSE-2.0>
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS"
+ * BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package org.metawatch.manager.locale.bundle;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import android.content.Context;
+import android.content.Intent;
+import android.test.AndroidTestCase;
+import android.test.suitebuilder.annotation.SmallTest;
+
+/**
+ * Tests {@link ActionRegistry} and the {@link ActionHandler} of each kind of setting.
+ */
+public final class ActionRegistryTest extends AndroidTestCase
+{
+    /**
+     * Verifies that handlers are found by type id and by code.
+     */
+    @SmallTest
+    public static void testLookup()
+    {
+        assertSame(NotificationSetting.HANDLER, ActionRegistry.get("notification")); //$NON-NLS-1$
+        assertSame(WidgetSetting.HANDLER, ActionRegistry.get(new String("widget"))); //$NON-NLS-1$
+        assertSame(SilentModeSetting.HANDLER, ActionRegistry.get("silentmode")); //$NON-NLS-1$
+        assertNull(ActionRegistry.get("unknown")); //$NON-NLS-1$
+        assertNull(ActionRegistry.get(null));
+
+        assertSame(WidgetSetting.HANDLER, ActionRegistry.getByCode(2));
+        assertNull(ActionRegistry.getByCode(0));
+        assertNull(ActionRegistry.getByCode(255));
+
+        assertSame("widget", new WidgetSetting(1, "a", "", "", null).getTypeId()); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+
+        assertSame(SettingType.NOTIFICATION, NotificationSetting.HANDLER.getSettingType());
+        assertSame(SettingType.WIDGET, WidgetSetting.HANDLER.getSettingType());
+        assertSame(SettingType.SILENTMODE, SilentModeSetting.HANDLER.getSettingType());
+    }
+
+    /**
+     * Verifies the broadcasts each handler adds.
+     */
+    @SmallTest
+    public static void testApply()
+    {
+        final List<WidgetSetting> widgets = new ArrayList<WidgetSetting>();
+        final ActionHandler.FireContext fire = new ActionHandler.FireContext()
+        {
+            public Context getContext()
+            {
+                return null;
+            }
+
+            public void sendWidget(final WidgetSetting setting, final List<Intent> outbox)
+            {
+                widgets.add(setting);
+            }
+        };
+        final List<Intent> outbox = new ArrayList<Intent>();
+
+        final Setting notification = new NotificationSetting(1, "title", "message", true, new Setting.Vibration(1, 2, 3)); //$NON-NLS-1$ //$NON-NLS-2$
+        notification.getHandler().apply(fire, notification, outbox);
+        notification.getHandler().apply(fire, notification, outbox);
+        assertEquals(2, outbox.size());
+        assertNotSame(outbox.get(0), outbox.get(1));
+        assertEquals("org.metawatch.manager.NOTIFICATION", outbox.get(0).getAction()); //$NON-NLS-1$
+        assertEquals("message", outbox.get(0).getExtras().getString("text")); //$NON-NLS-1$ //$NON-NLS-2$
+        assertEquals(3, outbox.get(0).getExtras().getInt("vibrate_cycles")); //$NON-NLS-1$
+        outbox.clear();
+
+        final Setting widget = new WidgetSetting(1, "a", "HOME", "home", new Setting.Vibration(1, 2, 3)); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        widget.getHandler().apply(fire, widget, outbox);
+        assertEquals(1, widgets.size());
+        assertEquals(1, outbox.size());
+        assertEquals("org.metawatch.manager.VIBRATE", outbox.get(0).getAction()); //$NON-NLS-1$
+        outbox.clear();
+
+        final Setting silentMode = new SilentModeSetting(1, true);
+        silentMode.getHandler().apply(fire, silentMode, outbox);
+        assertEquals("org.metawatch.manager.SILENTMODE", outbox.get(0).getAction()); //$NON-NLS-1$
+        assertTrue(outbox.get(0).getExtras().getBoolean("enabled")); //$NON-NLS-1$
+    }
+
+    /**
+     * Verifies coalescing keys, blurbs and completeness.
+     */
+    @SmallTest
+    public static void testDescribe()
+    {
+        final Setting notification = new NotificationSetting(1, "", "message", true, null); //$NON-NLS-1$ //$NON-NLS-2$
+        assertNull(notification.getHandler().getCoalescingKey(notification));
+        assertEquals("message", notification.getHandler().getBlurb(notification)); //$NON-NLS-1$
+        assertTrue(notification.getHandler().isComplete(notification));
+        assertFalse(NotificationSetting.HANDLER.isComplete(new NotificationSetting(1, "title", "", true, null))); //$NON-NLS-1$ //$NON-NLS-2$
+
+        final Setting widget = new WidgetSetting(1, "a", "HOME", "home", null); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        assertEquals("widget|a", widget.getHandler().getCoalescingKey(widget)); //$NON-NLS-1$
+        assertEquals("home : HOME", widget.getHandler().getBlurb(widget)); //$NON-NLS-1$
+        assertFalse(WidgetSetting.HANDLER.isComplete(new WidgetSetting(1, "a", "", "home", null))); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+
+        final Setting silentMode = new SilentModeSetting(1, false);
+        assertEquals("silentmode", silentMode.getHandler().getCoalescingKey(silentMode)); //$NON-NLS-1$
+        assertEquals("Silent Mode : Disabled", silentMode.getHandler().getBlurb(silentMode)); //$NON-NLS-1$
+    }
+}
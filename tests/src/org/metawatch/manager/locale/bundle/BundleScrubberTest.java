@@ -1,6 +1,4 @@
 /*
- * Copyright 2012 two forty four a.m. LLC <http://www.twofortyfouram.com>
- *
  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
  * License. You may obtain a copy of the License at <http://www.apache.org/licenses/LICENSE-2.0>
  *
@@ -9,7 +7,7 @@
  * governing permissions and limitations under the License.
  */
 
-package com.yourcompany.yoursetting.bundle;
+package org.metawatch.manager.locale.bundle;
 
 import android.content.Intent;
 import android.os.Bundle;
@@ -17,18 +15,17 @@ import android.test.AndroidTestCase;
 import android.test.suitebuilder.annotation.SmallTest;
 
 /**
- * Tests the {@link BundleScrubber}.
+ * Tests {@link BundleScrubber}.
  */
 public final class BundleScrubberTest extends AndroidTestCase
 {
-
     /*
-     * Note: From within this unit test, it isn't possible to verify the BundleScrubber's behavior for an extra coming from
-     * another process. The problem is that any private serializable put into the Bundle from within the same process is available
-     * to the app's class loader since the app owns the class. These unit tests simply verify the behavior of the BundleScrubber
-     * with valid inputs.
+     * A private serializable put into an Intent in this process can be loaded by this app's class loader, so
+     * these tests only cover valid inputs. The malicious cases are exercised by ScrubBenchmark in the benchmarks module.
      */
 
+    private static final String EXTRA = "bundle"; //$NON-NLS-1$
+
     /**
      * Verifies that passing null to {@link BundleScrubber#scrub(Intent)} returns false.
      */
@@ -41,6 +38,7 @@ public final class BundleScrubberTest extends AndroidTestCase
     /**
      * Verifies that passing a valid Intent to {@link BundleScrubber#scrub(Intent)} returns false and does not mutate the Intent.
      */
+    @SmallTest
     public static void testScrubValidIntent()
     {
         {
@@ -95,13 +93,45 @@ public final class BundleScrubberTest extends AndroidTestCase
 
         {
             /*
-             * A non empty Intent should be valid and should not be mutated
+             * A non empty Bundle should be valid and should not be mutated
              */
-            final Intent intent = new Intent().putExtra("test", "test"); //$NON-NLS-1$ //$NON-NLS-2$
-            assertFalse(BundleScrubber.scrub(intent));
+            final Bundle bundle = new Bundle();
+            bundle.putString("test", "test"); //$NON-NLS-1$ //$NON-NLS-2$
+            assertFalse(BundleScrubber.scrub(bundle));
 
-            assertEquals(1, intent.getExtras().keySet().size());
-            assertEquals("test", intent.getStringExtra("test")); //$NON-NLS-1$//$NON-NLS-2$
+            assertEquals(1, bundle.keySet().size());
+            assertEquals("test", bundle.getString("test")); //$NON-NLS-1$//$NON-NLS-2$
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Verifies that a missing Intent or extra gives no Bundle and is not reported as scrubbed.
+     */
+    @SmallTest
+    public static void testNoBundle()
+    {
+        BundleScrubber.ScrubbedBundle result = BundleScrubber.scrubBundleExtra(null, EXTRA);
+        assertNull(result.getBundle());
+        assertFalse(result.wasScrubbed());
+
+        result = BundleScrubber.scrubBundleExtra(new Intent().putExtra("test", "test"), EXTRA); //$NON-NLS-1$ //$NON-NLS-2$
+        assertNull(result.getBundle());
+        assertFalse(result.wasScrubbed());
+    }
+
+    /**
+     * Verifies that a valid nested Bundle is returned unmodified and not reported as scrubbed.
+     */
+    @SmallTest
+    public static void testValidBundle()
+    {
+        final Bundle bundle = new Bundle();
+        bundle.putString("test", "test"); //$NON-NLS-1$ //$NON-NLS-2$
+        final Intent intent = new Intent().putExtra(EXTRA, bundle);
+
+        final BundleScrubber.ScrubbedBundle result = BundleScrubber.scrubBundleExtra(intent, EXTRA);
+        assertFalse(result.wasScrubbed());
+        assertEquals("test", result.getBundle().getString("test")); //$NON-NLS-1$ //$NON-NLS-2$
+        assertEquals(1, intent.getExtras().size());
+    }
+}
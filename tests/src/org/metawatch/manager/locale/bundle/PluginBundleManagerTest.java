@@ -0,0 +1,59 @@
+/*
+ * Copyright 2012 two forty four a.m. LLC <http://www.twofortyfouram.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at <http://www.apache.org/licenses/LICENSE-2.0>
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS"
+ * BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package org.metawatch.manager.locale.bundle;
+
+import android.os.Bundle;
+import android.test.suitebuilder.annotation.SmallTest;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests {@link PluginBundleManager}. The individual settings are covered by {@link SettingParserTest}.
+ */
+public final class PluginBundleManagerTest extends TestCase
+{
+
+    /**
+     * Tests the extra constants haven't been accidentally changed.
+     */
+    @SmallTest
+    public static void testExtraConstants()
+    {
+        /*
+         * The goal of this test case is to prevent accidental renaming of the Intent extras, which Locale stores with each
+         * setting. If the extra is intentionally changed, then this unit test needs to be intentionally updated.
+         */
+        assertEquals("org.metawatch.manager.locale.extra.STRING_TYPE", PluginBundleManager.BUNDLE_EXTRA_STRING_TYPE); //$NON-NLS-1$
+        assertEquals("org.metawatch.manager.locale.extra.STRING_MESSAGE", PluginBundleManager.BUNDLE_EXTRA_STRING_MESSAGE); //$NON-NLS-1$
+        assertEquals("org.metawatch.manager.locale.extra.STRING_WIDGET_ID", PluginBundleManager.BUNDLE_EXTRA_STRING_WIDGET_ID); //$NON-NLS-1$
+        assertEquals("org.metawatch.manager.locale.extra.BYTE_ARRAY_SETTING", PluginBundleManager.BUNDLE_EXTRA_BYTE_ARRAY_SETTING); //$NON-NLS-1$
+        assertEquals("com.yourcompany.yourcondition.extra.INT_VERSION_CODE", PluginBundleManager.BUNDLE_EXTRA_INT_VERSION_CODE); //$NON-NLS-1$
+    }
+
+    /**
+     * Tests the {@link PluginBundleManager#isBundleValid(Bundle)} method with a null bundle
+     */
+    @SmallTest
+    public static void testVerifyBundleNull()
+    {
+        assertFalse(PluginBundleManager.isBundleValid(null));
+    }
+
+    /**
+     * Tests the {@link PluginBundleManager#isBundleValid(Bundle)} method with bundle that is missing the required extra
+     */
+    @SmallTest
+    public static void testVerifyBundleMissingExtra()
+    {
+        assertFalse(PluginBundleManager.isBundleValid(new Bundle()));
+    }
+}
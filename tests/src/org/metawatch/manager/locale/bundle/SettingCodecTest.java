@@ -0,0 +1,91 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at <http://www.apache.org/licenses/LICENSE-2.0>
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS"
+ * BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package org.metawatch.manager.locale.bundle;
+
+import java.io.IOException;
+
+import android.test.suitebuilder.annotation.SmallTest;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests {@link SettingCodec}.
+ */
+public final class SettingCodecTest extends TestCase
+{
+    /**
+     * Verifies that every kind of setting decodes to what was encoded.
+     */
+    @SmallTest
+    public static void testRoundTrip() throws IOException
+    {
+        final Setting[] settings =
+            { new NotificationSetting(2, "title", "message \u00E9", false, new Setting.Vibration(500, 250, 3)), //$NON-NLS-1$ //$NON-NLS-2$
+                    new NotificationSetting(2, "", "", true, null), //$NON-NLS-1$ //$NON-NLS-2$
+                    new WidgetSetting(2, "a", "HOME", "home", null), //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+                    new WidgetSetting(2, "b", "", "car", new Setting.Vibration(0, 0, 1)), //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+                    new SilentModeSetting(2, true), new SilentModeSetting(2, false) };
+
+        for (final Setting setting : settings)
+        {
+            assertEquals(setting, SettingCodec.decode(SettingCodec.encode(setting), 2));
+        }
+    }
+
+    /**
+     * Verifies that only the values a kind of setting uses are stored.
+     */
+    @SmallTest
+    public static void testCompact()
+    {
+        assertEquals(3, SettingCodec.encode(new SilentModeSetting(2, true)).length);
+        assertEquals(3 + 3 + 6 + 6, SettingCodec.encode(new WidgetSetting(2, "a", "HOME", "home", null)).length); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+    }
+
+    /**
+     * Verifies that damaged or unknown encodings are rejected.
+     */
+    @SmallTest
+    public static void testRejectsBadData()
+    {
+        final byte[] data = SettingCodec.encode(new WidgetSetting(2, "a", "HOME", "home", null)); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+
+        final byte[] truncated = new byte[data.length - 1];
+        System.arraycopy(data, 0, truncated, 0, truncated.length);
+        assertDecodeFails(truncated);
+
+        final byte[] trailing = new byte[data.length + 1];
+        System.arraycopy(data, 0, trailing, 0, data.length);
+        assertDecodeFails(trailing);
+
+        final byte[] version = data.clone();
+        version[0] = SettingCodec.FORMAT_VERSION + 1;
+        assertDecodeFails(version);
+
+        final byte[] kind = data.clone();
+        kind[1] = 9;
+        assertDecodeFails(kind);
+
+        assertDecodeFails(new byte[0]);
+    }
+
+    private static void assertDecodeFails(final byte[] data)
+    {
+        try
+        {
+            SettingCodec.decode(data, 2);
+            fail();
+        }
+        catch (final IOException e)
+        {
+            // expected exception
+        }
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at <http://www.apache.org/licenses/LICENSE-2.0>
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS"
+ * BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package org.metawatch.manager.locale.bundle;
+
+import android.os.Bundle;
+import android.test.AndroidTestCase;
+import android.test.suitebuilder.annotation.SmallTest;
+
+/**
+ * Tests {@link SettingParser}.
+ */
+public final class SettingParserTest extends AndroidTestCase
+{
+    private static Bundle createWidget(final String id, final String label)
+    {
+        final Bundle bundle = new Bundle();
+        bundle.putInt(PluginBundleManager.BUNDLE_EXTRA_INT_VERSION_CODE, 1);
+        bundle.putString(PluginBundleManager.BUNDLE_EXTRA_STRING_TYPE, "widget"); //$NON-NLS-1$
+        bundle.putString(PluginBundleManager.BUNDLE_EXTRA_STRING_WIDGET_ID, id);
+        bundle.putString(PluginBundleManager.BUNDLE_EXTRA_STRING_WIDGET_LABEL, label);
+        bundle.putString(PluginBundleManager.BUNDLE_EXTRA_STRING_WIDGET_ICON, "home"); //$NON-NLS-1$
+        return bundle;
+    }
+
+    /**
+     * Verifies that each kind of setting is parsed with its values and defaults.
+     */
+    @SmallTest
+    public static void testParse()
+    {
+        final Bundle notification = new Bundle();
+        notification.putInt(PluginBundleManager.BUNDLE_EXTRA_INT_VERSION_CODE, 3);
+        notification.putString(PluginBundleManager.BUNDLE_EXTRA_STRING_TYPE, "notification"); //$NON-NLS-1$
+        notification.putString(PluginBundleManager.BUNDLE_EXTRA_STRING_TITLE, "title"); //$NON-NLS-1$
+        notification.putString(PluginBundleManager.BUNDLE_EXTRA_STRING_MESSAGE, "message"); //$NON-NLS-1$
+        notification.putBoolean(PluginBundleManager.BUNDLE_EXTRA_BOOLEAN_VIBRATE, true);
+        notification.putInt(PluginBundleManager.BUNDLE_EXTRA_INT_VIBRATE_ON, 500);
+        notification.putInt(PluginBundleManager.BUNDLE_EXTRA_INT_VIBRATE_OFF, 250);
+        notification.putInt(PluginBundleManager.BUNDLE_EXTRA_INT_VIBRATE_CYCLES, 2);
+        assertEquals(new NotificationSetting(3, "title", "message", true, new Setting.Vibration(500, 250, 2)), //$NON-NLS-1$ //$NON-NLS-2$
+                     SettingParser.parse(notification).getSetting());
+
+        final Setting widget = SettingParser.parse(createWidget("a", "HOME")).getSetting(); //$NON-NLS-1$ //$NON-NLS-2$
+        assertEquals(new WidgetSetting(1, "a", "HOME", "home", null), widget); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+
+        final Bundle silentMode = new Bundle();
+        silentMode.putInt(PluginBundleManager.BUNDLE_EXTRA_INT_VERSION_CODE, 1);
+        silentMode.putString(PluginBundleManager.BUNDLE_EXTRA_STRING_TYPE, "silentmode"); //$NON-NLS-1$
+        silentMode.putBoolean(PluginBundleManager.BUNDLE_EXTRA_BOOLEAN_SILENTMODE, true);
+        assertEquals(new SilentModeSetting(1, true), SettingParser.parse(silentMode).getSetting());
+    }
+
+    /**
+     * Verifies that invalid Bundles give the reason and the extra at fault.
+     */
+    @SmallTest
+    public static void testInvalidReasons()
+    {
+        assertEquals(SettingParser.InvalidReason.NULL_BUNDLE, SettingParser.parse(null).getReason());
+
+        final Bundle missing = createWidget("a", "HOME"); //$NON-NLS-1$ //$NON-NLS-2$
+        missing.remove(PluginBundleManager.BUNDLE_EXTRA_STRING_WIDGET_ICON);
+        SettingParser.Result result = SettingParser.parse(missing);
+        assertFalse(result.isValid());
+        assertNull(result.getSetting());
+        assertEquals(SettingParser.InvalidReason.MISSING_EXTRA, result.getReason());
+        assertEquals(PluginBundleManager.BUNDLE_EXTRA_STRING_WIDGET_ICON, result.getKey());
+
+        final Bundle wrongType = createWidget("a", "HOME"); //$NON-NLS-1$ //$NON-NLS-2$
+        wrongType.putString(PluginBundleManager.BUNDLE_EXTRA_INT_VERSION_CODE, "1"); //$NON-NLS-1$
+        result = SettingParser.parse(wrongType);
+        assertEquals(SettingParser.InvalidReason.WRONG_TYPE, result.getReason());
+        assertEquals(PluginBundleManager.BUNDLE_EXTRA_INT_VERSION_CODE, result.getKey());
+
+        final Bundle unknown = createWidget("a", "HOME"); //$NON-NLS-1$ //$NON-NLS-2$
+        unknown.putString(PluginBundleManager.BUNDLE_EXTRA_STRING_TYPE, "alarm"); //$NON-NLS-1$
+        assertEquals(SettingParser.InvalidReason.UNKNOWN_TYPE, SettingParser.parse(unknown).getReason());
+        assertFalse(PluginBundleManager.isBundleValid(unknown));
+    }
+
+    /**
+     * Verifies that a repeated setting is answered from the memo, and that any change to a known extra is not.
+     */
+    @SmallTest
+    public static void testMemoisedByFingerprint()
+    {
+        final Setting first = SettingParser.parse(createWidget("memo", "ONE")).getSetting(); //$NON-NLS-1$ //$NON-NLS-2$
+
+        final long hits = SettingParser.getMemoHitCount();
+        final Bundle again = createWidget("memo", "ONE"); //$NON-NLS-1$ //$NON-NLS-2$
+        again.putString("unrelated", "extra"); //$NON-NLS-1$ //$NON-NLS-2$
+        assertSame(first, SettingParser.parse(again).getSetting());
+        assertEquals(hits + 1, SettingParser.getMemoHitCount());
+
+        final Setting changed = SettingParser.parse(createWidget("memo", "TWO")).getSetting(); //$NON-NLS-1$ //$NON-NLS-2$
+        assertEquals("TWO", ((WidgetSetting) changed).getLabel()); //$NON-NLS-1$
+        assertEquals(hits + 1, SettingParser.getMemoHitCount());
+    }
+
+    /**
+     * Verifies that a Bundle whose fingerprint collides with a memoised one is parsed from its own values.
+     */
+    @SmallTest
+    public static void testMemoCollision()
+    {
+        final long fingerprint = 42;
+        final Setting first = SettingParser.parse(SettingParser.readValues(createWidget("collision", "ONE")), fingerprint).getSetting(); //$NON-NLS-1$ //$NON-NLS-2$
+        assertEquals("ONE", ((WidgetSetting) first).getLabel()); //$NON-NLS-1$
+
+        final long hits = SettingParser.getMemoHitCount();
+        final Setting other = SettingParser.parse(SettingParser.readValues(createWidget("collision", "TWO")), fingerprint).getSetting(); //$NON-NLS-1$ //$NON-NLS-2$
+        assertEquals("TWO", ((WidgetSetting) other).getLabel()); //$NON-NLS-1$
+        assertEquals(hits, SettingParser.getMemoHitCount());
+
+        assertSame(other, SettingParser.parse(SettingParser.readValues(createWidget("collision", "TWO")), fingerprint).getSetting()); //$NON-NLS-1$ //$NON-NLS-2$
+        assertEquals(hits + 1, SettingParser.getMemoHitCount());
+    }
+
+    /**
+     * Verifies that the compact extra is read from Bundles saved by versions that write it, and ignored in older ones.
+     */
+    @SmallTest
+    public static void testCompactExtra()
+    {
+        final Setting widget = new WidgetSetting(PluginBundleManager.COMPACT_FORMAT_VERSION_CODE, "compact", "HOME", "home", null); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        final Bundle compact = PluginBundleManager.createCompactBundle(widget);
+        assertEquals(2, compact.size());
+        assertEquals(widget, SettingParser.parse(compact).getSetting());
+
+        final Bundle legacy = createWidget("legacy", "HOME"); //$NON-NLS-1$ //$NON-NLS-2$
+        legacy.putByteArray(PluginBundleManager.BUNDLE_EXTRA_BYTE_ARRAY_SETTING, SettingCodec.encode(widget));
+        assertEquals("legacy", ((WidgetSetting) SettingParser.parse(legacy).getSetting()).getWidgetId()); //$NON-NLS-1$
+
+        compact.putByteArray(PluginBundleManager.BUNDLE_EXTRA_BYTE_ARRAY_SETTING, new byte[]
+            { 1 });
+        final SettingParser.Result result = SettingParser.parse(compact);
+        assertEquals(SettingParser.InvalidReason.BAD_ENCODING, result.getReason());
+        assertEquals(PluginBundleManager.BUNDLE_EXTRA_BYTE_ARRAY_SETTING, result.getKey());
+    }
+
+    /**
+     * Verifies that values split differently across extras fingerprint differently.
+     */
+    @SmallTest
+    public static void testFingerprintSeparatesValues()
+    {
+        final long ab = SettingParser.fingerprint(SettingParser.fingerprint(0, "ab"), "c"); //$NON-NLS-1$ //$NON-NLS-2$
+        final long bc = SettingParser.fingerprint(SettingParser.fingerprint(0, "a"), "bc"); //$NON-NLS-1$ //$NON-NLS-2$
+        assertFalse(ab == bc);
+        assertFalse(SettingParser.fingerprint(0, Integer.valueOf(1)) == SettingParser.fingerprint(0, "1")); //$NON-NLS-1$
+    }
+}
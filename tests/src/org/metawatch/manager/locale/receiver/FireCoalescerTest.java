@@ -0,0 +1,95 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at <http://www.apache.org/licenses/LICENSE-2.0>
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS"
+ * BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package org.metawatch.manager.locale.receiver;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import android.test.AndroidTestCase;
+import android.test.suitebuilder.annotation.SmallTest;
+
+import org.metawatch.manager.locale.bundle.NotificationSetting;
+import org.metawatch.manager.locale.bundle.Setting;
+import org.metawatch.manager.locale.bundle.WidgetSetting;
+
+/**
+ * Tests {@link FireCoalescer}.
+ */
+public final class FireCoalescerTest extends AndroidTestCase
+{
+    private static Setting createWidget(final String id, final String label)
+    {
+        return new WidgetSetting(1, id, label, "home", null); //$NON-NLS-1$
+    }
+
+    private static Setting createNotification(final String title)
+    {
+        return new NotificationSetting(1, title, "", true, null); //$NON-NLS-1$
+    }
+
+    /**
+     * Verifies that only the last update of each widget is kept, in the position of the last update, and counted as collapsed.
+     */
+    @SmallTest
+    public static void testLastWidgetUpdateWins()
+    {
+        final List<Setting> fires = new ArrayList<Setting>();
+        fires.add(createWidget("a", "ONE")); //$NON-NLS-1$ //$NON-NLS-2$
+        fires.add(createWidget("b", "ONE")); //$NON-NLS-1$ //$NON-NLS-2$
+        fires.add(createWidget("a", "TWO")); //$NON-NLS-1$ //$NON-NLS-2$
+        fires.add(createWidget("a", "THREE")); //$NON-NLS-1$ //$NON-NLS-2$
+
+        final long collapsedBefore = FireCoalescer.getCollapsedCount();
+        final List<Setting> settings = FireCoalescer.coalesce(fires);
+
+        assertEquals(2, settings.size());
+        assertEquals("b", ((WidgetSetting) settings.get(0)).getWidgetId()); //$NON-NLS-1$
+        assertEquals("THREE", ((WidgetSetting) settings.get(1)).getLabel()); //$NON-NLS-1$
+        assertEquals(collapsedBefore + 2, FireCoalescer.getCollapsedCount());
+    }
+
+    /**
+     * Verifies that a widget update that vibrates is kept, in order, when a later update of the same widget arrives in the
+     * same batch, so its vibration is not lost.
+     */
+    @SmallTest
+    public static void testVibratingWidgetUpdateIsKept()
+    {
+        final Setting vibrating = new WidgetSetting(1, "a", "ONE", "home", new Setting.Vibration(500, 250, 2)); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        final List<Setting> fires = new ArrayList<Setting>();
+        fires.add(createWidget("a", "ZERO")); //$NON-NLS-1$ //$NON-NLS-2$
+        fires.add(vibrating);
+        fires.add(createWidget("a", "TWO")); //$NON-NLS-1$ //$NON-NLS-2$
+
+        final long collapsedBefore = FireCoalescer.getCollapsedCount();
+        final List<Setting> settings = FireCoalescer.coalesce(fires);
+
+        assertEquals(2, settings.size());
+        assertSame(vibrating, settings.get(0));
+        assertEquals("TWO", ((WidgetSetting) settings.get(1)).getLabel()); //$NON-NLS-1$
+        assertEquals(collapsedBefore + 1, FireCoalescer.getCollapsedCount());
+    }
+
+    /**
+     * Verifies that notifications are never collapsed, even when identical.
+     */
+    @SmallTest
+    public static void testNotificationsAreKept()
+    {
+        final List<Setting> fires = new ArrayList<Setting>();
+        fires.add(createNotification("hello")); //$NON-NLS-1$
+        fires.add(createNotification("hello")); //$NON-NLS-1$
+
+        final long collapsedBefore = FireCoalescer.getCollapsedCount();
+
+        assertEquals(2, FireCoalescer.coalesce(fires).size());
+        assertEquals(collapsedBefore, FireCoalescer.getCollapsedCount());
+    }
+}
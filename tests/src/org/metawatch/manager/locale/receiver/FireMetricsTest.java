@@ -0,0 +1,104 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at <http://www.apache.org/licenses/LICENSE-2.0>
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS"
+ * BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package org.metawatch.manager.locale.receiver;
+
+import android.test.suitebuilder.annotation.SmallTest;
+
+import junit.framework.TestCase;
+
+import org.metawatch.manager.locale.bundle.SettingType;
+import org.metawatch.manager.locale.receiver.FireMetrics.Stage;
+
+/**
+ * Tests {@link FireMetrics}.
+ */
+public final class FireMetricsTest extends TestCase
+{
+    /**
+     * Verifies durations land in power-of-two buckets.
+     */
+    @SmallTest
+    public static void testBuckets()
+    {
+        assertEquals(0, FireMetrics.bucket(0));
+        assertEquals(1, FireMetrics.bucket(1));
+        assertEquals(2, FireMetrics.bucket(2));
+        assertEquals(2, FireMetrics.bucket(3));
+        assertEquals(11, FireMetrics.bucket(1024));
+        assertEquals(FireMetrics.BUCKET_COUNT - 1, FireMetrics.bucket(Long.MAX_VALUE));
+
+        assertEquals(0, FireMetrics.upperBound(0));
+        assertEquals(3, FireMetrics.upperBound(2));
+    }
+
+    /**
+     * Verifies that counts, totals, maxima and percentiles are kept per stage and setting type.
+     */
+    @SmallTest
+    public static void testRecord()
+    {
+        final FireMetrics metrics = new FireMetrics();
+
+        for (int i = 0; i < 99; i++)
+        {
+            metrics.record(Stage.RENDER, SettingType.WIDGET, 1000);
+        }
+        metrics.record(Stage.RENDER, SettingType.WIDGET, 1000000);
+        metrics.record(Stage.SCRUB, SettingType.NOTIFICATION, -5);
+
+        assertEquals(100, metrics.getCount(Stage.RENDER, SettingType.WIDGET));
+        assertEquals(99 * 1000 + 1000000, metrics.getTotalNanos(Stage.RENDER, SettingType.WIDGET));
+        assertEquals(1000000, metrics.getMaxNanos(Stage.RENDER, SettingType.WIDGET));
+        assertEquals(1023, metrics.getPercentileNanos(Stage.RENDER, SettingType.WIDGET, 50));
+        assertEquals(1023, metrics.getPercentileNanos(Stage.RENDER, SettingType.WIDGET, 99));
+        assertEquals(1000000, metrics.getPercentileNanos(Stage.RENDER, SettingType.WIDGET, 100));
+
+        assertEquals(0, metrics.getCount(Stage.RENDER, SettingType.REFRESH));
+        assertEquals(0, metrics.getPercentileNanos(Stage.RENDER, SettingType.REFRESH, 50));
+        assertEquals(1, metrics.getBucketCount(Stage.SCRUB, SettingType.NOTIFICATION, 0));
+
+        assertTrue(metrics.report().startsWith("SCRUB/NOTIFICATION count=1")); //$NON-NLS-1$
+
+        metrics.reset();
+        assertEquals(0, metrics.getCount(Stage.RENDER, SettingType.WIDGET));
+        assertEquals("", metrics.report()); //$NON-NLS-1$
+    }
+
+    /**
+     * Verifies that concurrent recording loses no counts.
+     */
+    @SmallTest
+    public static void testConcurrentRecord() throws InterruptedException
+    {
+        final FireMetrics metrics = new FireMetrics();
+        final Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++)
+        {
+            threads[i] = new Thread(new Runnable()
+            {
+                public void run()
+                {
+                    for (int j = 0; j < 10000; j++)
+                    {
+                        metrics.record(Stage.SEND_BROADCAST, SettingType.SILENTMODE, j);
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        for (final Thread thread : threads)
+        {
+            thread.join();
+        }
+
+        assertEquals(40000, metrics.getCount(Stage.SEND_BROADCAST, SettingType.SILENTMODE));
+        assertEquals(9999, metrics.getMaxNanos(Stage.SEND_BROADCAST, SettingType.SILENTMODE));
+    }
+}
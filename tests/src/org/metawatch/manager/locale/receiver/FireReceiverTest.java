@@ -0,0 +1,162 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at <http://www.apache.org/licenses/LICENSE-2.0>
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS"
+ * BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package org.metawatch.manager.locale.receiver;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import android.content.Context;
+import android.content.ContextWrapper;
+import android.content.Intent;
+import android.os.Bundle;
+import android.os.Debug;
+import android.test.AndroidTestCase;
+import android.test.suitebuilder.annotation.SmallTest;
+
+import org.metawatch.manager.locale.StartupProfiler;
+import org.metawatch.manager.locale.bundle.NotificationSetting;
+import org.metawatch.manager.locale.bundle.SilentModeSetting;
+import org.metawatch.manager.locale.bundle.WidgetSetting;
+import org.metawatch.manager.locale.widget.WidgetLayout;
+import org.metawatch.manager.locale.widget.WidgetPayload;
+import org.metawatch.manager.locale.widget.WidgetSubscriptions;
+
+/**
+ * Tests {@link FireReceiver}.
+ */
+public final class FireReceiverTest extends AndroidTestCase
+{
+    /**
+     * Verifies that fire Intents with no plug-in Bundle, a null one, one of the wrong type or an empty one are received without
+     * crashing and yield no setting to apply.
+     */
+    @SmallTest
+    public void testMalformedFireIsIgnored()
+    {
+        final Intent[] fires = new Intent[]
+            {
+                new Intent(com.twofortyfouram.locale.Intent.ACTION_FIRE_SETTING),
+                new Intent(com.twofortyfouram.locale.Intent.ACTION_FIRE_SETTING).putExtra(com.twofortyfouram.locale.Intent.EXTRA_BUNDLE, (Bundle) null),
+                new Intent(com.twofortyfouram.locale.Intent.ACTION_FIRE_SETTING).putExtra(com.twofortyfouram.locale.Intent.EXTRA_BUNDLE, "test"), //$NON-NLS-1$
+                new Intent(com.twofortyfouram.locale.Intent.ACTION_FIRE_SETTING).putExtra(com.twofortyfouram.locale.Intent.EXTRA_BUNDLE, new Bundle()) };
+
+        for (final Intent fire : fires)
+        {
+            assertNull(FireReceiver.getValidSetting(fire));
+            new FireReceiver().onReceive(getContext(), fire);
+        }
+    }
+
+    /**
+     * Verifies that Intents with no action, or an action the receiver does not handle, are received without crashing or
+     * broadcasting anything.
+     */
+    @SmallTest
+    public void testUnexpectedActionIsIgnored()
+    {
+        final Intent[] intents = new Intent[]
+            { new Intent(), new Intent("org.metawatch.manager.locale.UNEXPECTED") }; //$NON-NLS-1$
+
+        final List<Intent> sent = new ArrayList<Intent>();
+        final Context context = new ContextWrapper(getContext())
+        {
+            @Override
+            public void sendBroadcast(final Intent intent)
+            {
+                sent.add(intent);
+            }
+        };
+
+        for (final Intent intent : intents)
+        {
+            FireReceiver.handleIntent(context, intent);
+            new FireReceiver().onReceive(getContext(), intent);
+        }
+        assertTrue(sent.isEmpty());
+    }
+
+    /**
+     * Verifies that notification and silent mode fires send their broadcasts without creating any lazily created component,
+     * so their cold path never loads the font, the icons or the widget store.
+     */
+    @SmallTest
+    public void testNotificationAndSilentModeSkipRenderingSetup()
+    {
+        FireReceiver.FONT.clear();
+        final int before = StartupProfiler.getLazyInitCount();
+
+        final List<Intent> outbox = new ArrayList<Intent>();
+        FireReceiver.applySetting(getContext(), new NotificationSetting(1, "title", "message", false, null), outbox); //$NON-NLS-1$ //$NON-NLS-2$
+        FireReceiver.applySetting(getContext(), new SilentModeSetting(1, true), outbox);
+
+        assertEquals(2, outbox.size());
+        assertEquals(before, StartupProfiler.getLazyInitCount());
+        assertNull(FireReceiver.FONT.peek());
+    }
+
+    /**
+     * Verifies that once the manager has listed the widgets it shows, a fire only sends those sizes.
+     */
+    @SmallTest
+    public void testWidgetSendsOnlySubscribedSizes()
+    {
+        final String id = "subscriptions" + System.nanoTime(); //$NON-NLS-1$
+        final Intent refresh = new Intent("org.metawatch.manager.REFRESH_WIDGET_REQUEST"); //$NON-NLS-1$
+        refresh.putExtra(WidgetSubscriptions.EXTRA_WIDGETS_DESIRED, new String[]
+            { WidgetLayout.LARGE.getWidgetId(id) });
+        FireReceiver.subscriptions.update(refresh);
+        try
+        {
+            final List<Intent> outbox = new ArrayList<Intent>();
+            FireReceiver.applySetting(getContext(), new WidgetSetting(1, id, "HOME", "home", null), outbox); //$NON-NLS-1$ //$NON-NLS-2$
+
+            assertEquals(1, outbox.size());
+            assertEquals(WidgetPayload.ACTION_WIDGET_UPDATE, outbox.get(0).getAction());
+            assertEquals(WidgetLayout.LARGE.getWidgetId(id), outbox.get(0).getExtras().getString("id")); //$NON-NLS-1$
+        }
+        finally
+        {
+            FireReceiver.subscriptions.clear();
+        }
+    }
+
+    /**
+     * Verifies that, once warmed up, re-firing a widget the manager already has allocates nothing, from the handler through
+     * rendering, sending and storing the widget.
+     */
+    @SmallTest
+    public void testRepeatedWidgetUpdateAllocatesNothing()
+    {
+        final WidgetSetting setting = new WidgetSetting(1, "allocation" + System.nanoTime(), "HOME", "home", null); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        final List<Intent> outbox = new ArrayList<Intent>();
+
+        for (int i = 0; i < 100; i++)
+        {
+            FireReceiver.applySetting(getContext().getApplicationContext(), setting, outbox);
+            outbox.clear();
+        }
+
+        Debug.startAllocCounting();
+        try
+        {
+            Debug.resetThreadAllocCount();
+            for (int i = 0; i < 100; i++)
+            {
+                FireReceiver.applySetting(getContext().getApplicationContext(), setting, outbox);
+            }
+            assertEquals(0, Debug.getThreadAllocCount());
+        }
+        finally
+        {
+            Debug.stopAllocCounting();
+        }
+        assertTrue(outbox.isEmpty());
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at <http://www.apache.org/licenses/LICENSE-2.0>
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS"
+ * BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package org.metawatch.manager.locale.receiver;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import android.content.BroadcastReceiver;
+import android.content.Intent;
+import android.os.Build;
+import android.os.Bundle;
+import android.test.AndroidTestCase;
+import android.test.suitebuilder.annotation.MediumTest;
+import android.util.Log;
+
+import org.metawatch.manager.locale.Constants;
+import org.metawatch.manager.locale.bundle.PluginBundleManager;
+
+/**
+ * Tests {@link ReceiverExecutor}, and measures how long {@link FireReceiver#onReceive(android.content.Context, Intent)} holds
+ * the main thread.
+ */
+public final class ReceiverExecutorTest extends AndroidTestCase
+{
+    private static final int ITERATIONS = 50;
+
+    /**
+     * Verifies that work handed to the executor runs, and that a failing piece of work does not stop later ones.
+     */
+    @MediumTest
+    public void testRunsWork() throws InterruptedException
+    {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final BroadcastReceiver receiver = new FireReceiver();
+
+        ReceiverExecutor.execute(receiver, new Runnable()
+        {
+            public void run()
+            {
+                throw new RuntimeException("expected"); //$NON-NLS-1$
+            }
+        });
+        ReceiverExecutor.execute(receiver, new Runnable()
+        {
+            public void run()
+            {
+                latch.countDown();
+            }
+        });
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Verifies that a burst of work larger than any fixed queue still runs in order, and never on the calling thread.
+     */
+    @MediumTest
+    public void testBurstStaysInOrderOffCaller() throws InterruptedException
+    {
+        if (Build.VERSION.SDK_INT < 11)
+        {
+            return;
+        }
+
+        final int count = 200;
+        final Thread caller = Thread.currentThread();
+        final List<Integer> order = Collections.synchronizedList(new ArrayList<Integer>());
+        final AtomicBoolean ranOnCaller = new AtomicBoolean();
+        final CountDownLatch latch = new CountDownLatch(count);
+        final BroadcastReceiver receiver = new FireReceiver();
+
+        for (int i = 0; i < count; i++)
+        {
+            final Integer index = Integer.valueOf(i);
+            ReceiverExecutor.execute(receiver, new Runnable()
+            {
+                public void run()
+                {
+                    if (caller == Thread.currentThread())
+                    {
+                        ranOnCaller.set(true);
+                    }
+                    order.add(index);
+                    latch.countDown();
+                }
+            });
+        }
+
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertFalse(ranOnCaller.get());
+        for (int i = 0; i < count; i++)
+        {
+            assertEquals(Integer.valueOf(i), order.get(i));
+        }
+    }
+
+    /**
+     * Fires a widget setting repeatedly and checks that, on platforms with goAsync(), onReceive() returns in well under a
+     * millisecond on average. Results are written to logcat.
+     */
+    @MediumTest
+    public void testOnReceiveLatency()
+    {
+        final Bundle bundle = new Bundle();
+        bundle.putInt(PluginBundleManager.BUNDLE_EXTRA_INT_VERSION_CODE, 1);
+        bundle.putString(PluginBundleManager.BUNDLE_EXTRA_STRING_TYPE, "widget"); //$NON-NLS-1$
+        bundle.putString(PluginBundleManager.BUNDLE_EXTRA_STRING_MESSAGE, ""); //$NON-NLS-1$
+        bundle.putString(PluginBundleManager.BUNDLE_EXTRA_STRING_TITLE, ""); //$NON-NLS-1$
+        bundle.putString(PluginBundleManager.BUNDLE_EXTRA_STRING_WIDGET_ID, "latency"); //$NON-NLS-1$
+        bundle.putString(PluginBundleManager.BUNDLE_EXTRA_STRING_WIDGET_LABEL, "HOME"); //$NON-NLS-1$
+        bundle.putString(PluginBundleManager.BUNDLE_EXTRA_STRING_WIDGET_ICON, "home"); //$NON-NLS-1$
+
+        final Intent intent = new Intent(com.twofortyfouram.locale.Intent.ACTION_FIRE_SETTING).putExtra(com.twofortyfouram.locale.Intent.EXTRA_BUNDLE, bundle);
+        final BroadcastReceiver receiver = new FireReceiver();
+
+        final long countBefore = ReceiverExecutor.getDispatchCount();
+        final long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++)
+        {
+            receiver.onReceive(getContext(), new Intent(intent));
+        }
+        final long meanMicros = (System.nanoTime() - start) / 1000 / ITERATIONS;
+
+        assertEquals(countBefore + ITERATIONS, ReceiverExecutor.getDispatchCount());
+
+        Log.i(Constants.LOG_TAG, String.format("onReceive mean=%dus executorMean=%dus executorMax=%dus", Long.valueOf(meanMicros), Long.valueOf(ReceiverExecutor.getMeanDispatchNanos() / 1000), Long.valueOf(ReceiverExecutor.getMaxDispatchNanos() / 1000))); //$NON-NLS-1$
+
+        if (Build.VERSION.SDK_INT >= 11)
+        {
+            assertTrue(String.format("mean onReceive() took %dus", Long.valueOf(meanMicros)), meanMicros < 500); //$NON-NLS-1$
+        }
+    }
+}
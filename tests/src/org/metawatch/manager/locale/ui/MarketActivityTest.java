@@ -9,7 +9,7 @@
  * governing permissions and limitations under the License.
  */
 
-package com.yourcompany.yoursetting.ui;
+package org.metawatch.manager.locale.ui;
 
 import android.test.ActivityInstrumentationTestCase2;
 import android.test.UiThreadTest;
@@ -30,7 +30,7 @@ public final class MarketActivityTest extends ActivityInstrumentationTestCase2<M
         /*
          * Using the deprecated constructor in order to support unit tests on SDK 4
          */
-        super("com.yourcompany.yoursetting", MarketActivity.class); //$NON-NLS-1$
+        super("org.metawatch.manager.locale", MarketActivity.class); //$NON-NLS-1$
     }
 
     /**
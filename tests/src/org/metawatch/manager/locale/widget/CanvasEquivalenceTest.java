@@ -0,0 +1,120 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at <http://www.apache.org/licenses/LICENSE-2.0>
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS"
+ * BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package org.metawatch.manager.locale.widget;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint.Align;
+import android.graphics.Typeface;
+import android.test.AndroidTestCase;
+import android.test.suitebuilder.annotation.MediumTest;
+import android.text.TextPaint;
+
+import org.metawatch.manager.locale.R;
+
+/**
+ * Tests that {@link WidgetRasterizer} sends the same pixels as the {@link Canvas} drawing it replaced, which decoded each icon
+ * with {@link BitmapFactory}, drew it and the label with a {@link TextPaint} into an RGB_565 bitmap, and sent the bitmap's
+ * ARGB pixels.
+ */
+public final class CanvasEquivalenceTest extends AndroidTestCase
+{
+    /**
+     * Labels drawn under every icon: none, the plug-in's own labels, the font's letters, digits and punctuation, and one too
+     * wide for either size.
+     */
+    private static final String[] LABELS = new String[]
+        { "", "HOME", "OFFICE", "QUIET 1-2", "ABCDEFGHIJKLM", "NOPQRSTUVWXYZ", "0123456789", ":.,!?-", "OUTDOORS AND AWAY" }; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$ //$NON-NLS-7$ //$NON-NLS-8$ //$NON-NLS-9$
+
+    /**
+     * Verifies that every icon, with every sample label, gives the same ARGB array at both sizes.
+     */
+    @MediumTest
+    public void testMatchesCanvas() throws IOException
+    {
+        final MonoFont font;
+        final InputStream in = getContext().getAssets().open(GlyphTable.ASSET_PATH);
+        try
+        {
+            font = GlyphTable.read(in);
+        }
+        finally
+        {
+            in.close();
+        }
+
+        final TextPaint paint = new TextPaint();
+        paint.setColor(Color.BLACK);
+        paint.setTextSize(8);
+        paint.setTypeface(Typeface.createFromAsset(getContext().getAssets(), "metawatch_8pt_5pxl_CAPS.ttf")); //$NON-NLS-1$
+        paint.setTextAlign(Align.CENTER);
+
+        for (final String icon : getContext().getResources().getStringArray(R.array.icons))
+        {
+            for (final WidgetLayout layout : new WidgetLayout[]
+                { WidgetLayout.SMALL, WidgetLayout.LARGE })
+            {
+                final String path = layout.getIconPath(icon);
+                final Bitmap iconBitmap = decodeBitmap(path);
+                final MonoBitmap iconMono = decodeMono(path);
+
+                for (final String label : LABELS)
+                {
+                    final Bitmap canvasBitmap = Bitmap.createBitmap(layout.getWidth(), layout.getHeight(), Bitmap.Config.RGB_565);
+                    final Canvas canvas = new Canvas(canvasBitmap);
+                    canvas.drawColor(Color.WHITE);
+                    canvas.drawBitmap(iconBitmap, layout.getIconX(), layout.getIconY(0 != label.length()), null);
+                    canvas.drawText(label, layout.getTextCenterX(), layout.getTextBaseline(), paint);
+                    final int[] expected = new int[layout.getWidth() * layout.getHeight()];
+                    canvasBitmap.getPixels(expected, 0, layout.getWidth(), 0, 0, layout.getWidth(), layout.getHeight());
+                    canvasBitmap.recycle();
+
+                    final MonoBitmap target = new MonoBitmap(layout.getWidth(), layout.getHeight());
+                    WidgetRasterizer.render(target, layout, iconMono, font, label);
+
+                    assertTrue(path + " \"" + label + "\"", Arrays.equals(expected, target.toArgb())); //$NON-NLS-1$ //$NON-NLS-2$
+                }
+                iconBitmap.recycle();
+            }
+        }
+    }
+
+    private Bitmap decodeBitmap(final String path) throws IOException
+    {
+        final InputStream in = getContext().getAssets().open(path);
+        try
+        {
+            return BitmapFactory.decodeStream(in);
+        }
+        finally
+        {
+            in.close();
+        }
+    }
+
+    private MonoBitmap decodeMono(final String path) throws IOException
+    {
+        final InputStream in = getContext().getAssets().open(path);
+        try
+        {
+            return BmpDecoder.decode(in);
+        }
+        finally
+        {
+            in.close();
+        }
+    }
+}
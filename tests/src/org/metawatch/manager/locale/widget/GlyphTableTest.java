@@ -0,0 +1,143 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at <http://www.apache.org/licenses/LICENSE-2.0>
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS"
+ * BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package org.metawatch.manager.locale.widget;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import android.graphics.Typeface;
+import android.test.AndroidTestCase;
+import android.test.suitebuilder.annotation.SmallTest;
+
+/**
+ * Tests {@link GlyphTable}.
+ */
+public final class GlyphTableTest extends AndroidTestCase
+{
+    /**
+     * Verifies that every glyph reads back as it was written, including missing glyphs and glyphs without ink.
+     */
+    @SmallTest
+    public static void testRoundTrip() throws IOException
+    {
+        final MonoFont.Glyph[] glyphs = new MonoFont.Glyph[4];
+        glyphs[0] = new MonoFont.Glyph(2 << 6, 0, 0, null);
+        glyphs[2] = new MonoFont.Glyph(333, -1, -5, MonoBitmapTest.createPattern(11, 6));
+        glyphs[3] = new MonoFont.Glyph(6 << 6, 1, 1, MonoBitmapTest.createPattern(1, 1));
+        final MonoFont font = new MonoFont('A', glyphs);
+
+        final MonoFont read = GlyphTable.read(new ByteArrayInputStream(write(font)));
+
+        assertEquals('A', read.getFirstChar());
+        assertEquals(glyphs.length, read.getGlyphCount());
+        assertNull(read.getGlyph('B'));
+        assertNull(read.getGlyph('A').getBitmap());
+        assertEquals(2 << 6, read.getGlyph('A').getAdvance());
+        for (char c = 'C'; c <= 'D'; c++)
+        {
+            final MonoFont.Glyph expected = font.getGlyph(c);
+            final MonoFont.Glyph actual = read.getGlyph(c);
+            assertEquals(expected.getAdvance(), actual.getAdvance());
+            assertEquals(expected.getLeft(), actual.getLeft());
+            assertEquals(expected.getTop(), actual.getTop());
+            assertEquals(expected.getBitmap().getWidth(), actual.getBitmap().getWidth());
+            assertEquals(expected.getBitmap().fingerprint(), actual.getBitmap().fingerprint());
+            assertTrue(actual.getBitmap().isReadOnly());
+        }
+    }
+
+    /**
+     * Verifies that data which is not a whole table is rejected.
+     */
+    @SmallTest
+    public static void testCorrupt() throws IOException
+    {
+        final byte[] table = write(WidgetRasterizerTest.createBlockFont());
+
+        try
+        {
+            GlyphTable.read(new ByteArrayInputStream(table, 0, table.length - 1));
+            fail();
+        }
+        catch (final IOException e)
+        {
+            // expected exception
+        }
+
+        table[0] = 'B';
+        try
+        {
+            GlyphTable.read(new ByteArrayInputStream(table));
+            fail();
+        }
+        catch (final IOException e)
+        {
+            // expected exception
+        }
+    }
+
+    /**
+     * Verifies that labels drawn from the glyph table built into the app match labels drawn from the font rasterized by the
+     * platform, which is what the widgets were drawn with before the table existed.
+     */
+    @SmallTest
+    public void testMatchesTypeface() throws IOException
+    {
+        final MonoFont table;
+        final InputStream in = getContext().getAssets().open(GlyphTable.ASSET_PATH);
+        try
+        {
+            table = GlyphTable.read(in);
+        }
+        finally
+        {
+            in.close();
+        }
+        final MonoFont typeface =
+                TypefaceGlyphs.rasterize(Typeface.createFromAsset(getContext().getAssets(), "metawatch_8pt_5pxl_CAPS.ttf"), 8); //$NON-NLS-1$
+
+        for (final String label : new String[]
+            { "HOME", "OFFICE", "QUIET 1-2", "WXYZ:.,!?" }) //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+        {
+            assertEquals(label, typeface.measure(label), table.measure(label));
+
+            final MonoBitmap expected = new MonoBitmap(48, 16);
+            typeface.drawCentered(expected, label, 24, 10);
+            final MonoBitmap actual = new MonoBitmap(48, 16);
+            table.drawCentered(actual, label, 24, 10);
+            assertEquals(label, expected.fingerprint(), actual.fingerprint());
+        }
+
+        /*
+         * The table only covers what the font file has; the platform draws the rest from other fonts
+         */
+        final MonoFont fallback = table.withFallback(typeface);
+        for (final String label : new String[]
+            { "CAF\u00C9", "$5", "~" }) //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        {
+            assertEquals(label, typeface.measure(label), fallback.measure(label));
+
+            final MonoBitmap expected = new MonoBitmap(48, 16);
+            typeface.drawCentered(expected, label, 24, 10);
+            final MonoBitmap actual = new MonoBitmap(48, 16);
+            fallback.drawCentered(actual, label, 24, 10);
+            assertEquals(label, expected.fingerprint(), actual.fingerprint());
+        }
+    }
+
+    private static byte[] write(final MonoFont font) throws IOException
+    {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        GlyphTable.write(font, out);
+        return out.toByteArray();
+    }
+}
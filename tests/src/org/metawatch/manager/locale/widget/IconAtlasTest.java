@@ -0,0 +1,98 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at <http://www.apache.org/licenses/LICENSE-2.0>
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS"
+ * BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package org.metawatch.manager.locale.widget;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import android.test.suitebuilder.annotation.SmallTest;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests {@link IconAtlas}.
+ */
+public final class IconAtlasTest extends TestCase
+{
+    /**
+     * Verifies that icons read back with the same paths, order, sizes and pixels.
+     */
+    @SmallTest
+    public static void testRoundTrip() throws IOException
+    {
+        final Map<String, MonoBitmap> icons = new LinkedHashMap<String, MonoBitmap>();
+        icons.put("home.bmp", MonoBitmapTest.createPattern(24, 18)); //$NON-NLS-1$
+        icons.put("home_10.bmp", MonoBitmapTest.createPattern(11, 10)); //$NON-NLS-1$
+        icons.put("empty.bmp", new MonoBitmap(0, 0)); //$NON-NLS-1$
+
+        final byte[] atlas = write(icons);
+
+        /*
+         * Read from the middle of a larger array
+         */
+        final byte[] data = new byte[atlas.length + 8];
+        System.arraycopy(atlas, 0, data, 4, atlas.length);
+        final Map<String, MonoBitmap> read = IconAtlas.read(data, 4, atlas.length);
+
+        assertEquals(icons.size(), read.size());
+        final Iterator<Map.Entry<String, MonoBitmap>> iterator = read.entrySet().iterator();
+        for (final Map.Entry<String, MonoBitmap> expected : icons.entrySet())
+        {
+            final Map.Entry<String, MonoBitmap> actual = iterator.next();
+            assertEquals(expected.getKey(), actual.getKey());
+            assertEquals(expected.getValue().getWidth(), actual.getValue().getWidth());
+            assertEquals(expected.getValue().getHeight(), actual.getValue().getHeight());
+            assertEquals(expected.getValue().fingerprint(), actual.getValue().fingerprint());
+            assertTrue(actual.getValue().isReadOnly());
+        }
+    }
+
+    /**
+     * Verifies that data which is not a whole atlas is rejected.
+     */
+    @SmallTest
+    public static void testCorrupt() throws IOException
+    {
+        final Map<String, MonoBitmap> icons = new LinkedHashMap<String, MonoBitmap>();
+        icons.put("home.bmp", MonoBitmapTest.createPattern(24, 18)); //$NON-NLS-1$
+        final byte[] atlas = write(icons);
+
+        try
+        {
+            IconAtlas.read(atlas, 0, atlas.length - 1);
+            fail();
+        }
+        catch (final IOException e)
+        {
+            // expected exception
+        }
+
+        atlas[0] = 'B';
+        try
+        {
+            IconAtlas.read(atlas, 0, atlas.length);
+            fail();
+        }
+        catch (final IOException e)
+        {
+            // expected exception
+        }
+    }
+
+    private static byte[] write(final Map<String, MonoBitmap> icons) throws IOException
+    {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        IconAtlas.write(icons, out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at <http://www.apache.org/licenses/LICENSE-2.0>
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS"
+ * BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package org.metawatch.manager.locale.widget;
+
+import java.util.zip.CRC32;
+
+import android.test.suitebuilder.annotation.SmallTest;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests {@link MonoBitmap}. These tests have no Android dependencies beyond the annotations, so they also run on a plain JVM.
+ */
+public final class MonoBitmapTest extends TestCase
+{
+    /**
+     * Verifies that blitting at every offset, including partly off each edge, matches a pixel by pixel copy.
+     */
+    @SmallTest
+    public static void testBlitMatchesPixelCopy()
+    {
+        final MonoBitmap src = new MonoBitmap(11, 5);
+        for (int y = 0; y < src.getHeight(); y++)
+        {
+            for (int x = 0; x < src.getWidth(); x++)
+            {
+                src.set(x, y, 0 != ((x * 7 + y * 3) % 4));
+            }
+        }
+
+        for (int dy = -6; dy <= 18; dy++)
+        {
+            for (int dx = -12; dx <= 18; dx++)
+            {
+                final MonoBitmap actual = new MonoBitmap(17, 16);
+                actual.blit(src, dx, dy);
+
+                final MonoBitmap expected = new MonoBitmap(17, 16);
+                for (int y = 0; y < src.getHeight(); y++)
+                {
+                    for (int x = 0; x < src.getWidth(); x++)
+                    {
+                        if (src.get(x, y))
+                        {
+                            expected.set(dx + x, dy + y, true);
+                        }
+                    }
+                }
+
+                for (int y = 0; y < 16; y++)
+                {
+                    for (int x = 0; x < 17; x++)
+                    {
+                        assertEquals(String.format("(%d,%d) blit at (%d,%d)", Integer.valueOf(x), Integer.valueOf(y), Integer.valueOf(dx), Integer.valueOf(dy)), expected.get(x, y), actual.get(x, y)); //$NON-NLS-1$
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Verifies the ARGB expansion uses the colors getPixels() returns for an RGB_565 bitmap.
+     */
+    @SmallTest
+    public static void testToArgb()
+    {
+        final MonoBitmap bitmap = new MonoBitmap(9, 2);
+        bitmap.set(0, 0, true);
+        bitmap.set(8, 1, true);
+
+        final int[] pixels = bitmap.toArgb();
+        assertEquals(18, pixels.length);
+        assertEquals(MonoBitmap.ARGB_BLACK, pixels[0]);
+        assertEquals(MonoBitmap.ARGB_WHITE, pixels[1]);
+        assertEquals(MonoBitmap.ARGB_WHITE, pixels[16]);
+        assertEquals(MonoBitmap.ARGB_BLACK, pixels[17]);
+    }
+
+    /**
+     * @return a bitmap of the given size with an irregular pattern, so that every bit position of a packed byte is exercised.
+     */
+    static MonoBitmap createPattern(final int width, final int height)
+    {
+        final MonoBitmap bitmap = new MonoBitmap(width, height);
+        for (int y = 0; y < height; y++)
+        {
+            for (int x = 0; x < width; x++)
+            {
+                bitmap.set(x, y, 0 == ((x * x + y * 3 + x * y) % 5));
+            }
+        }
+        return bitmap;
+    }
+
+    /**
+     * @return CRC-32 of the ARGB pixels, each written most significant byte first.
+     */
+    static long argbChecksum(final int[] pixels)
+    {
+        final CRC32 crc = new CRC32();
+        for (final int pixel : pixels)
+        {
+            crc.update(pixel >>> 24);
+            crc.update(pixel >>> 16);
+            crc.update(pixel >>> 8);
+            crc.update(pixel);
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * Verifies the ARGB expansion against checksums computed outside this code, from the pixels {@code Bitmap.getPixels()}
+     * returns for the pattern drawn black on white into an RGB_565 bitmap, as the widgets were before the rasterizer: 0xFF000000
+     * for black and 0xFFFFFFFF for white. {@link CanvasEquivalenceTest} compares against the Canvas itself, on a device. Widths
+     * that are not a multiple of eight cover the partial last byte.
+     */
+    @SmallTest
+    public static void testToArgbGolden()
+    {
+        assertEquals(0xAC232CCCL, argbChecksum(createPattern(16, 16).toArgb()));
+        assertEquals(0x9CC49BFEL, argbChecksum(createPattern(24, 32).toArgb()));
+        assertEquals(0x2DA4F9B3L, argbChecksum(createPattern(13, 7).toArgb()));
+        assertEquals(0xFF41D9EDL, argbChecksum(createPattern(1, 1).toArgb()));
+        assertEquals(0xD0FDDCDEL, argbChecksum(createPattern(96, 96).toArgb()));
+    }
+
+    /**
+     * Verifies that every width from 0 to 17 expands to the pixels {@link MonoBitmap#get(int, int)} reports.
+     */
+    @SmallTest
+    public static void testToArgbMatchesGet()
+    {
+        for (int width = 0; width <= 17; width++)
+        {
+            final MonoBitmap bitmap = createPattern(width, 3);
+            final int[] pixels = bitmap.toArgb();
+            for (int y = 0; y < 3; y++)
+            {
+                for (int x = 0; x < width; x++)
+                {
+                    assertEquals(bitmap.get(x, y) ? MonoBitmap.ARGB_BLACK : MonoBitmap.ARGB_WHITE, pixels[y * width + x]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Verifies that a read-only bitmap rejects changes.
+     */
+    @SmallTest
+    public static void testReadOnly()
+    {
+        final MonoBitmap bitmap = new MonoBitmap(8, 8).makeReadOnly();
+        try
+        {
+            bitmap.set(0, 0, true);
+            fail();
+        }
+        catch (final IllegalStateException e)
+        {
+            // expected exception
+        }
+    }
+}
@@ -0,0 +1,306 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at <http://www.apache.org/licenses/LICENSE-2.0>
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS"
+ * BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package org.metawatch.manager.locale.widget;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import android.test.suitebuilder.annotation.SmallTest;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests {@link ParallelRenderer}.
+ */
+public final class ParallelRendererTest extends TestCase
+{
+    /**
+     * Verifies that results come back in task order even when later tasks finish first.
+     */
+    @SmallTest
+    public static void testOrder() throws InterruptedException
+    {
+        final List<Callable<Integer>> tasks = new ArrayList<Callable<Integer>>();
+        for (int i = 0; i < 8; i++)
+        {
+            final int index = i;
+            tasks.add(new Callable<Integer>()
+            {
+                public Integer call() throws InterruptedException
+                {
+                    Thread.sleep(5 * (8 - index));
+                    return Integer.valueOf(index);
+                }
+            });
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try
+        {
+            final List<Integer> results = ParallelRenderer.invokeAll(executor, tasks);
+            assertEquals(8, results.size());
+            for (int i = 0; i < 8; i++)
+            {
+                assertEquals(Integer.valueOf(i), results.get(i));
+            }
+            assertEquals(ParallelRenderer.invokeAll(null, tasks), results);
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Verifies that without an executor the tasks run on the calling thread.
+     */
+    @SmallTest
+    public static void testInline() throws InterruptedException
+    {
+        final Thread caller = Thread.currentThread();
+        final List<Callable<Boolean>> tasks = new ArrayList<Callable<Boolean>>();
+        for (int i = 0; i < 3; i++)
+        {
+            tasks.add(new Callable<Boolean>()
+            {
+                public Boolean call()
+                {
+                    return Boolean.valueOf(caller == Thread.currentThread());
+                }
+            });
+        }
+
+        assertEquals(Collections.nCopies(3, Boolean.TRUE), ParallelRenderer.invokeAll(null, tasks));
+    }
+
+    /**
+     * Verifies that an exception thrown by a task reaches the caller, wrapped only if it is checked.
+     */
+    @SmallTest
+    public static void testException() throws InterruptedException
+    {
+        final IllegalStateException failure = new IllegalStateException();
+        final List<Callable<Object>> tasks = new ArrayList<Callable<Object>>();
+        tasks.add(new Callable<Object>()
+        {
+            public Object call()
+            {
+                return null;
+            }
+        });
+        tasks.add(new Callable<Object>()
+        {
+            public Object call()
+            {
+                throw failure;
+            }
+        });
+
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try
+        {
+            for (final ExecutorService e : new ExecutorService[]
+                { null, executor })
+            {
+                try
+                {
+                    ParallelRenderer.invokeAll(e, tasks);
+                    fail();
+                }
+                catch (final IllegalStateException expected)
+                {
+                    assertSame(failure, expected);
+                }
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+
+        final Exception checked = new Exception();
+        try
+        {
+            ParallelRenderer.invokeAll(null, Collections.singletonList(new Callable<Object>()
+            {
+                public Object call() throws Exception
+                {
+                    throw checked;
+                }
+            }));
+            fail();
+        }
+        catch (final RuntimeException e)
+        {
+            assertSame(checked, e.getCause());
+        }
+    }
+
+    /**
+     * Verifies that the thread count stays between one and the number of tasks, and below the cap.
+     */
+    @SmallTest
+    public static void testThreadCount()
+    {
+        assertEquals(1, ParallelRenderer.getThreadCount(0));
+        assertEquals(1, ParallelRenderer.getThreadCount(1));
+        assertTrue(ParallelRenderer.getThreadCount(2) <= 2);
+        assertTrue(ParallelRenderer.getThreadCount(100) <= ParallelRenderer.MAX_THREADS);
+        assertTrue(ParallelRenderer.getThreadCount(100) <= Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Verifies that a refresh keeps store order when stored and rendered widgets are mixed, and only renders on the executor
+     * the widgets that have no stored pixels.
+     */
+    @SmallTest
+    public static void testRefreshOrder() throws InterruptedException
+    {
+        final Thread caller = Thread.currentThread();
+        final List<WidgetStore.Entry> entries = createEntries("s0", "r1", "s2", "r3", "r4", "s5"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$
+        final List<String> renders = Collections.synchronizedList(new ArrayList<String>());
+        final CountingExecutor executor = new CountingExecutor();
+        try
+        {
+            final List<String> outbox = new ArrayList<String>();
+            final int rendered = ParallelRenderer.refresh(executor, entries, new ParallelRenderer.WidgetSender<String>()
+            {
+                public boolean sendStored(final WidgetStore.Entry entry, final List<String> widgetOutbox)
+                {
+                    assertSame(caller, Thread.currentThread());
+                    if (entry.getId().startsWith("r")) //$NON-NLS-1$
+                    {
+                        return false;
+                    }
+                    widgetOutbox.add(entry.getId());
+                    return true;
+                }
+
+                public void render(final WidgetStore.Entry entry, final List<String> widgetOutbox)
+                {
+                    renders.add(entry.getId());
+                    widgetOutbox.add(entry.getId() + "a"); //$NON-NLS-1$
+                    widgetOutbox.add(entry.getId() + "b"); //$NON-NLS-1$
+                }
+            }, outbox);
+
+            assertEquals(3, rendered);
+            assertEquals(Arrays.asList("s0", "r1a", "r1b", "s2", "r3a", "r3b", "r4a", "r4b", "s5"), outbox); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$ //$NON-NLS-7$ //$NON-NLS-8$ //$NON-NLS-9$
+            assertEquals(3, executor.mSubmitted);
+            assertEquals(3, renders.size());
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Verifies that a refresh with fewer than two widgets to render leaves the executor alone.
+     */
+    @SmallTest
+    public static void testRefreshInline() throws InterruptedException
+    {
+        final Thread caller = Thread.currentThread();
+        final CountingExecutor executor = new CountingExecutor();
+        try
+        {
+            for (final String renderedId : new String[]
+                { null, "w1" }) //$NON-NLS-1$
+            {
+                final List<String> outbox = new ArrayList<String>();
+                final int rendered = ParallelRenderer.refresh(executor, createEntries("w0", "w1", "w2"), new ParallelRenderer.WidgetSender<String>() //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+                {
+                    public boolean sendStored(final WidgetStore.Entry entry, final List<String> widgetOutbox)
+                    {
+                        if (entry.getId().equals(renderedId))
+                        {
+                            return false;
+                        }
+                        widgetOutbox.add(entry.getId());
+                        return true;
+                    }
+
+                    public void render(final WidgetStore.Entry entry, final List<String> widgetOutbox)
+                    {
+                        assertSame(caller, Thread.currentThread());
+                        widgetOutbox.add(entry.getId());
+                    }
+                }, outbox);
+
+                assertEquals(null == renderedId ? 0 : 1, rendered);
+                assertEquals(Arrays.asList("w0", "w1", "w2"), outbox); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+            }
+            assertEquals(0, executor.mSubmitted);
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    private static List<WidgetStore.Entry> createEntries(final String... ids)
+    {
+        final List<WidgetStore.Entry> entries = new ArrayList<WidgetStore.Entry>(ids.length);
+        for (final String id : ids)
+        {
+            entries.add(new WidgetStore.Entry("home", id, "HOME")); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+        return entries;
+    }
+
+    /**
+     * Runs tasks on a pool and counts them.
+     */
+    private static final class CountingExecutor extends AbstractExecutorService
+    {
+        private final ExecutorService mPool = Executors.newFixedThreadPool(2);
+
+        volatile int mSubmitted;
+
+        public void execute(final Runnable command)
+        {
+            mSubmitted++;
+            mPool.execute(command);
+        }
+
+        public void shutdown()
+        {
+            mPool.shutdown();
+        }
+
+        public List<Runnable> shutdownNow()
+        {
+            return mPool.shutdownNow();
+        }
+
+        public boolean isShutdown()
+        {
+            return mPool.isShutdown();
+        }
+
+        public boolean isTerminated()
+        {
+            return mPool.isTerminated();
+        }
+
+        public boolean awaitTermination(final long timeout, final TimeUnit unit) throws InterruptedException
+        {
+            return mPool.awaitTermination(timeout, unit);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at <http://www.apache.org/licenses/LICENSE-2.0>
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS"
+ * BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package org.metawatch.manager.locale.widget;
+
+import android.test.suitebuilder.annotation.SmallTest;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests {@link WidgetFingerprints}.
+ */
+public final class WidgetFingerprintsTest extends TestCase
+{
+    /**
+     * Verifies that only the first of several identical updates is sent, unless forced.
+     */
+    @SmallTest
+    public static void testSuppressesDuplicates()
+    {
+        final WidgetFingerprints fingerprints = new WidgetFingerprints();
+        final MonoBitmap bitmap = new MonoBitmap(16, 16);
+        bitmap.set(3, 4, true);
+
+        assertTrue(fingerprints.shouldSend("a_16_16", bitmap, WidgetPayload.FORMAT_ARGB, false)); //$NON-NLS-1$
+        assertFalse(fingerprints.shouldSend("a_16_16", bitmap, WidgetPayload.FORMAT_ARGB, false)); //$NON-NLS-1$
+        assertTrue(fingerprints.shouldSend("a_16_16", bitmap, WidgetPayload.FORMAT_ARGB, true)); //$NON-NLS-1$
+        assertTrue(fingerprints.shouldSend("b_16_16", bitmap, WidgetPayload.FORMAT_ARGB, false)); //$NON-NLS-1$
+        assertEquals(1, fingerprints.suppressedCount());
+    }
+
+    /**
+     * Verifies that a change of pixels or of format is sent.
+     */
+    @SmallTest
+    public static void testSendsChanges()
+    {
+        final WidgetFingerprints fingerprints = new WidgetFingerprints();
+        final MonoBitmap bitmap = new MonoBitmap(16, 16);
+
+        assertTrue(fingerprints.shouldSend("a_16_16", bitmap, WidgetPayload.FORMAT_ARGB, false)); //$NON-NLS-1$
+        bitmap.set(0, 0, true);
+        assertTrue(fingerprints.shouldSend("a_16_16", bitmap, WidgetPayload.FORMAT_ARGB, false)); //$NON-NLS-1$
+        assertTrue(fingerprints.shouldSend("a_16_16", bitmap, WidgetPayload.FORMAT_PACKED_1BPP, false)); //$NON-NLS-1$
+
+        fingerprints.clear();
+        assertTrue(fingerprints.shouldSend("a_16_16", bitmap, WidgetPayload.FORMAT_PACKED_1BPP, false)); //$NON-NLS-1$
+    }
+}
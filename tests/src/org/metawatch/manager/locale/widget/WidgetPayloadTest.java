@@ -0,0 +1,151 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at <http://www.apache.org/licenses/LICENSE-2.0>
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS"
+ * BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package org.metawatch.manager.locale.widget;
+
+import android.content.Intent;
+import android.os.Bundle;
+import android.os.Parcel;
+import android.test.AndroidTestCase;
+import android.test.suitebuilder.annotation.MediumTest;
+import android.test.suitebuilder.annotation.SmallTest;
+import android.util.Log;
+
+import org.metawatch.manager.locale.Constants;
+
+/**
+ * Tests {@link WidgetPayload}, and measures the parcel size and marshalling time of both pixel formats.
+ */
+public final class WidgetPayloadTest extends AndroidTestCase
+{
+    private static final int ITERATIONS = 2000;
+
+    private static MonoBitmap createCheckerboard(final int width, final int height)
+    {
+        final MonoBitmap bitmap = new MonoBitmap(width, height);
+        for (int y = 0; y < height; y++)
+        {
+            for (int x = 0; x < width; x++)
+            {
+                bitmap.set(x, y, 0 == ((x + y) & 1));
+            }
+        }
+        return bitmap;
+    }
+
+    /**
+     * Verifies the legacy payload is unchanged: ARGB ints and no format extra.
+     */
+    @SmallTest
+    public static void testLegacyPayload()
+    {
+        final MonoBitmap bitmap = createCheckerboard(24, 32);
+        final Bundle extras = WidgetPayload.createUpdateIntent(bitmap, WidgetPayload.FORMAT_ARGB, "id", "desc", 1).getExtras(); //$NON-NLS-1$ //$NON-NLS-2$
+
+        assertFalse(extras.containsKey(WidgetPayload.EXTRA_FORMAT));
+        assertFalse(extras.containsKey(WidgetPayload.EXTRA_BITS));
+
+        final int[] pixels = extras.getIntArray(WidgetPayload.EXTRA_ARRAY);
+        assertEquals(24 * 32, pixels.length);
+        assertEquals(MonoBitmap.ARGB_BLACK, pixels[0]);
+        assertEquals(MonoBitmap.ARGB_WHITE, pixels[1]);
+    }
+
+    /**
+     * Verifies the legacy pixels byte for byte against the checksum of what {@code Bitmap.getPixels()} returns for the same
+     * pattern drawn black on white into an RGB_565 bitmap, computed outside this code. See
+     * {@link MonoBitmapTest#testToArgbGolden()}.
+     */
+    @SmallTest
+    public static void testLegacyPayloadGolden()
+    {
+        final MonoBitmap bitmap = MonoBitmapTest.createPattern(24, 32);
+        final Bundle extras = WidgetPayload.createUpdateIntent(bitmap, WidgetPayload.FORMAT_ARGB, "id", "desc", 1).getExtras(); //$NON-NLS-1$ //$NON-NLS-2$
+
+        assertEquals(0x9CC49BFEL, MonoBitmapTest.argbChecksum(extras.getIntArray(WidgetPayload.EXTRA_ARRAY)));
+    }
+
+    /**
+     * Verifies the packed payload carries the bitplane at 1 bit per pixel, with its format.
+     */
+    @SmallTest
+    public static void testPackedPayload()
+    {
+        final MonoBitmap bitmap = createCheckerboard(24, 32);
+        final Bundle extras = WidgetPayload.createUpdateIntent(bitmap, WidgetPayload.FORMAT_PACKED_1BPP, "id", "desc", 1).getExtras(); //$NON-NLS-1$ //$NON-NLS-2$
+
+        assertEquals(WidgetPayload.FORMAT_PACKED_1BPP, extras.getString(WidgetPayload.EXTRA_FORMAT));
+        assertFalse(extras.containsKey(WidgetPayload.EXTRA_ARRAY));
+
+        final byte[] bits = extras.getByteArray(WidgetPayload.EXTRA_BITS);
+        assertEquals(96, bits.length);
+        assertEquals((byte) 0xAA, bits[0]);
+        assertEquals((byte) 0x55, bits[3]);
+    }
+
+    /**
+     * Verifies the packed format is only used when the manager asks for it.
+     */
+    @SmallTest
+    public static void testNegotiateFormat()
+    {
+        final Intent legacy = new Intent("org.metawatch.manager.REFRESH_WIDGET_REQUEST"); //$NON-NLS-1$
+        assertEquals(WidgetPayload.FORMAT_ARGB, WidgetPayload.negotiateFormat(legacy));
+
+        final Intent packed = new Intent("org.metawatch.manager.REFRESH_WIDGET_REQUEST"); //$NON-NLS-1$
+        packed.putExtra(WidgetPayload.EXTRA_SUPPORTED_FORMATS, new String[]
+            { "other", WidgetPayload.FORMAT_PACKED_1BPP }); //$NON-NLS-1$
+        assertEquals(WidgetPayload.FORMAT_PACKED_1BPP, WidgetPayload.negotiateFormat(packed));
+    }
+
+    /**
+     * Measures the parcelled size of both formats, and the time to marshal and unmarshal them, which is the work the binder
+     * transaction does on each side. Results are written to logcat.
+     */
+    @MediumTest
+    public static void testMeasureParcelSize()
+    {
+        final MonoBitmap bitmap = createCheckerboard(24, 32);
+
+        final int legacySize = measure(WidgetPayload.createUpdateIntent(bitmap, WidgetPayload.FORMAT_ARGB, "localeMWM_test_24_32", "Locale Plugin Widget (24x32)", 1)); //$NON-NLS-1$ //$NON-NLS-2$
+        final int packedSize = measure(WidgetPayload.createUpdateIntent(bitmap, WidgetPayload.FORMAT_PACKED_1BPP, "localeMWM_test_24_32", "Locale Plugin Widget (24x32)", 1)); //$NON-NLS-1$ //$NON-NLS-2$
+
+        assertTrue(String.format("packed %d bytes, legacy %d bytes", Integer.valueOf(packedSize), Integer.valueOf(legacySize)), packedSize + 2900 < legacySize); //$NON-NLS-1$
+    }
+
+    private static int measure(final Intent intent)
+    {
+        final Bundle extras = intent.getExtras();
+
+        final Parcel sizing = Parcel.obtain();
+        sizing.writeBundle(extras);
+        final int size = sizing.dataSize();
+        sizing.recycle();
+
+        final long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++)
+        {
+            final Parcel parcel = Parcel.obtain();
+            parcel.writeBundle(new Bundle(extras));
+            final byte[] data = parcel.marshall();
+            parcel.recycle();
+
+            final Parcel reader = Parcel.obtain();
+            reader.unmarshall(data, 0, data.length);
+            reader.setDataPosition(0);
+            reader.readBundle().size();
+            reader.recycle();
+        }
+        final long micros = (System.nanoTime() - start) / 1000 / ITERATIONS;
+
+        Log.i(Constants.LOG_TAG, String.format("format=%s parcelBytes=%d marshalAndUnmarshalMicros=%d", extras.getString(WidgetPayload.EXTRA_FORMAT), Integer.valueOf(size), Long.valueOf(micros))); //$NON-NLS-1$
+
+        return size;
+    }
+}
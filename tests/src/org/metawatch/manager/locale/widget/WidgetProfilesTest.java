@@ -0,0 +1,113 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at <http://www.apache.org/licenses/LICENSE-2.0>
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS"
+ * BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package org.metawatch.manager.locale.widget;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import android.test.AndroidTestCase;
+import android.test.suitebuilder.annotation.SmallTest;
+
+/**
+ * Tests {@link WidgetProfiles}.
+ */
+public final class WidgetProfilesTest extends AndroidTestCase
+{
+    /**
+     * Verifies that profiles are read in order with every attribute.
+     */
+    @SmallTest
+    public static void testRead() throws IOException
+    {
+        final WidgetLayout[] layouts = read("<profiles>" //$NON-NLS-1$
+                + "<profile width=\"96\" height=\"32\" iconSuffix=\".bmp\" iconX=\"4\" iconY=\"7\" iconYWithoutLabel=\"7\"" //$NON-NLS-1$
+                + " textCenterX=\"60\" textBaseline=\" 19 \" />" //$NON-NLS-1$
+                + "<profile width=\"16\" height=\"16\" iconSuffix=\"_10.bmp\" iconX=\"2\" iconY=\"0\" iconYWithoutLabel=\"3\"" //$NON-NLS-1$
+                + " textCenterX=\"8\" textBaseline=\"16\" />" //$NON-NLS-1$
+                + "</profiles>"); //$NON-NLS-1$
+
+        assertEquals(2, layouts.length);
+        assertEquals(96, layouts[0].getWidth());
+        assertEquals(32, layouts[0].getHeight());
+        assertEquals("home.bmp", layouts[0].getIconPath("home")); //$NON-NLS-1$ //$NON-NLS-2$
+        assertEquals(4, layouts[0].getIconX());
+        assertEquals(7, layouts[0].getIconY(true));
+        assertEquals(60, layouts[0].getTextCenterX());
+        assertEquals(19, layouts[0].getTextBaseline());
+        assertEquals(WidgetLayout.SMALL.getWidgetId("a"), layouts[1].getWidgetId("a")); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+    /**
+     * Verifies that missing or invalid attributes, duplicate sizes and files without profiles are rejected.
+     */
+    @SmallTest
+    public static void testInvalid()
+    {
+        final String profile = "<profile width=\"16\" height=\"16\" iconSuffix=\"_10.bmp\" iconX=\"2\" iconY=\"0\"" //$NON-NLS-1$
+                + " iconYWithoutLabel=\"3\" textCenterX=\"8\" textBaseline=\"16\" />"; //$NON-NLS-1$
+
+        for (final String xml : new String[]
+            {
+                "<profiles />", //$NON-NLS-1$
+                "<profiles>" + profile + profile + "</profiles>", //$NON-NLS-1$ //$NON-NLS-2$
+                "<profiles>" + profile.replace("iconX=\"2\" ", "") + "</profiles>", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+                "<profiles>" + profile.replace("\"3\"", "\"three\"") + "</profiles>", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+                "<profiles>" + profile.replace("width=\"16\"", "width=\"0\"") + "</profiles>", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+                "<profiles>" + profile }) //$NON-NLS-1$
+        {
+            try
+            {
+                read(xml);
+                fail(xml);
+            }
+            catch (final IOException e)
+            {
+                // expected exception
+            }
+        }
+    }
+
+    /**
+     * Verifies that the profiles built into the app declare the same sizes as {@link WidgetProfiles#getDefaults()}.
+     */
+    @SmallTest
+    public void testAssetMatchesDefaults() throws IOException
+    {
+        final WidgetLayout[] layouts;
+        final InputStream in = getContext().getAssets().open(WidgetProfiles.ASSET_PATH);
+        try
+        {
+            layouts = WidgetProfiles.read(in);
+        }
+        finally
+        {
+            in.close();
+        }
+
+        final WidgetLayout[] defaults = WidgetProfiles.getDefaults();
+        assertEquals(defaults.length, layouts.length);
+        for (int i = 0; i < defaults.length; i++)
+        {
+            assertEquals(defaults[i].getDescription(), layouts[i].getDescription());
+            assertEquals(defaults[i].getIconPath(""), layouts[i].getIconPath("")); //$NON-NLS-1$ //$NON-NLS-2$
+            assertEquals(defaults[i].getIconX(), layouts[i].getIconX());
+            assertEquals(defaults[i].getIconY(true), layouts[i].getIconY(true));
+            assertEquals(defaults[i].getIconY(false), layouts[i].getIconY(false));
+            assertEquals(defaults[i].getTextCenterX(), layouts[i].getTextCenterX());
+            assertEquals(defaults[i].getTextBaseline(), layouts[i].getTextBaseline());
+        }
+    }
+
+    private static WidgetLayout[] read(final String xml) throws IOException
+    {
+        return WidgetProfiles.read(new ByteArrayInputStream(xml.getBytes("UTF-8"))); //$NON-NLS-1$
+    }
+}
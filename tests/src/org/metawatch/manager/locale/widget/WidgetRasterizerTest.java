@@ -0,0 +1,202 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at <http://www.apache.org/licenses/LICENSE-2.0>
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS"
+ * BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package org.metawatch.manager.locale.widget;
+
+import java.io.IOException;
+
+import android.test.suitebuilder.annotation.SmallTest;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests {@link WidgetRasterizer} and {@link BmpDecoder}. These tests have no Android dependencies beyond the annotations, so
+ * they also run on a plain JVM.
+ */
+public final class WidgetRasterizerTest extends TestCase
+{
+    /**
+     * Builds a 1-bit bottom-up BMP with a black and white palette.
+     */
+    static byte[] createBmp(final boolean[][] rows)
+    {
+        final int height = rows.length;
+        final int width = rows[0].length;
+        final int rowSize = ((width + 31) >> 5) << 2;
+        final byte[] data = new byte[62 + rowSize * height];
+
+        data[0] = 'B';
+        data[1] = 'M';
+        putInt(data, 2, data.length);
+        putInt(data, 10, 62);
+        putInt(data, 14, 40);
+        putInt(data, 18, width);
+        putInt(data, 22, height);
+        data[26] = 1;
+        data[28] = 1;
+        putInt(data, 46, 2);
+        /* palette entry 0 is black, entry 1 is white */
+        data[58] = (byte) 0xFF;
+        data[59] = (byte) 0xFF;
+        data[60] = (byte) 0xFF;
+
+        for (int y = 0; y < height; y++)
+        {
+            final int offset = 62 + rowSize * (height - 1 - y);
+            for (int x = 0; x < width; x++)
+            {
+                if (!rows[y][x])
+                {
+                    data[offset + (x >> 3)] |= 0x80 >>> (x & 7);
+                }
+            }
+        }
+        return data;
+    }
+
+    private static void putInt(final byte[] data, final int offset, final int value)
+    {
+        data[offset] = (byte) value;
+        data[offset + 1] = (byte) (value >> 8);
+        data[offset + 2] = (byte) (value >> 16);
+        data[offset + 3] = (byte) (value >> 24);
+    }
+
+    /**
+     * @return a font where every glyph is a 3x5 block sitting on the baseline with a 4 pixel advance.
+     */
+    static MonoFont createBlockFont()
+    {
+        final MonoFont.Glyph[] glyphs = new MonoFont.Glyph['Z' - ' ' + 1];
+        glyphs[0] = new MonoFont.Glyph(4 << 6, 0, 0, null);
+        for (int i = 1; i < glyphs.length; i++)
+        {
+            final MonoBitmap ink = new MonoBitmap(3, 5);
+            for (int y = 0; y < 5; y++)
+            {
+                for (int x = 0; x < 3; x++)
+                {
+                    ink.set(x, y, true);
+                }
+            }
+            glyphs[i] = new MonoFont.Glyph(4 << 6, 0, -5, ink);
+        }
+        return new MonoFont(' ', glyphs);
+    }
+
+    /**
+     * Verifies that a 1-bit BMP decodes with its rows the right way up and its palette applied.
+     */
+    @SmallTest
+    public static void testDecodeBmp() throws IOException
+    {
+        final boolean[][] rows = new boolean[][]
+            {
+                { true, false, false },
+                { false, true, true } };
+        final MonoBitmap bitmap = BmpDecoder.decode(createBmp(rows), 0, createBmp(rows).length);
+
+        assertEquals(3, bitmap.getWidth());
+        assertEquals(2, bitmap.getHeight());
+        for (int y = 0; y < 2; y++)
+        {
+            for (int x = 0; x < 3; x++)
+            {
+                assertEquals(rows[y][x], bitmap.get(x, y));
+            }
+        }
+    }
+
+    /**
+     * Verifies that the icon moves down when there is no label, as in the original layouts.
+     */
+    @SmallTest
+    public static void testIconPlacement()
+    {
+        final MonoBitmap icon = new MonoBitmap(1, 1);
+        icon.set(0, 0, true);
+
+        final MonoBitmap target = new MonoBitmap(16, 16);
+        WidgetRasterizer.render(target, WidgetLayout.SMALL, icon, createBlockFont(), ""); //$NON-NLS-1$
+        assertTrue(target.get(2, 3));
+
+        WidgetRasterizer.render(target, WidgetLayout.SMALL, icon, createBlockFont(), "A"); //$NON-NLS-1$
+        assertFalse(target.get(2, 3));
+        assertTrue(target.get(2, 0));
+
+        final MonoBitmap large = new MonoBitmap(24, 32);
+        WidgetRasterizer.render(large, WidgetLayout.LARGE, icon, createBlockFont(), ""); //$NON-NLS-1$
+        assertTrue(large.get(0, 7));
+    }
+
+    /**
+     * Verifies that labels are centred the way Paint.Align.CENTER centres them, with glyphs sitting on the baseline.
+     */
+    @SmallTest
+    public static void testLabelCentering()
+    {
+        final MonoBitmap target = new MonoBitmap(16, 16);
+
+        /*
+         * "AB" is 8 pixels wide, so it starts at 8 - 4 = 4
+         */
+        WidgetRasterizer.render(target, WidgetLayout.SMALL, null, createBlockFont(), "AB"); //$NON-NLS-1$
+        assertFalse(target.get(3, 15));
+        assertTrue(target.get(4, 15));
+        assertTrue(target.get(4, 11));
+        assertFalse(target.get(4, 10));
+        assertTrue(target.get(10, 15));
+        assertFalse(target.get(11, 15));
+
+        /*
+         * "ABC" is 12 pixels wide, so it starts at 8 - 6 = 2
+         */
+        WidgetRasterizer.render(target, WidgetLayout.SMALL, null, createBlockFont(), "ABC"); //$NON-NLS-1$
+        assertFalse(target.get(1, 15));
+        assertTrue(target.get(2, 15));
+    }
+
+    /**
+     * Verifies that a character the font does not cover takes its place in the label: drawn from the fallback if that covers
+     * it, and as a hollow box the size of an 'X' otherwise.
+     */
+    @SmallTest
+    public static void testUncoveredCharacter()
+    {
+        final MonoFont font = createBlockFont();
+        assertTrue(font.covers("CAFE $5")); //$NON-NLS-1$
+        assertFalse(font.covers("CAF\u00C9")); //$NON-NLS-1$
+        assertEquals(4 * (4 << 6), font.measure("CAF\u00C9")); //$NON-NLS-1$
+
+        MonoBitmap target = new MonoBitmap(8, 8);
+        font.draw(target, "\u00C9", 0, 6); //$NON-NLS-1$
+        assertTrue(target.get(0, 1));
+        assertTrue(target.get(2, 5));
+        assertFalse(target.get(1, 3));
+
+        final MonoBitmap ink = new MonoBitmap(1, 1);
+        ink.set(0, 0, true);
+        final MonoFont fallback = new MonoFont('\u00C9', new MonoFont.Glyph[]
+            { new MonoFont.Glyph(2 << 6, 1, -1, ink) });
+        final MonoFont withFallback = font.withFallback(fallback);
+        assertEquals(3 * (4 << 6) + (2 << 6), withFallback.measure("CAF\u00C9")); //$NON-NLS-1$
+        assertEquals(4 * (4 << 6), font.measure("CAF\u00C9")); //$NON-NLS-1$
+        assertFalse(withFallback.covers("\u00C9")); //$NON-NLS-1$
+
+        target = new MonoBitmap(8, 8);
+        withFallback.draw(target, "\u00C9", 0, 6); //$NON-NLS-1$
+        assertTrue(target.get(1, 5));
+        assertFalse(target.get(0, 1));
+
+        target = new MonoBitmap(8, 8);
+        withFallback.draw(target, "\u20AC", 0, 6); //$NON-NLS-1$
+        assertTrue(target.get(0, 1));
+        assertFalse(target.get(1, 3));
+    }
+}
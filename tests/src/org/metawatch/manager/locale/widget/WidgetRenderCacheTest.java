@@ -0,0 +1,79 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at <http://www.apache.org/licenses/LICENSE-2.0>
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS"
+ * BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package org.metawatch.manager.locale.widget;
+
+import android.test.suitebuilder.annotation.SmallTest;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests {@link WidgetRenderCache}.
+ */
+public final class WidgetRenderCacheTest extends TestCase
+{
+    /**
+     * Verifies that a stored entry is returned for the same key and counted as a hit.
+     */
+    @SmallTest
+    public static void testHitAndMiss()
+    {
+        final WidgetRenderCache cache = new WidgetRenderCache(1024);
+        final MonoBitmap bitmap = new MonoBitmap(16, 16);
+
+        assertNull(cache.get("home", "HOME", 16, 16)); //$NON-NLS-1$ //$NON-NLS-2$
+        cache.put("home", "HOME", 16, 16, bitmap); //$NON-NLS-1$ //$NON-NLS-2$
+
+        assertSame(bitmap, cache.get("home", "HOME", 16, 16)); //$NON-NLS-1$ //$NON-NLS-2$
+        assertNull(cache.get("home", "HOME", 24, 32)); //$NON-NLS-1$ //$NON-NLS-2$
+        assertNull(cache.get("home", "AWAY", 16, 16)); //$NON-NLS-1$ //$NON-NLS-2$
+        assertNull(cache.get("car", "HOME", 16, 16)); //$NON-NLS-1$ //$NON-NLS-2$
+
+        assertEquals(1, cache.hitCount());
+        assertEquals(4, cache.missCount());
+        assertEquals(32, cache.size());
+        assertTrue(bitmap.isReadOnly());
+    }
+
+    /**
+     * Verifies that the least recently used entry is evicted once the byte limit is exceeded.
+     */
+    @SmallTest
+    public static void testEvictsLeastRecentlyUsed()
+    {
+        final WidgetRenderCache cache = new WidgetRenderCache(2 * 32);
+
+        cache.put("a", "", 16, 16, new MonoBitmap(16, 16)); //$NON-NLS-1$ //$NON-NLS-2$
+        cache.put("b", "", 16, 16, new MonoBitmap(16, 16)); //$NON-NLS-1$ //$NON-NLS-2$
+        assertNotNull(cache.get("a", "", 16, 16)); //$NON-NLS-1$ //$NON-NLS-2$
+        cache.put("c", "", 16, 16, new MonoBitmap(16, 16)); //$NON-NLS-1$ //$NON-NLS-2$
+
+        assertNotNull(cache.get("a", "", 16, 16)); //$NON-NLS-1$ //$NON-NLS-2$
+        assertNull(cache.get("b", "", 16, 16)); //$NON-NLS-1$ //$NON-NLS-2$
+        assertNotNull(cache.get("c", "", 16, 16)); //$NON-NLS-1$ //$NON-NLS-2$
+        assertEquals(1, cache.evictionCount());
+    }
+
+    /**
+     * Verifies that shrinking the cache evicts entries, and that a zero-sized cache stores nothing.
+     */
+    @SmallTest
+    public static void testResize()
+    {
+        final WidgetRenderCache cache = new WidgetRenderCache(1024);
+        cache.put("a", "", 16, 16, new MonoBitmap(16, 16)); //$NON-NLS-1$ //$NON-NLS-2$
+
+        cache.resize(0);
+        assertEquals(0, cache.size());
+        assertNull(cache.get("a", "", 16, 16)); //$NON-NLS-1$ //$NON-NLS-2$
+
+        cache.put("a", "", 16, 16, new MonoBitmap(16, 16)); //$NON-NLS-1$ //$NON-NLS-2$
+        assertEquals(0, cache.size());
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at <http://www.apache.org/licenses/LICENSE-2.0>
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS"
+ * BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package org.metawatch.manager.locale.widget;
+
+import android.os.Debug;
+import android.test.suitebuilder.annotation.SmallTest;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests {@link WidgetRenderContext}.
+ */
+public final class WidgetRenderContextTest extends TestCase
+{
+    /**
+     * Verifies that the derived strings match the layout's and are built once.
+     */
+    @SmallTest
+    public static void testMemoised()
+    {
+        final WidgetRenderContext context = new WidgetRenderContext(WidgetLayout.SMALL);
+
+        final String path = context.getIconPath("home"); //$NON-NLS-1$
+        assertEquals(WidgetLayout.SMALL.getIconPath("home"), path); //$NON-NLS-1$
+        assertSame(path, context.getIconPath(new String("home"))); //$NON-NLS-1$
+
+        final String widgetId = context.getWidgetId("a"); //$NON-NLS-1$
+        assertEquals(WidgetLayout.SMALL.getWidgetId("a"), widgetId); //$NON-NLS-1$
+        assertSame(widgetId, context.getWidgetId("a")); //$NON-NLS-1$
+
+        for (int i = 0; i < WidgetRenderContext.MAX_MEMO_SIZE * 2; i++)
+        {
+            assertEquals(WidgetLayout.SMALL.getWidgetId(Integer.toString(i)), context.getWidgetId(Integer.toString(i)));
+        }
+    }
+
+    /**
+     * Verifies that rendering into a reused target gives the same pixels as {@link WidgetRasterizer}.
+     */
+    @SmallTest
+    public static void testRender()
+    {
+        final MonoFont font = WidgetRasterizerTest.createBlockFont();
+        final WidgetRenderContext context = new WidgetRenderContext(WidgetLayout.LARGE);
+
+        final MonoBitmap expected = new MonoBitmap(24, 32);
+        WidgetRasterizer.render(expected, WidgetLayout.LARGE, null, font, "HI"); //$NON-NLS-1$
+
+        final MonoBitmap target = context.createTarget();
+        context.render(target, null, font, "LONGER LABEL"); //$NON-NLS-1$
+        context.render(target, null, font, "HI"); //$NON-NLS-1$
+        assertEquals(expected.fingerprint(), target.fingerprint());
+    }
+
+    /**
+     * Verifies that, once warmed up, updating an already rendered widget and re-rendering into a reused target allocate
+     * nothing.
+     */
+    @SmallTest
+    public static void testSteadyStateAllocatesNothing()
+    {
+        final MonoFont font = WidgetRasterizerTest.createBlockFont();
+        final WidgetRenderContext context = new WidgetRenderContext(WidgetLayout.LARGE);
+        final WidgetRenderCache cache = new WidgetRenderCache(1024);
+        final WidgetFingerprints fingerprints = new WidgetFingerprints();
+        final MonoBitmap target = context.createTarget();
+        final String icon = "home"; //$NON-NLS-1$
+        final String label = "HOME"; //$NON-NLS-1$
+
+        context.render(target, null, font, label);
+        cache.put(icon, label, 24, 32, context.createTarget());
+
+        for (int i = 0; i < 1000; i++)
+        {
+            update(context, cache, fingerprints, target, font, icon, label);
+        }
+
+        Debug.startAllocCounting();
+        try
+        {
+            Debug.resetThreadAllocCount();
+            for (int i = 0; i < 100; i++)
+            {
+                update(context, cache, fingerprints, target, font, icon, label);
+            }
+            assertEquals(0, Debug.getThreadAllocCount());
+        }
+        finally
+        {
+            Debug.stopAllocCounting();
+        }
+    }
+
+    /**
+     * The per-update work of the fire receiver up to building the broadcast, with a render added.
+     */
+    private static void update(final WidgetRenderContext context, final WidgetRenderCache cache, final WidgetFingerprints fingerprints,
+                               final MonoBitmap target, final MonoFont font, final String icon, final String label)
+    {
+        assertNotNull(cache.get(icon, label, 24, 32));
+        context.getIconPath(icon);
+        context.render(target, null, font, label);
+        fingerprints.shouldSend(context.getWidgetId("a"), target, WidgetPayload.FORMAT_ARGB, false); //$NON-NLS-1$
+    }
+}
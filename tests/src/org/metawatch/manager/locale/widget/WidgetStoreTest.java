@@ -0,0 +1,286 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at <http://www.apache.org/licenses/LICENSE-2.0>
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS"
+ * BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package org.metawatch.manager.locale.widget;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import android.test.suitebuilder.annotation.SmallTest;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests {@link WidgetStore}.
+ */
+public final class WidgetStoreTest extends TestCase
+{
+    private static final long STAMP = 42;
+
+    /**
+     * Runs background writes straight away, on the calling thread.
+     */
+    private static final Executor DIRECT = new Executor()
+    {
+        public void execute(final Runnable command)
+        {
+            command.run();
+        }
+    };
+
+    private File mFile;
+
+    private WidgetStore open(final long stamp)
+    {
+        return new WidgetStore(mFile, stamp, DIRECT, 0, null);
+    }
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+        mFile = File.createTempFile("widgets", ".store"); //$NON-NLS-1$ //$NON-NLS-2$
+        mFile.delete();
+    }
+
+    @Override
+    protected void tearDown() throws Exception
+    {
+        mFile.delete();
+        super.tearDown();
+    }
+
+    /**
+     * Verifies that stored widgets are read back by a new store, in order, with later records replacing earlier ones.
+     */
+    @SmallTest
+    public void testRoundTrip() throws IOException
+    {
+        final WidgetStore store = open(STAMP);
+        store.put(new WidgetStore.Entry("home", "a", "HOME")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        store.put(new WidgetStore.Entry("car", "b", "")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        store.put(new WidgetStore.Entry("work", "a", "WORK \u00E9")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+
+        final List<WidgetStore.Entry> entries = open(STAMP).getAll();
+        assertEquals(2, entries.size());
+        assertEquals(new WidgetStore.Entry("work", "a", "WORK \u00E9"), entries.get(0)); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        assertEquals(new WidgetStore.Entry("car", "b", ""), entries.get(1)); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        assertFalse(new File(mFile.getPath() + ".tmp").exists()); //$NON-NLS-1$
+    }
+
+    /**
+     * Verifies that a damaged file is treated as an empty store.
+     */
+    @SmallTest
+    public void testIgnoresCorruptFile() throws IOException
+    {
+        final WidgetStore store = open(STAMP);
+        store.put(new WidgetStore.Entry("home", "a", "HOME")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+
+        final byte[] data = WidgetStore.encode(store.getAll(), STAMP);
+        data[data.length - 6] ^= 1;
+        final FileOutputStream out = new FileOutputStream(mFile);
+        out.write(data);
+        out.close();
+
+        assertEquals(0, open(STAMP).size());
+    }
+
+    /**
+     * Verifies that stored bitmaps are read back while the render stamp matches, and dropped, keeping the widget, once it
+     * changes.
+     */
+    @SmallTest
+    public void testBitmapsInvalidatedByRenderStamp() throws IOException
+    {
+        final MonoBitmap small = new MonoBitmap(16, 16);
+        small.set(3, 4, true);
+        final MonoBitmap large = new MonoBitmap(24, 32);
+        large.set(23, 31, true);
+
+        open(STAMP).put(new WidgetStore.Entry("home", "a", "HOME", new MonoBitmap[] //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+            { small, large }));
+
+        final WidgetStore.Entry entry = open(STAMP).getAll().get(0);
+        assertEquals(small.fingerprint(), entry.getBitmap(16, 16).fingerprint());
+        assertEquals(large.fingerprint(), entry.getBitmap(24, 32).fingerprint());
+        assertNull(entry.getBitmap(8, 8));
+
+        final WidgetStore.Entry stale = open(STAMP + 1).getAll().get(0);
+        assertEquals("HOME", stale.getLabel()); //$NON-NLS-1$
+        assertNull(stale.getBitmap(16, 16));
+        assertNull(stale.getBitmap(24, 32));
+    }
+
+    /**
+     * Verifies that a widget is only reported as held when its latest record, written or not, has the same icon, label and
+     * pixels, and that the file is not read to find out.
+     */
+    @SmallTest
+    public void testContains() throws IOException
+    {
+        final MonoBitmap small = new MonoBitmap(16, 16);
+        small.set(3, 4, true);
+        final MonoBitmap copy = new MonoBitmap(16, 16);
+        copy.set(3, 4, true);
+        final MonoBitmap other = new MonoBitmap(16, 16);
+        final MonoBitmap[] bitmaps = new MonoBitmap[]
+            { small, null };
+
+        final WidgetStore store = open(STAMP);
+        assertFalse(store.contains("home", "a", "HOME", bitmaps, 1)); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        store.put(new WidgetStore.Entry("home", "a", "HOME", bitmaps, 1)); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+
+        assertTrue(store.contains("home", "a", "HOME", bitmaps, 1)); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        assertTrue(store.contains("home", "a", "HOME", new MonoBitmap[] //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+            { copy }, 1));
+        assertFalse(store.contains("home", "a", "HOME", new MonoBitmap[] //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+            { other }, 1));
+        assertFalse(store.contains("home", "a", "HOME", bitmaps, 0)); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        assertFalse(store.contains("home", "a", "WORK", bitmaps, 1)); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        assertFalse(store.contains("car", "a", "HOME", bitmaps, 1)); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        assertFalse(store.contains("home", "b", "HOME", bitmaps, 1)); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+
+        final WidgetStore reopened = open(STAMP);
+        assertFalse(reopened.contains("home", "a", "HOME", bitmaps, 1)); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        reopened.getAll();
+        assertTrue(reopened.contains("home", "a", "HOME", bitmaps, 1)); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+    }
+
+    /**
+     * Verifies that releasing memory drops the records only once they are written, and that they are read back afterwards.
+     */
+    @SmallTest
+    public void testReleaseMemory() throws IOException
+    {
+        final WidgetStore store = new WidgetStore(mFile, STAMP, new Executor()
+        {
+            public void execute(final Runnable command)
+            {
+                // never written in the background
+            }
+        }, 0, null);
+        store.put(new WidgetStore.Entry("home", "a", "HOME", new MonoBitmap[] //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+            { new MonoBitmap(24, 32) }));
+
+        assertEquals(1, store.size());
+        assertEquals(96, store.getLoadedByteCount());
+
+        store.releaseMemory();
+        assertEquals(96, store.getLoadedByteCount());
+
+        store.flush();
+        store.releaseMemory();
+        assertEquals(0, store.getLoadedByteCount());
+
+        assertEquals("HOME", store.getAll().get(0).getLabel()); //$NON-NLS-1$
+        assertEquals(96, store.getLoadedByteCount());
+    }
+
+    /**
+     * Verifies that puts never write on the calling thread, and that a burst of puts is written once, keeping the last put for
+     * each widget.
+     */
+    @SmallTest
+    public void testWritesBehindAndCoalesces() throws IOException
+    {
+        final List<Runnable> writes = new ArrayList<Runnable>();
+        final WidgetStore store = new WidgetStore(mFile, STAMP, new Executor()
+        {
+            public void execute(final Runnable command)
+            {
+                writes.add(command);
+            }
+        }, 0, null);
+
+        store.put(new WidgetStore.Entry("home", "a", "ONE")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        store.put(new WidgetStore.Entry("home", "a", "TWO")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        store.put(new WidgetStore.Entry("car", "b", "CAR")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+
+        assertFalse(mFile.exists());
+        assertEquals(1, writes.size());
+
+        writes.get(0).run();
+
+        assertEquals(1, store.getFlushCount());
+        final List<WidgetStore.Entry> entries = open(STAMP).getAll();
+        assertEquals(2, entries.size());
+        assertEquals("TWO", entries.get(0).getLabel()); //$NON-NLS-1$
+    }
+
+    /**
+     * Verifies that a failed background write is reported rather than swallowed.
+     */
+    @SmallTest
+    public void testReportsFailedWrite()
+    {
+        final List<IOException> failures = new ArrayList<IOException>();
+        final WidgetStore store = new WidgetStore(new File(mFile, "missing/widgets.store"), STAMP, DIRECT, 0, new WidgetStore.FlushListener() //$NON-NLS-1$
+        {
+            public void onFlushFailed(final WidgetStore failed, final IOException e)
+            {
+                failures.add(e);
+            }
+        });
+
+        store.put(new WidgetStore.Entry("home", "a", "HOME")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+
+        assertEquals(1, failures.size());
+        assertEquals(1, store.getFlushFailureCount());
+    }
+
+    /**
+     * Verifies that when the file cannot be read, every later put still schedules a flush, and the widgets are written once
+     * the file can be read again.
+     */
+    @SmallTest
+    public void testRetriesAfterFailedLoad() throws IOException
+    {
+        final List<Runnable> writes = new ArrayList<Runnable>();
+        final WidgetStore store = new WidgetStore(mFile, STAMP, new Executor()
+        {
+            public void execute(final Runnable command)
+            {
+                writes.add(command);
+            }
+        }, 0, null);
+
+        /*
+         * A directory in place of the file makes every load fail
+         */
+        assertTrue(mFile.mkdir());
+        try
+        {
+            for (final String label : new String[]
+                { "ONE", "TWO", "THREE" }) //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+            {
+                store.put(new WidgetStore.Entry("home", label, label)); //$NON-NLS-1$
+                assertEquals(1, writes.size());
+                writes.remove(0).run();
+            }
+            assertEquals(3, store.getFlushFailureCount());
+            assertEquals(0, store.getFlushCount());
+        }
+        finally
+        {
+            mFile.delete();
+        }
+
+        store.put(new WidgetStore.Entry("car", "FOUR", "FOUR")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        assertEquals(1, writes.size());
+        writes.remove(0).run();
+
+        assertEquals(1, store.getFlushCount());
+        assertEquals(4, open(STAMP).getAll().size());
+    }
+}
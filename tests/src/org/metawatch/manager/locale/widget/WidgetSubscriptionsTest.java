@@ -0,0 +1,59 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at <http://www.apache.org/licenses/LICENSE-2.0>
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS"
+ * BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package org.metawatch.manager.locale.widget;
+
+import android.content.Intent;
+import android.test.suitebuilder.annotation.SmallTest;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests {@link WidgetSubscriptions}.
+ */
+public final class WidgetSubscriptionsTest extends TestCase
+{
+    /**
+     * Verifies that every size is wanted until the manager lists the widgets it shows, and only those after.
+     */
+    @SmallTest
+    public static void testUpdate()
+    {
+        final WidgetSubscriptions subscriptions = new WidgetSubscriptions();
+        final String small = WidgetLayout.SMALL.getWidgetId("a"); //$NON-NLS-1$
+        final String large = WidgetLayout.LARGE.getWidgetId("a"); //$NON-NLS-1$
+        assertFalse(subscriptions.isKnown());
+        assertTrue(subscriptions.isWanted(small));
+        assertTrue(subscriptions.isWanted(large));
+
+        final Intent refresh = new Intent("org.metawatch.manager.REFRESH_WIDGET_REQUEST"); //$NON-NLS-1$
+        assertFalse(subscriptions.update(refresh));
+        assertFalse(subscriptions.isKnown());
+
+        refresh.putExtra(WidgetSubscriptions.EXTRA_WIDGETS_DESIRED, new String[]
+            { small, "weather_24_32" }); //$NON-NLS-1$
+        assertTrue(subscriptions.update(refresh));
+        assertTrue(subscriptions.isKnown());
+        assertTrue(subscriptions.isWanted(small));
+        assertFalse(subscriptions.isWanted(large));
+
+        /*
+         * A later request without the list keeps it
+         */
+        assertFalse(subscriptions.update(new Intent("org.metawatch.manager.REFRESH_WIDGET_REQUEST"))); //$NON-NLS-1$
+        assertFalse(subscriptions.isWanted(large));
+
+        refresh.putExtra(WidgetSubscriptions.EXTRA_WIDGETS_DESIRED, new String[0]);
+        assertTrue(subscriptions.update(refresh));
+        assertFalse(subscriptions.isWanted(small));
+
+        subscriptions.clear();
+        assertTrue(subscriptions.isWanted(large));
+    }
+}
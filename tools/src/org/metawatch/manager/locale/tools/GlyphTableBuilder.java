@@ -0,0 +1,168 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at <http://www.apache.org/licenses/LICENSE-2.0>
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS"
+ * BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package org.metawatch.manager.locale.tools;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.font.FontRenderContext;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+
+import org.metawatch.manager.locale.widget.GlyphTable;
+import org.metawatch.manager.locale.widget.MonoBitmap;
+import org.metawatch.manager.locale.widget.MonoFont;
+
+/**
+ * Builds the {@link GlyphTable} asset by rasterizing a TrueType font with Java2D.
+ * <p>
+ * Glyphs are drawn without antialiasing, as the app's {@code TypefaceGlyphs} draws them with Android's text rendering, and
+ * cropped to their ink. The label font is a pixel font drawn at its design size, so both rasterizers give the same pixels.
+ * Characters the font does not cover are left out of the table rather than drawn from a fallback font.
+ * <p>
+ * Usage: {@code GlyphTableBuilder <font file> <text size in pixels> <table file>}
+ */
+public final class GlyphTableBuilder
+{
+    /**
+     * First character rasterized: space.
+     */
+    private static final char FIRST_CHAR = ' ';
+
+    /**
+     * Last character rasterized: the end of Latin-1.
+     */
+    private static final char LAST_CHAR = '\u00FF';
+
+    /**
+     * Private constructor prevents instantiation
+     *
+     * @throws UnsupportedOperationException because this class cannot be instantiated.
+     */
+    private GlyphTableBuilder()
+    {
+        throw new UnsupportedOperationException("This class is non-instantiable"); //$NON-NLS-1$
+    }
+
+    /**
+     * @param args path of the font, the text size and the table file to write.
+     * @throws Exception if the font cannot be read or the table cannot be written.
+     */
+    public static void main(final String[] args) throws Exception
+    {
+        if (3 != args.length)
+        {
+            System.err.println("usage: GlyphTableBuilder <font file> <text size in pixels> <table file>"); //$NON-NLS-1$
+            System.exit(2);
+        }
+
+        final Font font = Font.createFont(Font.TRUETYPE_FONT, new File(args[0])).deriveFont(Float.parseFloat(args[1]));
+        final MonoFont table = rasterize(font);
+
+        final OutputStream out = new FileOutputStream(args[2]);
+        try
+        {
+            GlyphTable.write(table, out);
+        }
+        finally
+        {
+            out.close();
+        }
+
+        System.out.println(String.format("wrote %d glyphs, %d bytes of ink, to %s", Integer.valueOf(table.getGlyphCount()), //$NON-NLS-1$
+                                         Integer.valueOf(table.getByteCount()), args[2]));
+    }
+
+    /**
+     * @param font font to rasterize, at the text size to rasterize it at.
+     * @return a font holding every printable Latin-1 character {@code font} covers.
+     */
+    static MonoFont rasterize(final Font font)
+    {
+        final int margin = (int) Math.ceil(font.getSize2D());
+        final int size = 4 * margin;
+        final int baseline = 2 * margin;
+
+        final BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_BYTE_BINARY);
+        final Graphics2D graphics = image.createGraphics();
+        graphics.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_OFF);
+        graphics.setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS, RenderingHints.VALUE_FRACTIONALMETRICS_ON);
+        graphics.setFont(font);
+        final FontRenderContext context = graphics.getFontRenderContext();
+
+        final MonoFont.Glyph[] glyphs = new MonoFont.Glyph[LAST_CHAR - FIRST_CHAR + 1];
+        for (char c = FIRST_CHAR; c <= LAST_CHAR; c++)
+        {
+            if (Character.isISOControl(c) || !font.canDisplay(c))
+            {
+                continue;
+            }
+
+            final String text = String.valueOf(c);
+            final int advance = Math.round(font.createGlyphVector(context, text).getGlyphMetrics(0).getAdvance() * 64);
+
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, size, size);
+            graphics.setColor(Color.BLACK);
+            graphics.drawString(text, margin, baseline);
+
+            /*
+             * Crop to the ink, so drawing the glyph only touches the pixels it sets
+             */
+            int left = size;
+            int right = -1;
+            int top = size;
+            int bottom = -1;
+            for (int y = 0; y < size; y++)
+            {
+                for (int x = 0; x < size; x++)
+                {
+                    if (isInk(image, x, y))
+                    {
+                        left = Math.min(left, x);
+                        right = Math.max(right, x);
+                        top = Math.min(top, y);
+                        bottom = Math.max(bottom, y);
+                    }
+                }
+            }
+
+            if (right < left)
+            {
+                glyphs[c - FIRST_CHAR] = new MonoFont.Glyph(advance, 0, 0, null);
+                continue;
+            }
+
+            final MonoBitmap ink = new MonoBitmap(right - left + 1, bottom - top + 1);
+            for (int y = top; y <= bottom; y++)
+            {
+                for (int x = left; x <= right; x++)
+                {
+                    if (isInk(image, x, y))
+                    {
+                        ink.set(x - left, y - top, true);
+                    }
+                }
+            }
+            glyphs[c - FIRST_CHAR] = new MonoFont.Glyph(advance, left - margin, top - baseline, ink);
+        }
+        graphics.dispose();
+
+        return new MonoFont(FIRST_CHAR, glyphs);
+    }
+
+    private static boolean isInk(final BufferedImage image, final int x, final int y)
+    {
+        return MonoBitmap.ARGB_WHITE != image.getRGB(x, y);
+    }
+}
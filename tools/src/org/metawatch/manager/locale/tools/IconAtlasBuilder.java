@@ -0,0 +1,158 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at <http://www.apache.org/licenses/LICENSE-2.0>
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS"
+ * BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package org.metawatch.manager.locale.tools;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.metawatch.manager.locale.widget.BmpDecoder;
+import org.metawatch.manager.locale.widget.IconAtlas;
+import org.metawatch.manager.locale.widget.MonoBitmap;
+import org.metawatch.manager.locale.widget.WidgetLayout;
+import org.metawatch.manager.locale.widget.WidgetProfiles;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+/**
+ * Builds the {@link IconAtlas} asset from the icon BMPs.
+ * <p>
+ * The icons are the ones named in the {@code icons} string array of {@code res/values/arrays.xml}, for every widget size
+ * declared in the assets' {@link WidgetProfiles}, so adding an icon only takes its BMPs and a new entry in the array. Sizes
+ * without a BMP for an icon are left out, and drawn without the icon.
+ * <p>
+ * Usage: {@code IconAtlasBuilder <arrays.xml> <assets dir> <atlas file>}
+ */
+public final class IconAtlasBuilder
+{
+    /**
+     * Name of the string array listing the icons.
+     */
+    private static final String ICONS_ARRAY = "icons"; //$NON-NLS-1$
+
+    /**
+     * Private constructor prevents instantiation
+     *
+     * @throws UnsupportedOperationException because this class cannot be instantiated.
+     */
+    private IconAtlasBuilder()
+    {
+        throw new UnsupportedOperationException("This class is non-instantiable"); //$NON-NLS-1$
+    }
+
+    /**
+     * @param args path of {@code arrays.xml}, the assets directory and the atlas file to write.
+     * @throws Exception if the icons cannot be read or the atlas cannot be written.
+     */
+    public static void main(final String[] args) throws Exception
+    {
+        if (3 != args.length)
+        {
+            System.err.println("usage: IconAtlasBuilder <arrays.xml> <assets dir> <atlas file>"); //$NON-NLS-1$
+            System.exit(2);
+        }
+
+        final File assetsDir = new File(args[1]);
+        final WidgetLayout[] layouts = readProfiles(new File(assetsDir, WidgetProfiles.ASSET_PATH));
+        final Map<String, MonoBitmap> icons = new LinkedHashMap<String, MonoBitmap>();
+        for (final String name : readIconNames(new File(args[0])))
+        {
+            for (final WidgetLayout layout : layouts)
+            {
+                final String path = layout.getIconPath(name);
+                if (icons.containsKey(path))
+                {
+                    continue;
+                }
+
+                final File file = new File(assetsDir, path);
+                if (!file.exists())
+                {
+                    System.err.println(String.format("warning: %s is missing", file)); //$NON-NLS-1$
+                    continue;
+                }
+                icons.put(path, decode(file));
+            }
+        }
+
+        final OutputStream out = new FileOutputStream(args[2]);
+        try
+        {
+            IconAtlas.write(icons, out);
+        }
+        finally
+        {
+            out.close();
+        }
+
+        System.out.println(String.format("wrote %d icons to %s", Integer.valueOf(icons.size()), args[2])); //$NON-NLS-1$
+    }
+
+    /**
+     * @param arrays the {@code arrays.xml} resource file.
+     * @return the items of its {@code icons} string array.
+     * @throws Exception if the file cannot be parsed or has no such array.
+     */
+    private static String[] readIconNames(final File arrays) throws Exception
+    {
+        final Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(arrays);
+        final NodeList arrayList = document.getElementsByTagName("string-array"); //$NON-NLS-1$
+        for (int i = 0; i < arrayList.getLength(); i++)
+        {
+            final Element array = (Element) arrayList.item(i);
+            if (ICONS_ARRAY.equals(array.getAttribute("name"))) //$NON-NLS-1$
+            {
+                final NodeList items = array.getElementsByTagName("item"); //$NON-NLS-1$
+                final String[] names = new String[items.getLength()];
+                for (int j = 0; j < names.length; j++)
+                {
+                    names[j] = items.item(j).getTextContent().trim();
+                }
+                return names;
+            }
+        }
+
+        throw new IOException(String.format("%s has no string-array named %s", arrays, ICONS_ARRAY)); //$NON-NLS-1$
+    }
+
+    private static WidgetLayout[] readProfiles(final File file) throws IOException
+    {
+        final InputStream in = new FileInputStream(file);
+        try
+        {
+            return WidgetProfiles.read(in);
+        }
+        finally
+        {
+            in.close();
+        }
+    }
+
+    private static MonoBitmap decode(final File file) throws IOException
+    {
+        final InputStream in = new FileInputStream(file);
+        try
+        {
+            return BmpDecoder.decode(in);
+        }
+        finally
+        {
+            in.close();
+        }
+    }
+}